@@ -0,0 +1,63 @@
+package com.techhounds;
+
+import java.io.File;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point for the benchmark jar.
+ * <p>
+ * Accepts the standard JMH command line options, but defaults to writing JSON
+ * results to target/jmh-result.json and enables the GC profiler so each
+ * result includes the allocation rate (gc.alloc.rate.norm is bytes allocated
+ * per operation).
+ * </p>
+ */
+public final class Benchmarks {
+
+  /** Default location of the JSON report. */
+  private static final String DEFAULT_RESULT = "target/jmh-result.json";
+
+  /**
+   * Utility class, no instances.
+   */
+  private Benchmarks() {
+  }
+
+  /**
+   * Runs the benchmarks.
+   *
+   * @param args
+   *          Standard JMH command line options (for example a regular
+   *          expression to select benchmarks).
+   * @throws CommandLineOptionException
+   *           If the options are not valid.
+   * @throws RunnerException
+   *           If a benchmark fails.
+   */
+  public static void main(String[] args) throws CommandLineOptionException, RunnerException {
+    CommandLineOptions cmdLine = new CommandLineOptions(args);
+    OptionsBuilder builder = new OptionsBuilder();
+    builder.parent(cmdLine);
+    if (!cmdLine.getResultFormat().hasValue()) {
+      builder.resultFormat(ResultFormatType.JSON);
+    }
+    if (!cmdLine.getResult().hasValue()) {
+      new File(DEFAULT_RESULT).getParentFile().mkdirs();
+      builder.result(DEFAULT_RESULT);
+    }
+    if (cmdLine.getProfilers().isEmpty()) {
+      builder.addProfiler(GCProfiler.class);
+    }
+    Options opts = builder.build();
+    new Runner(opts).run();
+  }
+
+}
@@ -0,0 +1,173 @@
+package com.techhounds.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link Matrix} operations and solvers compared against the naive double[][]
+ * code that allocates a new array for every result. The system is the 2N x 3
+ * module matrix of a robot with {@link #modules} swerve modules (scores are
+ * per least squares solve of the chassis velocity).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MatrixBenchmark {
+
+  /** Number of modules (the system has 2 rows per module). */
+  @Param({"4", "64"})
+  public int modules;
+
+  private Matrix a;
+  private Matrix b;
+  private Matrix at;
+  private Matrix ata;
+  private Matrix atb;
+  private Matrix x;
+  private CholeskyDecomposition chol;
+  private QrDecomposition qr;
+
+  private double[][] a2d;
+  private double[][] b2d;
+
+  @Setup
+  public void setup() {
+    int rows = modules * 2;
+    a = new Matrix(rows, 3);
+    b = new Matrix(rows, 1);
+    at = new Matrix(3, rows);
+    ata = new Matrix(3, 3);
+    atb = new Matrix(3, 1);
+    x = new Matrix(3, 1);
+    chol = new CholeskyDecomposition(3);
+    qr = new QrDecomposition(rows, 3);
+    a2d = new double[rows][3];
+    b2d = new double[rows][1];
+    for (int i = 0; i < modules; i++) {
+      double angle = 2 * Math.PI * i / modules;
+      double px = 10 * Math.cos(angle);
+      double py = 15 * Math.sin(angle);
+      a.set(i * 2, 0, 1);
+      a.set(i * 2, 2, -py);
+      a.set(i * 2 + 1, 1, 1);
+      a.set(i * 2 + 1, 2, px);
+      b.set(i * 2, 0, 0.5 + 0.2 * py);
+      b.set(i * 2 + 1, 0, -0.25 - 0.2 * px);
+    }
+    for (int r = 0; r < rows; r++) {
+      for (int c = 0; c < 3; c++) {
+        a2d[r][c] = a.get(r, c);
+      }
+      b2d[r][0] = b.get(r, 0);
+    }
+  }
+
+  @Benchmark
+  public Matrix normalEquationsCholesky() {
+    Matrix.multiplyTransposeA(a, a, ata);
+    Matrix.multiplyTransposeA(a, b, atb);
+    chol.decompose(ata);
+    return chol.solve(atb, x);
+  }
+
+  @Benchmark
+  public Matrix leastSquaresQr() {
+    qr.decompose(a);
+    return qr.solve(b, x);
+  }
+
+  @Benchmark
+  public double[][] naiveNormalEquations() {
+    double[][] at = transpose(a2d);
+    return solve(multiply(at, a2d), multiply(at, b2d));
+  }
+
+  @Benchmark
+  public Matrix transpose() {
+    return Matrix.transpose(a, at);
+  }
+
+  @Benchmark
+  public double[][] naiveTranspose() {
+    return transpose(a2d);
+  }
+
+  private static double[][] transpose(double[][] m) {
+    double[][] t = new double[m[0].length][m.length];
+    for (int r = 0; r < m.length; r++) {
+      for (int c = 0; c < m[0].length; c++) {
+        t[c][r] = m[r][c];
+      }
+    }
+    return t;
+  }
+
+  private static double[][] multiply(double[][] a, double[][] b) {
+    double[][] p = new double[a.length][b[0].length];
+    for (int r = 0; r < a.length; r++) {
+      for (int c = 0; c < b[0].length; c++) {
+        double sum = 0;
+        for (int i = 0; i < b.length; i++) {
+          sum += a[r][i] * b[i][c];
+        }
+        p[r][c] = sum;
+      }
+    }
+    return p;
+  }
+
+  // Gaussian elimination with partial pivoting on copies of the inputs
+  private static double[][] solve(double[][] a, double[][] b) {
+    int n = a.length;
+    double[][] m = new double[n][];
+    double[][] x = new double[n][];
+    for (int i = 0; i < n; i++) {
+      m[i] = a[i].clone();
+      x[i] = b[i].clone();
+    }
+    for (int k = 0; k < n; k++) {
+      int p = k;
+      for (int i = k + 1; i < n; i++) {
+        if (Math.abs(m[i][k]) > Math.abs(m[p][k])) {
+          p = i;
+        }
+      }
+      double[] t = m[k];
+      m[k] = m[p];
+      m[p] = t;
+      t = x[k];
+      x[k] = x[p];
+      x[p] = t;
+      for (int i = k + 1; i < n; i++) {
+        double f = m[i][k] / m[k][k];
+        for (int j = k; j < n; j++) {
+          m[i][j] -= f * m[k][j];
+        }
+        x[i][0] -= f * x[k][0];
+      }
+    }
+    for (int k = n - 1; k >= 0; k--) {
+      double s = x[k][0];
+      for (int j = k + 1; j < n; j++) {
+        s -= m[k][j] * x[j][0];
+      }
+      x[k][0] = s / m[k][k];
+    }
+    return x;
+  }
+
+}
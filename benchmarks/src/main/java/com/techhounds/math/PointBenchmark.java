@@ -0,0 +1,108 @@
+package com.techhounds.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Per-object {@link CartesianPoint} and {@link PolarPoint} operations.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PointBenchmark {
+
+  /** Number of distinct input values to cycle through. */
+  private static final int COUNT = 1024;
+
+  /** Which trig provider to use. */
+  @Param({"exact", "fast"})
+  public String trig;
+
+  private double[] xs;
+  private double[] ys;
+  private double[] angles;
+  private CartesianPoint cartesian;
+  private PolarPoint polar;
+  private int idx;
+
+  @Setup
+  public void setup() {
+    Trig.setFast("fast".equals(trig));
+    xs = new double[COUNT];
+    ys = new double[COUNT];
+    angles = new double[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      double theta = -Math.PI + (2 * Math.PI * i) / COUNT;
+      xs[i] = Math.cos(theta) * (1 + i % 7);
+      ys[i] = Math.sin(theta) * (1 + i % 7);
+      angles[i] = theta;
+    }
+    cartesian = new CartesianPoint();
+    polar = new PolarPoint();
+  }
+
+  /**
+   * Get the index of the next input value.
+   *
+   * @return Index in range of [0, COUNT).
+   */
+  private int next() {
+    idx = (idx + 1) & (COUNT - 1);
+    return idx;
+  }
+
+  @Benchmark
+  public double computeTheta() {
+    int i = next();
+    return CartesianPoint.computeTheta(xs[i], ys[i]);
+  }
+
+  @Benchmark
+  public double computeR() {
+    int i = next();
+    return CartesianPoint.computeR(xs[i], ys[i]);
+  }
+
+  @Benchmark
+  public PolarPoint cartesianToPolar() {
+    int i = next();
+    cartesian.set(xs[i], ys[i]);
+    return cartesian.toPolar(polar);
+  }
+
+  @Benchmark
+  public CartesianPoint polarToCartesian() {
+    int i = next();
+    polar.setR(xs[i]);
+    polar.setTheta(ys[i]);
+    return polar.toCartesian(cartesian);
+  }
+
+  @Benchmark
+  public CartesianPoint rotate() {
+    int i = next();
+    cartesian.set(xs[i], ys[i]);
+    return cartesian.rotate(1.0, -1.0, 0.25);
+  }
+
+  @Benchmark
+  public double computeShortestPath() {
+    int i = next();
+    return PolarPoint.computeShortestPath(angles[i], angles[(i * 7) & (COUNT - 1)]);
+  }
+
+}
@@ -0,0 +1,93 @@
+package com.techhounds.math;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Batch {@link PointConverter} conversions compared against converting the
+ * same points one {@link PolarPoint}/{@link CartesianPoint} at a time (scores
+ * are per batch of {@link #size} points).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "--add-modules=jdk.incubator.vector")
+public class PointConversionBenchmark {
+
+  /** Which converter to use for the batch benchmarks. */
+  @Param({"scalar", "vector"})
+  public String mode;
+
+  /** Number of points per batch. */
+  @Param({"1024"})
+  public int size;
+
+  private PointConverter converter;
+  private double[] x;
+  private double[] y;
+  private double[] r;
+  private double[] theta;
+  private CartesianPoint[] cartesian;
+  private PolarPoint[] polar;
+
+  @Setup
+  public void setup() {
+    converter = PointConversions.get("vector".equals(mode));
+    x = new double[size];
+    y = new double[size];
+    r = new double[size];
+    theta = new double[size];
+    cartesian = new CartesianPoint[size];
+    polar = new PolarPoint[size];
+    for (int i = 0; i < size; i++) {
+      r[i] = 1.0 + (i % 17);
+      theta[i] = -Math.PI + (2 * Math.PI * i) / size;
+      x[i] = r[i] * Math.cos(theta[i]);
+      y[i] = r[i] * Math.sin(theta[i]);
+      cartesian[i] = new CartesianPoint(x[i], y[i]);
+      polar[i] = new PolarPoint(r[i], theta[i]);
+    }
+  }
+
+  @Benchmark
+  public double[] batchToCartesian() {
+    converter.toCartesian(r, theta, x, y, size);
+    return x;
+  }
+
+  @Benchmark
+  public double[] batchToPolar() {
+    converter.toPolar(x, y, r, theta, size);
+    return r;
+  }
+
+  @Benchmark
+  public CartesianPoint[] perObjectToCartesian() {
+    for (int i = 0; i < size; i++) {
+      polar[i].toCartesian(cartesian[i]);
+    }
+    return cartesian;
+  }
+
+  @Benchmark
+  public PolarPoint[] perObjectToPolar() {
+    for (int i = 0; i < size; i++) {
+      cartesian[i].toPolar(polar[i]);
+    }
+    return polar;
+  }
+
+}
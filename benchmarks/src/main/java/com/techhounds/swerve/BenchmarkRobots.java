@@ -0,0 +1,32 @@
+package com.techhounds.swerve;
+
+/**
+ * Builds the robots used by the benchmarks.
+ */
+final class BenchmarkRobots {
+
+  /**
+   * Utility class, no instances.
+   */
+  private BenchmarkRobots() {
+  }
+
+  /**
+   * Creates a robot with the modules evenly spaced around a circle (a 4 module
+   * robot has a module at each corner of a square).
+   *
+   * @param modules
+   *          Number of swerve modules.
+   * @return The wheels making up the robot.
+   */
+  static SwerveWheels create(int modules) {
+    SwerveWheels wheels = new SwerveWheels();
+    double radius = 15;
+    for (int i = 0; i < modules; i++) {
+      double theta = Math.PI / 4 + (2 * Math.PI * i) / modules;
+      wheels.add(new SwerveWheel(radius * Math.cos(theta), radius * Math.sin(theta), 4, 1));
+    }
+    return wheels;
+  }
+
+}
@@ -0,0 +1,60 @@
+package com.techhounds.swerve;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * {@link PoseEstimator} updates (forward kinematics, prediction and gyro
+ * correction) from module states that are already computed.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PoseEstimatorBenchmark {
+
+  /** Number of swerve modules on the robot. */
+  @Param({"4", "64"})
+  public int modules;
+
+  private SwerveWheels wheels;
+  private PoseEstimator estimator;
+  private double heading;
+
+  @Setup
+  public void setup() {
+    wheels = BenchmarkRobots.create(modules);
+    wheels.setDirection(0.5, 0.75, 0.25);
+    estimator = new PoseEstimator(new ForwardKinematics(wheels));
+  }
+
+  @Benchmark
+  public PoseEstimator update() {
+    heading += 0.001;
+    if (heading > Math.PI) {
+      heading -= 2 * Math.PI;
+    }
+    estimator.update(wheels, heading, 0.001);
+    return estimator;
+  }
+
+  @Benchmark
+  public PoseEstimator predict() {
+    estimator.predict(wheels, 0.001);
+    return estimator;
+  }
+
+}
@@ -0,0 +1,81 @@
+package com.techhounds.swerve;
+
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Offscreen rendering of {@link SwerveViewer#paintComponent(java.awt.Graphics)}
+ * into a {@link BufferedImage} (scores are frames per second).
+ * <p>
+ * {@link #paintComponent()} publishes a new snapshot before each frame, so the
+ * frame is rendered again (through the back buffer when {@link #backBuffered}
+ * is set). {@link #paintCached()} repaints an unchanged robot.
+ * </p>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Djava.awt.headless=true")
+public class SwerveViewerBenchmark {
+
+  /** Number of swerve modules on the robot. */
+  @Param({"4", "64", "1000"})
+  public int modules;
+
+  /** Whether the viewer renders into its back buffer. */
+  @Param({"true", "false"})
+  public boolean backBuffered;
+
+  private SwerveViewer viewer;
+  private BufferedImage image;
+  private Graphics2D g;
+
+  @Setup
+  public void setup() {
+    viewer = new SwerveViewer();
+    SwerveWheels robot = BenchmarkRobots.create(modules);
+    for (int i = 0; i < modules; i++) {
+      viewer.addWheel(robot.getSwerveWheel(i));
+    }
+    viewer.setSize(viewer.getPreferredSize());
+    viewer.setBackBuffered(backBuffered);
+    viewer.getWheels().setDirection(0.5, 0.25, 0.25);
+    image = new BufferedImage(viewer.getWidth(), viewer.getHeight(), BufferedImage.TYPE_INT_RGB);
+    g = image.createGraphics();
+  }
+
+  @TearDown
+  public void tearDown() {
+    g.dispose();
+  }
+
+  @Benchmark
+  public BufferedImage paintComponent() {
+    viewer.getWheels().publish();
+    viewer.paintComponent(g);
+    return image;
+  }
+
+  @Benchmark
+  public BufferedImage paintCached() {
+    viewer.paintComponent(g);
+    return image;
+  }
+
+}
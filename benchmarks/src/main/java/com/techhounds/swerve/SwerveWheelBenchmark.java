@@ -0,0 +1,75 @@
+package com.techhounds.swerve;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.techhounds.math.CartesianPoint;
+import com.techhounds.math.Trig;
+
+/**
+ * Single {@link SwerveWheel} kinematics.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwerveWheelBenchmark {
+
+  /** Number of distinct commands to cycle through. */
+  private static final int COUNT = 1024;
+
+  /** Which trig provider to use. */
+  @Param({"exact", "fast"})
+  public String trig;
+
+  private SwerveWheel wheel;
+  private double[] ux;
+  private double[] uy;
+  private double[] rot;
+  private CartesianPoint pt;
+  private int idx;
+
+  @Setup
+  public void setup() {
+    Trig.setFast("fast".equals(trig));
+    wheel = new SwerveWheel(10, 15, 4, 1);
+    pt = new CartesianPoint();
+    ux = new double[COUNT];
+    uy = new double[COUNT];
+    rot = new double[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      // Sweep direction (forcing some motor reversals) with varying rotation
+      double theta = (i * 2.3) % (2 * Math.PI);
+      ux[i] = Math.cos(theta) * 0.75;
+      uy[i] = Math.sin(theta) * 0.75;
+      rot[i] = ((i % 9) - 4) / 16.0;
+    }
+  }
+
+  @Benchmark
+  public SwerveWheel setDirection() {
+    int i = idx = (idx + 1) & (COUNT - 1);
+    wheel.setDirection(ux[i], uy[i], rot[i]);
+    return wheel;
+  }
+
+  @Benchmark
+  public CartesianPoint transform() {
+    int i = idx = (idx + 1) & (COUNT - 1);
+    return wheel.transform(ux[i], uy[i], pt);
+  }
+
+}
@@ -0,0 +1,78 @@
+package com.techhounds.swerve;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Whole robot ({@link SwerveWheels}) kinematics for different module counts.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SwerveWheelsBenchmark {
+
+  /** Number of swerve modules on the robot. */
+  @Param({"4", "8", "64"})
+  public int modules;
+
+  private SwerveWheels wheels;
+  private SwerveFleet fleet;
+  private double t;
+  private boolean toggle;
+
+  @Setup
+  public void setup() {
+    wheels = BenchmarkRobots.create(modules);
+    fleet = new SwerveFleet();
+    fleet.addRobot(wheels);
+  }
+
+  /**
+   * Moves the turn center so every wheel's turn geometry is recomputed.
+   */
+  @Benchmark
+  public SwerveWheel apply() {
+    toggle = !toggle;
+    wheels.setTurn(toggle ? 5 : -5, 2);
+    return wheels.getSwerveWheel(0);
+  }
+
+  /**
+   * Changes the translation angle (reuses the cached turn geometry).
+   */
+  @Benchmark
+  public SwerveWheel setTranslation() {
+    toggle = !toggle;
+    wheels.setTranslation(toggle ? 0.5 : -0.5);
+    return wheels.getSwerveWheel(0);
+  }
+
+  @Benchmark
+  public SwerveWheels setDirection() {
+    t += 0.01;
+    wheels.setDirection(Math.cos(t), Math.sin(t), 0.25);
+    return wheels;
+  }
+
+  @Benchmark
+  public SwerveFleet fleetSetDirection() {
+    t += 0.01;
+    fleet.setDirection(Math.cos(t), Math.sin(t), 0.25);
+    return fleet;
+  }
+
+}
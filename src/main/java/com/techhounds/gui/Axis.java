@@ -1,10 +1,18 @@
 package com.techhounds.gui;
 
-import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * An abstract representation of a jostick axis that has a range of [-1.0,
  * +1.0].
+ * <p>
+ * Listeners are kept in a copy-on-write array, so they can be added and
+ * removed from any thread while another thread sets the position, and setting
+ * the position does not allocate (so replay and scripted inputs can push
+ * millions of updates per second). Listeners are only notified when the
+ * position actually changes. The position should be set from one thread at a
+ * time.
+ * </p>
  */
 public final class Axis {
 
@@ -13,17 +21,21 @@ public final class Axis {
    */
   private double position;
 
+  /** Shared empty listener array. */
+  private static final AxisListener[] NO_LISTENERS = new AxisListener[0];
+
   /**
-   * Listeners to notify if position is updated.
+   * Listeners to notify if position is updated (replaced, never modified, when
+   * listeners are added or removed).
    */
-  private final ArrayList<AxisListener> listeners;
+  private volatile AxisListener[] listeners;
 
   /**
    * Construct a new instance with an initial position of 0.0.
    */
   public Axis() {
     position = 0.0;
-    listeners = new ArrayList<AxisListener>();
+    listeners = NO_LISTENERS;
   }
 
   /**
@@ -44,10 +56,50 @@ public final class Axis {
    */
   public void setPosition(double newPosition) {
     double oldPos = position;
-    position = Math.max(-1.0, Math.min(+1.0, newPosition));
+    double pos = Math.max(-1.0, Math.min(+1.0, newPosition));
+    if (pos == oldPos) {
+      return;
+    }
+    position = pos;
+    final AxisListener[] snapshot = listeners;
+    for (int i = 0; i < snapshot.length; i++) {
+      snapshot[i].valueUpdated(pos, oldPos);
+    }
+  }
 
-    // Not sure if lambda expressions are growing on me yet or not
-    listeners.forEach(name -> name.valueUpdated(this.position, oldPos));
+  /**
+   * Set the position to each of a sequence of values in turn (like the axis
+   * records of a replay or a scripted input), notifying the listeners of each
+   * change.
+   *
+   * @param values
+   *          Positions to set (values outside of [-1.0, +1.0] are forced to
+   *          this range).
+   * @param offset
+   *          Index of the first value to set.
+   * @param length
+   *          Number of values to set.
+   * @return Number of values that changed the position.
+   */
+  public int setPositions(double[] values, int offset, int length) {
+    if (offset < 0 || length < 0 || offset + length > values.length) {
+      throw new IndexOutOfBoundsException("Range [" + offset + ", " + (offset + length) + ") of " + values.length);
+    }
+    final AxisListener[] snapshot = listeners;
+    double pos = position;
+    int changes = 0;
+    for (int i = offset, end = offset + length; i < end; i++) {
+      double oldPos = pos;
+      pos = Math.max(-1.0, Math.min(+1.0, values[i]));
+      if (pos != oldPos) {
+        position = pos;
+        changes++;
+        for (int j = 0; j < snapshot.length; j++) {
+          snapshot[j].valueUpdated(pos, oldPos);
+        }
+      }
+    }
+    return changes;
   }
 
   /**
@@ -57,12 +109,15 @@ public final class Axis {
    *          Must not be null. If listener is already registered, the request
    *          is ignored (we won't add the same listener twice).
    */
-  public void addAxisListener(AxisListener listener) {
+  public synchronized void addAxisListener(AxisListener listener) {
     if (listener == null) {
       throw new NullPointerException();
     }
-    if (!listeners.contains(listener)) {
-      listeners.add(listener);
+    AxisListener[] old = listeners;
+    if (indexOf(old, listener) < 0) {
+      AxisListener[] copy = Arrays.copyOf(old, old.length + 1);
+      copy[old.length] = listener;
+      listeners = copy;
     }
   }
 
@@ -75,8 +130,46 @@ public final class Axis {
    *          listener that is not currently registered - we just don't do
    *          anything).
    */
-  public void removeAxisListener(AxisListener listener) {
-    listeners.remove(listener);
+  public synchronized void removeAxisListener(AxisListener listener) {
+    AxisListener[] old = listeners;
+    int idx = indexOf(old, listener);
+    if (idx >= 0) {
+      if (old.length == 1) {
+        listeners = NO_LISTENERS;
+      } else {
+        AxisListener[] copy = new AxisListener[old.length - 1];
+        System.arraycopy(old, 0, copy, 0, idx);
+        System.arraycopy(old, idx + 1, copy, idx, old.length - idx - 1);
+        listeners = copy;
+      }
+    }
+  }
+
+  /**
+   * Get the number of listeners registered.
+   *
+   * @return Listener count.
+   */
+  public int getListenerCount() {
+    return listeners.length;
+  }
+
+  /**
+   * Helper method to find a listener.
+   *
+   * @param array
+   *          Listeners to search.
+   * @param listener
+   *          Listener to look for (may be null).
+   * @return Index of listener or -1 if not found.
+   */
+  private static int indexOf(AxisListener[] array, AxisListener listener) {
+    for (int i = 0; i < array.length; i++) {
+      if (array[i].equals(listener)) {
+        return i;
+      }
+    }
+    return -1;
   }
 
 }
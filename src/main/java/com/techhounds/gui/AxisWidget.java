@@ -49,6 +49,9 @@ public class AxisWidget extends JComponent implements AxisListener, MouseListene
   /** The size of the square to draw the widget on. */
   private int sideLen;
 
+  /** Frame that each mouse update of both axes is applied in. */
+  private InputFrame frame;
+
   /**
    * Construct a new instance of the widget and associate with pre-existing
    * x-axis and y-axis trackers.
@@ -64,6 +67,7 @@ public class AxisWidget extends JComponent implements AxisListener, MouseListene
     super();
     this.xaxis = xaxis;
     this.yaxis = yaxis;
+    frame = new InputFrame(xaxis, yaxis);
     markerSize = 10;
     sideLen = 200;
     format = NumberFormat.getNumberInstance();
@@ -106,6 +110,31 @@ public class AxisWidget extends JComponent implements AxisListener, MouseListene
     return yaxis;
   }
 
+  /**
+   * Get the frame that mouse updates of both axes are applied in (listen to it
+   * to get one update per mouse move instead of one per axis).
+   *
+   * @return The frame (never null).
+   */
+  public final InputFrame getInputFrame() {
+    return frame;
+  }
+
+  /**
+   * Apply mouse updates in a different frame (like one shared with the axes of
+   * other widgets).
+   *
+   * @param frame
+   *          The frame to begin and end around each update (must not be null
+   *          and should include both axes of this widget).
+   */
+  public final void setInputFrame(InputFrame frame) {
+    if (frame == null) {
+      throw new NullPointerException();
+    }
+    this.frame = frame;
+  }
+
   /**
    * Draws the component (small circle marker on square with x and y values
    * displayed).
@@ -254,8 +283,14 @@ public class AxisWidget extends JComponent implements AxisListener, MouseListene
       }
       x -= 1.0;
       y -= 1.0;
-      xaxis.setPosition(x);
-      yaxis.setPosition(y);
+      // Both axes change together - listeners of the frame see one update
+      frame.begin();
+      try {
+        xaxis.setPosition(x);
+        yaxis.setPosition(y);
+      } finally {
+        frame.end();
+      }
     } else {
       removeMouseMotionListener(this);
     }
@@ -0,0 +1,54 @@
+package com.techhounds.gui;
+
+/**
+ * Treats inputs close to 0 as 0 (so a joystick that doesn't center exactly
+ * doesn't creep) and rescales the rest so full deflection still reaches 1.0.
+ */
+public final class Deadband implements InputFilter {
+
+  /** Inputs with a magnitude below this are treated as 0. */
+  private final double deadband;
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param deadband
+   *          Inputs with a magnitude below this are treated as 0 (in the range
+   *          of [0, 1.0)).
+   */
+  public Deadband(double deadband) {
+    if (!(deadband >= 0 && deadband < 1.0)) {
+      throw new IllegalArgumentException("Deadband must be in the range of [0, 1.0): " + deadband);
+    }
+    this.deadband = deadband;
+  }
+
+  /**
+   * Applies a deadband to a single input (without the range check or state of
+   * an instance, so value objects can share the math).
+   *
+   * @param value
+   *          Input in the range of [-1.0, +1.0].
+   * @param deadband
+   *          Inputs with a magnitude below this are treated as 0.
+   * @return 0 inside the deadband, otherwise value rescaled to [-1.0, +1.0].
+   */
+  public static double applyDeadband(double value, double deadband) {
+    double mag = Math.abs(value);
+    if (mag < deadband) {
+      return 0;
+    }
+    double scaled = (mag - deadband) / (1.0 - deadband);
+    return (value < 0) ? -scaled : scaled;
+  }
+
+  @Override
+  public double apply(double value, double dt) {
+    return applyDeadband(value, deadband);
+  }
+
+  @Override
+  public void reset() {
+  }
+
+}
@@ -0,0 +1,36 @@
+package com.techhounds.gui;
+
+/**
+ * Blends a linear and a cubic response ({@code (1 - expo) * x + expo * x^3})
+ * to give finer control near the center of a joystick while still reaching
+ * 1.0 at full deflection.
+ */
+public final class ExpoCurve implements InputFilter {
+
+  /** Weight of the cubic term. */
+  private final double expo;
+
+  /**
+   * Constructs a new instance.
+   *
+   * @param expo
+   *          Weight of the cubic term in the range of [0, 1.0] (0 is linear, 1.0
+   *          is fully cubic).
+   */
+  public ExpoCurve(double expo) {
+    if (!(expo >= 0 && expo <= 1.0)) {
+      throw new IllegalArgumentException("Expo must be in the range of [0, 1.0]: " + expo);
+    }
+    this.expo = expo;
+  }
+
+  @Override
+  public double apply(double value, double dt) {
+    return value * ((1.0 - expo) + expo * value * value);
+  }
+
+  @Override
+  public void reset() {
+  }
+
+}
@@ -0,0 +1,22 @@
+package com.techhounds.gui;
+
+/**
+ * Methods that must be implemented by objects that consume the input records
+ * drained from an {@link InputEventQueue}.
+ */
+public interface InputEventHandler {
+
+  /**
+   * Method that is invoked for each record drained from the queue (in the
+   * order the records were offered).
+   *
+   * @param nanos
+   *          Time stamp of the record (System.nanoTime() when it was offered).
+   * @param channel
+   *          Identifies the axis (or other input) the record is for.
+   * @param value
+   *          The new value of the channel.
+   */
+  void inputEvent(long nanos, int channel, double value);
+
+}
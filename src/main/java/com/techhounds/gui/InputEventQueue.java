@@ -0,0 +1,287 @@
+package com.techhounds.gui;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.techhounds.metrics.Metrics;
+
+/**
+ * Lock-free hand off of input records (time stamp, channel, value) from the
+ * Swing event thread to a control thread.
+ * <p>
+ * This is a single producer, single consumer ring buffer. The records are kept
+ * in parallel primitive arrays, so offering and draining never allocate. The
+ * producer publishes a record with one ordered write of its tail index and the
+ * consumer frees slots with one ordered write of its head index. The producer
+ * caches the head index and only re-reads it when the ring looks full, and the
+ * consumer reads the tail index once per drain, so the two threads rarely touch
+ * the same cache line.
+ * </p>
+ * <p>
+ * Inputs are treated as latest-value channels: only the newest value of a
+ * channel matters. When the ring is full the event thread is never blocked and
+ * the newest input is never lost. Instead the record is kept in a slot for its
+ * channel (replacing any older value waiting there) and the following records
+ * go to those slots too until the consumer has caught up. The consumer
+ * delivers the slots after emptying the ring, so values still arrive in order.
+ * Only channels in the range of [0, {@link #COALESCED_CHANNELS}) have slots,
+ * records for other channels are dropped (and counted) when the ring is full.
+ * </p>
+ * <p>
+ * The consumer normally drains the queue once per control tick (see
+ * {@link #drain(InputEventHandler)}), so the kinematics run on the control
+ * thread at a fixed rate no matter how slow or bursty the event thread is.
+ * There may be only one producer thread and one consumer thread.
+ * </p>
+ */
+public final class InputEventQueue {
+
+  /** Default number of records the ring can hold. */
+  public static final int DEFAULT_CAPACITY = 1024;
+
+  /** Number of channels that keep their latest value when the ring is full. */
+  public static final int COALESCED_CHANNELS = 64;
+
+  /** Capacity - 1 (capacity is a power of 2). */
+  private final int mask;
+
+  /** Time stamp of each record. */
+  private final long[] nanos;
+
+  /** Channel of each record. */
+  private final int[] channels;
+
+  /** Value of each record. */
+  private final double[] values;
+
+  /** Index of the next record to drain (written by consumer only). */
+  private final AtomicLong head = new AtomicLong();
+
+  /** Index of the next record to offer (written by producer only). */
+  private final AtomicLong tail = new AtomicLong();
+
+  /** Producer's copy of the head index from the last time it looked full. */
+  private long cachedHead;
+
+  /** Time stamp of the latest value kept for each channel while the ring was full. */
+  private final AtomicLongArray latestNanos = new AtomicLongArray(COALESCED_CHANNELS);
+
+  /** Latest value (raw double bits) kept for each channel while the ring was full. */
+  private final AtomicLongArray latestValues = new AtomicLongArray(COALESCED_CHANNELS);
+
+  /** Bit set of channels with a latest value waiting to be drained. */
+  private final AtomicLong pending = new AtomicLong();
+
+  /** Number of records dropped because the ring was full. */
+  private volatile long dropped;
+
+  /** Number of records kept as the latest value of their channel instead of in the ring. */
+  private volatile long coalesced;
+
+  /**
+   * Constructs a new queue that holds {@link #DEFAULT_CAPACITY} records.
+   */
+  public InputEventQueue() {
+    this(DEFAULT_CAPACITY);
+  }
+
+  /**
+   * Constructs a new queue.
+   *
+   * @param capacity
+   *          Minimum number of records the ring must hold (rounded up to a
+   *          power of 2, must be positive).
+   */
+  public InputEventQueue(int capacity) {
+    if (capacity <= 0 || capacity > (1 << 30)) {
+      throw new IllegalArgumentException("Capacity must be in range [1, " + (1 << 30) + "]: " + capacity);
+    }
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) {
+      size <<= 1;
+    }
+    mask = size - 1;
+    nanos = new long[size];
+    channels = new int[size];
+    values = new double[size];
+  }
+
+  /**
+   * Get the number of records the ring can hold.
+   *
+   * @return Capacity (a power of 2).
+   */
+  public int getCapacity() {
+    return mask + 1;
+  }
+
+  /**
+   * Add a record stamped with the current time (producer thread only).
+   *
+   * @param channel
+   *          Identifies the axis (or other input) the record is for.
+   * @param value
+   *          The new value of the channel.
+   * @return true if added, false if the ring was full and the record was
+   *         dropped (see {@link #offer(long, int, double)}).
+   */
+  public boolean offer(int channel, double value) {
+    return offer(System.nanoTime(), channel, value);
+  }
+
+  /**
+   * Add a record (producer thread only).
+   *
+   * @param nanos
+   *          Time stamp of the record (System.nanoTime()).
+   * @param channel
+   *          Identifies the axis (or other input) the record is for.
+   * @param value
+   *          The new value of the channel.
+   * @return true if added (to the ring or as the latest value of the
+   *         channel), false if the ring was full and the channel has no latest
+   *         value slot so the record was dropped.
+   */
+  public boolean offer(long nanos, int channel, double value) {
+    long t = tail.get();
+    // Keep using the slots until the consumer takes them, so a newer record in
+    // the ring can't be delivered before an older one in a slot
+    boolean full = pending.get() != 0;
+    if (!full && t - cachedHead > mask) {
+      cachedHead = head.get();
+      full = t - cachedHead > mask;
+    }
+    if (full) {
+      return offerLatest(nanos, channel, value);
+    }
+    int slot = (int) t & mask;
+    this.nanos[slot] = nanos;
+    channels[slot] = channel;
+    values[slot] = value;
+    tail.lazySet(t + 1);
+    return true;
+  }
+
+  /**
+   * Helper method to keep a record as the latest value of its channel (or drop
+   * it) while the ring is full.
+   *
+   * @param nanos
+   *          Time stamp of the record.
+   * @param channel
+   *          Channel of the record.
+   * @param value
+   *          The new value of the channel.
+   * @return true if kept, false if dropped.
+   */
+  private boolean offerLatest(long nanos, int channel, double value) {
+    if (channel < 0 || channel >= COALESCED_CHANNELS) {
+      dropped++;
+      if (Metrics.ENABLED) {
+        Metrics.INPUT_QUEUE_DROPPED.increment();
+      }
+      return false;
+    }
+    latestNanos.set(channel, nanos);
+    latestValues.set(channel, Double.doubleToRawLongBits(value));
+    long bit = 1L << channel;
+    long bits;
+    do {
+      bits = pending.get();
+    } while ((bits & bit) == 0 && !pending.compareAndSet(bits, bits | bit));
+    coalesced++;
+    return true;
+  }
+
+  /**
+   * Pass every record offered so far to a handler (consumer thread only).
+   *
+   * @param handler
+   *          Invoked once per record in the order offered (must not be null).
+   * @return Number of records drained.
+   */
+  public int drain(InputEventHandler handler) {
+    return drain(handler, Integer.MAX_VALUE);
+  }
+
+  /**
+   * Pass up to a number of records to a handler (consumer thread only).
+   *
+   * @param handler
+   *          Invoked once per record in the order offered (must not be null).
+   * @param max
+   *          Most records to drain from the ring (once the ring is empty the
+   *          latest values kept while it was full are delivered as well, which
+   *          may exceed this by up to {@link #COALESCED_CHANNELS}).
+   * @return Number of records drained.
+   */
+  public int drain(InputEventHandler handler, int max) {
+    long h = head.get();
+    long t = tail.get();
+    int n = (int) Math.min(t - h, max);
+    if (n > 0) {
+      long end = h + n;
+      for (long i = h; i < end; i++) {
+        int slot = (int) i & mask;
+        handler.inputEvent(nanos[slot], channels[slot], values[slot]);
+      }
+      head.lazySet(end);
+    }
+    // The producer only sets a pending bit once the ring is full, so reading
+    // the tail again after seeing one shows whether any ring records are
+    // still older than the latest values
+    if (n < max && pending.get() != 0 && tail.get() == h + n) {
+      long bits = pending.getAndSet(0);
+      while (bits != 0) {
+        int channel = Long.numberOfTrailingZeros(bits);
+        bits &= bits - 1;
+        handler.inputEvent(latestNanos.get(channel), channel, Double.longBitsToDouble(latestValues.get(channel)));
+        n++;
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Get the number of records waiting to be drained (only an estimate while
+   * the other thread is active).
+   *
+   * @return Records in the ring plus channels with a latest value waiting.
+   */
+  public int size() {
+    long h = head.get();
+    return (int) (tail.get() - h) + Long.bitCount(pending.get());
+  }
+
+  /**
+   * Indicates whether the ring is empty (only an estimate while the producer
+   * is active).
+   *
+   * @return true if there is nothing to drain.
+   */
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  /**
+   * Get the number of records dropped because the ring was full (only records
+   * for channels without a latest value slot are dropped).
+   *
+   * @return Dropped record count.
+   */
+  public long getDropped() {
+    return dropped;
+  }
+
+  /**
+   * Get the number of records kept as the latest value of their channel
+   * because the ring was full (older values waiting in the same slot were
+   * replaced).
+   *
+   * @return Coalesced record count.
+   */
+  public long getCoalesced() {
+    return coalesced;
+  }
+
+}
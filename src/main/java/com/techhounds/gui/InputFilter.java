@@ -0,0 +1,33 @@
+package com.techhounds.gui;
+
+/**
+ * One stage of shaping applied to {@link Axis} values before they reach the
+ * kinematics (see {@link InputPipeline}).
+ * <p>
+ * Implementations work on primitive doubles and keep any state they need in
+ * fields, so filtering a value never creates garbage. Stateful stages
+ * (like {@link SlewRateLimiter}) are not thread safe and each axis needs its
+ * own instance.
+ * </p>
+ */
+public interface InputFilter {
+
+  /**
+   * Filter the next input value.
+   *
+   * @param value
+   *          Input value (normally in the range of [-1.0, +1.0]).
+   * @param dt
+   *          Seconds since the previous value (ignored by stages without
+   *          state).
+   * @return The filtered value.
+   */
+  double apply(double value, double dt);
+
+  /**
+   * Forget any state so the next value is filtered as if it were the first
+   * (the output is assumed to have been at 0).
+   */
+  void reset();
+
+}
@@ -0,0 +1,182 @@
+package com.techhounds.gui;
+
+import java.util.ArrayList;
+
+/**
+ * Groups several {@link Axis} objects (like the two axes of a translation
+ * stick and the rotation axis) so that changes made to them together produce
+ * a single update.
+ * <p>
+ * Listeners registered on each axis are notified every time that axis is set,
+ * so moving a stick diagonally would otherwise solve the kinematics and
+ * repaint once per axis (with the first update seeing a half applied move).
+ * Changes made between {@link #begin()} and {@link #end()} are collected and
+ * {@link InputFrameListener}s are notified once at the end (calls may be
+ * nested). Changes made outside of a begin/end pair produce one update each.
+ * </p>
+ * <p>
+ * Frames are intended to be updated from a single thread (the Swing event
+ * thread or a replay loop).
+ * </p>
+ */
+public final class InputFrame {
+
+  /** The axes in the frame. */
+  private final Axis[] axes;
+
+  /** Listeners to notify once per frame. */
+  private final ArrayList<InputFrameListener> listeners;
+
+  /** How many calls to {@link #begin()} have not been ended yet. */
+  private int depth;
+
+  /** Whether an axis changed since the frame began. */
+  private boolean changed;
+
+  /** Number of updates sent to listeners. */
+  private long updates;
+
+  /**
+   * Constructs a new frame over a set of axes.
+   *
+   * @param axes
+   *          The axes (none must be null).
+   */
+  public InputFrame(Axis... axes) {
+    this.axes = axes.clone();
+    this.listeners = new ArrayList<InputFrameListener>();
+    AxisListener listener = new AxisListener() {
+      @Override
+      public void valueUpdated(double position, double oldPosition) {
+        if (position != oldPosition) {
+          changed = true;
+          if (depth == 0) {
+            fire();
+          }
+        }
+      }
+    };
+    for (Axis axis : this.axes) {
+      if (axis == null) {
+        throw new NullPointerException();
+      }
+      axis.addAxisListener(listener);
+    }
+  }
+
+  /**
+   * Get the number of axes in the frame.
+   *
+   * @return Axis count.
+   */
+  public int size() {
+    return axes.length;
+  }
+
+  /**
+   * Get one of the axes.
+   *
+   * @param idx
+   *          Index of axis in the order passed to the constructor.
+   * @return The axis.
+   */
+  public Axis getAxis(int idx) {
+    return axes[idx];
+  }
+
+  /**
+   * Get the current position of one of the axes.
+   *
+   * @param idx
+   *          Index of axis in the order passed to the constructor.
+   * @return A value in the range of [-1.0, +1.0].
+   */
+  public double getPosition(int idx) {
+    return axes[idx].getPosition();
+  }
+
+  /**
+   * Start collecting changes (listeners are not notified until the matching
+   * {@link #end()}).
+   */
+  public void begin() {
+    depth++;
+  }
+
+  /**
+   * Stop collecting changes and notify the listeners once if any axis changed
+   * since the outermost {@link #begin()}.
+   */
+  public void end() {
+    if (depth == 0) {
+      throw new IllegalStateException("end() without begin()");
+    }
+    if (--depth == 0 && changed) {
+      fire();
+    }
+  }
+
+  /**
+   * Set the positions of every axis to 0 as a single update.
+   */
+  public void zero() {
+    begin();
+    try {
+      for (Axis axis : axes) {
+        axis.setPosition(0);
+      }
+    } finally {
+      end();
+    }
+  }
+
+  /**
+   * Get the number of updates sent to listeners.
+   *
+   * @return Update count.
+   */
+  public long getUpdateCount() {
+    return updates;
+  }
+
+  /**
+   * Helper method to notify the listeners.
+   */
+  private void fire() {
+    changed = false;
+    updates++;
+    for (int i = 0; i < listeners.size(); i++) {
+      listeners.get(i).frameUpdated(this);
+    }
+  }
+
+  /**
+   * Add listener to notify once per frame.
+   *
+   * @param listener
+   *          Must not be null. If listener is already registered, the request
+   *          is ignored (we won't add the same listener twice).
+   */
+  public void addFrameListener(InputFrameListener listener) {
+    if (listener == null) {
+      throw new NullPointerException();
+    }
+    if (!listeners.contains(listener)) {
+      listeners.add(listener);
+    }
+  }
+
+  /**
+   * Removes previously registered listener that was added via
+   * {@link #addFrameListener(InputFrameListener)}.
+   *
+   * @param listener
+   *          Reference to listener to remove (it is OK to pass null or a
+   *          listener that is not currently registered - we just don't do
+   *          anything).
+   */
+  public void removeFrameListener(InputFrameListener listener) {
+    listeners.remove(listener);
+  }
+
+}
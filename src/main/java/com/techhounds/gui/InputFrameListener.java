@@ -0,0 +1,18 @@
+package com.techhounds.gui;
+
+/**
+ * Methods that must be implemented by objects that want to monitor
+ * {@link InputFrame} updates.
+ */
+public interface InputFrameListener {
+
+  /**
+   * Method that is invoked once after one or more axes of a frame changed
+   * (all of the changes made together are visible at the same time).
+   *
+   * @param frame
+   *          The frame that was updated.
+   */
+  void frameUpdated(InputFrame frame);
+
+}
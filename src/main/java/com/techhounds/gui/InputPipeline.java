@@ -0,0 +1,102 @@
+package com.techhounds.gui;
+
+/**
+ * A fixed sequence of {@link InputFilter} stages (like {@link Deadband},
+ * {@link ExpoCurve}, {@link SlewRateLimiter} and {@link LowPassFilter}) that
+ * shapes the values of an {@link Axis} before they are passed to the
+ * kinematics.
+ * <p>
+ * The stages are applied in order and the result is kept in the range of
+ * [-1.0, +1.0]. Nothing is allocated per value, so the same pipeline can be
+ * used for interactive events and for replaying a log at thousands of events
+ * per second. Each axis needs its own pipeline (stages hold state) and
+ * instances are not thread safe.
+ * </p>
+ */
+public final class InputPipeline implements InputFilter {
+
+  /** The stages in the order applied. */
+  private final InputFilter[] stages;
+
+  /** Time stamp passed to the last call of {@link #update(double, long)}. */
+  private long lastNanos;
+
+  /** Whether lastNanos has been set. */
+  private boolean started;
+
+  /** Last output. */
+  private double output;
+
+  /**
+   * Constructs a new pipeline.
+   *
+   * @param stages
+   *          The stages to apply in order (none must be null - with no stages
+   *          values are only clamped).
+   */
+  public InputPipeline(InputFilter... stages) {
+    this.stages = stages.clone();
+    for (InputFilter stage : this.stages) {
+      if (stage == null) {
+        throw new NullPointerException();
+      }
+    }
+  }
+
+  /**
+   * Get the number of stages.
+   *
+   * @return Stage count.
+   */
+  public int size() {
+    return stages.length;
+  }
+
+  @Override
+  public double apply(double value, double dt) {
+    final InputFilter[] stages = this.stages;
+    for (int i = 0; i < stages.length; i++) {
+      value = stages[i].apply(value, dt);
+    }
+    output = Math.max(-1.0, Math.min(+1.0, value));
+    return output;
+  }
+
+  /**
+   * Filter the next value using a time stamp (instead of the time since the
+   * previous value).
+   *
+   * @param value
+   *          Input value.
+   * @param nanos
+   *          Time of the value in nanoseconds (System.nanoTime() or the time
+   *          stamp of a log record). The first value after construction or
+   *          {@link #reset()} is treated as having no elapsed time.
+   * @return The filtered value.
+   */
+  public double update(double value, long nanos) {
+    double dt = started ? (nanos - lastNanos) * 1e-9 : 0;
+    lastNanos = nanos;
+    started = true;
+    return apply(value, dt);
+  }
+
+  /**
+   * Get the last value produced.
+   *
+   * @return The last filtered value (0 before the first value).
+   */
+  public double getOutput() {
+    return output;
+  }
+
+  @Override
+  public void reset() {
+    for (InputFilter stage : stages) {
+      stage.reset();
+    }
+    started = false;
+    output = 0;
+  }
+
+}
@@ -0,0 +1,45 @@
+package com.techhounds.gui;
+
+/**
+ * First order low pass filter (exponential smoothing) that removes jitter
+ * from an input. The amount of smoothing depends on the time between values,
+ * so irregular event rates are handled.
+ */
+public final class LowPassFilter implements InputFilter {
+
+  /** Time constant in seconds. */
+  private final double timeConstant;
+
+  /** Last output. */
+  private double output;
+
+  /**
+   * Constructs a new instance with an output of 0.
+   *
+   * @param timeConstant
+   *          Seconds for the output to cover 63% of a step change (must not be
+   *          negative - 0 passes values through unchanged).
+   */
+  public LowPassFilter(double timeConstant) {
+    if (!(timeConstant >= 0)) {
+      throw new IllegalArgumentException("Time constant must not be negative: " + timeConstant);
+    }
+    this.timeConstant = timeConstant;
+  }
+
+  @Override
+  public double apply(double value, double dt) {
+    if (dt <= 0) {
+      return output;
+    }
+    double alpha = dt / (timeConstant + dt);
+    output += alpha * (value - output);
+    return output;
+  }
+
+  @Override
+  public void reset() {
+    output = 0;
+  }
+
+}
@@ -0,0 +1,48 @@
+package com.techhounds.gui;
+
+/**
+ * Limits how fast the output can change (so slamming a joystick doesn't
+ * command an instant change of speed).
+ */
+public final class SlewRateLimiter implements InputFilter {
+
+  /** Largest change of the output allowed per second. */
+  private final double rate;
+
+  /** Last output. */
+  private double output;
+
+  /**
+   * Constructs a new instance with an output of 0.
+   *
+   * @param rate
+   *          Largest change of the output allowed per second (must be
+   *          positive - a rate of 2.0 takes half a second to go from 0 to
+   *          1.0).
+   */
+  public SlewRateLimiter(double rate) {
+    if (!(rate > 0)) {
+      throw new IllegalArgumentException("Rate must be positive: " + rate);
+    }
+    this.rate = rate;
+  }
+
+  @Override
+  public double apply(double value, double dt) {
+    double step = rate * dt;
+    double change = value - output;
+    if (change > step) {
+      change = step;
+    } else if (change < -step) {
+      change = -step;
+    }
+    output += change;
+    return output;
+  }
+
+  @Override
+  public void reset() {
+    output = 0;
+  }
+
+}
@@ -71,7 +71,7 @@ public final class CartesianPoint {
    *         east (east is 0, north is PI/2, west is PI and south is 1.5 * PI).
    */
   public static final double computeTheta(double x, double y) {
-    return Math.atan2(y, x);
+    return Trig.atan2(y, x);
   }
 
   /**
@@ -208,8 +208,15 @@ public final class CartesianPoint {
    * @return Reference to this object with the updated (x, y) values resulting from the rotation.
    */
   public CartesianPoint rotate(double x0, double y0, double rotation) {
-    PolarPoint dst = new PolarPoint();
-    return rotate(x0, y0, rotation, dst).toCartesian(this).translate(-x0, -y0);
+    // Same math as rotate(x0, y0, rotation, dst).toCartesian(this).translate(-x0, -y0)
+    // without the temporary PolarPoint
+    double dx = x - x0;
+    double dy = y - y0;
+    double r = computeR(dx, dy);
+    double theta = computeTheta(dx, dy) + rotation;
+    x = Trig.cos(theta) * r + x0;
+    y = Trig.sin(theta) * r + y0;
+    return this;
   }
 
   /**
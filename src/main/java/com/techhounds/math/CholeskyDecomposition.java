@@ -0,0 +1,148 @@
+package com.techhounds.math;
+
+/**
+ * Solves A x = b for symmetric positive definite matrices (like the normal
+ * equations A^T A or a covariance matrix) using the Cholesky decomposition
+ * A = L L^T.
+ * <p>
+ * All storage is allocated when constructed, so an instance can be kept and
+ * reused every control loop tick without creating garbage. It is not thread
+ * safe.
+ * </p>
+ */
+public final class CholeskyDecomposition {
+
+  /** Size of the matrices decomposed. */
+  private final int n;
+
+  /** Lower triangle holds L (row major, n x n). */
+  private final double[] l;
+
+  /** Workspace for one column of a right hand side. */
+  private final double[] work;
+
+  /** Whether the last decomposition succeeded. */
+  private boolean valid;
+
+  /**
+   * Constructs a new instance for n x n matrices.
+   *
+   * @param n
+   *          Number of rows and columns of the matrices to decompose.
+   */
+  public CholeskyDecomposition(int n) {
+    if (n < 1) {
+      throw new IllegalArgumentException("Bad matrix size: " + n);
+    }
+    this.n = n;
+    this.l = new double[n * n];
+    this.work = new double[n];
+  }
+
+  /**
+   * Get the size of the matrices decomposed.
+   *
+   * @return Number of rows (and columns).
+   */
+  public int getSize() {
+    return n;
+  }
+
+  /**
+   * Decompose a matrix (only the lower triangle is read).
+   *
+   * @param a
+   *          Symmetric n x n matrix.
+   * @return true if the matrix is positive definite and can be solved, false
+   *         if not.
+   */
+  public boolean decompose(Matrix a) {
+    if (a.getRows() != n || a.getCols() != n) {
+      throw new IllegalArgumentException("Expected " + n + " x " + n + " matrix, got: " + a.getRows() + " x "
+          + a.getCols());
+    }
+    final double[] ad = a.getData();
+    final double[] l = this.l;
+    valid = false;
+    for (int j = 0; j < n; j++) {
+      int rj = j * n;
+      double d = ad[rj + j];
+      for (int k = 0; k < j; k++) {
+        d -= l[rj + k] * l[rj + k];
+      }
+      if (!(d > 0)) {
+        return false;
+      }
+      double ljj = Math.sqrt(d);
+      l[rj + j] = ljj;
+      double inv = 1.0 / ljj;
+      for (int i = j + 1; i < n; i++) {
+        int ri = i * n;
+        double s = ad[ri + j];
+        for (int k = 0; k < j; k++) {
+          s -= l[ri + k] * l[rj + k];
+        }
+        l[ri + j] = s * inv;
+      }
+    }
+    valid = true;
+    return true;
+  }
+
+  /**
+   * Indicates whether the last call to {@link #decompose(Matrix)} succeeded.
+   *
+   * @return true if {@link #solve(Matrix, Matrix)} can be used.
+   */
+  public boolean isValid() {
+    return valid;
+  }
+
+  /**
+   * Solve A x = b using the last decomposition.
+   *
+   * @param b
+   *          Right hand side (n x m).
+   * @param x
+   *          Where to store the n x m solution (may be b).
+   * @return x.
+   */
+  public Matrix solve(Matrix b, Matrix x) {
+    if (!valid) {
+      throw new IllegalStateException("Matrix not decomposed or not positive definite");
+    }
+    int m = b.getCols();
+    if (b.getRows() != n || x.getRows() != n || x.getCols() != m) {
+      throw new IllegalArgumentException("Expected " + n + " x " + m + " matrices, got: " + b.getRows() + " x " + m
+          + " and " + x.getRows() + " x " + x.getCols());
+    }
+    final double[] bd = b.getData();
+    final double[] xd = x.getData();
+    final double[] l = this.l;
+    final double[] y = work;
+    for (int c = 0; c < m; c++) {
+      // Forward substitution: L y = b
+      for (int i = 0; i < n; i++) {
+        int ri = i * n;
+        double s = bd[i * m + c];
+        for (int k = 0; k < i; k++) {
+          s -= l[ri + k] * y[k];
+        }
+        y[i] = s / l[ri + i];
+      }
+      // Back substitution: L^T x = y
+      for (int i = n - 1; i >= 0; i--) {
+        double s = y[i];
+        for (int k = i + 1; k < n; k++) {
+          s -= l[k * n + i] * y[k];
+        }
+        y[i] = s / l[i * n + i];
+      }
+      for (int i = 0; i < n; i++) {
+        xd[i * m + c] = y[i];
+      }
+    }
+    return x;
+  }
+
+}
@@ -0,0 +1,24 @@
+package com.techhounds.math;
+
+/**
+ * Trigonometric functions provided by the standard {@link Math} class (the
+ * default provider).
+ */
+final class ExactTrig implements TrigProvider {
+
+  @Override
+  public double sin(double a) {
+    return Math.sin(a);
+  }
+
+  @Override
+  public double cos(double a) {
+    return Math.cos(a);
+  }
+
+  @Override
+  public double atan2(double y, double x) {
+    return Math.atan2(y, x);
+  }
+
+}
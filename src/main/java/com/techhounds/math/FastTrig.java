@@ -0,0 +1,155 @@
+package com.techhounds.math;
+
+/**
+ * Polynomial approximations of the trigonometric functions for use on the
+ * control hot path.
+ * <dl>
+ * <dt>atan2</dt>
+ * <dd>Octant reduction to [0, 1] followed by the Abramowitz and Stegun 4.4.49
+ * polynomial. Maximum error is {@value #MAX_ATAN2_ERROR} radians. This is where
+ * most of the time is saved as {@link Math#atan2(double, double)} is not a JIT
+ * intrinsic.</dd>
+ * <dt>sin/cos</dt>
+ * <dd>Quadrant reduction to [-PI/4, +PI/4] followed by truncated Taylor series.
+ * Maximum error is {@value #MAX_SIN_COS_ERROR} for angles with a magnitude up
+ * to {@value #REDUCE_LIMIT} radians (larger angles fall back to
+ * {@link Math}).</dd>
+ * </dl>
+ */
+public final class FastTrig implements TrigProvider {
+
+  /** Maximum absolute error (radians) of {@link #atan2(double, double)}. */
+  public static final double MAX_ATAN2_ERROR = 2.0e-8;
+
+  /** Maximum absolute error of {@link #sin(double)} and {@link #cos(double)}. */
+  public static final double MAX_SIN_COS_ERROR = 1.0e-11;
+
+  /**
+   * Angles with a magnitude larger than this are passed through to
+   * {@link Math} as range reduction would lose precision.
+   */
+  public static final double REDUCE_LIMIT = 1.0e5;
+
+  /** 2 / PI used to find quadrant. */
+  private static final double TWO_OVER_PI = 2.0 / Math.PI;
+
+  /** First 33 bits of PI / 2 (Cody-Waite reduction). */
+  private static final double PI_2_HI = 1.57079632673412561417e+00;
+
+  /** PI / 2 - PI_2_HI (Cody-Waite reduction). */
+  private static final double PI_2_LO = 6.07710050650619224932e-11;
+
+  // Abramowitz and Stegun 4.4.49 coefficients for atan(z) on [0, 1]
+  private static final double A2 = -0.3333314528;
+  private static final double A4 = 0.1999355085;
+  private static final double A6 = -0.1420889944;
+  private static final double A8 = 0.1065626393;
+  private static final double A10 = -0.0752896400;
+  private static final double A12 = 0.0429096138;
+  private static final double A14 = -0.0161657367;
+  private static final double A16 = 0.0028662257;
+
+  // Taylor series coefficients for sin(r) and cos(r)
+  private static final double S3 = -1.0 / 6;
+  private static final double S5 = 1.0 / 120;
+  private static final double S7 = -1.0 / 5040;
+  private static final double S9 = 1.0 / 362880;
+  private static final double S11 = -1.0 / 39916800;
+  private static final double C2 = -1.0 / 2;
+  private static final double C4 = 1.0 / 24;
+  private static final double C6 = -1.0 / 720;
+  private static final double C8 = 1.0 / 40320;
+  private static final double C10 = -1.0 / 3628800;
+  private static final double C12 = 1.0 / 479001600;
+
+  @Override
+  public double sin(double a) {
+    if (!(Math.abs(a) <= REDUCE_LIMIT)) {
+      // Large, infinite or NaN
+      return Math.sin(a);
+    }
+    double k = Math.rint(a * TWO_OVER_PI);
+    double r = (a - k * PI_2_HI) - k * PI_2_LO;
+    return sinQuadrant((int) k, r);
+  }
+
+  @Override
+  public double cos(double a) {
+    if (!(Math.abs(a) <= REDUCE_LIMIT)) {
+      return Math.cos(a);
+    }
+    double k = Math.rint(a * TWO_OVER_PI);
+    double r = (a - k * PI_2_HI) - k * PI_2_LO;
+    // cos(a) = sin(a + PI/2)
+    return sinQuadrant((int) k + 1, r);
+  }
+
+  /**
+   * Compute sin(q * PI/2 + r).
+   *
+   * @param q
+   *          Quadrant.
+   * @param r
+   *          Remainder in range of [-PI/4, +PI/4].
+   * @return The sine value.
+   */
+  private static double sinQuadrant(int q, double r) {
+    double r2 = r * r;
+    switch (q & 3) {
+      case 0:
+        return sinPoly(r, r2);
+      case 1:
+        return cosPoly(r2);
+      case 2:
+        return -sinPoly(r, r2);
+      default:
+        return -cosPoly(r2);
+    }
+  }
+
+  /**
+   * Series approximation of sine for small angles.
+   *
+   * @param r
+   *          Angle in range of [-PI/4, +PI/4].
+   * @param r2
+   *          r * r.
+   * @return sin(r).
+   */
+  private static double sinPoly(double r, double r2) {
+    return r + r * r2 * (S3 + r2 * (S5 + r2 * (S7 + r2 * (S9 + r2 * S11))));
+  }
+
+  /**
+   * Series approximation of cosine for small angles.
+   *
+   * @param r2
+   *          Square of angle in range of [-PI/4, +PI/4].
+   * @return cos(r).
+   */
+  private static double cosPoly(double r2) {
+    return 1.0 + r2 * (C2 + r2 * (C4 + r2 * (C6 + r2 * (C8 + r2 * (C10 + r2 * C12)))));
+  }
+
+  @Override
+  public double atan2(double y, double x) {
+    double ax = Math.abs(x);
+    double ay = Math.abs(y);
+    if (!(ax < Double.POSITIVE_INFINITY && ay < Double.POSITIVE_INFINITY) || (ax == 0 && ay == 0)) {
+      // NaN, infinite values and signed zeros
+      return Math.atan2(y, x);
+    }
+    boolean swap = ay > ax;
+    double z = swap ? ax / ay : ay / ax;
+    double z2 = z * z;
+    double a = z * (1.0 + z2 * (A2 + z2 * (A4 + z2 * (A6 + z2 * (A8 + z2 * (A10 + z2 * (A12 + z2 * (A14 + z2 * A16))))))));
+    if (swap) {
+      a = Math.PI / 2 - a;
+    }
+    if (x < 0) {
+      a = Math.PI - a;
+    }
+    return Math.copySign(a, y);
+  }
+
+}
@@ -0,0 +1,408 @@
+package com.techhounds.math;
+
+import java.util.Arrays;
+
+/**
+ * A small dense matrix of doubles stored in a single row major array.
+ * <p>
+ * Sized for the 3 x 3 and 2N x 3 systems that come up in swerve kinematics
+ * and pose estimation. The size is fixed when constructed and every operation
+ * writes into a destination matrix provided by the caller (which is also
+ * returned), so once the matrices of a control loop have been allocated no
+ * further garbage is created. Destinations of {@link #multiply} and
+ * {@link #transpose} must not be one of the inputs. See
+ * {@link CholeskyDecomposition} and {@link QrDecomposition} to solve systems.
+ * </p>
+ */
+public final class Matrix {
+
+  /** Number of rows. */
+  private final int rows;
+
+  /** Number of columns. */
+  private final int cols;
+
+  /** Values in row major order (element r, c is at r * cols + c). */
+  private final double[] data;
+
+  /**
+   * Constructs a new matrix with all elements set to 0.
+   *
+   * @param rows
+   *          Number of rows (at least 1).
+   * @param cols
+   *          Number of columns (at least 1).
+   */
+  public Matrix(int rows, int cols) {
+    if (rows < 1 || cols < 1) {
+      throw new IllegalArgumentException("Bad matrix size: " + rows + " x " + cols);
+    }
+    this.rows = rows;
+    this.cols = cols;
+    this.data = new double[rows * cols];
+  }
+
+  /**
+   * Constructs a new matrix with initial values.
+   *
+   * @param rows
+   *          Number of rows (at least 1).
+   * @param cols
+   *          Number of columns (at least 1).
+   * @param values
+   *          The rows * cols values in row major order.
+   */
+  public Matrix(int rows, int cols, double... values) {
+    this(rows, cols);
+    if (values.length != data.length) {
+      throw new IllegalArgumentException("Expected " + data.length + " values, got: " + values.length);
+    }
+    System.arraycopy(values, 0, data, 0, data.length);
+  }
+
+  /**
+   * Get the number of rows.
+   *
+   * @return Row count.
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the number of columns.
+   *
+   * @return Column count.
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Get the backing array (for loops that want to avoid the index math of
+   * {@link #get(int, int)}).
+   *
+   * @return Values in row major order (changes are reflected in the matrix).
+   */
+  public double[] getData() {
+    return data;
+  }
+
+  /**
+   * Get an element.
+   *
+   * @param r
+   *          Row of element.
+   * @param c
+   *          Column of element.
+   * @return Value of element.
+   */
+  public double get(int r, int c) {
+    return data[r * cols + c];
+  }
+
+  /**
+   * Set an element.
+   *
+   * @param r
+   *          Row of element.
+   * @param c
+   *          Column of element.
+   * @param value
+   *          Value to assign.
+   */
+  public void set(int r, int c, double value) {
+    data[r * cols + c] = value;
+  }
+
+  /**
+   * Copy all elements from another matrix.
+   *
+   * @param src
+   *          Matrix of the same size to copy.
+   * @return This matrix.
+   */
+  public Matrix set(Matrix src) {
+    checkSize(src, rows, cols);
+    System.arraycopy(src.data, 0, data, 0, data.length);
+    return this;
+  }
+
+  /**
+   * Set all elements to 0.
+   *
+   * @return This matrix.
+   */
+  public Matrix setZero() {
+    Arrays.fill(data, 0);
+    return this;
+  }
+
+  /**
+   * Set the diagonal to 1 and all other elements to 0.
+   *
+   * @return This matrix.
+   */
+  public Matrix setIdentity() {
+    Arrays.fill(data, 0);
+    for (int i = 0, n = Math.min(rows, cols); i < n; i++) {
+      data[i * cols + i] = 1;
+    }
+    return this;
+  }
+
+  /**
+   * Helper method to verify the size of a matrix.
+   *
+   * @param m
+   *          Matrix to check.
+   * @param rows
+   *          Expected number of rows.
+   * @param cols
+   *          Expected number of columns.
+   */
+  private static void checkSize(Matrix m, int rows, int cols) {
+    if (m.rows != rows || m.cols != cols) {
+      throw new IllegalArgumentException("Expected " + rows + " x " + cols + " matrix, got: " + m.rows + " x " + m.cols);
+    }
+  }
+
+  /**
+   * Helper method to verify a destination is not also an input.
+   *
+   * @param dst
+   *          Destination matrix.
+   * @param a
+   *          First input.
+   * @param b
+   *          Second input.
+   */
+  private static void checkAlias(Matrix dst, Matrix a, Matrix b) {
+    if (dst == a || dst == b) {
+      throw new IllegalArgumentException("Destination can not be an input");
+    }
+  }
+
+  /**
+   * Compute dst = a * b.
+   *
+   * @param a
+   *          Left matrix (n x k).
+   * @param b
+   *          Right matrix (k x m).
+   * @param dst
+   *          Where to store the n x m result (not a or b).
+   * @return dst.
+   */
+  public static Matrix multiply(Matrix a, Matrix b, Matrix dst) {
+    if (a.cols != b.rows) {
+      throw new IllegalArgumentException("Can not multiply " + a.rows + " x " + a.cols + " by " + b.rows + " x " + b.cols);
+    }
+    checkSize(dst, a.rows, b.cols);
+    checkAlias(dst, a, b);
+    final double[] ad = a.data;
+    final double[] bd = b.data;
+    final double[] dd = dst.data;
+    final int n = a.rows;
+    final int k = a.cols;
+    final int m = b.cols;
+    for (int r = 0; r < n; r++) {
+      int ar = r * k;
+      int dr = r * m;
+      for (int c = 0; c < m; c++) {
+        double sum = 0;
+        for (int i = 0; i < k; i++) {
+          sum += ad[ar + i] * bd[i * m + c];
+        }
+        dd[dr + c] = sum;
+      }
+    }
+    return dst;
+  }
+
+  /**
+   * Compute dst = transpose(a) * b without forming the transpose (as in the
+   * normal equations A^T A).
+   *
+   * @param a
+   *          Left matrix (k x n).
+   * @param b
+   *          Right matrix (k x m).
+   * @param dst
+   *          Where to store the n x m result (not a or b).
+   * @return dst.
+   */
+  public static Matrix multiplyTransposeA(Matrix a, Matrix b, Matrix dst) {
+    if (a.rows != b.rows) {
+      throw new IllegalArgumentException("Can not multiply transpose of " + a.rows + " x " + a.cols + " by " + b.rows
+          + " x " + b.cols);
+    }
+    checkSize(dst, a.cols, b.cols);
+    checkAlias(dst, a, b);
+    final double[] ad = a.data;
+    final double[] bd = b.data;
+    final double[] dd = dst.data;
+    final int n = a.cols;
+    final int k = a.rows;
+    final int m = b.cols;
+    for (int r = 0; r < n; r++) {
+      for (int c = 0; c < m; c++) {
+        // Sum in a local so the loop doesn't store to dst every iteration
+        double sum = 0;
+        for (int i = 0, ai = r, bi = c; i < k; i++, ai += n, bi += m) {
+          sum += ad[ai] * bd[bi];
+        }
+        dd[r * m + c] = sum;
+      }
+    }
+    return dst;
+  }
+
+  /**
+   * Compute dst = a * transpose(b) without forming the transpose.
+   *
+   * @param a
+   *          Left matrix (n x k).
+   * @param b
+   *          Right matrix (m x k).
+   * @param dst
+   *          Where to store the n x m result (not a or b).
+   * @return dst.
+   */
+  public static Matrix multiplyTransposeB(Matrix a, Matrix b, Matrix dst) {
+    if (a.cols != b.cols) {
+      throw new IllegalArgumentException("Can not multiply " + a.rows + " x " + a.cols + " by transpose of " + b.rows
+          + " x " + b.cols);
+    }
+    checkSize(dst, a.rows, b.rows);
+    checkAlias(dst, a, b);
+    final double[] ad = a.data;
+    final double[] bd = b.data;
+    final double[] dd = dst.data;
+    final int n = a.rows;
+    final int k = a.cols;
+    final int m = b.rows;
+    for (int r = 0; r < n; r++) {
+      int ar = r * k;
+      for (int c = 0; c < m; c++) {
+        int bc = c * k;
+        double sum = 0;
+        for (int i = 0; i < k; i++) {
+          sum += ad[ar + i] * bd[bc + i];
+        }
+        dd[r * m + c] = sum;
+      }
+    }
+    return dst;
+  }
+
+  /**
+   * Compute dst = transpose(a).
+   *
+   * @param a
+   *          Matrix to transpose (n x m).
+   * @param dst
+   *          Where to store the m x n result (not a).
+   * @return dst.
+   */
+  public static Matrix transpose(Matrix a, Matrix dst) {
+    checkSize(dst, a.cols, a.rows);
+    checkAlias(dst, a, a);
+    final double[] ad = a.data;
+    final double[] dd = dst.data;
+    final int n = a.rows;
+    final int m = a.cols;
+    for (int r = 0; r < n; r++) {
+      for (int c = 0; c < m; c++) {
+        dd[c * n + r] = ad[r * m + c];
+      }
+    }
+    return dst;
+  }
+
+  /**
+   * Compute dst = a + b (dst may be a or b).
+   *
+   * @param a
+   *          First matrix.
+   * @param b
+   *          Second matrix (same size as a).
+   * @param dst
+   *          Where to store the result (same size as a).
+   * @return dst.
+   */
+  public static Matrix add(Matrix a, Matrix b, Matrix dst) {
+    checkSize(b, a.rows, a.cols);
+    checkSize(dst, a.rows, a.cols);
+    final double[] ad = a.data;
+    final double[] bd = b.data;
+    final double[] dd = dst.data;
+    for (int i = 0; i < dd.length; i++) {
+      dd[i] = ad[i] + bd[i];
+    }
+    return dst;
+  }
+
+  /**
+   * Compute dst = a - b (dst may be a or b).
+   *
+   * @param a
+   *          First matrix.
+   * @param b
+   *          Second matrix (same size as a).
+   * @param dst
+   *          Where to store the result (same size as a).
+   * @return dst.
+   */
+  public static Matrix subtract(Matrix a, Matrix b, Matrix dst) {
+    checkSize(b, a.rows, a.cols);
+    checkSize(dst, a.rows, a.cols);
+    final double[] ad = a.data;
+    final double[] bd = b.data;
+    final double[] dd = dst.data;
+    for (int i = 0; i < dd.length; i++) {
+      dd[i] = ad[i] - bd[i];
+    }
+    return dst;
+  }
+
+  /**
+   * Compute dst = a * s (dst may be a).
+   *
+   * @param a
+   *          Matrix to scale.
+   * @param s
+   *          Scale factor.
+   * @param dst
+   *          Where to store the result (same size as a).
+   * @return dst.
+   */
+  public static Matrix scale(Matrix a, double s, Matrix dst) {
+    checkSize(dst, a.rows, a.cols);
+    final double[] ad = a.data;
+    final double[] dd = dst.data;
+    for (int i = 0; i < dd.length; i++) {
+      dd[i] = ad[i] * s;
+    }
+    return dst;
+  }
+
+  /**
+   * Returns the elements of the matrix, one row per line.
+   *
+   * @return String representation of the matrix.
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder();
+    for (int r = 0; r < rows; r++) {
+      sb.append(r == 0 ? "[" : " ");
+      for (int c = 0; c < cols; c++) {
+        sb.append(c == 0 ? "[" : ", ").append(get(r, c));
+      }
+      sb.append(r == rows - 1 ? "]]" : "]\n");
+    }
+    return sb.toString();
+  }
+
+}
@@ -0,0 +1,107 @@
+package com.techhounds.math;
+
+/**
+ * Provides access to the available {@link PointConverter} implementations.
+ * <p>
+ * Two implementations exist:
+ * </p>
+ * <dl>
+ * <dt>scalar</dt>
+ * <dd>Always available, converts one point at a time using {@link Math}.</dd>
+ * <dt>vector</dt>
+ * <dd>Uses the JDK Vector API ({@code jdk.incubator.vector}) to convert
+ * several points per instruction. It is only compiled when building with JDK
+ * 17 or later and only available at run time if the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}. Results may differ from the
+ * scalar version in the last bit or two.</dd>
+ * </dl>
+ * <p>
+ * The {@link #getDefault()} converter is the vector version (when available)
+ * unless the {@value #USE_VECTOR_PROPERTY} system property is set to false.
+ * </p>
+ */
+public final class PointConversions {
+
+  /**
+   * System property that can be set to "false" to force the use of the scalar
+   * converter.
+   */
+  public static final String USE_VECTOR_PROPERTY = "com.techhounds.math.vector";
+
+  /** Name of class implementing the Vector API converter. */
+  private static final String VECTOR_CLASS = "com.techhounds.math.VectorPointConverter";
+
+  /** The scalar converter. */
+  private static final PointConverter SCALAR = new ScalarPointConverter();
+
+  /** The vector converter (null if not available). */
+  private static final PointConverter VECTOR = loadVector();
+
+  /** Converter returned by {@link #getDefault()}. */
+  private static volatile PointConverter defaultConverter = get(
+      Boolean.parseBoolean(System.getProperty(USE_VECTOR_PROPERTY, "true")));
+
+  /**
+   * Utility class, no instances.
+   */
+  private PointConversions() {
+  }
+
+  /**
+   * Attempts to load the Vector API implementation.
+   *
+   * @return The vector converter or null if not available in this JVM.
+   */
+  private static PointConverter loadVector() {
+    try {
+      return (PointConverter) Class.forName(VECTOR_CLASS).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      // Not compiled in or jdk.incubator.vector module not added
+      return null;
+    }
+  }
+
+  /**
+   * Indicates whether the Vector API converter is available.
+   *
+   * @return true if {@link #get(boolean)} will return the vector converter when
+   *         requested.
+   */
+  public static boolean isVectorAvailable() {
+    return VECTOR != null;
+  }
+
+  /**
+   * Get a specific converter.
+   *
+   * @param useVector
+   *          Pass true if you want the vector converter (if available), false
+   *          for the scalar converter.
+   * @return The requested converter or the scalar converter if the vector
+   *         converter was requested but is not available.
+   */
+  public static PointConverter get(boolean useVector) {
+    return (useVector && VECTOR != null) ? VECTOR : SCALAR;
+  }
+
+  /**
+   * Get the default converter.
+   *
+   * @return The default converter (never null).
+   */
+  public static PointConverter getDefault() {
+    return defaultConverter;
+  }
+
+  /**
+   * Choose the default converter.
+   *
+   * @param useVector
+   *          Pass true to prefer the vector converter, false to force the
+   *          scalar converter.
+   */
+  public static void setUseVector(boolean useVector) {
+    defaultConverter = get(useVector);
+  }
+
+}
@@ -0,0 +1,51 @@
+package com.techhounds.math;
+
+/**
+ * Methods that must be implemented by batch converters that translate packed
+ * arrays of points between the Cartesian (x, y) and polar (r, theta)
+ * coordinate systems.
+ * <p>
+ * These perform the same math as {@link PolarPoint#computeX()},
+ * {@link PolarPoint#computeY()}, {@link CartesianPoint#computeR()} and
+ * {@link CartesianPoint#computeTheta()}, but over many points per call. Use
+ * {@link PointConversions} to obtain an implementation.
+ * </p>
+ */
+public interface PointConverter {
+
+  /**
+   * Converts polar points to Cartesian points.
+   *
+   * @param r
+   *          Radius of each point (must have at least count values).
+   * @param theta
+   *          Angle (radians) of each point (must have at least count values).
+   * @param x
+   *          Where to store the x value of each point (may not alias r or
+   *          theta).
+   * @param y
+   *          Where to store the y value of each point (may not alias r or
+   *          theta).
+   * @param count
+   *          Number of points to convert.
+   */
+  void toCartesian(double[] r, double[] theta, double[] x, double[] y, int count);
+
+  /**
+   * Converts Cartesian points to polar points.
+   *
+   * @param x
+   *          The x value of each point (must have at least count values).
+   * @param y
+   *          The y value of each point (must have at least count values).
+   * @param r
+   *          Where to store the radius of each point (may not alias x or y).
+   * @param theta
+   *          Where to store the angle (radians) of each point (may not alias x
+   *          or y).
+   * @param count
+   *          Number of points to convert.
+   */
+  void toPolar(double[] x, double[] y, double[] r, double[] theta, int count);
+
+}
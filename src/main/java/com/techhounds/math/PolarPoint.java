@@ -213,7 +213,7 @@ public final class PolarPoint {
    * @return The x (abscissca) value associated with the point (unit of length).
    */
   public final double computeX() {
-    return Math.cos(theta) * r;
+    return Trig.cos(theta) * r;
   }
 
   /**
@@ -223,7 +223,7 @@ public final class PolarPoint {
    * @return The y (ordinate) value associated with the point (unit of length).
    */
   public final double computeY() {
-    return Math.sin(theta) * r;
+    return Trig.sin(theta) * r;
   }
 
   /**
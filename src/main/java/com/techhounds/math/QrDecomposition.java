@@ -0,0 +1,195 @@
+package com.techhounds.math;
+
+/**
+ * Finds the least squares solution of over-determined systems A x = b (like
+ * the 2N x 3 module matrix of a swerve robot) using the Householder QR
+ * decomposition A = Q R.
+ * <p>
+ * This avoids forming the normal equations A^T A (which squares the condition
+ * number of the problem). All storage is allocated when constructed, so an
+ * instance can be kept and reused every control loop tick without creating
+ * garbage. It is not thread safe.
+ * </p>
+ */
+public final class QrDecomposition {
+
+  /** Relative size of a diagonal element of R treated as 0. */
+  private static final double RANK_TOLERANCE = 1e-12;
+
+  /** Number of rows of the matrices decomposed. */
+  private final int rows;
+
+  /** Number of columns of the matrices decomposed. */
+  private final int cols;
+
+  /** Householder vectors below the diagonal and R above it (row major). */
+  private final double[] qr;
+
+  /** Diagonal of R. */
+  private final double[] rdiag;
+
+  /** Workspace for one column of a right hand side. */
+  private final double[] work;
+
+  /** Whether the last decomposition succeeded. */
+  private boolean valid;
+
+  /**
+   * Constructs a new instance for rows x cols matrices.
+   *
+   * @param rows
+   *          Number of rows (equations) of the matrices to decompose.
+   * @param cols
+   *          Number of columns (unknowns) of the matrices to decompose (can
+   *          not be more than rows).
+   */
+  public QrDecomposition(int rows, int cols) {
+    if (cols < 1 || rows < cols) {
+      throw new IllegalArgumentException("Bad matrix size (need rows >= columns >= 1): " + rows + " x " + cols);
+    }
+    this.rows = rows;
+    this.cols = cols;
+    this.qr = new double[rows * cols];
+    this.rdiag = new double[cols];
+    this.work = new double[rows];
+  }
+
+  /**
+   * Get the number of rows of the matrices decomposed.
+   *
+   * @return Row count.
+   */
+  public int getRows() {
+    return rows;
+  }
+
+  /**
+   * Get the number of columns of the matrices decomposed.
+   *
+   * @return Column count.
+   */
+  public int getCols() {
+    return cols;
+  }
+
+  /**
+   * Decompose a matrix.
+   *
+   * @param a
+   *          The rows x cols matrix.
+   * @return true if the matrix has full column rank and can be solved, false
+   *         if not.
+   */
+  public boolean decompose(Matrix a) {
+    if (a.getRows() != rows || a.getCols() != cols) {
+      throw new IllegalArgumentException("Expected " + rows + " x " + cols + " matrix, got: " + a.getRows() + " x "
+          + a.getCols());
+    }
+    final double[] qr = this.qr;
+    final int m = rows;
+    final int n = cols;
+    System.arraycopy(a.getData(), 0, qr, 0, qr.length);
+    double scale = 0;
+    for (int k = 0; k < n; k++) {
+      double nrm = 0;
+      for (int i = k; i < m; i++) {
+        double v = qr[i * n + k];
+        nrm += v * v;
+      }
+      nrm = Math.sqrt(nrm);
+      if (nrm != 0) {
+        // Householder vector for column k
+        if (qr[k * n + k] < 0) {
+          nrm = -nrm;
+        }
+        for (int i = k; i < m; i++) {
+          qr[i * n + k] /= nrm;
+        }
+        double qkk = qr[k * n + k] += 1.0;
+        // Apply to the remaining columns
+        for (int j = k + 1; j < n; j++) {
+          double s = 0;
+          for (int i = k; i < m; i++) {
+            s += qr[i * n + k] * qr[i * n + j];
+          }
+          s = -s / qkk;
+          for (int i = k; i < m; i++) {
+            qr[i * n + j] += s * qr[i * n + k];
+          }
+        }
+      }
+      rdiag[k] = -nrm;
+      scale = Math.max(scale, Math.abs(nrm));
+    }
+    valid = scale > 0;
+    for (int k = 0; valid && k < n; k++) {
+      valid = Math.abs(rdiag[k]) > RANK_TOLERANCE * scale;
+    }
+    return valid;
+  }
+
+  /**
+   * Indicates whether the last call to {@link #decompose(Matrix)} succeeded.
+   *
+   * @return true if {@link #solve(Matrix, Matrix)} can be used.
+   */
+  public boolean isValid() {
+    return valid;
+  }
+
+  /**
+   * Find the x that minimizes the sum of squares of A x - b using the last
+   * decomposition.
+   *
+   * @param b
+   *          Right hand side (rows x m).
+   * @param x
+   *          Where to store the cols x m solution (must not be b unless the
+   *          matrix is square).
+   * @return x.
+   */
+  public Matrix solve(Matrix b, Matrix x) {
+    if (!valid) {
+      throw new IllegalStateException("Matrix not decomposed or rank deficient");
+    }
+    int mb = b.getCols();
+    if (b.getRows() != rows || x.getRows() != cols || x.getCols() != mb) {
+      throw new IllegalArgumentException("Expected " + rows + " x " + mb + " and " + cols + " x " + mb
+          + " matrices, got: " + b.getRows() + " x " + mb + " and " + x.getRows() + " x " + x.getCols());
+    }
+    final double[] qr = this.qr;
+    final double[] bd = b.getData();
+    final double[] xd = x.getData();
+    final double[] y = work;
+    final int m = rows;
+    final int n = cols;
+    for (int c = 0; c < mb; c++) {
+      for (int i = 0; i < m; i++) {
+        y[i] = bd[i * mb + c];
+      }
+      // y = Q^T b
+      for (int k = 0; k < n; k++) {
+        double s = 0;
+        for (int i = k; i < m; i++) {
+          s += qr[i * n + k] * y[i];
+        }
+        s = -s / qr[k * n + k];
+        for (int i = k; i < m; i++) {
+          y[i] += s * qr[i * n + k];
+        }
+      }
+      // Back substitution: R x = y
+      for (int k = n - 1; k >= 0; k--) {
+        y[k] /= rdiag[k];
+        for (int i = 0; i < k; i++) {
+          y[i] -= y[k] * qr[i * n + k];
+        }
+      }
+      for (int k = 0; k < n; k++) {
+        xd[k * mb + c] = y[k];
+      }
+    }
+    return x;
+  }
+
+}
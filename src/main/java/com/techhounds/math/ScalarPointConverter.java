@@ -0,0 +1,36 @@
+package com.techhounds.math;
+
+/**
+ * Batch point converter that processes one point at a time with the current
+ * {@link Trig} provider.
+ * <p>
+ * This is the fallback used when the JDK Vector API is not available and
+ * produces results identical to the per-object {@link CartesianPoint} and
+ * {@link PolarPoint} methods.
+ * </p>
+ */
+final class ScalarPointConverter implements PointConverter {
+
+  @Override
+  public void toCartesian(double[] r, double[] theta, double[] x, double[] y, int count) {
+    final TrigProvider trig = Trig.getProvider();
+    for (int i = 0; i < count; i++) {
+      double ri = r[i];
+      double ti = theta[i];
+      x[i] = trig.cos(ti) * ri;
+      y[i] = trig.sin(ti) * ri;
+    }
+  }
+
+  @Override
+  public void toPolar(double[] x, double[] y, double[] r, double[] theta, int count) {
+    final TrigProvider trig = Trig.getProvider();
+    for (int i = 0; i < count; i++) {
+      double xi = x[i];
+      double yi = y[i];
+      r[i] = Math.sqrt(xi * xi + yi * yi);
+      theta[i] = trig.atan2(yi, xi);
+    }
+  }
+
+}
@@ -0,0 +1,117 @@
+package com.techhounds.math;
+
+/**
+ * Trigonometric functions used by the math and kinematics code with a
+ * pluggable {@link TrigProvider}.
+ * <p>
+ * {@link CartesianPoint}, {@link PolarPoint} and the swerve kinematics call
+ * through this class so that the exact {@link Math} functions (the default)
+ * can be swapped for the bounded error {@link FastTrig} approximations on the
+ * control hot path. Set the {@value #USE_FAST_PROPERTY} system property to
+ * true (or call {@link #setFast(boolean)}) to use the approximations.
+ * </p>
+ * <p>
+ * The provider is held in a plain static field so the JIT can inline it.
+ * Choose it at start up before starting other threads.
+ * </p>
+ */
+public final class Trig {
+
+  /**
+   * System property that can be set to "true" to use the {@link FastTrig}
+   * approximations by default.
+   */
+  public static final String USE_FAST_PROPERTY = "com.techhounds.math.fastTrig";
+
+  /** The exact (standard library) provider. */
+  public static final TrigProvider EXACT = new ExactTrig();
+
+  /** The fast (approximate) provider. */
+  public static final TrigProvider FAST = new FastTrig();
+
+  /** The provider currently in use. */
+  private static TrigProvider provider = Boolean.getBoolean(USE_FAST_PROPERTY) ? FAST : EXACT;
+
+  /**
+   * Utility class, no instances.
+   */
+  private Trig() {
+  }
+
+  /**
+   * Get the provider currently in use.
+   *
+   * @return The current provider (never null).
+   */
+  public static TrigProvider getProvider() {
+    return provider;
+  }
+
+  /**
+   * Set the provider to use.
+   *
+   * @param provider
+   *          The provider to use (must not be null).
+   */
+  public static void setProvider(TrigProvider provider) {
+    if (provider == null) {
+      throw new NullPointerException();
+    }
+    Trig.provider = provider;
+  }
+
+  /**
+   * Choose between the {@link #EXACT} and {@link #FAST} providers.
+   *
+   * @param fast
+   *          Pass true to use the approximations, false for exact values.
+   */
+  public static void setFast(boolean fast) {
+    setProvider(fast ? FAST : EXACT);
+  }
+
+  /**
+   * Indicates whether the {@link #FAST} provider is in use.
+   *
+   * @return true if using the approximations.
+   */
+  public static boolean isFast() {
+    return provider == FAST;
+  }
+
+  /**
+   * Compute the sine of an angle using the current provider.
+   *
+   * @param a
+   *          Angle in radians.
+   * @return The sine of the angle.
+   */
+  public static double sin(double a) {
+    return provider.sin(a);
+  }
+
+  /**
+   * Compute the cosine of an angle using the current provider.
+   *
+   * @param a
+   *          Angle in radians.
+   * @return The cosine of the angle.
+   */
+  public static double cos(double a) {
+    return provider.cos(a);
+  }
+
+  /**
+   * Compute the polar angle of (x, y) using the current provider.
+   *
+   * @param y
+   *          The ordinate coordinate.
+   * @param x
+   *          The abscissa coordinate.
+   * @return The angle in radians in the range of [-PI, +PI].
+   */
+  public static double atan2(double y, double x) {
+    return provider.atan2(y, x);
+  }
+
+}
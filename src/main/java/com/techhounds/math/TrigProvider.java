@@ -0,0 +1,40 @@
+package com.techhounds.math;
+
+/**
+ * Methods that must be implemented by objects that supply the trigonometric
+ * functions used by the math and kinematics code (see {@link Trig}).
+ */
+public interface TrigProvider {
+
+  /**
+   * Compute the sine of an angle.
+   *
+   * @param a
+   *          Angle in radians.
+   * @return The sine of the angle.
+   */
+  double sin(double a);
+
+  /**
+   * Compute the cosine of an angle.
+   *
+   * @param a
+   *          Angle in radians.
+   * @return The cosine of the angle.
+   */
+  double cos(double a);
+
+  /**
+   * Compute the angle theta from the conversion of rectangular coordinates (x,
+   * y) to polar coordinates (r, theta) - same contract as
+   * {@link Math#atan2(double, double)}.
+   *
+   * @param y
+   *          The ordinate coordinate.
+   * @param x
+   *          The abscissa coordinate.
+   * @return The angle in radians in the range of [-PI, +PI].
+   */
+  double atan2(double y, double x);
+
+}
@@ -0,0 +1,64 @@
+package com.techhounds.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A count of events that can be incremented from any number of threads
+ * without contention.
+ */
+public final class Counter implements CounterMXBean {
+
+  /** Name of counter. */
+  private final String name;
+
+  /** The count (striped so threads don't fight over a cache line). */
+  private final LongAdder count = new LongAdder();
+
+  /**
+   * Constructs a new counter (use {@link Metrics#counter(String)} to create one
+   * that is registered).
+   *
+   * @param name
+   *          Name of counter.
+   */
+  Counter(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Get the name of the counter.
+   *
+   * @return Name it was registered with.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Add one to the count.
+   */
+  public void increment() {
+    count.increment();
+  }
+
+  /**
+   * Add to the count.
+   *
+   * @param n
+   *          Amount to add.
+   */
+  public void add(long n) {
+    count.add(n);
+  }
+
+  @Override
+  public long getCount() {
+    return count.sum();
+  }
+
+  @Override
+  public void reset() {
+    count.reset();
+  }
+
+}
@@ -0,0 +1,20 @@
+package com.techhounds.metrics;
+
+/**
+ * Management interface exposing a {@link Counter} through JMX.
+ */
+public interface CounterMXBean {
+
+  /**
+   * Get the current count.
+   *
+   * @return Sum of all increments since created or reset.
+   */
+  long getCount();
+
+  /**
+   * Set the count back to 0.
+   */
+  void reset();
+
+}
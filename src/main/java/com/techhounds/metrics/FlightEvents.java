@@ -0,0 +1,179 @@
+package com.techhounds.metrics;
+
+/**
+ * Java Flight Recorder events for the control loop.
+ * <p>
+ * Events are emitted for each simulation control tick, each
+ * {@link com.techhounds.swerve.SwerveWheels} wheel state recompute, each module
+ * direction reversal and each viewer repaint. The timed events are begun when
+ * the operation starts and committed when it ends, so JFR records their real
+ * start time and duration (and threshold settings apply). Every event carries
+ * the number of modules involved, so missed control deadlines can be lined up
+ * against GC pauses and JIT deoptimizations in JDK Mission Control (or with
+ * the "jfr print --events com.techhounds.*" command).
+ * </p>
+ * <p>
+ * The events are only compiled when building with JDK 17 or later and are
+ * loaded reflectively. Nothing is done unless a recording is running (for
+ * example when started with -XX:StartFlightRecording), and they can be turned
+ * off entirely by setting the system property "com.techhounds.jfr" to "false".
+ * </p>
+ */
+public final class FlightEvents {
+
+  /** Name of the event emitted for each simulation control tick. */
+  public static final String CONTROL_TICK = "com.techhounds.ControlTick";
+
+  /** Name of the event emitted each time the wheel states are recomputed. */
+  public static final String WHEELS_APPLY = "com.techhounds.WheelsApply";
+
+  /** Name of the event emitted when a module reverses its motor direction. */
+  public static final String WHEEL_REVERSAL = "com.techhounds.WheelReversal";
+
+  /** Name of the event emitted for each repaint of the swerve viewer. */
+  public static final String VIEWER_REPAINT = "com.techhounds.ViewerRepaint";
+
+  /** Fully qualified name of the JFR implementation. */
+  private static final String JFR_CLASS = "com.techhounds.metrics.JfrFlightRecorderHooks";
+
+  /** The JFR implementation (null if not available or turned off). */
+  private static final FlightRecorderHooks HOOKS = load();
+
+  /**
+   * No instances.
+   */
+  private FlightEvents() {
+  }
+
+  /**
+   * Attempts to load the JFR implementation.
+   *
+   * @return The hooks or null if not available in this JVM.
+   */
+  private static FlightRecorderHooks load() {
+    if ("false".equalsIgnoreCase(System.getProperty("com.techhounds.jfr"))) {
+      return null;
+    }
+    try {
+      return (FlightRecorderHooks) Class.forName(JFR_CLASS).getDeclaredConstructor().newInstance();
+    } catch (ReflectiveOperationException | LinkageError e) {
+      // Not compiled in or no flight recorder in this JVM
+      return null;
+    }
+  }
+
+  /**
+   * Indicates whether the flight recorder events are available.
+   *
+   * @return true if events will be emitted while a recording is running.
+   */
+  public static boolean isAvailable() {
+    return HOOKS != null;
+  }
+
+  /**
+   * Indicates whether a flight recording is currently running.
+   *
+   * @return true if the caller should time its operation and emit an event.
+   */
+  public static boolean isRecording() {
+    return HOOKS != null && HOOKS.isRecording();
+  }
+
+  /**
+   * Start timing a control tick (only call if {@link #isRecording()}).
+   *
+   * @return Event to pass to {@link #endControlTick(Object, long, int)} (null
+   *         if the event is not enabled).
+   */
+  public static Object beginControlTick() {
+    return (HOOKS != null) ? HOOKS.beginControlTick() : null;
+  }
+
+  /**
+   * Emit a control tick event when the tick ends.
+   *
+   * @param event
+   *          Value returned by {@link #beginControlTick()} (nothing is done if
+   *          null).
+   * @param tick
+   *          Number of the tick.
+   * @param modules
+   *          Number of modules updated.
+   */
+  public static void endControlTick(Object event, long tick, int modules) {
+    if (event != null) {
+      HOOKS.endControlTick(event, tick, modules);
+    }
+  }
+
+  /**
+   * Start timing a wheel state recompute (only call if {@link #isRecording()}).
+   *
+   * @return Event to pass to {@link #endApply(Object, int)} (null if the event
+   *         is not enabled).
+   */
+  public static Object beginApply() {
+    return (HOOKS != null) ? HOOKS.beginApply() : null;
+  }
+
+  /**
+   * Emit a wheel state recompute event when the recompute ends.
+   *
+   * @param event
+   *          Value returned by {@link #beginApply()} (nothing is done if
+   *          null).
+   * @param modules
+   *          Number of modules the robot has.
+   */
+  public static void endApply(Object event, int modules) {
+    if (event != null) {
+      HOOKS.endApply(event, modules);
+    }
+  }
+
+  /**
+   * Emit a module direction reversal event (only call if
+   * {@link #isRecording()}).
+   *
+   * @param modules
+   *          Number of modules that reversed.
+   * @param shortestPath
+   *          Turn (in radians) avoided by reversing (NaN if more than one
+   *          module reversed).
+   * @param velocity
+   *          New (reversed) velocity of the module (NaN if more than one module
+   *          reversed).
+   */
+  public static void reversal(int modules, double shortestPath, double velocity) {
+    if (HOOKS != null) {
+      HOOKS.reversal(modules, shortestPath, velocity);
+    }
+  }
+
+  /**
+   * Start timing a viewer repaint (only call if {@link #isRecording()}).
+   *
+   * @return Event to pass to {@link #endRepaint(Object, int)} (null if the
+   *         event is not enabled).
+   */
+  public static Object beginRepaint() {
+    return (HOOKS != null) ? HOOKS.beginRepaint() : null;
+  }
+
+  /**
+   * Emit a viewer repaint event when the repaint ends.
+   *
+   * @param event
+   *          Value returned by {@link #beginRepaint()} (nothing is done if
+   *          null).
+   * @param modules
+   *          Number of modules drawn.
+   */
+  public static void endRepaint(Object event, int modules) {
+    if (event != null) {
+      HOOKS.endRepaint(event, modules);
+    }
+  }
+
+}
@@ -0,0 +1,87 @@
+package com.techhounds.metrics;
+
+/**
+ * Emits the Java Flight Recorder events published by {@link FlightEvents}.
+ * <p>
+ * The implementation uses the jdk.jfr API, so it is compiled separately (see
+ * the java17 build profile) and loaded reflectively.
+ * </p>
+ */
+interface FlightRecorderHooks {
+
+  /**
+   * Indicates whether a flight recording is currently running.
+   *
+   * @return true if events might be committed (callers should skip reading the
+   *         clock when false).
+   */
+  boolean isRecording();
+
+  /**
+   * Start timing a control tick event.
+   *
+   * @return The event (null if the event is not enabled).
+   */
+  Object beginControlTick();
+
+  /**
+   * Stop timing and emit a control tick event.
+   *
+   * @param event
+   *          Event returned by {@link #beginControlTick()} (not null).
+   * @param tick
+   *          Number of the tick.
+   * @param modules
+   *          Number of modules updated.
+   */
+  void endControlTick(Object event, long tick, int modules);
+
+  /**
+   * Start timing a wheel state recompute event.
+   *
+   * @return The event (null if the event is not enabled).
+   */
+  Object beginApply();
+
+  /**
+   * Stop timing and emit a wheel state recompute event.
+   *
+   * @param event
+   *          Event returned by {@link #beginApply()} (not null).
+   * @param modules
+   *          Number of modules the robot has.
+   */
+  void endApply(Object event, int modules);
+
+  /**
+   * Emit a module direction reversal event.
+   *
+   * @param modules
+   *          Number of modules that reversed.
+   * @param shortestPath
+   *          Turn (in radians) avoided by reversing (NaN if more than one
+   *          module reversed).
+   * @param velocity
+   *          New (reversed) velocity of the module (NaN if more than one module
+   *          reversed).
+   */
+  void reversal(int modules, double shortestPath, double velocity);
+
+  /**
+   * Start timing a viewer repaint event.
+   *
+   * @return The event (null if the event is not enabled).
+   */
+  Object beginRepaint();
+
+  /**
+   * Stop timing and emit a viewer repaint event.
+   *
+   * @param event
+   *          Event returned by {@link #beginRepaint()} (not null).
+   * @param modules
+   *          Number of modules drawn.
+   */
+  void endRepaint(Object event, int modules);
+
+}
@@ -0,0 +1,50 @@
+package com.techhounds.metrics;
+
+/**
+ * A value that is set by one thread and read by others (like the throughput
+ * of the last simulation run).
+ */
+public final class Gauge implements GaugeMXBean {
+
+  /** Name of gauge. */
+  private final String name;
+
+  /** Current value. */
+  private volatile double value;
+
+  /**
+   * Constructs a new gauge (use {@link Metrics#gauge(String)} to create one
+   * that is registered).
+   *
+   * @param name
+   *          Name of gauge.
+   */
+  Gauge(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Get the name of the gauge.
+   *
+   * @return Name it was registered with.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Set the current value.
+   *
+   * @param value
+   *          New value.
+   */
+  public void set(double value) {
+    this.value = value;
+  }
+
+  @Override
+  public double getValue() {
+    return value;
+  }
+
+}
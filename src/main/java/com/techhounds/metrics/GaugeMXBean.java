@@ -0,0 +1,15 @@
+package com.techhounds.metrics;
+
+/**
+ * Management interface exposing a {@link Gauge} through JMX.
+ */
+public interface GaugeMXBean {
+
+  /**
+   * Get the current value.
+   *
+   * @return The last value set.
+   */
+  double getValue();
+
+}
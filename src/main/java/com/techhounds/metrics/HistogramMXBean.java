@@ -0,0 +1,69 @@
+package com.techhounds.metrics;
+
+/**
+ * Management interface exposing a {@link LatencyHistogram} through JMX.
+ */
+public interface HistogramMXBean {
+
+  /**
+   * Get the number of values recorded.
+   *
+   * @return Count of values.
+   */
+  long getCount();
+
+  /**
+   * Get the smallest value recorded.
+   *
+   * @return Nanoseconds (0 if nothing recorded).
+   */
+  long getMin();
+
+  /**
+   * Get the largest value recorded.
+   *
+   * @return Nanoseconds (0 if nothing recorded).
+   */
+  long getMax();
+
+  /**
+   * Get the average of the values recorded.
+   *
+   * @return Nanoseconds (0 if nothing recorded).
+   */
+  double getMean();
+
+  /**
+   * Get the median.
+   *
+   * @return Nanoseconds.
+   */
+  long getP50();
+
+  /**
+   * Get the 90th percentile.
+   *
+   * @return Nanoseconds.
+   */
+  long getP90();
+
+  /**
+   * Get the 99th percentile.
+   *
+   * @return Nanoseconds.
+   */
+  long getP99();
+
+  /**
+   * Get the 99.9th percentile.
+   *
+   * @return Nanoseconds.
+   */
+  long getP999();
+
+  /**
+   * Clear all recorded values.
+   */
+  void reset();
+
+}
@@ -0,0 +1,306 @@
+package com.techhounds.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * A histogram of latencies (in nanoseconds) with a fixed relative precision.
+ * <p>
+ * Like HdrHistogram, buckets are log-linear: values below 128 each get their
+ * own bucket, above that each power of 2 is split into 64 equally sized
+ * buckets. Every value from 0 to Long.MAX_VALUE is covered with at most 1/64
+ * (about 1.6%) error, all in a single fixed array allocated up front.
+ * Recording a value is a few shifts and an atomic increment, so it can be
+ * called from any thread on a control loop hot path.
+ * </p>
+ * <p>
+ * Values are recorded into one of several stripes picked by the recording
+ * thread (created the first time a thread lands on them), so threads running
+ * robots in parallel don't contend on the same counters. The stripes are only
+ * merged when the histogram is read (for example through JMX).
+ * </p>
+ */
+public final class LatencyHistogram implements HistogramMXBean {
+
+  /** Number of bits of precision (values below 2^BITS are exact). */
+  private static final int BITS = 7;
+
+  /** Number of buckets each power of 2 is split into. */
+  private static final int HALF = 1 << (BITS - 1);
+
+  /** Total number of buckets needed to cover all positive long values. */
+  private static final int BUCKETS = (63 - BITS + 2) * HALF;
+
+  /** Number of stripes (a power of 2 of at least the number of processors, at most 16). */
+  private static final int STRIPES = Math.min(16,
+      Integer.highestOneBit(Math.max(1, Runtime.getRuntime().availableProcessors() * 2 - 1)));
+
+  /** Name of histogram. */
+  private final String name;
+
+  /** Stripes values are recorded into (null until first used). */
+  private final AtomicReferenceArray<Stripe> stripes = new AtomicReferenceArray<Stripe>(STRIPES);
+
+  /**
+   * Constructs a new histogram (use {@link Metrics#histogram(String)} to create
+   * one that is registered).
+   *
+   * @param name
+   *          Name of histogram.
+   */
+  LatencyHistogram(String name) {
+    this.name = name;
+  }
+
+  /**
+   * Get the name of the histogram.
+   *
+   * @return Name it was registered with.
+   */
+  public String getName() {
+    return name;
+  }
+
+  /**
+   * Get the bucket a value is counted in.
+   *
+   * @param value
+   *          Value (must not be negative).
+   * @return Index of bucket.
+   */
+  static int bucketOf(long value) {
+    if (value < (1 << BITS)) {
+      return (int) value;
+    }
+    int e = 63 - Long.numberOfLeadingZeros(value);
+    int shift = e - BITS + 1;
+    int m = (int) (value >>> shift);
+    return (shift + 1) * HALF + (m - HALF);
+  }
+
+  /**
+   * Get the smallest value counted in a bucket.
+   *
+   * @param bucket
+   *          Index of bucket.
+   * @return Lowest value that maps to the bucket.
+   */
+  static long lowestValueOf(int bucket) {
+    if (bucket < (1 << BITS)) {
+      return bucket;
+    }
+    int shift = bucket / HALF - 1;
+    long m = HALF + bucket % HALF;
+    return m << shift;
+  }
+
+  /**
+   * Get the largest value counted in a bucket.
+   *
+   * @param bucket
+   *          Index of bucket.
+   * @return Highest value that maps to the bucket.
+   */
+  static long highestValueOf(int bucket) {
+    if (bucket < (1 << BITS)) {
+      return bucket;
+    }
+    int shift = bucket / HALF - 1;
+    return lowestValueOf(bucket) + (1L << shift) - 1;
+  }
+
+  /**
+   * Record a value.
+   *
+   * @param nanos
+   *          Latency in nanoseconds (negative values are recorded as 0).
+   */
+  public void record(long nanos) {
+    long value = Math.max(0, nanos);
+    Stripe stripe = stripe();
+    stripe.counts.getAndIncrement(bucketOf(value));
+    stripe.sum.getAndAdd(value);
+    // Extremes rarely change - avoid the CAS in the common case
+    AtomicLong min = stripe.min;
+    long lo;
+    while (value < (lo = min.get()) && !min.compareAndSet(lo, value)) {
+      // retry
+    }
+    AtomicLong max = stripe.max;
+    long hi;
+    while (value > (hi = max.get()) && !max.compareAndSet(hi, value)) {
+      // retry
+    }
+  }
+
+  /**
+   * Get the stripe the current thread records into (creating it if needed).
+   *
+   * @return The stripe.
+   */
+  private Stripe stripe() {
+    long id = Thread.currentThread().getId();
+    int h = (int) (id ^ (id >>> 32)) * 0x9E3779B9;
+    int idx = (h >>> 16) & (STRIPES - 1);
+    Stripe stripe = stripes.get(idx);
+    if (stripe == null) {
+      Stripe created = new Stripe();
+      stripe = stripes.compareAndSet(idx, null, created) ? created : stripes.get(idx);
+    }
+    return stripe;
+  }
+
+  /**
+   * Get the number of values recorded in a bucket across all stripes.
+   *
+   * @param bucket
+   *          Index of bucket.
+   * @return Count.
+   */
+  private long countOf(int bucket) {
+    long n = 0;
+    for (int s = 0; s < STRIPES; s++) {
+      Stripe stripe = stripes.get(s);
+      if (stripe != null) {
+        n += stripe.counts.get(bucket);
+      }
+    }
+    return n;
+  }
+
+  /**
+   * Record the time since a start time.
+   *
+   * @param startNanos
+   *          Value of System.nanoTime() when the operation started.
+   */
+  public void recordSince(long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  @Override
+  public long getCount() {
+    long n = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      n += countOf(i);
+    }
+    return n;
+  }
+
+  @Override
+  public long getMin() {
+    long lo = Long.MAX_VALUE;
+    for (int s = 0; s < STRIPES; s++) {
+      Stripe stripe = stripes.get(s);
+      if (stripe != null) {
+        lo = Math.min(lo, stripe.min.get());
+      }
+    }
+    return (lo == Long.MAX_VALUE) ? 0 : lo;
+  }
+
+  @Override
+  public long getMax() {
+    long hi = Long.MIN_VALUE;
+    for (int s = 0; s < STRIPES; s++) {
+      Stripe stripe = stripes.get(s);
+      if (stripe != null) {
+        hi = Math.max(hi, stripe.max.get());
+      }
+    }
+    return (hi == Long.MIN_VALUE) ? 0 : hi;
+  }
+
+  @Override
+  public double getMean() {
+    long n = getCount();
+    long total = 0;
+    for (int s = 0; s < STRIPES; s++) {
+      Stripe stripe = stripes.get(s);
+      if (stripe != null) {
+        total += stripe.sum.get();
+      }
+    }
+    return (n == 0) ? 0 : total / (double) n;
+  }
+
+  /**
+   * Get the value at a percentile.
+   *
+   * @param percentile
+   *          Percentile in the range of [0, 100].
+   * @return Highest value of the bucket containing the percentile (limited to
+   *         the max value recorded, 0 if nothing recorded).
+   */
+  public long getValueAtPercentile(double percentile) {
+    long n = getCount();
+    if (n == 0) {
+      return 0;
+    }
+    long rank = Math.max(1, (long) Math.ceil(n * Math.min(100, Math.max(0, percentile)) / 100.0));
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += countOf(i);
+      if (seen >= rank) {
+        return Math.min(highestValueOf(i), getMax());
+      }
+    }
+    return getMax();
+  }
+
+  @Override
+  public long getP50() {
+    return getValueAtPercentile(50);
+  }
+
+  @Override
+  public long getP90() {
+    return getValueAtPercentile(90);
+  }
+
+  @Override
+  public long getP99() {
+    return getValueAtPercentile(99);
+  }
+
+  @Override
+  public long getP999() {
+    return getValueAtPercentile(99.9);
+  }
+
+  @Override
+  public void reset() {
+    for (int s = 0; s < STRIPES; s++) {
+      Stripe stripe = stripes.get(s);
+      if (stripe != null) {
+        for (int i = 0; i < BUCKETS; i++) {
+          stripe.counts.set(i, 0);
+        }
+        stripe.sum.set(0);
+        stripe.min.set(Long.MAX_VALUE);
+        stripe.max.set(Long.MIN_VALUE);
+      }
+    }
+  }
+
+  /**
+   * The counts recorded by the threads that map to one stripe.
+   */
+  private static final class Stripe {
+
+    /** Number of values recorded in each bucket. */
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+
+    /** Sum of all values recorded. */
+    private final AtomicLong sum = new AtomicLong();
+
+    /** Smallest value recorded. */
+    private final AtomicLong min = new AtomicLong(Long.MAX_VALUE);
+
+    /** Largest value recorded. */
+    private final AtomicLong max = new AtomicLong(Long.MIN_VALUE);
+
+  }
+
+}
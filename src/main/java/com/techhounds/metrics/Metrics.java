@@ -0,0 +1,216 @@
+package com.techhounds.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+/**
+ * Registry of the {@link LatencyHistogram}s, {@link Counter}s and
+ * {@link Gauge}s used to monitor the kinematics hot paths.
+ * <p>
+ * Instrumentation is on by default and can be turned off by setting the
+ * system property "com.techhounds.metrics" to "false" (the check is a static
+ * final constant, so the JIT compiler removes the instrumentation entirely).
+ * Call {@link #registerMBeans()} to expose every metric through JMX (for
+ * example in JConsole or VisualVM) under the "com.techhounds" domain.
+ * </p>
+ */
+public final class Metrics {
+
+  /** Whether the built in instrumentation is enabled. */
+  public static final boolean ENABLED = !"false".equalsIgnoreCase(System.getProperty("com.techhounds.metrics"));
+
+  /** Domain of the JMX object names. */
+  public static final String DOMAIN = "com.techhounds";
+
+  /** Histograms by name. */
+  private static final Map<String, LatencyHistogram> HISTOGRAMS = new ConcurrentHashMap<String, LatencyHistogram>();
+
+  /** Counters by name. */
+  private static final Map<String, Counter> COUNTERS = new ConcurrentHashMap<String, Counter>();
+
+  /** Gauges by name. */
+  private static final Map<String, Gauge> GAUGES = new ConcurrentHashMap<String, Gauge>();
+
+  /** Time to recompute wheel states when the turn point or wheels change (sampled). */
+  public static final LatencyHistogram WHEELS_APPLY = histogram("SwerveWheels.apply");
+
+  /** Time to set the direction of every wheel of a robot (sampled). */
+  public static final LatencyHistogram WHEELS_SET_DIRECTION = histogram("SwerveWheels.setDirection");
+
+  /** Time to set the direction of a single wheel (sampled). */
+  public static final LatencyHistogram WHEEL_SET_DIRECTION = histogram("SwerveWheel.setDirection");
+
+  /** Time to paint the swerve viewer (sampled). */
+  public static final LatencyHistogram VIEWER_PAINT = histogram("SwerveViewer.paintComponent");
+
+  /** Number of times a wheel reversed its motor instead of turning more than the reverse threshold. */
+  public static final Counter WHEEL_REVERSALS = counter("SwerveWheel.reversals");
+
+  /** How late each real time control loop tick started. */
+  public static final LatencyHistogram CONTROL_LOOP_JITTER = histogram("ControlLoop.jitter");
+
+  /** Number of real time control loop ticks that ran past the next deadline. */
+  public static final Counter CONTROL_LOOP_OVERRUNS = counter("ControlLoop.overruns");
+
+  /** Time from the lockstep barrier opening until each robot starts its next tick. */
+  public static final LatencyHistogram MULTI_ROBOT_LAG = histogram("MultiRobotSimulation.schedulingLag");
+
+  /** Time from an input event being queued on the event thread until the control thread drains it. */
+  public static final LatencyHistogram INPUT_QUEUE_LATENCY = histogram("InputEventQueue.latency");
+
+  /** Number of input events dropped because the queue to the control thread was full. */
+  public static final Counter INPUT_QUEUE_DROPPED = counter("InputEventQueue.dropped");
+
+  /** Throughput of the last simulation run in ticks per second. */
+  public static final Gauge SIMULATION_TICKS_PER_SECOND = gauge("SwerveSimulation.ticksPerSecond");
+
+  /**
+   * Hot path operations are timed once every SAMPLE_MASK + 1 calls (reading
+   * the clock costs about as much as a short operation, and timing every call
+   * would keep the histograms busy on every control loop tick).
+   */
+  public static final int SAMPLE_MASK = 63;
+
+  /**
+   * No instances.
+   */
+  private Metrics() {
+  }
+
+  /**
+   * Get (or create) a histogram.
+   *
+   * @param name
+   *          Name of histogram.
+   * @return The histogram registered with the name.
+   */
+  public static LatencyHistogram histogram(String name) {
+    LatencyHistogram h = HISTOGRAMS.get(name);
+    if (h == null) {
+      LatencyHistogram created = new LatencyHistogram(name);
+      h = HISTOGRAMS.putIfAbsent(name, created);
+      if (h == null) {
+        h = created;
+      }
+    }
+    return h;
+  }
+
+  /**
+   * Get (or create) a counter.
+   *
+   * @param name
+   *          Name of counter.
+   * @return The counter registered with the name.
+   */
+  public static Counter counter(String name) {
+    Counter c = COUNTERS.get(name);
+    if (c == null) {
+      Counter created = new Counter(name);
+      c = COUNTERS.putIfAbsent(name, created);
+      if (c == null) {
+        c = created;
+      }
+    }
+    return c;
+  }
+
+  /**
+   * Get (or create) a gauge.
+   *
+   * @param name
+   *          Name of gauge.
+   * @return The gauge registered with the name.
+   */
+  public static Gauge gauge(String name) {
+    Gauge g = GAUGES.get(name);
+    if (g == null) {
+      Gauge created = new Gauge(name);
+      g = GAUGES.putIfAbsent(name, created);
+      if (g == null) {
+        g = created;
+      }
+    }
+    return g;
+  }
+
+  /**
+   * Registers every metric created so far with the platform MBean server.
+   *
+   * @return Number of MBeans registered (metrics already registered are
+   *         skipped).
+   */
+  public static int registerMBeans() {
+    return registerMBeans(ManagementFactory.getPlatformMBeanServer());
+  }
+
+  /**
+   * Registers every metric created so far with an MBean server.
+   *
+   * @param server
+   *          The server to register with.
+   * @return Number of MBeans registered (metrics already registered are
+   *         skipped).
+   */
+  public static int registerMBeans(MBeanServer server) {
+    int n = 0;
+    for (LatencyHistogram h : HISTOGRAMS.values()) {
+      n += register(server, h, "Histogram", h.getName());
+    }
+    for (Counter c : COUNTERS.values()) {
+      n += register(server, c, "Counter", c.getName());
+    }
+    for (Gauge g : GAUGES.values()) {
+      n += register(server, g, "Gauge", g.getName());
+    }
+    return n;
+  }
+
+  /**
+   * Get the JMX object name of a metric.
+   *
+   * @param type
+   *          Histogram, Counter or Gauge.
+   * @param name
+   *          Name of metric.
+   * @return Object name.
+   */
+  public static ObjectName objectName(String type, String name) {
+    try {
+      return new ObjectName(DOMAIN + ":type=" + type + ",name=" + ObjectName.quote(name));
+    } catch (JMException e) {
+      throw new IllegalArgumentException("Bad metric name: " + name, e);
+    }
+  }
+
+  /**
+   * Helper method to register a single metric.
+   *
+   * @param server
+   *          The server to register with.
+   * @param bean
+   *          The metric.
+   * @param type
+   *          Histogram, Counter or Gauge.
+   * @param name
+   *          Name of metric.
+   * @return 1 if registered, 0 if already registered.
+   */
+  private static int register(MBeanServer server, Object bean, String type, String name) {
+    try {
+      server.registerMBean(bean, objectName(type, name));
+      return 1;
+    } catch (InstanceAlreadyExistsException e) {
+      return 0;
+    } catch (JMException e) {
+      throw new IllegalStateException("Failed to register metric: " + name, e);
+    }
+  }
+
+}
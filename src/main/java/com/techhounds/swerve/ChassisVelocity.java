@@ -0,0 +1,108 @@
+package com.techhounds.swerve;
+
+/**
+ * The velocity of the robot chassis in robot space (x is to the right, y is
+ * forward and rotation is counter-clockwise).
+ * <p>
+ * Instances are mutable so they can be reused as destinations on the control
+ * hot path.
+ * </p>
+ */
+public final class ChassisVelocity {
+
+  /** Velocity along the x-axis of the robot (to the right). */
+  private double vx;
+
+  /** Velocity along the y-axis of the robot (forward). */
+  private double vy;
+
+  /** Rotational velocity in radians per unit of time (counter-clockwise). */
+  private double omega;
+
+  /**
+   * Constructs a new instance with all values set to zero (robot at rest).
+   */
+  public ChassisVelocity() {
+    this(0, 0, 0);
+  }
+
+  /**
+   * Constructs a new instance and initializes the values.
+   *
+   * @param vx
+   *          Velocity along the x-axis of the robot (to the right).
+   * @param vy
+   *          Velocity along the y-axis of the robot (forward).
+   * @param omega
+   *          Rotational velocity in radians per unit of time (positive is
+   *          counter-clockwise).
+   */
+  public ChassisVelocity(double vx, double vy, double omega) {
+    set(vx, vy, omega);
+  }
+
+  /**
+   * Set all of the values.
+   *
+   * @param vx
+   *          Velocity along the x-axis of the robot (to the right).
+   * @param vy
+   *          Velocity along the y-axis of the robot (forward).
+   * @param omega
+   *          Rotational velocity in radians per unit of time (positive is
+   *          counter-clockwise).
+   * @return Reference to self.
+   */
+  public ChassisVelocity set(double vx, double vy, double omega) {
+    this.vx = vx;
+    this.vy = vy;
+    this.omega = omega;
+    return this;
+  }
+
+  /**
+   * Get the velocity along the x-axis of the robot.
+   *
+   * @return Velocity to the right (negative is to the left).
+   */
+  public double getVx() {
+    return vx;
+  }
+
+  /**
+   * Get the velocity along the y-axis of the robot.
+   *
+   * @return Velocity forward (negative is backward).
+   */
+  public double getVy() {
+    return vy;
+  }
+
+  /**
+   * Get the rotational velocity.
+   *
+   * @return Radians per unit of time (positive is counter-clockwise).
+   */
+  public double getOmega() {
+    return omega;
+  }
+
+  /**
+   * Get the string representation "(vx, vy, omega)".
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    StringBuilder sb = new StringBuilder(128);
+    sb.append('(');
+    sb.append(vx);
+    sb.append(", ");
+    sb.append(vy);
+    sb.append(", ");
+    sb.append(omega);
+    sb.append(')');
+    return sb.toString();
+  }
+
+}
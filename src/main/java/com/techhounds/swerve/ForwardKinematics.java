@@ -0,0 +1,273 @@
+package com.techhounds.swerve;
+
+import com.techhounds.math.Trig;
+
+/**
+ * Computes the chassis velocity of a robot from the measured states (angle and
+ * velocity) of its swerve modules.
+ * <p>
+ * This is the inverse of what {@link SwerveWheel#setDirection(double, double, double)}
+ * does. Each module i located at (px, py) relative to the center of the robot
+ * moves at (vx - omega * py, vy + omega * px) in robot space. With two or more
+ * modules this is an over-determined system, so we find the least squares
+ * solution using the pseudo-inverse of the 2N x 3 module matrix. The
+ * pseudo-inverse only depends on the module positions and is computed once
+ * when the instance is constructed, so each {@link #solve} is a single
+ * 3 x 2N multiply.
+ * </p>
+ * <p>
+ * Module states are in wheel bearing space (see
+ * {@link com.techhounds.swerve.sim.DriveCommand}) and are rotated back to robot
+ * space (x to the right, y forward). For a robot whose modules are all the
+ * same distance R from its center, a command of setDirection(vy, -vx, omega *
+ * R) solves back to (vx, vy, omega).
+ * </p>
+ */
+public final class ForwardKinematics {
+
+  /** Number of modules the geometry was built for. */
+  private final int modules;
+
+  /** Row of the pseudo-inverse that produces vx (2 entries per module). */
+  private final double[] pinvVx;
+
+  /** Row of the pseudo-inverse that produces vy (2 entries per module). */
+  private final double[] pinvVy;
+
+  /** Row of the pseudo-inverse that produces omega (2 entries per module). */
+  private final double[] pinvOmega;
+
+  /**
+   * Constructs a new instance using the current module positions of a robot.
+   *
+   * @param wheels
+   *          The wheels making up the robot (positions are copied - you must
+   *          create a new instance if wheels are moved).
+   */
+  public ForwardKinematics(SwerveWheels wheels) {
+    this(getPositions(wheels, true), getPositions(wheels, false));
+  }
+
+  /**
+   * Constructs a new instance from module positions.
+   *
+   * @param x
+   *          The x offset of each module from the center of the robot.
+   * @param y
+   *          The y offset of each module from the center of the robot (must be
+   *          the same length as x).
+   */
+  public ForwardKinematics(double[] x, double[] y) {
+    if (x.length != y.length) {
+      throw new IllegalArgumentException("Mismatched position arrays: " + x.length + " != " + y.length);
+    }
+    modules = x.length;
+    pinvVx = new double[modules * 2];
+    pinvVy = new double[modules * 2];
+    pinvOmega = new double[modules * 2];
+
+    // A^T A for rows [1, 0, -py] and [0, 1, px]
+    double sx = 0;
+    double sy = 0;
+    double sr2 = 0;
+    for (int i = 0; i < modules; i++) {
+      sx += x[i];
+      sy += y[i];
+      sr2 += x[i] * x[i] + y[i] * y[i];
+    }
+    double n = modules;
+    double a00 = n, a01 = 0, a02 = -sy;
+    double a11 = n, a12 = sx;
+    double a22 = sr2;
+
+    // Inverse of symmetric 3x3 by cofactors
+    double c00 = a11 * a22 - a12 * a12;
+    double c01 = a02 * a12 - a01 * a22;
+    double c02 = a01 * a12 - a02 * a11;
+    double c11 = a00 * a22 - a02 * a02;
+    double c12 = a01 * a02 - a00 * a12;
+    double c22 = a00 * a11 - a01 * a01;
+    double det = a00 * c00 + a01 * c01 + a02 * c02;
+    if (!(Math.abs(det) > 1e-12 * Math.max(1.0, n * n * sr2))) {
+      throw new IllegalArgumentException("Module positions can not determine chassis rotation");
+    }
+    double inv = 1.0 / det;
+    c00 *= inv;
+    c01 *= inv;
+    c02 *= inv;
+    c11 *= inv;
+    c12 *= inv;
+    c22 *= inv;
+
+    // Columns of (A^T A)^-1 A^T
+    for (int i = 0; i < modules; i++) {
+      int k = i * 2;
+      // Rotation contribution to module x and y velocity
+      double rx = -y[i];
+      double ry = x[i];
+      // Column for x component: (A^T A)^-1 * [1, 0, -py]
+      pinvVx[k] = c00 + c02 * rx;
+      pinvVy[k] = c01 + c12 * rx;
+      pinvOmega[k] = c02 + c22 * rx;
+      // Column for y component: (A^T A)^-1 * [0, 1, px]
+      pinvVx[k + 1] = c01 + c02 * ry;
+      pinvVy[k + 1] = c11 + c12 * ry;
+      pinvOmega[k + 1] = c12 + c22 * ry;
+    }
+  }
+
+  /**
+   * Helper method to extract module positions.
+   *
+   * @param wheels
+   *          The wheels making up the robot.
+   * @param xAxis
+   *          Pass true to get x values, false to get y values.
+   * @return Array of x or y positions.
+   */
+  private static double[] getPositions(SwerveWheels wheels, boolean xAxis) {
+    double[] pos = new double[wheels.size()];
+    for (int i = 0; i < pos.length; i++) {
+      SwerveWheel wheel = wheels.getSwerveWheel(i);
+      pos[i] = xAxis ? wheel.getX() : wheel.getY();
+    }
+    return pos;
+  }
+
+  /**
+   * Get the number of modules the geometry was built for.
+   *
+   * @return Module count.
+   */
+  public int getModuleCount() {
+    return modules;
+  }
+
+  /**
+   * Computes the chassis velocity from the current state of a set of wheels.
+   *
+   * @param wheels
+   *          The wheels (must be the same geometry the instance was built
+   *          for).
+   * @param dst
+   *          Where to store the result (must not be null).
+   * @return The dst object.
+   */
+  public ChassisVelocity solve(SwerveWheels wheels, ChassisVelocity dst) {
+    checkCount(wheels.size());
+    double vx = 0;
+    double vy = 0;
+    double omega = 0;
+    for (int i = 0, k = 0; i < modules; i++, k += 2) {
+      SwerveWheel wheel = wheels.getSwerveWheel(i);
+      double v = wheel.getVelocity();
+      double theta = wheel.getAxleTheta();
+      // Rotate from wheel bearing space back to robot space
+      double bx = -v * Trig.sin(theta);
+      double by = v * Trig.cos(theta);
+      vx += pinvVx[k] * bx + pinvVx[k + 1] * by;
+      vy += pinvVy[k] * bx + pinvVy[k + 1] * by;
+      omega += pinvOmega[k] * bx + pinvOmega[k + 1] * by;
+    }
+    return dst.set(vx, vy, omega);
+  }
+
+  /**
+   * Computes the chassis velocity from a published snapshot of wheel states
+   * (so a display thread can follow wheels driven by a control thread).
+   *
+   * @param states
+   *          The snapshot (must be the same geometry the instance was built
+   *          for).
+   * @param dst
+   *          Where to store the result (must not be null).
+   * @return The dst object.
+   */
+  public ChassisVelocity solve(WheelStates states, ChassisVelocity dst) {
+    checkCount(states.getCount());
+    double vx = 0;
+    double vy = 0;
+    double omega = 0;
+    for (int i = 0, k = 0; i < modules; i++, k += 2) {
+      double v = states.getVelocity(i);
+      double theta = states.getAxleTheta(i);
+      double bx = -v * Trig.sin(theta);
+      double by = v * Trig.cos(theta);
+      vx += pinvVx[k] * bx + pinvVx[k + 1] * by;
+      vy += pinvVy[k] * bx + pinvVy[k + 1] * by;
+      omega += pinvOmega[k] * bx + pinvOmega[k + 1] * by;
+    }
+    return dst.set(vx, vy, omega);
+  }
+
+  /**
+   * Computes the chassis velocity of a robot in a {@link SwerveFleet}.
+   *
+   * @param fleet
+   *          The fleet containing the robot.
+   * @param robot
+   *          Index of robot (must be the same geometry the instance was built
+   *          for).
+   * @param dst
+   *          Where to store the result (must not be null).
+   * @return The dst object.
+   */
+  public ChassisVelocity solve(SwerveFleet fleet, int robot, ChassisVelocity dst) {
+    checkCount(fleet.getModuleCount(robot));
+    int m = fleet.getModuleStart(robot);
+    double vx = 0;
+    double vy = 0;
+    double omega = 0;
+    for (int k = 0, end = modules * 2; k < end; k += 2, m++) {
+      double v = fleet.getVelocity(m);
+      double theta = fleet.getAxleTheta(m);
+      double bx = -v * Trig.sin(theta);
+      double by = v * Trig.cos(theta);
+      vx += pinvVx[k] * bx + pinvVx[k + 1] * by;
+      vy += pinvVy[k] * bx + pinvVy[k + 1] * by;
+      omega += pinvOmega[k] * bx + pinvOmega[k + 1] * by;
+    }
+    return dst.set(vx, vy, omega);
+  }
+
+  /**
+   * Computes the chassis velocity from the actual (lagging) module states of a
+   * {@link ModuleDynamics} model.
+   *
+   * @param dynamics
+   *          The actuator model (must have the same number of modules the
+   *          instance was built for).
+   * @param dst
+   *          Where to store the result (must not be null).
+   * @return The dst object.
+   */
+  public ChassisVelocity solve(ModuleDynamics dynamics, ChassisVelocity dst) {
+    checkCount(dynamics.getModuleCount());
+    double vx = 0;
+    double vy = 0;
+    double omega = 0;
+    for (int i = 0, k = 0; i < modules; i++, k += 2) {
+      double v = dynamics.getDriveVelocity(i);
+      double theta = dynamics.getSteerAngle(i);
+      double bx = -v * Trig.sin(theta);
+      double by = v * Trig.cos(theta);
+      vx += pinvVx[k] * bx + pinvVx[k + 1] * by;
+      vy += pinvVy[k] * bx + pinvVy[k + 1] * by;
+      omega += pinvOmega[k] * bx + pinvOmega[k + 1] * by;
+    }
+    return dst.set(vx, vy, omega);
+  }
+
+  /**
+   * Verifies the number of modules matches the geometry.
+   *
+   * @param count
+   *          Number of modules passed in.
+   */
+  private void checkCount(int count) {
+    if (count != modules) {
+      throw new IllegalArgumentException("Expected " + modules + " modules, got: " + count);
+    }
+  }
+
+}
@@ -0,0 +1,367 @@
+package com.techhounds.swerve;
+
+import com.techhounds.math.PolarPoint;
+
+/**
+ * Models the steering and drive actuators of a set of swerve modules so the
+ * measured module states lag behind the commanded ones.
+ * <p>
+ * {@link SwerveWheel#setDirection(double, double, double)} snaps each wheel to
+ * its new angle and velocity immediately. This class treats those values as
+ * targets and advances the actual state of each module by a fixed time step:
+ * </p>
+ * <ul>
+ * <li>Steering is either first order (the angle approaches the target with a
+ * time constant) or second order (a damped spring with a natural frequency and
+ * damping ratio). Either way the steering rate is limited to a maximum.</li>
+ * <li>The drive motor follows a DC motor torque curve: torque falls off
+ * linearly from stall at zero speed to nothing at the free speed for the
+ * commanded output. Current is proportional to torque and is limited, which
+ * limits acceleration.</li>
+ * </ul>
+ * <p>
+ * State is kept in flat arrays (one entry per module) so a batch update of
+ * every module of a {@link SwerveWheels} robot or a {@link SwerveFleet} is a
+ * single loop that does not allocate memory.
+ * </p>
+ */
+public final class ModuleDynamics {
+
+  /** Steering approaches the target at a rate proportional to the error. */
+  public static final int FIRST_ORDER = 1;
+
+  /** Steering behaves like a damped spring pulling towards the target. */
+  public static final int SECOND_ORDER = 2;
+
+  /** Number of modules being modeled. */
+  private final int modules;
+
+  /** Actual steering (axle) angle of each module in radians. */
+  private final double[] steerAngle;
+
+  /** Actual steering rate of each module in radians per second. */
+  private final double[] steerRate;
+
+  /** Actual drive velocity of each module. */
+  private final double[] driveVelocity;
+
+  /** Drive motor current of each module in amps. */
+  private final double[] driveCurrent;
+
+  /** Steering model ({@link #FIRST_ORDER} or {@link #SECOND_ORDER}). */
+  private int steerOrder = FIRST_ORDER;
+
+  /** Time constant of first order steering in seconds. */
+  private double steerTimeConstant = 0.05;
+
+  /** Natural frequency of second order steering in radians per second. */
+  private double steerNaturalFrequency = 30;
+
+  /** Damping ratio of second order steering. */
+  private double steerDamping = 0.8;
+
+  /** Fastest the steering can rotate in radians per second. */
+  private double maxSteerRate = 4 * Math.PI;
+
+  /** Drive velocity at full output with no load. */
+  private double driveFreeSpeed = 1.0;
+
+  /** Drive acceleration at full output from a stop (stall torque). */
+  private double driveStallAcceleration = 20;
+
+  /** Drive motor current at stall in amps. */
+  private double driveStallCurrent = 100;
+
+  /** Drive motor current limit in amps. */
+  private double driveCurrentLimit = 40;
+
+  /**
+   * Constructs a new model with every module at rest pointing at 0.
+   *
+   * @param modules
+   *          Number of modules to model.
+   */
+  public ModuleDynamics(int modules) {
+    if (modules < 0) {
+      throw new IllegalArgumentException("Negative module count: " + modules);
+    }
+    this.modules = modules;
+    steerAngle = new double[modules];
+    steerRate = new double[modules];
+    driveVelocity = new double[modules];
+    driveCurrent = new double[modules];
+  }
+
+  /**
+   * Get the number of modules being modeled.
+   *
+   * @return Module count.
+   */
+  public int getModuleCount() {
+    return modules;
+  }
+
+  /**
+   * Set the steering model to use.
+   *
+   * @param order
+   *          {@link #FIRST_ORDER} or {@link #SECOND_ORDER}.
+   */
+  public void setSteerOrder(int order) {
+    if (order != FIRST_ORDER && order != SECOND_ORDER) {
+      throw new IllegalArgumentException("Steering order must be 1 or 2: " + order);
+    }
+    this.steerOrder = order;
+  }
+
+  /**
+   * Get the steering model in use.
+   *
+   * @return {@link #FIRST_ORDER} or {@link #SECOND_ORDER}.
+   */
+  public int getSteerOrder() {
+    return steerOrder;
+  }
+
+  /**
+   * Set the time constant of first order steering.
+   *
+   * @param seconds
+   *          Time to cover 63% of a (small) step change (must be positive).
+   */
+  public void setSteerTimeConstant(double seconds) {
+    this.steerTimeConstant = checkPositive(seconds);
+  }
+
+  /**
+   * Set the parameters of second order steering.
+   *
+   * @param naturalFrequency
+   *          Natural frequency in radians per second (must be positive).
+   * @param damping
+   *          Damping ratio (1.0 is critically damped, must be positive).
+   */
+  public void setSteerSpring(double naturalFrequency, double damping) {
+    this.steerNaturalFrequency = checkPositive(naturalFrequency);
+    this.steerDamping = checkPositive(damping);
+  }
+
+  /**
+   * Set the fastest the steering can rotate.
+   *
+   * @param radiansPerSecond
+   *          Maximum steering rate (must be positive).
+   */
+  public void setMaxSteerRate(double radiansPerSecond) {
+    this.maxSteerRate = checkPositive(radiansPerSecond);
+  }
+
+  /**
+   * Set the drive motor torque curve.
+   *
+   * @param freeSpeed
+   *          Drive velocity at full output with no load (commanded velocities
+   *          are divided by this to get the motor output, must be positive).
+   * @param stallAcceleration
+   *          Drive acceleration at full output from a stop (must be positive).
+   */
+  public void setDriveTorqueCurve(double freeSpeed, double stallAcceleration) {
+    this.driveFreeSpeed = checkPositive(freeSpeed);
+    this.driveStallAcceleration = checkPositive(stallAcceleration);
+  }
+
+  /**
+   * Set the drive motor current limit.
+   *
+   * @param stallCurrent
+   *          Drive motor current at stall in amps (must be positive).
+   * @param currentLimit
+   *          Most current the motor is allowed to draw in amps (must be
+   *          positive).
+   */
+  public void setDriveCurrentLimit(double stallCurrent, double currentLimit) {
+    this.driveStallCurrent = checkPositive(stallCurrent);
+    this.driveCurrentLimit = checkPositive(currentLimit);
+  }
+
+  /**
+   * Helper method to reject values that aren't positive.
+   *
+   * @param value
+   *          Value passed in.
+   * @return The value.
+   */
+  private static double checkPositive(double value) {
+    if (!(value > 0)) {
+      throw new IllegalArgumentException("Value must be positive: " + value);
+    }
+    return value;
+  }
+
+  /**
+   * Reset a module to a known state.
+   *
+   * @param i
+   *          Index of module.
+   * @param angle
+   *          Steering angle in radians.
+   * @param velocity
+   *          Drive velocity.
+   */
+  public void reset(int i, double angle, double velocity) {
+    steerAngle[i] = angle;
+    steerRate[i] = 0;
+    driveVelocity[i] = velocity;
+    driveCurrent[i] = 0;
+  }
+
+  /**
+   * Advance every module towards the current angle and velocity of the wheels
+   * of a robot.
+   *
+   * @param wheels
+   *          The wheels holding the target states (must have the same number
+   *          of wheels as this model has modules).
+   * @param dt
+   *          Time step in seconds.
+   */
+  public void update(SwerveWheels wheels, double dt) {
+    checkCount(wheels.size());
+    for (int i = 0; i < modules; i++) {
+      SwerveWheel wheel = wheels.getSwerveWheel(i);
+      update(i, wheel.getAxleTheta(), wheel.getVelocity(), dt);
+    }
+  }
+
+  /**
+   * Advance every module towards the current angle and velocity of every
+   * module in a fleet.
+   *
+   * @param fleet
+   *          The fleet holding the target states (must have the same total
+   *          number of modules as this model).
+   * @param dt
+   *          Time step in seconds.
+   */
+  public void update(SwerveFleet fleet, double dt) {
+    checkCount(fleet.getModuleCount());
+    for (int i = 0; i < modules; i++) {
+      update(i, fleet.getAxleTheta(i), fleet.getVelocity(i), dt);
+    }
+  }
+
+  /**
+   * Advance a single module towards a target state.
+   *
+   * @param i
+   *          Index of module.
+   * @param targetAngle
+   *          Commanded steering angle in radians.
+   * @param targetVelocity
+   *          Commanded drive velocity.
+   * @param dt
+   *          Time step in seconds.
+   */
+  public void update(int i, double targetAngle, double targetVelocity, double dt) {
+    // Steering
+    double angle = steerAngle[i];
+    double error = PolarPoint.computeShortestPath(angle, targetAngle);
+    double rate;
+    if (steerOrder == FIRST_ORDER) {
+      rate = error / steerTimeConstant;
+    } else {
+      double wn = steerNaturalFrequency;
+      double accel = wn * wn * error - 2 * steerDamping * wn * steerRate[i];
+      rate = steerRate[i] + accel * dt;
+    }
+    rate = Math.max(-maxSteerRate, Math.min(maxSteerRate, rate));
+    double step = rate * dt;
+    if (steerOrder == FIRST_ORDER && Math.abs(step) > Math.abs(error)) {
+      // Large time step - don't overshoot the target
+      step = error;
+      rate = 0;
+    }
+    angle += step;
+    if (angle > Math.PI) {
+      angle -= 2 * Math.PI;
+    } else if (angle < -Math.PI) {
+      angle += 2 * Math.PI;
+    }
+    steerAngle[i] = angle;
+    steerRate[i] = rate;
+
+    // Drive motor: torque falls off linearly with speed, current limits torque
+    double output = Math.max(-1.0, Math.min(1.0, targetVelocity / driveFreeSpeed));
+    double velocity = driveVelocity[i];
+    double torque = output - velocity / driveFreeSpeed;
+    double maxTorque = driveCurrentLimit / driveStallCurrent;
+    torque = Math.max(-maxTorque, Math.min(maxTorque, torque));
+    double dv = torque * driveStallAcceleration * dt;
+    double free = output * driveFreeSpeed;
+    if ((velocity < free && velocity + dv > free) || (velocity > free && velocity + dv < free)) {
+      // Large time step - don't overshoot the free speed
+      velocity = free;
+    } else {
+      velocity += dv;
+    }
+    driveVelocity[i] = velocity;
+    driveCurrent[i] = torque * driveStallCurrent;
+  }
+
+  /**
+   * Verifies the number of modules matches the model.
+   *
+   * @param count
+   *          Number of modules passed in.
+   */
+  private void checkCount(int count) {
+    if (count != modules) {
+      throw new IllegalArgumentException("Expected " + modules + " modules, got: " + count);
+    }
+  }
+
+  /**
+   * Get the actual steering angle of a module.
+   *
+   * @param i
+   *          Index of module.
+   * @return Angle in radians in the range of [-PI, +PI].
+   */
+  public double getSteerAngle(int i) {
+    return steerAngle[i];
+  }
+
+  /**
+   * Get the actual steering rate of a module.
+   *
+   * @param i
+   *          Index of module.
+   * @return Radians per second (positive is counter-clockwise).
+   */
+  public double getSteerRate(int i) {
+    return steerRate[i];
+  }
+
+  /**
+   * Get the actual drive velocity of a module.
+   *
+   * @param i
+   *          Index of module.
+   * @return Velocity (negative is reverse).
+   */
+  public double getDriveVelocity(int i) {
+    return driveVelocity[i];
+  }
+
+  /**
+   * Get the drive motor current of a module on the last update.
+   *
+   * @param i
+   *          Index of module.
+   * @return Current in amps (negative when braking or driving in reverse).
+   */
+  public double getDriveCurrent(int i) {
+    return driveCurrent[i];
+  }
+
+}
@@ -0,0 +1,287 @@
+package com.techhounds.swerve;
+
+import com.techhounds.math.Matrix;
+
+/**
+ * Extended Kalman filter that estimates the pose (position and heading) of a
+ * robot by fusing the chassis velocity computed from its module states with
+ * heading measurements from a gyro.
+ * <p>
+ * The prediction step moves the pose along the same arc as
+ * {@link SwerveOdometry} and grows the 3 x 3 covariance of [x, y, heading] by
+ * the process noise (odometry drifts without bound). Each gyro measurement
+ * corrects the heading and, through the covariance, the position error it
+ * caused. See {@link SwerveOdometry} for the field frame.
+ * </p>
+ * <p>
+ * All matrices are allocated when constructed and updates do not create any
+ * garbage, so hours of logged module states can be replayed through the filter
+ * in seconds. Instances are not thread safe.
+ * </p>
+ */
+public final class PoseEstimator {
+
+  /** Index of x in the state and covariance. */
+  public static final int X = 0;
+
+  /** Index of y in the state and covariance. */
+  public static final int Y = 1;
+
+  /** Index of heading in the state and covariance. */
+  public static final int HEADING = 2;
+
+  /** Computes chassis velocity from module states. */
+  private final ForwardKinematics kinematics;
+
+  /** Chassis velocity reused every update. */
+  private final ChassisVelocity velocity = new ChassisVelocity();
+
+  /** Tracks the mean of the pose (predictions use the odometry math). */
+  private final SwerveOdometry odometry;
+
+  /** Covariance of [x, y, heading]. */
+  private final Matrix p = new Matrix(3, 3);
+
+  /** Jacobian of the motion model. */
+  private final Matrix f = new Matrix(3, 3).setIdentity();
+
+  /** Workspace for F * P. */
+  private final Matrix fp = new Matrix(3, 3);
+
+  /** Variance added to x and y per unit of distance driven. */
+  private double positionNoise = 1e-4;
+
+  /** Variance added to heading per radian turned. */
+  private double headingNoise = 1e-4;
+
+  /** Variance added to every state per unit of time (even when stopped). */
+  private double timeNoise = 1e-6;
+
+  /** Variance of gyro measurements. */
+  private double gyroNoise = 1e-4;
+
+  /**
+   * Constructs a new estimator starting at the origin with a heading of 0 (and
+   * no uncertainty).
+   *
+   * @param kinematics
+   *          Used to compute the chassis velocity from module states (must not
+   *          be null).
+   */
+  public PoseEstimator(ForwardKinematics kinematics) {
+    odometry = new SwerveOdometry(kinematics);
+    this.kinematics = kinematics;
+  }
+
+  /**
+   * Set the process noise of the odometry.
+   *
+   * @param positionStdDev
+   *          Standard deviation of the position error per unit of distance
+   *          driven (wheel slip).
+   * @param headingStdDev
+   *          Standard deviation of the heading error per radian turned.
+   * @param timeStdDev
+   *          Standard deviation of the error of every state per unit of time
+   *          (keeps the filter correcting while stopped).
+   */
+  public void setProcessNoise(double positionStdDev, double headingStdDev, double timeStdDev) {
+    positionNoise = checkStdDev(positionStdDev);
+    headingNoise = checkStdDev(headingStdDev);
+    timeNoise = checkStdDev(timeStdDev);
+  }
+
+  /**
+   * Set the measurement noise of the gyro.
+   *
+   * @param headingStdDev
+   *          Standard deviation of gyro headings in radians (must be positive).
+   */
+  public void setGyroNoise(double headingStdDev) {
+    if (!(headingStdDev > 0)) {
+      throw new IllegalArgumentException("Gyro noise must be positive: " + headingStdDev);
+    }
+    gyroNoise = headingStdDev * headingStdDev;
+  }
+
+  /**
+   * Helper method to convert a standard deviation to a variance.
+   *
+   * @param stdDev
+   *          Standard deviation (must not be negative).
+   * @return The variance.
+   */
+  private static double checkStdDev(double stdDev) {
+    if (!(stdDev >= 0)) {
+      throw new IllegalArgumentException("Standard deviation must not be negative: " + stdDev);
+    }
+    return stdDev * stdDev;
+  }
+
+  /**
+   * Reset the pose (with no uncertainty).
+   *
+   * @param x
+   *          Position of robot along field x-axis.
+   * @param y
+   *          Position of robot along field y-axis.
+   * @param heading
+   *          Heading of robot in radians (counter-clockwise).
+   */
+  public void reset(double x, double y, double heading) {
+    odometry.reset(x, y, heading);
+    p.setZero();
+  }
+
+  /**
+   * Advance the pose using the current module states of a robot.
+   *
+   * @param wheels
+   *          The wheels of the robot.
+   * @param dt
+   *          Amount of time that has elapsed since the last update.
+   */
+  public void predict(SwerveWheels wheels, double dt) {
+    kinematics.solve(wheels, velocity);
+    predict(velocity.getVx(), velocity.getVy(), velocity.getOmega(), dt);
+  }
+
+  /**
+   * Advance the pose using a known chassis velocity.
+   *
+   * @param vx
+   *          Velocity along the x-axis of the robot (to the right).
+   * @param vy
+   *          Velocity along the y-axis of the robot (forward).
+   * @param omega
+   *          Rotational velocity (radians per unit of time, counter-clockwise).
+   * @param dt
+   *          Amount of time that has elapsed since the last update.
+   */
+  public void predict(double vx, double vy, double omega, double dt) {
+    double x0 = odometry.getX();
+    double y0 = odometry.getY();
+    odometry.update(vx, vy, omega, dt);
+
+    // Rotating the heading swings the distance just moved around the start
+    double[] fd = f.getData();
+    fd[2] = -(odometry.getY() - y0);
+    fd[5] = odometry.getX() - x0;
+
+    // P = F P F^T + Q
+    Matrix.multiply(f, p, fp);
+    Matrix.multiplyTransposeB(fp, f, p);
+    double[] pd = p.getData();
+    double dist = Math.sqrt(vx * vx + vy * vy) * Math.abs(dt);
+    double time = timeNoise * Math.abs(dt);
+    double qxy = positionNoise * dist + time;
+    pd[0] += qxy;
+    pd[4] += qxy;
+    pd[8] += headingNoise * Math.abs(omega * dt) + time;
+  }
+
+  /**
+   * Correct the pose with a gyro measurement.
+   *
+   * @param gyroHeading
+   *          Heading reported by the gyro in radians (counter-clockwise, in the
+   *          field frame).
+   */
+  public void correctHeading(double gyroHeading) {
+    double[] pd = p.getData();
+    double s = pd[8] + gyroNoise;
+    // Kalman gain is the heading column of P / S
+    double k0 = pd[2] / s;
+    double k1 = pd[5] / s;
+    double k2 = pd[8] / s;
+    double innovation = gyroHeading - odometry.getHeading();
+    innovation -= 2 * Math.PI * Math.floor((innovation + Math.PI) / (2 * Math.PI));
+    double heading = odometry.getHeading() + k2 * innovation;
+    if (heading > Math.PI) {
+      heading -= 2 * Math.PI;
+    } else if (heading < -Math.PI) {
+      heading += 2 * Math.PI;
+    }
+    odometry.reset(odometry.getX() + k0 * innovation, odometry.getY() + k1 * innovation, heading);
+
+    // P = P - K * (heading row of P)
+    double p20 = pd[6];
+    double p21 = pd[7];
+    double p22 = pd[8];
+    pd[0] -= k0 * p20;
+    pd[1] -= k0 * p21;
+    pd[2] -= k0 * p22;
+    pd[3] -= k1 * p20;
+    pd[4] -= k1 * p21;
+    pd[5] -= k1 * p22;
+    pd[6] -= k2 * p20;
+    pd[7] -= k2 * p21;
+    pd[8] -= k2 * p22;
+  }
+
+  /**
+   * Advance the pose from the module states and then correct it with a gyro
+   * measurement.
+   *
+   * @param wheels
+   *          The wheels of the robot.
+   * @param gyroHeading
+   *          Heading reported by the gyro at the end of the time step.
+   * @param dt
+   *          Amount of time that has elapsed since the last update.
+   */
+  public void update(SwerveWheels wheels, double gyroHeading, double dt) {
+    predict(wheels, dt);
+    correctHeading(gyroHeading);
+  }
+
+  /**
+   * Get the estimated position of the robot along the field x-axis.
+   *
+   * @return The x position.
+   */
+  public double getX() {
+    return odometry.getX();
+  }
+
+  /**
+   * Get the estimated position of the robot along the field y-axis.
+   *
+   * @return The y position.
+   */
+  public double getY() {
+    return odometry.getY();
+  }
+
+  /**
+   * Get the estimated heading of the robot.
+   *
+   * @return Heading in radians (counter-clockwise) in the range of [-PI, +PI].
+   */
+  public double getHeading() {
+    return odometry.getHeading();
+  }
+
+  /**
+   * Get the variance of a state.
+   *
+   * @param idx
+   *          {@link #X}, {@link #Y} or {@link #HEADING}.
+   * @return Diagonal element of the covariance.
+   */
+  public double getVariance(int idx) {
+    return p.get(idx, idx);
+  }
+
+  /**
+   * Copy the covariance of the pose.
+   *
+   * @param dst
+   *          Where to store the 3 x 3 covariance of [x, y, heading].
+   * @return dst.
+   */
+  public Matrix getCovariance(Matrix dst) {
+    return dst.set(p);
+  }
+
+}
@@ -0,0 +1,452 @@
+package com.techhounds.swerve;
+
+import java.util.Arrays;
+
+import com.techhounds.math.Trig;
+import com.techhounds.math.TrigProvider;
+import com.techhounds.metrics.FlightEvents;
+import com.techhounds.metrics.Metrics;
+
+/**
+ * Batch kinematics for many robots stored as a "struct of arrays".
+ * <p>
+ * Where a {@link SwerveWheels} collection holds a list of {@link SwerveWheel}
+ * objects (each with their own {@link com.techhounds.math.CartesianPoint} and
+ * {@link com.techhounds.math.PolarPoint}), a fleet keeps the state of every
+ * module of every robot in flat primitive arrays. This allows
+ * {@link #setDirection()} to compute new module angles and velocities for
+ * thousands of robots in a single tight loop without any pointer chasing.
+ * </p>
+ * <p>
+ * The math (including the {@link Trig} provider used and the reverse threshold
+ * of each module) is identical to
+ * {@link SwerveWheel#setDirection(double, double, double)} so results match
+ * the per-object path exactly.
+ * </p>
+ */
+public final class SwerveFleet {
+
+  /** Initial number of robots/modules to allocate space for. */
+  private static final int DEFAULT_CAPACITY = 16;
+
+  /** Number of robots in the fleet. */
+  private int robotCount;
+
+  /** Total number of modules (for all robots) in the fleet. */
+  private int moduleCount;
+
+  /**
+   * Index of first module for each robot (robotStart[robotCount] is the end of
+   * the last robot).
+   */
+  private int[] robotStart;
+
+  /** x portion of translation command for each robot. */
+  private double[] commandX;
+
+  /** y portion of translation command for each robot. */
+  private double[] commandY;
+
+  /** Rotation command for each robot. */
+  private double[] commandRot;
+
+  /** x offset of each module from the center of its robot. */
+  private double[] x;
+
+  /** y offset of each module from the center of its robot. */
+  private double[] y;
+
+  /** Pre-computed cosine of rotation angle for each module. */
+  private double[] cosRotAng;
+
+  /** Pre-computed sine of rotation angle for each module. */
+  private double[] sinRotAng;
+
+  /** Current axle angle (radians) for each module. */
+  private double[] theta;
+
+  /** Current velocity for each module. */
+  private double[] velocity;
+
+  /** Turn (radians) past which each module reverses instead. */
+  private double[] reverseThreshold;
+
+  /**
+   * Constructs a new fleet without any robots.
+   */
+  public SwerveFleet() {
+    this(DEFAULT_CAPACITY, DEFAULT_CAPACITY * 4);
+  }
+
+  /**
+   * Constructs a new fleet without any robots but with space pre-allocated.
+   *
+   * @param robotCapacity
+   *          Number of robots to allocate space for.
+   * @param moduleCapacity
+   *          Total number of modules to allocate space for.
+   */
+  public SwerveFleet(int robotCapacity, int moduleCapacity) {
+    robotStart = new int[Math.max(1, robotCapacity) + 1];
+    commandX = new double[Math.max(1, robotCapacity)];
+    commandY = new double[commandX.length];
+    commandRot = new double[commandX.length];
+    int mc = Math.max(1, moduleCapacity);
+    x = new double[mc];
+    y = new double[mc];
+    cosRotAng = new double[mc];
+    sinRotAng = new double[mc];
+    theta = new double[mc];
+    velocity = new double[mc];
+    reverseThreshold = new double[mc];
+  }
+
+  /**
+   * Adds a robot to the fleet copying the geometry and current state of each
+   * wheel.
+   *
+   * @param wheels
+   *          The wheels making up the robot (must not be null - we copy values
+   *          and don't keep a reference).
+   * @return The index assigned to the robot.
+   */
+  public int addRobot(SwerveWheels wheels) {
+    int n = wheels.size();
+    int robot = addRobot(n);
+    int m = robotStart[robot];
+    for (int i = 0; i < n; i++, m++) {
+      SwerveWheel wheel = wheels.getSwerveWheel(i);
+      x[m] = wheel.getX();
+      y[m] = wheel.getY();
+      cosRotAng[m] = wheel.getCosRotAng();
+      sinRotAng[m] = wheel.getSinRotAng();
+      theta[m] = wheel.getAxleTheta();
+      velocity[m] = wheel.getVelocity();
+      reverseThreshold[m] = wheel.getReverseThreshold();
+    }
+    return robot;
+  }
+
+  /**
+   * Adds a robot to the fleet with all modules located at the center of the
+   * robot (use {@link #setModulePosition(int, double, double)} to position).
+   *
+   * @param modules
+   *          The number of swerve modules on the robot.
+   * @return The index assigned to the robot.
+   */
+  public int addRobot(int modules) {
+    if (modules < 0) {
+      throw new IllegalArgumentException("Negative module count: " + modules);
+    }
+    ensureCapacity(robotCount + 1, moduleCount + modules);
+    int robot = robotCount++;
+    int start = moduleCount;
+    moduleCount += modules;
+    robotStart[robot] = start;
+    robotStart[robotCount] = moduleCount;
+    for (int m = start; m < moduleCount; m++) {
+      // Same initial state as a new SwerveWheel
+      x[m] = 0;
+      y[m] = 0;
+      cosRotAng[m] = 0;
+      sinRotAng[m] = 0;
+      theta[m] = 0;
+      velocity[m] = 1.0;
+      reverseThreshold[m] = Math.PI / 2;
+    }
+    return robot;
+  }
+
+  /**
+   * Grows the internal arrays (if necessary).
+   *
+   * @param robots
+   *          Number of robots that need to fit.
+   * @param modules
+   *          Number of modules that need to fit.
+   */
+  private void ensureCapacity(int robots, int modules) {
+    if (robots > commandX.length) {
+      int len = Math.max(robots, commandX.length * 2);
+      robotStart = Arrays.copyOf(robotStart, len + 1);
+      commandX = Arrays.copyOf(commandX, len);
+      commandY = Arrays.copyOf(commandY, len);
+      commandRot = Arrays.copyOf(commandRot, len);
+    }
+    if (modules > x.length) {
+      int len = Math.max(modules, x.length * 2);
+      x = Arrays.copyOf(x, len);
+      y = Arrays.copyOf(y, len);
+      cosRotAng = Arrays.copyOf(cosRotAng, len);
+      sinRotAng = Arrays.copyOf(sinRotAng, len);
+      theta = Arrays.copyOf(theta, len);
+      velocity = Arrays.copyOf(velocity, len);
+      reverseThreshold = Arrays.copyOf(reverseThreshold, len);
+    }
+  }
+
+  /**
+   * Get the number of robots in the fleet.
+   *
+   * @return Count of robots.
+   */
+  public int getRobotCount() {
+    return robotCount;
+  }
+
+  /**
+   * Get the total number of modules (all robots) in the fleet.
+   *
+   * @return Count of modules.
+   */
+  public int getModuleCount() {
+    return moduleCount;
+  }
+
+  /**
+   * Get the index of the first module of a robot.
+   *
+   * @param robot
+   *          Index of robot.
+   * @return Index of first module of the robot.
+   */
+  public int getModuleStart(int robot) {
+    return robotStart[robot];
+  }
+
+  /**
+   * Get the number of modules on a robot.
+   *
+   * @param robot
+   *          Index of robot.
+   * @return Number of modules on the robot.
+   */
+  public int getModuleCount(int robot) {
+    return robotStart[robot + 1] - robotStart[robot];
+  }
+
+  /**
+   * Set the position of a module relative to the center of its robot (see
+   * {@link SwerveWheel#setPosition(double, double)}).
+   *
+   * @param module
+   *          Index of module (fleet wide).
+   * @param mx
+   *          Horizontal offset from center of robot.
+   * @param my
+   *          Vertical offset from center of robot.
+   */
+  public void setModulePosition(int module, double mx, double my) {
+    x[module] = mx;
+    y[module] = my;
+    if (mx == 0 && my == 0) {
+      cosRotAng[module] = 0;
+      sinRotAng[module] = 0;
+    } else {
+      double rotAng = Math.atan2(my, mx);
+      cosRotAng[module] = Math.cos(rotAng);
+      sinRotAng[module] = Math.sin(rotAng);
+    }
+  }
+
+  /**
+   * Set how far a module is allowed to turn before {@link #setDirection()}
+   * reverses it (see {@link SwerveWheel#setReverseThreshold(double)}).
+   *
+   * @param module
+   *          Index of module (fleet wide).
+   * @param threshold
+   *          Angle in radians in the range of [PI / 2, PI] (PI never reverses).
+   */
+  public void setReverseThreshold(int module, double threshold) {
+    if (!(threshold >= Math.PI / 2 && threshold <= Math.PI)) {
+      throw new IllegalArgumentException("Reverse threshold must be in range [PI / 2, PI]: " + threshold);
+    }
+    reverseThreshold[module] = threshold;
+  }
+
+  /**
+   * Get how far a module is allowed to turn before it is reversed.
+   *
+   * @param module
+   *          Index of module (fleet wide).
+   * @return Angle in radians.
+   */
+  public double getReverseThreshold(int module) {
+    return reverseThreshold[module];
+  }
+
+  /**
+   * Set the command for a single robot that will be applied on the next call
+   * to {@link #setDirection()}.
+   *
+   * @param robot
+   *          Index of robot.
+   * @param ux
+   *          The x portion of the translation velocity vector.
+   * @param uy
+   *          The y portion of the translation velocity vector.
+   * @param rot
+   *          The rotation velocity to add in (positive is counter-clockwise).
+   */
+  public void setCommand(int robot, double ux, double uy, double rot) {
+    commandX[robot] = ux;
+    commandY[robot] = uy;
+    commandRot[robot] = rot;
+  }
+
+  /**
+   * Sets the same command on every robot and then updates all modules.
+   *
+   * @param ux
+   *          The x portion of the translation velocity vector.
+   * @param uy
+   *          The y portion of the translation velocity vector.
+   * @param rot
+   *          The rotation velocity to add in (positive is counter-clockwise).
+   */
+  public void setDirection(double ux, double uy, double rot) {
+    Arrays.fill(commandX, 0, robotCount, ux);
+    Arrays.fill(commandY, 0, robotCount, uy);
+    Arrays.fill(commandRot, 0, robotCount, rot);
+    setDirection();
+  }
+
+  /**
+   * Computes the new angle and velocity of every module of every robot from
+   * the commands set via {@link #setCommand(int, double, double, double)}.
+   */
+  public void setDirection() {
+    final double[] cosRotAng = this.cosRotAng;
+    final double[] sinRotAng = this.sinRotAng;
+    final double[] theta = this.theta;
+    final double[] velocity = this.velocity;
+    final double[] reverseThreshold = this.reverseThreshold;
+    final int[] robotStart = this.robotStart;
+    final TrigProvider trig = Trig.getProvider();
+    long reversals = 0;
+    int end = robotStart[0];
+    for (int robot = 0, n = robotCount; robot < n; robot++) {
+      final double xTranslation = commandX[robot];
+      final double yTranslation = commandY[robot];
+      final double rotation = commandRot[robot];
+      int m = end;
+      end = robotStart[robot + 1];
+      for (; m < end; m++) {
+        // Same math as SwerveWheel.setDirection()
+        double ux = xTranslation;
+        double uy = yTranslation;
+        if (rotation != 0) {
+          ux += rotation * cosRotAng[m];
+          uy += rotation * sinRotAng[m];
+        }
+        double r = Math.sqrt(ux * ux + uy * uy);
+        if (Math.abs(r) < 1e-9) {
+          velocity[m] = 0;
+          continue;
+        }
+        double newTheta = trig.atan2(uy, ux);
+        double changeA = newTheta - theta[m];
+        if (changeA > Math.PI) {
+          changeA -= Math.PI * 2;
+        } else if (changeA < -Math.PI) {
+          changeA += Math.PI * 2;
+        }
+        if (Math.abs(changeA) > reverseThreshold[m]) {
+          if (newTheta < 0) {
+            newTheta += Math.PI;
+          } else {
+            newTheta -= Math.PI;
+          }
+          r = -r;
+          reversals++;
+        }
+        theta[m] = newTheta;
+        velocity[m] = r;
+      }
+    }
+    if (Metrics.ENABLED && reversals != 0) {
+      Metrics.WHEEL_REVERSALS.add(reversals);
+    }
+    if (reversals != 0 && FlightEvents.isRecording()) {
+      FlightEvents.reversal((int) reversals, Double.NaN, Double.NaN);
+    }
+  }
+
+  /**
+   * Get the x offset of a module from the center of its robot.
+   *
+   * @param module
+   *          Index of module (fleet wide).
+   * @return Horizontal offset from center of robot.
+   */
+  public double getModuleX(int module) {
+    return x[module];
+  }
+
+  /**
+   * Get the y offset of a module from the center of its robot.
+   *
+   * @param module
+   *          Index of module (fleet wide).
+   * @return Vertical offset from center of robot.
+   */
+  public double getModuleY(int module) {
+    return y[module];
+  }
+
+  /**
+   * Get the current axle angle of a module.
+   *
+   * @param module
+   *          Index of module (fleet wide).
+   * @return Angle in radians (see {@link SwerveWheel#getAxleTheta()}).
+   */
+  public double getAxleTheta(int module) {
+    return theta[module];
+  }
+
+  /**
+   * Set the current axle angle of a module.
+   *
+   * @param module
+   *          Index of module (fleet wide).
+   * @param axleTheta
+   *          Angle in radians (see {@link SwerveWheel#setAxleTheta(double)}).
+   */
+  public void setAxleTheta(int module, double axleTheta) {
+    theta[module] = axleTheta;
+  }
+
+  /**
+   * Get the current velocity of a module.
+   *
+   * @param module
+   *          Index of module (fleet wide).
+   * @return Velocity (negative indicates reverse).
+   */
+  public double getVelocity(int module) {
+    return velocity[module];
+  }
+
+  /**
+   * Copies the current module states of a robot back into a set of wheels.
+   *
+   * @param robot
+   *          Index of robot.
+   * @param wheels
+   *          Wheels to update (must have the same number of wheels as the
+   *          robot).
+   */
+  public void copyTo(int robot, SwerveWheels wheels) {
+    int m = robotStart[robot];
+    int n = getModuleCount(robot);
+    for (int i = 0; i < n; i++, m++) {
+      SwerveWheel wheel = wheels.getSwerveWheel(i);
+      wheel.setAxleTheta(theta[m]);
+      wheel.setVelocity(velocity[m]);
+    }
+  }
+
+}
@@ -0,0 +1,186 @@
+package com.techhounds.swerve;
+
+import com.techhounds.math.Trig;
+
+/**
+ * Tracks the pose (position and heading) of a robot on the field by
+ * integrating the chassis velocity computed from its module states.
+ * <p>
+ * The field frame lines up with robot space when the heading is 0 (x to the
+ * right, y forward) and the heading increases counter-clockwise. Each update
+ * integrates a constant chassis velocity over the time step along an arc (the
+ * SE(2) exponential map) so fast turns don't introduce the drift of simple
+ * Euler integration. Updates do not allocate any memory, so they can run at
+ * control rate (1 kHz or more).
+ * </p>
+ */
+public final class SwerveOdometry {
+
+  /** Computes chassis velocity from module states. */
+  private final ForwardKinematics kinematics;
+
+  /** Chassis velocity reused every update. */
+  private final ChassisVelocity velocity;
+
+  /** Position of robot along field x-axis. */
+  private double x;
+
+  /** Position of robot along field y-axis. */
+  private double y;
+
+  /** Heading of robot in radians (counter-clockwise). */
+  private double heading;
+
+  /**
+   * Constructs a new instance starting at the origin with a heading of 0.
+   *
+   * @param kinematics
+   *          Used to compute the chassis velocity from module states (must not
+   *          be null).
+   */
+  public SwerveOdometry(ForwardKinematics kinematics) {
+    if (kinematics == null) {
+      throw new NullPointerException();
+    }
+    this.kinematics = kinematics;
+    this.velocity = new ChassisVelocity();
+  }
+
+  /**
+   * Reset the pose.
+   *
+   * @param x
+   *          Position of robot along field x-axis.
+   * @param y
+   *          Position of robot along field y-axis.
+   * @param heading
+   *          Heading of robot in radians (counter-clockwise).
+   */
+  public void reset(double x, double y, double heading) {
+    this.x = x;
+    this.y = y;
+    this.heading = heading;
+  }
+
+  /**
+   * Advance the pose using the current module states of a robot.
+   *
+   * @param wheels
+   *          The wheels of the robot (module velocities must be in units of
+   *          length per unit of time).
+   * @param dt
+   *          Amount of time that has elapsed since the last update.
+   */
+  public void update(SwerveWheels wheels, double dt) {
+    update(kinematics.solve(wheels, velocity), dt);
+  }
+
+  /**
+   * Advance the pose using the current module states of a robot in a fleet.
+   *
+   * @param fleet
+   *          The fleet containing the robot.
+   * @param robot
+   *          Index of the robot in the fleet.
+   * @param dt
+   *          Amount of time that has elapsed since the last update.
+   */
+  public void update(SwerveFleet fleet, int robot, double dt) {
+    update(kinematics.solve(fleet, robot, velocity), dt);
+  }
+
+  /**
+   * Advance the pose using a known chassis velocity.
+   *
+   * @param v
+   *          Chassis velocity (robot space) held constant over the time step.
+   * @param dt
+   *          Amount of time that has elapsed since the last update.
+   */
+  public void update(ChassisVelocity v, double dt) {
+    update(v.getVx(), v.getVy(), v.getOmega(), dt);
+  }
+
+  /**
+   * Advance the pose using a known chassis velocity.
+   *
+   * @param vx
+   *          Velocity along the x-axis of the robot (to the right).
+   * @param vy
+   *          Velocity along the y-axis of the robot (forward).
+   * @param omega
+   *          Rotational velocity (radians per unit of time, counter-clockwise).
+   * @param dt
+   *          Amount of time that has elapsed since the last update.
+   */
+  public void update(double vx, double vy, double omega, double dt) {
+    double dx = vx * dt;
+    double dy = vy * dt;
+    double dTheta = omega * dt;
+
+    // Exponential map: move along arc instead of a straight line
+    double s;
+    double c;
+    if (Math.abs(dTheta) < 1e-6) {
+      // Taylor series near zero (avoid divide by zero)
+      double t2 = dTheta * dTheta;
+      s = 1.0 - t2 / 6.0;
+      c = 0.5 * dTheta;
+    } else {
+      s = Trig.sin(dTheta) / dTheta;
+      c = (1.0 - Trig.cos(dTheta)) / dTheta;
+    }
+    double rx = dx * s - dy * c;
+    double ry = dx * c + dy * s;
+
+    // Rotate from robot space to field space
+    double cosH = Trig.cos(heading);
+    double sinH = Trig.sin(heading);
+    x += rx * cosH - ry * sinH;
+    y += rx * sinH + ry * cosH;
+    heading += dTheta;
+    // Keep heading in the range of [-PI, +PI]
+    if (heading > Math.PI) {
+      heading -= 2 * Math.PI;
+    } else if (heading < -Math.PI) {
+      heading += 2 * Math.PI;
+    }
+  }
+
+  /**
+   * Get the position of the robot along the field x-axis.
+   *
+   * @return The x position.
+   */
+  public double getX() {
+    return x;
+  }
+
+  /**
+   * Get the position of the robot along the field y-axis.
+   *
+   * @return The y position.
+   */
+  public double getY() {
+    return y;
+  }
+
+  /**
+   * Get the heading of the robot.
+   *
+   * @return Radians in the range of [-PI, +PI] (counter-clockwise).
+   */
+  public double getHeading() {
+    return heading;
+  }
+
+  /**
+   * Get the chassis velocity computed on the last module state update.
+   *
+   * @return Chassis velocity (do not modify).
+   */
+  public ChassisVelocity getVelocity() {
+    return velocity;
+  }
+
+}
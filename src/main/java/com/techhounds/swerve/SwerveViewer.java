@@ -6,21 +6,40 @@ import java.awt.Dimension;
 import java.awt.FontMetrics;
 import java.awt.Graphics;
 import java.awt.Graphics2D;
+import java.awt.Font;
+import java.awt.Image;
 import java.awt.Insets;
 import java.awt.Stroke;
+import java.awt.geom.AffineTransform;
 import java.awt.geom.Ellipse2D;
 import java.awt.geom.GeneralPath;
+import java.awt.image.BufferedImage;
+import java.awt.image.VolatileImage;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.text.NumberFormat;
-import java.util.Collection;
+import java.util.Arrays;
 
 import javax.swing.BorderFactory;
 import javax.swing.JComponent;
 
 import com.techhounds.math.CartesianPoint;
-import com.techhounds.math.PolarPoint;
+import com.techhounds.math.Trig;
+import com.techhounds.metrics.FlightEvents;
+import com.techhounds.metrics.Metrics;
 
 /**
  * A graphical view of all of the {@link SwerveWheel}s making up a robot held in a {@link SwerveWheels} collection.
+ * <p>
+ * The view draws the last snapshot published by {@link SwerveWheels#publish()}, so the wheels may be driven from a
+ * control thread other than the event dispatch thread (publish after each update and then call {@link #repaint()}).
+ * </p>
+ * <p>
+ * Frames are rendered into a back buffer (a {@link VolatileImage} when one is available) that is only redrawn when a
+ * new snapshot has been published or the size changes, so repainting an idle robot is a single image copy. The outline
+ * of each wheel is built once in wheel space and drawn through one reused {@link AffineTransform}, and the velocity and
+ * bearing labels are only formatted again when their values change.
+ * </p>
  */
 public class SwerveViewer extends JComponent {
   /** serialVersionUID - Java Swing component version ID. */  
@@ -91,6 +110,106 @@ public class SwerveViewer extends JComponent {
    */
   private double velocityScale;
 
+  /**
+   * Number of doubles in the outline of each wheel (4 corners and the center of the front indicator).
+   */
+  private static final int OUTLINE_COORDS = 10;
+
+  /**
+   * Outline of each wheel in wheel space (only rebuilt when the size of the wheel changes).
+   */
+  private double[] outlines = new double[0];
+
+  /**
+   * Diameter of each wheel when its outline was built.
+   */
+  private double[] outlineDiameter = new double[0];
+
+  /**
+   * Width of each wheel when its outline was built.
+   */
+  private double[] outlineWidth = new double[0];
+
+  /**
+   * Number of wheels with an outline.
+   */
+  private int outlineCount;
+
+  /**
+   * Smallest wheel diameter (no larger than 1.0) used to scale the velocity vectors.
+   */
+  private double minDiam = 1.0;
+
+  /**
+   * Outline of the wheel being drawn transformed to pixels.
+   */
+  private final double[] outlinePx = new double[OUTLINE_COORDS];
+
+  /**
+   * Transform from wheel space to pixels reused for each wheel.
+   */
+  private final AffineTransform xform = new AffineTransform();
+
+  /**
+   * Velocity label of each wheel.
+   */
+  private Label[] velocityLabels = new Label[0];
+
+  /**
+   * Bearing label of each wheel.
+   */
+  private Label[] bearingLabels = new Label[0];
+
+  /**
+   * Velocity label of the summary vector.
+   */
+  private final Label summaryVelocity = new Label();
+
+  /**
+   * Bearing label of the summary vector.
+   */
+  private final Label summaryBearing = new Label();
+
+  /**
+   * Font the label widths were measured with.
+   */
+  private Font labelFont;
+
+  /**
+   * Whether frames are rendered into a back buffer.
+   */
+  private boolean backBuffered = true;
+
+  /**
+   * Back buffer (a VolatileImage or, when none can be created, a BufferedImage).
+   */
+  private Image backBuffer;
+
+  /**
+   * Number of paints (used to sample the timing).
+   */
+  private int paintCalls;
+
+  /**
+   * Version of the snapshot rendered into the back buffer (-1 if it needs to be rendered).
+   */
+  private long renderedVersion = -1;
+
+  /**
+   * Path reused to draw each wheel outline.
+   */
+  private final GeneralPath wheelOutline = new GeneralPath();
+
+  /**
+   * Shape reused to draw the front indicator of each wheel.
+   */
+  private final Ellipse2D.Double front = new Ellipse2D.Double();
+
+  /**
+   * Path reused to draw velocity vectors.
+   */
+  private final GeneralPath arrow = new GeneralPath();
+
   /**
    * Constructs a new instance without any swerve wheels.
    */
@@ -107,6 +226,12 @@ public class SwerveViewer extends JComponent {
     setBackground(Color.white);
     setBorder(BorderFactory.createEmptyBorder(bw, bw, bw, bw));
     setOpaque(true);
+    addPropertyChangeListener(new PropertyChangeListener() {
+      public void propertyChange(PropertyChangeEvent evt) {
+        // Colors, font or border changed - render the next frame again
+        renderedVersion = -1;
+      }
+    });
   }
 
   /**
@@ -142,19 +267,101 @@ public class SwerveViewer extends JComponent {
     cx = (minX + maxX) / 2;
     cy = (minY + maxY) / 2;
     wheels.add(wheel);
+    wheels.publish();
   }
 
   /**
-   * Draws a picture of the labeled wheel positions.
+   * Draws a picture of the labeled wheel positions (from the back buffer when enabled).
    * 
    * @see javax.swing.JComponent#paintComponent(java.awt.Graphics)
    */
   @Override
   protected void paintComponent(Graphics g) {
-    // Get position of our origin
-    Insets insets = getInsets();
+    Object event = FlightEvents.isRecording() ? FlightEvents.beginRepaint() : null;
+    boolean sampled = Metrics.ENABLED && (++paintCalls & Metrics.SAMPLE_MASK) == 0;
+    long start = sampled ? System.nanoTime() : 0;
     int width = getWidth();
     int height = getHeight();
+    WheelStates states = wheels.acquireSnapshot();
+    if (backBuffered && width > 0 && height > 0) {
+      paintBuffered(g, states, width, height);
+    } else {
+      render((Graphics2D) g, states, width, height);
+    }
+    if (sampled) {
+      Metrics.VIEWER_PAINT.recordSince(start);
+    }
+    if (event != null) {
+      FlightEvents.endRepaint(event, states.getCount());
+    }
+  }
+
+  /**
+   * Copies the back buffer to the screen (rendering the frame into it first if the snapshot or size changed or the
+   * contents of the buffer were lost).
+   *
+   * @param g Graphics context to copy the frame to.
+   * @param states Snapshot of wheel states.
+   * @param width Width of the component.
+   * @param height Height of the component.
+   */
+  private void paintBuffered(Graphics g, WheelStates states, int width, int height) {
+    boolean lost;
+    do {
+      Image buffer = backBuffer;
+      if (buffer == null || buffer.getWidth(null) != width || buffer.getHeight(null) != height) {
+        if (buffer != null) {
+          buffer.flush();
+        }
+        buffer = createVolatileImage(width, height);
+        if (buffer == null) {
+          // Not displayable (or headless)
+          buffer = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        backBuffer = buffer;
+        renderedVersion = -1;
+      }
+      boolean dirty = (renderedVersion != states.getVersion());
+      if (buffer instanceof VolatileImage) {
+        VolatileImage vi = (VolatileImage) buffer;
+        int status = vi.validate(getGraphicsConfiguration());
+        if (status == VolatileImage.IMAGE_INCOMPATIBLE) {
+          vi.flush();
+          backBuffer = null;
+          lost = true;
+          continue;
+        }
+        dirty |= (status == VolatileImage.IMAGE_RESTORED);
+      }
+      if (dirty) {
+        Graphics2D bg = (Graphics2D) buffer.getGraphics();
+        try {
+          bg.setFont(g.getFont());
+          render(bg, states, width, height);
+        } finally {
+          bg.dispose();
+        }
+        renderedVersion = states.getVersion();
+      }
+      g.drawImage(buffer, 0, 0, null);
+      lost = (buffer instanceof VolatileImage) && ((VolatileImage) buffer).contentsLost();
+      if (lost) {
+        renderedVersion = -1;
+      }
+    } while (lost);
+  }
+
+  /**
+   * Renders a frame.
+   *
+   * @param g Graphics context to draw with.
+   * @param states Snapshot of wheel states.
+   * @param width Width of the component.
+   * @param height Height of the component.
+   */
+  private void render(Graphics2D g, WheelStates states, int width, int height) {
+    // Get position of our origin
+    Insets insets = getInsets();
     g.setColor(getBackground());
     g.fillRect(0, 0, width, height);
     int wi = width - insets.left - insets.right;
@@ -162,26 +369,32 @@ public class SwerveViewer extends JComponent {
     x0 = wi / 2.0 + insets.left;
     y0 = hi / 2.0 + insets.top;
     pxPerUnit = Math.min(wi / (maxX - minX), hi / (maxY - minY));
-    Graphics2D g2 = (Graphics2D) g;
 
-    int n = wheels.size();
+    int n = states.getCount();
 
     if (n > 0) {
       // Set the scale factor for the velocity vectors based on the minimum wheel size
-      double minDiam = 1.0;
-      Collection<SwerveWheel> allWheels = wheels.getSwerveWheels();
-      for (SwerveWheel wheel : allWheels) {
-        minDiam = Math.min(minDiam, wheel.getDiameter());
-      }
+      updateOutlines(states, n);
       velocityScale = minDiam * 2;
+      FontMetrics fm = g.getFontMetrics();
+      if (!fm.getFont().equals(labelFont)) {
+        // Cached label widths are for a different font
+        labelFont = fm.getFont();
+        for (int i = 0; i < velocityLabels.length; i++) {
+          velocityLabels[i].clear();
+          bearingLabels[i].clear();
+        }
+        summaryVelocity.clear();
+        summaryBearing.clear();
+      }
 
       // Draw each wheel and sum velocity vectors
       double velX = 0;
       double velY = 0;
-      for (SwerveWheel wheel : allWheels) {
-        drawWheel(g2, wheel);
-        double wheelAng = wheel.getAxleTheta();
-        double wheelVel = wheel.getVelocity();
+      for (int i = 0; i < n; i++) {
+        drawWheel(g, states, i, fm);
+        double wheelAng = states.getAxleTheta(i);
+        double wheelVel = states.getVelocity(i);
 
         // Add velocity components together from wheel bearing perspective (0 is due north and positive is clockwise)
         velY += Math.cos(wheelAng) * wheelVel;
@@ -189,28 +402,77 @@ public class SwerveViewer extends JComponent {
       }
 
       // Draw summary vector from center of robot
-      g2.setColor(Color.BLACK);
-      g2.setStroke(wheelStroke);
+      g.setColor(Color.BLACK);
+      g.setStroke(wheelStroke);
       velX /= n;
       velY /= n;
-      drawVelocityVector(g2, computePixelX(0), computePixelY(0), computePixelX(velX * velocityScale), computePixelY(velY * velocityScale));
+      drawVelocityVector(g, computePixelX(0), computePixelY(0), computePixelX(velX * velocityScale), computePixelY(velY * velocityScale));
 
       // Label summary vector
-      FontMetrics fm = g.getFontMetrics();
-      CartesianPoint vv = new CartesianPoint(velX, velY);
-      PolarPoint velocity = vv.toPolar();
-      String vstr = nf.format(velocity.getR());
-      String bstr = nf.format(90 - velocity.getThetaDegrees());
-      int vstrw = fm.stringWidth(vstr);
-      int bstrw = fm.stringWidth(bstr);
-      int fw = Math.max(bstrw, vstrw);
+      Label vstr = summaryVelocity.update(CartesianPoint.computeR(velX, velY), nf, fm);
+      Label bstr = summaryBearing.update(90 - Math.toDegrees(CartesianPoint.computeTheta(velX, velY)), nf, fm);
+      int fw = Math.max(bstr.width, vstr.width);
       int wy = (int) computePixelY(0);
       int fxr = -4;
       if (velX < 0) {
         fxr = 4 + fw;
       }
-      g.drawString(vstr, (width / 2) + fxr - vstrw, wy - 2);
-      g.drawString(bstr, (width / 2) + fxr - bstrw, wy + 2 + fm.getHeight());
+      g.drawString(vstr.text, (width / 2) + fxr - vstr.width, wy - 2);
+      g.drawString(bstr.text, (width / 2) + fxr - bstr.width, wy + 2 + fm.getHeight());
+    }
+  }
+
+  /**
+   * Rebuilds the wheel space outline of any wheel whose size changed (and the minimum wheel diameter if any did).
+   *
+   * @param states Snapshot of wheel states.
+   * @param n Number of wheels in the snapshot.
+   */
+  private void updateOutlines(WheelStates states, int n) {
+    if (outlineDiameter.length < n) {
+      int old = outlineDiameter.length;
+      outlines = Arrays.copyOf(outlines, n * OUTLINE_COORDS);
+      outlineDiameter = Arrays.copyOf(outlineDiameter, n);
+      outlineWidth = Arrays.copyOf(outlineWidth, n);
+      velocityLabels = Arrays.copyOf(velocityLabels, n);
+      bearingLabels = Arrays.copyOf(bearingLabels, n);
+      for (int i = old; i < n; i++) {
+        outlineDiameter[i] = Double.NaN;
+        velocityLabels[i] = new Label();
+        bearingLabels[i] = new Label();
+      }
+    }
+    boolean changed = (n != outlineCount);
+    for (int i = 0; i < n; i++) {
+      double wd = states.getDiameter(i);
+      double ww = states.getWidth(i);
+      if (wd != outlineDiameter[i] || ww != outlineWidth[i]) {
+        outlineDiameter[i] = wd;
+        outlineWidth[i] = ww;
+        double ww2 = ww / 2;
+        double wd2 = wd / 2;
+        double fIndDiam = Math.min(ww, wd) / 2;
+        int k = i * OUTLINE_COORDS;
+        outlines[k] = -ww2;
+        outlines[k + 1] = -wd2;
+        outlines[k + 2] = -ww2;
+        outlines[k + 3] = +wd2;
+        outlines[k + 4] = +ww2;
+        outlines[k + 5] = +wd2;
+        outlines[k + 6] = +ww2;
+        outlines[k + 7] = -wd2;
+        // Center of indicator on front end of wheel
+        outlines[k + 8] = 0;
+        outlines[k + 9] = wd2 - fIndDiam * 0.75;
+        changed = true;
+      }
+    }
+    outlineCount = n;
+    if (changed) {
+      minDiam = 1.0;
+      for (int i = 0; i < n; i++) {
+        minDiam = Math.min(minDiam, outlineDiameter[i]);
+      }
     }
   }
 
@@ -241,33 +503,29 @@ public class SwerveViewer extends JComponent {
    * Draw a single wheel onto the component.
    *
    * @param g Graphics context to use for drawing.
-   * @param wheel The wheel that you want an image rendered for.
+   * @param states Snapshot of wheel states.
+   * @param i Index of the wheel that you want an image rendered for.
+   * @param fm Metrics of the label font.
    */
-  private void drawWheel(Graphics2D g, SwerveWheel wheel) {
-    double ww = wheel.getWidth();
-    double wd = wheel.getDiameter();
-    double ww2 = ww / 2;
-    double wd2 = wd / 2;
-
+  private void drawWheel(Graphics2D g, WheelStates states, int i, FontMetrics fm) {
+    double ww = states.getWidth(i);
+    double wd = states.getDiameter(i);
+
+    // Rotate about the wheel center, offset from center of robot and scale to pixels (Swing y-axis is inverted)
+    double theta = states.getAxleTheta(i);
+    double cos = Trig.cos(theta) * pxPerUnit;
+    double sin = Trig.sin(theta) * pxPerUnit;
+    double wx = computePixelX(states.getX(i));
+    double wy = computePixelY(states.getY(i));
+    xform.setTransform(cos, -sin, -sin, -cos, wx, wy);
+    xform.transform(outlines, i * OUTLINE_COORDS, outlinePx, 0, OUTLINE_COORDS / 2);
 
     // Draw wheel out-line and fill with tire color
-    GeneralPath wheelOutline = new GeneralPath();
-    CartesianPoint pt = new CartesianPoint(-ww2, -wd2);
-    wheel.transform(pt, pt);
-    wheelOutline.moveTo(computePixelX(pt.getX()), computePixelY(pt.getY()));
-
-    pt.set(-ww2, +wd2);
-    wheel.transform(pt, pt);
-    wheelOutline.lineTo(computePixelX(pt.getX()), computePixelY(pt.getY()));
-
-    pt.set(+ww2, +wd2);
-    wheel.transform(pt, pt);
-    wheelOutline.lineTo(computePixelX(pt.getX()), computePixelY(pt.getY()));
-
-    pt.set(+ww2, -wd2);
-    wheel.transform(pt, pt);
-    wheelOutline.lineTo(computePixelX(pt.getX()), computePixelY(pt.getY()));
-
+    wheelOutline.reset();
+    wheelOutline.moveTo(outlinePx[0], outlinePx[1]);
+    wheelOutline.lineTo(outlinePx[2], outlinePx[3]);
+    wheelOutline.lineTo(outlinePx[4], outlinePx[5]);
+    wheelOutline.lineTo(outlinePx[6], outlinePx[7]);
     wheelOutline.closePath();
 
     g.setStroke(wheelStroke);
@@ -279,49 +537,35 @@ public class SwerveViewer extends JComponent {
     // Put indicator on front end of wheel
     double fIndDiam = Math.min(ww, wd) / 2;
     int msize = (int) (fIndDiam * pxPerUnit);
-    pt.set(0, wd2 - fIndDiam * 0.75);
-    wheel.transform(pt, pt);
-    int x = (int) (computePixelX(pt.getX()) - msize / 2);
-    int y = (int) (computePixelY(pt.getY()) - msize / 2);
+    int x = (int) (outlinePx[8] - msize / 2);
+    int y = (int) (outlinePx[9] - msize / 2);
     g.setPaint(frontColor);
-    Ellipse2D front = new Ellipse2D.Double(x, y, msize, msize);
+    front.setFrame(x, y, msize, msize);
     g.fill(front);
 
     // If wheel has non-zero velocity, draw a velocity vector
-    double velocity = wheel.getVelocity();
+    double velocity = states.getVelocity(i);
     if (velocity != 0) {
       double velLen = velocity * velocityScale;
-      pt.set(0, 0);
-      wheel.transform(pt, pt);
-      double sx = pt.getX();
-      double sy = pt.getY();
-      pt.set(0, velLen);
-      wheel.transform(pt, pt);
-      double ex = pt.getX();
-      double ey = pt.getY();
       g.setColor(wheelVector);
       g.setStroke(wheelStroke);
       g.setPaint(wheelVector);
-      drawVelocityVector(g, computePixelX(sx), computePixelY(sy), computePixelX(ex), computePixelY(ey));
-      
-      FontMetrics fm = g.getFontMetrics();
-      String vstr = nf.format(velocity);
-      String bstr = nf.format(Math.toDegrees(wheel.getWheelBearing()));
-      int vstrw = fm.stringWidth(vstr);
-      int bstrw = fm.stringWidth(bstr);
-      int fw = Math.max(bstrw, vstrw);
-      double wx = wheel.getX();
-      int wy = (int) computePixelY(wheel.getY());
+      drawVelocityVector(g, wx, wy, wx - sin * velLen, wy - cos * velLen);
+
+      Label vstr = velocityLabels[i].update(velocity, nf, fm);
+      Label bstr = bearingLabels[i].update(Math.toDegrees(states.getWheelBearing(i)), nf, fm);
+      int fw = Math.max(bstr.width, vstr.width);
+      int ly = (int) wy;
       int fxr;
-      if (wx > 0) {
-        fxr = (int) computePixelX(wheel.getX() - wd * 0.75);
+      if (states.getX(i) > 0) {
+        fxr = (int) computePixelX(states.getX(i) - wd * 0.75);
       } else {
-        fxr = (int) computePixelX(wheel.getX() + wd * 0.75) + fw;
+        fxr = (int) computePixelX(states.getX(i) + wd * 0.75) + fw;
       }
-      
+
       g.setColor(getForeground());
-      g.drawString(vstr, fxr - vstrw, wy - 2);
-      g.drawString(bstr, fxr - bstrw, wy + 2 + fm.getHeight());
+      g.drawString(vstr.text, fxr - vstr.width, ly - 2);
+      g.drawString(bstr.text, fxr - bstr.width, ly + 2 + fm.getHeight());
     }
 
   }
@@ -343,13 +587,37 @@ public class SwerveViewer extends JComponent {
     double ptLen = 10;
     double ax = ex + ptLen * Math.cos(as);
     double ay = ey + ptLen * Math.sin(as);
-    GeneralPath arrow = new GeneralPath();
+    arrow.reset();
     arrow.moveTo(sx, sy);
     arrow.lineTo(ex, ey);
     arrow.lineTo(ax, ay);
     g.draw(arrow);
   }
 
+  /**
+   * Indicates whether frames are rendered into a back buffer.
+   *
+   * @return true if frames are only rendered when the wheels or size change.
+   */
+  public boolean isBackBuffered() {
+    return backBuffered;
+  }
+
+  /**
+   * Turns rendering into a back buffer on or off.
+   *
+   * @param backBuffered true to only render frames when the wheels or size change, false to render every paint
+   *          directly to the screen.
+   */
+  public void setBackBuffered(boolean backBuffered) {
+    this.backBuffered = backBuffered;
+    if (!backBuffered && backBuffer != null) {
+      backBuffer.flush();
+      backBuffer = null;
+    }
+    renderedVersion = -1;
+  }
+
   /**
    * Sets all of the wheels to point to a particular direction.
    *
@@ -360,11 +628,17 @@ public class SwerveViewer extends JComponent {
       wheel.setAxleTheta(angRads);
       wheel.setVelocity(1.0);
     }
+    wheels.publish();
     invalidate();
   }
 
   /**
    * Get access to all of the swerve wheels managed by the widget.
+   * <p>
+   * The view only draws published snapshots, so changes made to the wheels through this collection don't show up
+   * until {@link SwerveWheels#publish()} is called (by the thread that owns the wheels) followed by
+   * {@link #repaint()}.
+   * </p>
    *
    * @return Collection of {@link SwerveWheel} objects.
    */
@@ -381,10 +655,49 @@ public class SwerveViewer extends JComponent {
    * @param rot The rotation velocity to add in (positive is counter-clockwise).
    */
   public void setDirection(double ux, double uy, double rot) {
-    for (SwerveWheel wheel : wheels.getSwerveWheels()) {
-      wheel.setDirection(ux, uy, rot);
-    }
+    wheels.setDirection(ux, uy, rot);
+    wheels.publish();
     repaint();
   }
 
+  /**
+   * A formatted number and its width (only formatted and measured again when the value changes).
+   */
+  private static final class Label {
+
+    /** Value the text was formatted from. */
+    private double value;
+
+    /** The formatted value (null until the first update). */
+    private String text;
+
+    /** Width of the text in pixels. */
+    private int width;
+
+    /**
+     * Get the label for a value.
+     *
+     * @param value The value to display.
+     * @param nf Format to use.
+     * @param fm Metrics of the font the label is drawn with.
+     * @return Reference to self.
+     */
+    Label update(double value, NumberFormat nf, FontMetrics fm) {
+      if (text == null || Double.doubleToLongBits(value) != Double.doubleToLongBits(this.value)) {
+        this.value = value;
+        text = nf.format(value);
+        width = fm.stringWidth(text);
+      }
+      return this;
+    }
+
+    /**
+     * Forget the text (so it is measured again).
+     */
+    void clear() {
+      text = null;
+    }
+
+  }
+
 }
@@ -2,6 +2,9 @@ package com.techhounds.swerve;
 
 import com.techhounds.math.CartesianPoint;
 import com.techhounds.math.PolarPoint;
+import com.techhounds.math.Trig;
+import com.techhounds.metrics.FlightEvents;
+import com.techhounds.metrics.Metrics;
 
 /**
  * Class to help with the math involved in computing the direction and motor
@@ -45,6 +48,16 @@ public class SwerveWheel {
    */
   private double sinRotAng;
 
+  /**
+   * How far (radians) the wheel must turn before we reverse the motor instead.
+   */
+  private double reverseThreshold = Math.PI / 2;
+
+  /**
+   * Number of calls to setDirection (used to sample timing).
+   */
+  private int directionCalls;
+
   /**
    * Fully construct a new instance of a swerve wheel.
    *
@@ -94,13 +107,30 @@ public class SwerveWheel {
    * @return The destination point
    */
   public CartesianPoint transform(CartesianPoint relToWheel, CartesianPoint dstRelToOrigin) {
+    return transform(relToWheel.getX(), relToWheel.getY(), dstRelToOrigin);
+  }
+
+  /**
+   * Transforms a point relative to the wheel's center point origin to
+   * real-world coordinates after applying current rotation.
+   *
+   * @param wx
+   *          The x value of the point relative to the center of the wheel.
+   * @param wy
+   *          The y value of the point relative to the center of the wheel.
+   * @param dstRelToOrigin
+   *          Where to store the result of rotating point about wheel center and
+   *          then offsetting from center of robot (must not be null).
+   * @return The destination point
+   */
+  public CartesianPoint transform(double wx, double wy, CartesianPoint dstRelToOrigin) {
     // Add swerve rotation to current polar angle of coordinate
-    double theta = relToWheel.computeTheta() + vector.getTheta();
+    double theta = CartesianPoint.computeTheta(wx, wy) + vector.getTheta();
 
-    double r = relToWheel.computeR();
+    double r = CartesianPoint.computeR(wx, wy);
     // Compute new (x, y) relative to wheel origin
-    double x = Math.cos(theta) * r;
-    double y = Math.sin(theta) * r;
+    double x = Trig.cos(theta) * r;
+    double y = Trig.sin(theta) * r;
     // Translate back to wheel space
     x += getX();
     y += getY();
@@ -152,6 +182,26 @@ public class SwerveWheel {
     }
   }
 
+  /**
+   * Get the pre-computed cosine of the angle from the center of the robot to
+   * the wheel (used to add in rotation).
+   *
+   * @return Cosine of rotation angle (0 if wheel is at center of robot).
+   */
+  final double getCosRotAng() {
+    return cosRotAng;
+  }
+
+  /**
+   * Get the pre-computed sine of the angle from the center of the robot to the
+   * wheel (used to add in rotation).
+   *
+   * @return Sine of rotation angle (0 if wheel is at center of robot).
+   */
+  final double getSinRotAng() {
+    return sinRotAng;
+  }
+
   /**
    * The diameter of the wheel.
    *
@@ -231,6 +281,31 @@ public class SwerveWheel {
     return -vector.getTheta();
   }
 
+  /**
+   * Get how far the wheel is allowed to turn before {@link #setDirection(double, double, double)}
+   * reverses the motor and turns the other way instead.
+   *
+   * @return Angle in radians (defaults to PI / 2).
+   */
+  public double getReverseThreshold() {
+    return reverseThreshold;
+  }
+
+  /**
+   * Set how far the wheel is allowed to turn before {@link #setDirection(double, double, double)}
+   * reverses the motor and turns the other way instead (copied into a
+   * {@link SwerveFleet} when the robot is added).
+   *
+   * @param reverseThreshold
+   *          Angle in radians in the range of [PI / 2, PI] (PI never reverses).
+   */
+  public void setReverseThreshold(double reverseThreshold) {
+    if (!(reverseThreshold >= Math.PI / 2 && reverseThreshold <= Math.PI)) {
+      throw new IllegalArgumentException("Reverse threshold must be in range [PI / 2, PI]: " + reverseThreshold);
+    }
+    this.reverseThreshold = reverseThreshold;
+  }
+
   /**
    * Get the linear velocity set on the wheel.
    *
@@ -300,6 +375,26 @@ public class SwerveWheel {
    *          - Rotational velocity to factor in.
    */
   public void setDirection(double xTranslation, double yTranslation, double rotation) {
+    if (Metrics.ENABLED && (++directionCalls & Metrics.SAMPLE_MASK) == 0) {
+      long start = System.nanoTime();
+      computeDirection(xTranslation, yTranslation, rotation);
+      Metrics.WHEEL_SET_DIRECTION.recordSince(start);
+    } else {
+      computeDirection(xTranslation, yTranslation, rotation);
+    }
+  }
+
+  /**
+   * Implementation of {@link #setDirection(double, double, double)}.
+   *
+   * @param xTranslation
+   *          - The east/west component of the translation velocity vector.
+   * @param yTranslation
+   *          - The north/south component of the translation velocity vector.
+   * @param rotation
+   *          - Rotational velocity to factor in.
+   */
+  private void computeDirection(double xTranslation, double yTranslation, double rotation) {
     double ux = xTranslation;
     double uy = yTranslation;
     if (rotation != 0) {
@@ -319,12 +414,13 @@ public class SwerveWheel {
 
     // Compute new wheel angle and shortest path to get there from current
     // direction
-    double newTheta = Math.atan2(uy, ux);
+    double newTheta = Trig.atan2(uy, ux);
     double oldTheta = vector.getTheta();
     double shortestPath = PolarPoint.computeShortestPath(oldTheta, newTheta);
-    if (Math.abs(shortestPath) > (Math.PI / 2)) {
-      // Shortest path is more than 90 degrees, we can reduce this to
-      // something less than 90 degrees if we reverse motor direction
+    if (Math.abs(shortestPath) > reverseThreshold) {
+      // Shortest path is more than the threshold (90 degrees by default), we
+      // can reduce this to something less than 90 degrees if we reverse motor
+      // direction
       if (newTheta < 0) {
         newTheta += Math.PI;
       } else {
@@ -332,6 +428,12 @@ public class SwerveWheel {
       }
       // Invert velocity direction
       r = -r;
+      if (Metrics.ENABLED) {
+        Metrics.WHEEL_REVERSALS.increment();
+      }
+      if (FlightEvents.isRecording()) {
+        FlightEvents.reversal(1, shortestPath, r);
+      }
     }
     vector.setTheta(newTheta);
     vector.setR(r);
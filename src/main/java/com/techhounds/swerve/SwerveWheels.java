@@ -1,14 +1,28 @@
 package com.techhounds.swerve;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 
+import com.techhounds.metrics.FlightEvents;
+import com.techhounds.metrics.Metrics;
+
+/**
+ * The set of swerve wheels making up a robot.
+ * <p>
+ * Changes to the translation angle, turn point or set of wheels are applied
+ * to the wheels immediately (on the writer side), so reading the wheels back
+ * never triggers any computation. The turn geometry (axle angle and distance
+ * to the turn point) of each wheel is cached for the current turn point:
+ * changing the translation angle only reapplies the cached values, adding a wheel
+ * only computes the geometry of the new wheel and only moving the turn point
+ * recomputes the geometry of every wheel.
+ * </p>
+ */
 public class SwerveWheels {
 
   private ArrayList<SwerveWheel> wheels;
 
-  private boolean dirty = false;
-
   private boolean applyRotation = false;
 
   private double cx = 0.0;
@@ -17,6 +31,27 @@ public class SwerveWheels {
 
   private double translationTheta = 0.0;
 
+  /** Cached axle angle of each wheel to turn around (cx, cy). */
+  private double[] turnTheta = new double[8];
+
+  /** Cached distance of each wheel to (cx, cy). */
+  private double[] turnDist = new double[8];
+
+  /** Number of wheels (from the start) whose turn geometry is cached. */
+  private int cached = 0;
+
+  /** Largest cached distance (used to normalize velocities). */
+  private double maxDist = 0.0;
+
+  /** Hands snapshots of the wheel states to a display thread. */
+  private final WheelStatePublisher publisher = new WheelStatePublisher();
+
+  /** Number of calls to apply (used to sample the timing). */
+  private int applyCalls;
+
+  /** Number of calls to setDirection (used to sample the timing). */
+  private int directionCalls;
+
   public SwerveWheels() {
     wheels = new ArrayList<SwerveWheel>();
   }
@@ -26,64 +61,181 @@ public class SwerveWheels {
   }
 
   public SwerveWheel getSwerveWheel(int idx) {
-    apply();
     return wheels.get(idx);
   }
 
   public Collection<SwerveWheel> getSwerveWheels() {
-    apply();
     return wheels;
   }
 
   public void setTranslation(double translationTheta) {
     if (this.translationTheta != translationTheta) {
-      dirty = true;
       this.translationTheta = translationTheta;
+      // Turn geometry is unchanged, no need to recompute it
+      for (int i = 0; i < cached; i++) {
+        applyTurn(i);
+      }
     }
   }
 
   public void setTurn(double cx, double cy) {
     if (this.cx != cx || this.cy != cy) {
-      dirty = true;
-      applyRotation = (this.cx != 0) || (this.cy != 0);
+      // Turning about the center of the robot is the same as not turning
+      applyRotation = (cx != 0) || (cy != 0);
       this.cx = cx;
       this.cy = cy;
+      cached = 0;
+      maxDist = 0;
+      apply();
+    }
+  }
+
+  /**
+   * Recomputes the cached turn geometry of a single wheel (call this if you
+   * change the position of a wheel after adding it).
+   *
+   * @param idx Index of the wheel that was moved.
+   */
+  public void updateWheel(int idx) {
+    if (idx < 0 || idx >= cached) {
+      throw new IndexOutOfBoundsException("Wheel index: " + idx);
+    }
+    computeTurn(idx);
+    maxDist = 0;
+    for (int i = 0; i < cached; i++) {
+      maxDist = Math.max(maxDist, turnDist[i]);
+    }
+    for (int i = 0; i < cached; i++) {
+      applyTurn(i);
     }
   }
 
+  /**
+   * Computes and caches the turn geometry for wheels that aren't cached yet
+   * and then updates the axle angle and velocity of every wheel that was
+   * affected.
+   */
   private void apply() {
-    if (dirty) {
-      double maxDist = 0;
-      for (SwerveWheel wheel : wheels) {
-        double angTheta = translationTheta;
-        double dist = 1.0;
-        if (applyRotation) {
-          double rotTheta = wheel.computeForTurnAround(cx, cy);
-          angTheta += rotTheta;
-          dist = wheel.computeDistance(cx, cy);
-        }
-        wheel.setAxleTheta(angTheta);
-        maxDist = Math.max(maxDist, dist);
-        wheel.setVelocity(dist);
-      }
-      if (maxDist > 0) {
-        for (SwerveWheel wheel : wheels) {
-          double dist = wheel.getVelocity();
-          // How fast the wheel should be moving as a multiplier to the fastest
-          // wheel
-          double velRatio = dist / maxDist;
-          wheel.setVelocity(velRatio);
-        }
-      }
+    int n = wheels.size();
+    if (cached == n) {
+      return;
+    }
+    Object event = FlightEvents.isRecording() ? FlightEvents.beginApply() : null;
+    boolean sampled = Metrics.ENABLED && (++applyCalls & Metrics.SAMPLE_MASK) == 0;
+    long start = sampled ? System.nanoTime() : 0;
+    if (turnDist.length < n) {
+      int capacity = Math.max(n, turnDist.length * 2);
+      turnTheta = Arrays.copyOf(turnTheta, capacity);
+      turnDist = Arrays.copyOf(turnDist, capacity);
+    }
+    double oldMax = maxDist;
+    int first = cached;
+    for (int i = first; i < n; i++) {
+      computeTurn(i);
+      maxDist = Math.max(maxDist, turnDist[i]);
+    }
+    cached = n;
+    // Only wheels already cached need new velocities if the fastest wheel
+    // changed
+    if (maxDist != oldMax) {
+      first = 0;
+    }
+    for (int i = first; i < n; i++) {
+      applyTurn(i);
+    }
+    if (sampled) {
+      Metrics.WHEELS_APPLY.recordSince(start);
+    }
+    if (event != null) {
+      FlightEvents.endApply(event, n);
+    }
+  }
 
+  /**
+   * Computes and caches the turn geometry of a single wheel.
+   *
+   * @param i Index of the wheel.
+   */
+  private void computeTurn(int i) {
+    if (applyRotation) {
+      SwerveWheel wheel = wheels.get(i);
+      turnTheta[i] = wheel.computeForTurnAround(cx, cy);
+      turnDist[i] = wheel.computeDistance(cx, cy);
+    } else {
+      turnTheta[i] = 0;
+      turnDist[i] = 1.0;
     }
-    dirty = false;
+  }
+
+  /**
+   * Sets the axle angle and velocity of a wheel from its cached geometry.
+   *
+   * @param i Index of the wheel.
+   */
+  private void applyTurn(int i) {
+    SwerveWheel wheel = wheels.get(i);
+    wheel.setAxleTheta(translationTheta + turnTheta[i]);
+    // How fast the wheel should be moving as a multiplier to the fastest
+    // wheel
+    double dist = turnDist[i];
+    wheel.setVelocity(maxDist > 0 ? dist / maxDist : dist);
+  }
+
+  /**
+   * Sets the direction that you want the robot to move in on every wheel.
+   *
+   * @param ux The x portion of the translation velocity vector.
+   * @param uy The y portion of the translation velocity vector.
+   * @param rot The rotation velocity to add in (positive is counter-clockwise).
+   */
+  public void setDirection(double ux, double uy, double rot) {
+    if (Metrics.ENABLED && (++directionCalls & Metrics.SAMPLE_MASK) == 0) {
+      long start = System.nanoTime();
+      computeDirection(ux, uy, rot);
+      Metrics.WHEELS_SET_DIRECTION.recordSince(start);
+    } else {
+      computeDirection(ux, uy, rot);
+    }
+  }
+
+  /**
+   * Sets the direction of every wheel (see {@link #setDirection(double, double, double)}).
+   *
+   * @param ux The x portion of the translation velocity vector.
+   * @param uy The y portion of the translation velocity vector.
+   * @param rot The rotation velocity to add in.
+   */
+  private void computeDirection(double ux, double uy, double rot) {
+    for (int i = 0, n = wheels.size(); i < n; i++) {
+      wheels.get(i).setDirection(ux, uy, rot);
+    }
+  }
+
+  /**
+   * Publishes a snapshot of the current wheel states for
+   * {@link #acquireSnapshot()} (call from the thread that modifies the wheels
+   * once it has finished an update).
+   */
+  public void publish() {
+    publisher.publish(this);
+  }
+
+  /**
+   * Get the most recently published snapshot of the wheel states. This is safe
+   * to call from a single display thread while another thread modifies the
+   * wheels.
+   *
+   * @return Snapshot that won't change until the next call (empty if
+   *         {@link #publish()} has never been called).
+   */
+  public WheelStates acquireSnapshot() {
+    return publisher.acquire();
   }
 
   public SwerveWheel add(SwerveWheel wheel) {
     assert (wheel != null);
     wheels.add(wheel);
-    dirty = true;
+    apply();
     return wheel;
   }
 
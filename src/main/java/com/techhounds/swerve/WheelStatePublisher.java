@@ -0,0 +1,80 @@
+package com.techhounds.swerve;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lock-free hand off of {@link WheelStates} snapshots from the thread that
+ * drives a {@link SwerveWheels} collection to a thread that displays it.
+ * <p>
+ * This is a triple buffer: the writer fills its back buffer and swaps it with
+ * the middle buffer, the reader swaps its front buffer with the middle buffer
+ * only when something new has been published. Neither side ever blocks or
+ * retries (each operation is a single atomic exchange), the writer can publish
+ * at any rate and the reader always gets the most recent complete snapshot.
+ * Nothing is allocated once the buffers have grown to the number of wheels.
+ * </p>
+ * <p>
+ * There may be only one writer thread and one reader thread.
+ * </p>
+ */
+public final class WheelStatePublisher {
+
+  /** Set in {@link #middle} when it holds a snapshot the reader hasn't seen. */
+  private static final int FRESH = 4;
+
+  /** Mask to extract the buffer index from {@link #middle}. */
+  private static final int INDEX = 3;
+
+  /** The three buffers. */
+  private final WheelStates[] buffers;
+
+  /** Index of middle buffer (plus {@link #FRESH} flag). */
+  private final AtomicInteger middle;
+
+  /** Index of buffer owned by the writer. */
+  private int back;
+
+  /** Index of buffer owned by the reader. */
+  private int front;
+
+  /** Sequence number of the last snapshot published (writer only). */
+  private long version;
+
+  /**
+   * Constructs a new instance (readers see an empty snapshot until the first
+   * publish).
+   */
+  public WheelStatePublisher() {
+    buffers = new WheelStates[] {new WheelStates(), new WheelStates(), new WheelStates()};
+    back = 0;
+    middle = new AtomicInteger(1);
+    front = 2;
+  }
+
+  /**
+   * Capture and publish the current state of a set of wheels (writer thread
+   * only).
+   *
+   * @param wheels
+   *          The wheels to capture.
+   */
+  public void publish(SwerveWheels wheels) {
+    buffers[back].capture(wheels, ++version);
+    back = middle.getAndSet(back | FRESH) & INDEX;
+  }
+
+  /**
+   * Get the most recently published snapshot (reader thread only).
+   *
+   * @return A snapshot that will not change until the next call to acquire
+   *         (may be the same snapshot returned by the last call if nothing new
+   *         has been published).
+   */
+  public WheelStates acquire() {
+    if ((middle.get() & FRESH) != 0) {
+      front = middle.getAndSet(front) & INDEX;
+    }
+    return buffers[front];
+  }
+
+}
@@ -0,0 +1,208 @@
+package com.techhounds.swerve;
+
+import java.util.Arrays;
+
+import com.techhounds.math.CartesianPoint;
+import com.techhounds.math.Trig;
+
+/**
+ * A snapshot of the state of every {@link SwerveWheel} in a
+ * {@link SwerveWheels} collection packed into parallel arrays.
+ * <p>
+ * Instances are filled in by a {@link WheelStatePublisher} on the thread that
+ * drives the wheels and handed to a reader (like the {@link SwerveViewer})
+ * which may only read them. A snapshot a reader has acquired is never modified
+ * until that reader acquires the next one, so all of the values are always
+ * from the same point in time.
+ * </p>
+ */
+public final class WheelStates {
+
+  /** Number of wheels captured. */
+  private int count;
+
+  /** Publish sequence number (0 if never published). */
+  private long version;
+
+  /** The x offset of each wheel from the center of the robot. */
+  private double[] x;
+
+  /** The y offset of each wheel from the center of the robot. */
+  private double[] y;
+
+  /** The diameter of each wheel. */
+  private double[] diameter;
+
+  /** The width of each wheel. */
+  private double[] width;
+
+  /** The axle angle of each wheel. */
+  private double[] axleTheta;
+
+  /** The velocity of each wheel. */
+  private double[] velocity;
+
+  /**
+   * Constructs a new empty snapshot.
+   */
+  WheelStates() {
+    x = new double[0];
+    y = x;
+    diameter = x;
+    width = x;
+    axleTheta = x;
+    velocity = x;
+  }
+
+  /**
+   * Copies the current state of a set of wheels into the snapshot (only
+   * allocates when the number of wheels grows).
+   *
+   * @param wheels
+   *          The wheels to copy.
+   * @param version
+   *          The publish sequence number to assign.
+   */
+  void capture(SwerveWheels wheels, long version) {
+    int n = wheels.size();
+    if (x.length < n) {
+      x = Arrays.copyOf(x, n);
+      y = Arrays.copyOf(y, n);
+      diameter = Arrays.copyOf(diameter, n);
+      width = Arrays.copyOf(width, n);
+      axleTheta = Arrays.copyOf(axleTheta, n);
+      velocity = Arrays.copyOf(velocity, n);
+    }
+    for (int i = 0; i < n; i++) {
+      SwerveWheel wheel = wheels.getSwerveWheel(i);
+      x[i] = wheel.getX();
+      y[i] = wheel.getY();
+      diameter[i] = wheel.getDiameter();
+      width[i] = wheel.getWidth();
+      axleTheta[i] = wheel.getAxleTheta();
+      velocity[i] = wheel.getVelocity();
+    }
+    this.count = n;
+    this.version = version;
+  }
+
+  /**
+   * Get the number of wheels captured.
+   *
+   * @return Number of wheels (valid indexes are [0, count)).
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Get the publish sequence number of the snapshot.
+   *
+   * @return Increases by one every time a snapshot is published (0 if nothing
+   *         has been published yet).
+   */
+  public long getVersion() {
+    return version;
+  }
+
+  /**
+   * Get the x offset of a wheel from the center of the robot.
+   *
+   * @param i
+   *          Index of wheel.
+   * @return x portion of Cartesian coordinate.
+   */
+  public double getX(int i) {
+    return x[i];
+  }
+
+  /**
+   * Get the y offset of a wheel from the center of the robot.
+   *
+   * @param i
+   *          Index of wheel.
+   * @return y portion of Cartesian coordinate.
+   */
+  public double getY(int i) {
+    return y[i];
+  }
+
+  /**
+   * Get the diameter of a wheel.
+   *
+   * @param i
+   *          Index of wheel.
+   * @return The wheel diameter.
+   */
+  public double getDiameter(int i) {
+    return diameter[i];
+  }
+
+  /**
+   * Get the width of a wheel.
+   *
+   * @param i
+   *          Index of wheel.
+   * @return Width of the tire tread.
+   */
+  public double getWidth(int i) {
+    return width[i];
+  }
+
+  /**
+   * Get the axle angle of a wheel on the unit circle.
+   *
+   * @param i
+   *          Index of wheel.
+   * @return Angle in radians (0 is due east and rotation is counter
+   *         clockwise).
+   */
+  public double getAxleTheta(int i) {
+    return axleTheta[i];
+  }
+
+  /**
+   * Get the bearing of a wheel clockwise from due north.
+   *
+   * @param i
+   *          Index of wheel.
+   * @return Angle in radians relative to due north.
+   */
+  public double getWheelBearing(int i) {
+    return -axleTheta[i];
+  }
+
+  /**
+   * Get the velocity of a wheel.
+   *
+   * @param i
+   *          Index of wheel.
+   * @return Velocity (negative value indicates wheel is going in reverse).
+   */
+  public double getVelocity(int i) {
+    return velocity[i];
+  }
+
+  /**
+   * Transforms a point relative to a wheel's center point to robot space (same
+   * as {@link SwerveWheel#transform(double, double, CartesianPoint)} using the
+   * captured state).
+   *
+   * @param i
+   *          Index of wheel.
+   * @param wx
+   *          The x value of the point relative to the center of the wheel.
+   * @param wy
+   *          The y value of the point relative to the center of the wheel.
+   * @param dst
+   *          Where to store the result (must not be null).
+   * @return The destination point
+   */
+  public CartesianPoint transform(int i, double wx, double wy, CartesianPoint dst) {
+    double theta = CartesianPoint.computeTheta(wx, wy) + axleTheta[i];
+    double r = CartesianPoint.computeR(wx, wy);
+    dst.set(Trig.cos(theta) * r + x[i], Trig.sin(theta) * r + y[i]);
+    return dst;
+  }
+
+}
@@ -0,0 +1,68 @@
+package com.techhounds.swerve.replay;
+
+import java.nio.ByteOrder;
+
+/**
+ * Constants describing the binary replay log file format shared by
+ * {@link ReplayLogWriter} and {@link ReplayLog}.
+ * <p>
+ * A file is a {@link #HEADER_SIZE} byte header followed by fixed size
+ * {@link #RECORD_SIZE} byte records (all values are little endian). Records
+ * are written in time order, so a record can be found by timestamp using a
+ * binary search. The record count in the header is the logical length of the
+ * log: the file is extended a whole region of {@link #CHUNK_RECORDS} records
+ * at a time and is not trimmed when closed, so anything past the last record
+ * counted is unused.
+ * </p>
+ *
+ * <pre>
+ * Header: magic (int), version (int), record size (int), reserved (int),
+ *         record count (long), reserved (long)
+ * Record: time (long), type (int), id (int), value A (double), value B (double)
+ * </pre>
+ */
+final class ReplayFormat {
+
+  /** Magic number at the start of every file ("SWRL"). */
+  static final int MAGIC = 0x4c525753;
+
+  /** Version of the file format. */
+  static final int VERSION = 1;
+
+  /** Size of the file header in bytes. */
+  static final int HEADER_SIZE = 32;
+
+  /** Offset of the record count in the header. */
+  static final int COUNT_OFFSET = 16;
+
+  /** Size of each record in bytes. */
+  static final int RECORD_SIZE = 32;
+
+  /** Offset of the time stamp in a record. */
+  static final int TIME = 0;
+
+  /** Offset of the record type in a record. */
+  static final int TYPE = 8;
+
+  /** Offset of the axis/module id in a record. */
+  static final int ID = 12;
+
+  /** Offset of the first value in a record. */
+  static final int VALUE_A = 16;
+
+  /** Offset of the second value in a record. */
+  static final int VALUE_B = 24;
+
+  /** Number of records in each mapped region of the file (32 MB). */
+  static final int CHUNK_RECORDS = 1 << 20;
+
+  /** Byte order of all values. */
+  static final ByteOrder ORDER = ByteOrder.LITTLE_ENDIAN;
+
+  /**
+   * No instances.
+   */
+  private ReplayFormat() {
+  }
+
+}
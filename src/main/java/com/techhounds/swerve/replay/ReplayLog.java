@@ -0,0 +1,307 @@
+package com.techhounds.swerve.replay;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.techhounds.gui.Axis;
+import com.techhounds.gui.InputPipeline;
+import com.techhounds.swerve.SwerveWheel;
+import com.techhounds.swerve.SwerveWheels;
+
+/**
+ * Read access to a replay log written by {@link ReplayLogWriter}.
+ * <p>
+ * The whole file is memory mapped and every accessor reads directly from the
+ * mapping, so opening a log of hours of driving is instant, a record can be
+ * found by time stamp with a binary search ({@link #seek(long)}) and replaying
+ * records back into a {@link SwerveWheels} collection never copies them into
+ * intermediate objects.
+ * </p>
+ */
+public final class ReplayLog implements Closeable {
+
+  /** Record type of an {@link Axis} update (value A is the position, B the old position). */
+  public static final int TYPE_AXIS = 1;
+
+  /** Record type of a module state (value A is the axle angle, B the velocity). */
+  public static final int TYPE_MODULE = 2;
+
+  /** The file being read. */
+  private final RandomAccessFile file;
+
+  /** Mapped regions of the file (each holds {@link ReplayFormat#CHUNK_RECORDS} records). */
+  private final MappedByteBuffer[] chunks;
+
+  /** Number of records in the file. */
+  private final long count;
+
+  /**
+   * Opens a replay log.
+   *
+   * @param path
+   *          The file to read.
+   * @throws IOException
+   *           If the file could not be read or is not a replay log.
+   */
+  public ReplayLog(File path) throws IOException {
+    file = new RandomAccessFile(path, "r");
+    try {
+      FileChannel channel = file.getChannel();
+      if (channel.size() < ReplayFormat.HEADER_SIZE) {
+        throw new IOException("File too short to be a replay log: " + path);
+      }
+      MappedByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, ReplayFormat.HEADER_SIZE);
+      header.order(ReplayFormat.ORDER);
+      if (header.getInt(0) != ReplayFormat.MAGIC) {
+        throw new IOException("Not a replay log: " + path);
+      }
+      if (header.getInt(4) != ReplayFormat.VERSION || header.getInt(8) != ReplayFormat.RECORD_SIZE) {
+        throw new IOException("Unsupported replay log version: " + header.getInt(4));
+      }
+      long available = (channel.size() - ReplayFormat.HEADER_SIZE) / ReplayFormat.RECORD_SIZE;
+      count = Math.min(header.getLong(ReplayFormat.COUNT_OFFSET), available);
+
+      int n = (int) ((count + ReplayFormat.CHUNK_RECORDS - 1) / ReplayFormat.CHUNK_RECORDS);
+      chunks = new MappedByteBuffer[n];
+      for (int i = 0; i < n; i++) {
+        long first = (long) i * ReplayFormat.CHUNK_RECORDS;
+        long records = Math.min(ReplayFormat.CHUNK_RECORDS, count - first);
+        chunks[i] = channel.map(FileChannel.MapMode.READ_ONLY,
+            ReplayFormat.HEADER_SIZE + first * ReplayFormat.RECORD_SIZE, records * ReplayFormat.RECORD_SIZE);
+        chunks[i].order(ReplayFormat.ORDER);
+      }
+    } catch (IOException e) {
+      file.close();
+      throw e;
+    }
+  }
+
+  /**
+   * Get the number of records in the log.
+   *
+   * @return Record count.
+   */
+  public long getRecordCount() {
+    return count;
+  }
+
+  /**
+   * Get the mapped region holding a record.
+   *
+   * @param idx
+   *          Index of record.
+   * @return Region holding the record.
+   */
+  private MappedByteBuffer chunk(long idx) {
+    if (idx < 0 || idx >= count) {
+      throw new IndexOutOfBoundsException("Record index: " + idx);
+    }
+    return chunks[(int) (idx / ReplayFormat.CHUNK_RECORDS)];
+  }
+
+  /**
+   * Get the byte offset of a record within its mapped region.
+   *
+   * @param idx
+   *          Index of record.
+   * @return Offset of record.
+   */
+  private static int offset(long idx) {
+    return (int) (idx % ReplayFormat.CHUNK_RECORDS) * ReplayFormat.RECORD_SIZE;
+  }
+
+  /**
+   * Get the time stamp of a record.
+   *
+   * @param idx
+   *          Index of record.
+   * @return Time stamp in nanoseconds.
+   */
+  public long getTime(long idx) {
+    return chunk(idx).getLong(offset(idx) + ReplayFormat.TIME);
+  }
+
+  /**
+   * Get the type of a record.
+   *
+   * @param idx
+   *          Index of record.
+   * @return {@link #TYPE_AXIS} or {@link #TYPE_MODULE}.
+   */
+  public int getType(long idx) {
+    return chunk(idx).getInt(offset(idx) + ReplayFormat.TYPE);
+  }
+
+  /**
+   * Get the axis or module id of a record.
+   *
+   * @param idx
+   *          Index of record.
+   * @return Id that was written.
+   */
+  public int getId(long idx) {
+    return chunk(idx).getInt(offset(idx) + ReplayFormat.ID);
+  }
+
+  /**
+   * Get the first value of a record.
+   *
+   * @param idx
+   *          Index of record.
+   * @return Axis position or module axle angle.
+   */
+  public double getValueA(long idx) {
+    return chunk(idx).getDouble(offset(idx) + ReplayFormat.VALUE_A);
+  }
+
+  /**
+   * Get the second value of a record.
+   *
+   * @param idx
+   *          Index of record.
+   * @return Axis old position or module velocity.
+   */
+  public double getValueB(long idx) {
+    return chunk(idx).getDouble(offset(idx) + ReplayFormat.VALUE_B);
+  }
+
+  /**
+   * Find the first record at or after a point in time.
+   *
+   * @param time
+   *          Time stamp in nanoseconds.
+   * @return Index of the first record whose time stamp is not before time
+   *         ({@link #getRecordCount()} if there are none).
+   */
+  public long seek(long time) {
+    long lo = 0;
+    long hi = count;
+    while (lo < hi) {
+      long mid = (lo + hi) >>> 1;
+      if (getTime(mid) < time) {
+        lo = mid + 1;
+      } else {
+        hi = mid;
+      }
+    }
+    return lo;
+  }
+
+  /**
+   * Replay a range of records.
+   *
+   * @param from
+   *          Index of first record to replay.
+   * @param to
+   *          Index after the last record to replay.
+   * @param wheels
+   *          Module records with ids in [baseId, baseId + wheels.size()) set
+   *          the axle angle and velocity of the matching wheel (may be null to
+   *          skip module records).
+   * @param baseId
+   *          Id of the first wheel.
+   * @param axes
+   *          Axis records with ids in [0, axes.length) set the position of the
+   *          matching axis (may be null to skip axis records).
+   * @return Number of records applied.
+   */
+  public long replay(long from, long to, SwerveWheels wheels, int baseId, Axis[] axes) {
+    return replay(from, to, wheels, baseId, axes, null);
+  }
+
+  /**
+   * Replay a range of records, shaping axis values the same way as the
+   * interactive tool before they are applied.
+   *
+   * @param from
+   *          Index of first record to replay.
+   * @param to
+   *          Index after the last record to replay.
+   * @param wheels
+   *          Module records with ids in [baseId, baseId + wheels.size()) set
+   *          the axle angle and velocity of the matching wheel (may be null to
+   *          skip module records).
+   * @param baseId
+   *          Id of the first wheel.
+   * @param axes
+   *          Axis records with ids in [0, axes.length) set the position of the
+   *          matching axis (may be null to skip axis records).
+   * @param filters
+   *          Pipeline for each axis (may be null, as may any element, to apply
+   *          values unchanged). Values are filtered using the record time
+   *          stamps.
+   * @return Number of records applied.
+   */
+  public long replay(long from, long to, SwerveWheels wheels, int baseId, Axis[] axes, InputPipeline[] filters) {
+    if (from < 0 || to > count || from > to) {
+      throw new IndexOutOfBoundsException("Replay range [" + from + ", " + to + ") of " + count);
+    }
+    int wheelCount = (wheels != null) ? wheels.size() : 0;
+    int axisCount = (axes != null) ? axes.length : 0;
+    long applied = 0;
+    for (long idx = from; idx < to; idx++) {
+      MappedByteBuffer buf = chunks[(int) (idx / ReplayFormat.CHUNK_RECORDS)];
+      int pos = offset(idx);
+      int type = buf.getInt(pos + ReplayFormat.TYPE);
+      int id = buf.getInt(pos + ReplayFormat.ID);
+      if (type == TYPE_MODULE) {
+        int i = id - baseId;
+        if (i >= 0 && i < wheelCount) {
+          SwerveWheel wheel = wheels.getSwerveWheel(i);
+          wheel.setAxleTheta(buf.getDouble(pos + ReplayFormat.VALUE_A));
+          wheel.setVelocity(buf.getDouble(pos + ReplayFormat.VALUE_B));
+          applied++;
+        }
+      } else if (type == TYPE_AXIS) {
+        if (id >= 0 && id < axisCount) {
+          double value = buf.getDouble(pos + ReplayFormat.VALUE_A);
+          InputPipeline filter = (filters != null && id < filters.length) ? filters[id] : null;
+          if (filter != null) {
+            value = filter.update(value, buf.getLong(pos + ReplayFormat.TIME));
+          }
+          axes[id].setPosition(value);
+          applied++;
+        }
+      }
+    }
+    return applied;
+  }
+
+  /**
+   * Replay every record from the start of the log up to (and including) a
+   * point in time.
+   *
+   * @param time
+   *          Time stamp in nanoseconds.
+   * @param wheels
+   *          Wheels to apply module records to (may be null).
+   * @param baseId
+   *          Id of the first wheel.
+   * @param axes
+   *          Axes to apply axis records to (may be null).
+   * @return Index of the first record after time (where to continue
+   *         replaying from).
+   */
+  public long replayTo(long time, SwerveWheels wheels, int baseId, Axis[] axes) {
+    long end = (time == Long.MAX_VALUE) ? count : seek(time + 1);
+    replay(0, end, wheels, baseId, axes);
+    return end;
+  }
+
+  /**
+   * Releases the file (the mappings are released once they are garbage
+   * collected).
+   *
+   * @throws IOException
+   *           If there was a problem closing the file.
+   */
+  @Override
+  public void close() throws IOException {
+    file.close();
+  }
+
+}
@@ -0,0 +1,335 @@
+package com.techhounds.swerve.replay;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+
+import com.techhounds.gui.Axis;
+import com.techhounds.gui.AxisListener;
+import com.techhounds.swerve.SwerveFleet;
+import com.techhounds.swerve.SwerveWheel;
+import com.techhounds.swerve.SwerveWheels;
+
+/**
+ * Records {@link Axis} updates and {@link SwerveWheel} states to a binary
+ * replay log file (see {@link ReplayLog} to read it back).
+ * <p>
+ * Records are a fixed 32 bytes and are copied straight into a memory mapped
+ * region of the file, so writing a record is a handful of stores (no
+ * formatting, no system calls and no garbage). This keeps up with every module
+ * of many robots at a 1 kHz control rate.
+ * </p>
+ * <p>
+ * Time stamps are in nanoseconds and must never decrease. They can be
+ * simulated time or wall clock time from {@link #now()}. All methods are
+ * synchronized so axis updates from the event dispatch thread can be mixed
+ * with module states from a control thread. When mixing threads, use the
+ * methods that take the time stamp themselves ({@link #writeAxisNow} and
+ * {@link #writeModulesNow}, which {@link #recordAxis(Axis, int)} uses too):
+ * they read the clock while holding the lock, so a thread that read the clock
+ * earlier can't write after a later record and break the time order.
+ * </p>
+ */
+public final class ReplayLogWriter implements Closeable {
+
+  /** The file being written. */
+  private final RandomAccessFile file;
+
+  /** Channel used to map regions of the file. */
+  private final FileChannel channel;
+
+  /** Mapped header (used to update the record count). */
+  private final MappedByteBuffer header;
+
+  /** Mapped region records are currently being written to. */
+  private MappedByteBuffer chunk;
+
+  /** Number of records written. */
+  private long count;
+
+  /** Time stamp of last record written. */
+  private long lastTime = Long.MIN_VALUE;
+
+  /** Value of System.nanoTime() when the log was created. */
+  private final long origin;
+
+  /**
+   * Creates (or overwrites) a replay log file.
+   *
+   * @param path
+   *          The file to write.
+   * @throws IOException
+   *           If the file could not be created.
+   */
+  public ReplayLogWriter(File path) throws IOException {
+    file = new RandomAccessFile(path, "rw");
+    try {
+      file.setLength(0);
+      channel = file.getChannel();
+      header = channel.map(FileChannel.MapMode.READ_WRITE, 0, ReplayFormat.HEADER_SIZE);
+      header.order(ReplayFormat.ORDER);
+      header.putInt(0, ReplayFormat.MAGIC);
+      header.putInt(4, ReplayFormat.VERSION);
+      header.putInt(8, ReplayFormat.RECORD_SIZE);
+      header.putLong(ReplayFormat.COUNT_OFFSET, 0);
+    } catch (IOException e) {
+      file.close();
+      throw e;
+    }
+    origin = System.nanoTime();
+  }
+
+  /**
+   * Get the number of nanoseconds since the log was created.
+   *
+   * @return Wall clock time stamp to use for records.
+   */
+  public long now() {
+    return System.nanoTime() - origin;
+  }
+
+  /**
+   * Get the number of records written so far.
+   *
+   * @return Record count.
+   */
+  public synchronized long getRecordCount() {
+    return count;
+  }
+
+  /**
+   * Records every update of an axis (see
+   * {@link #writeAxisNow(int, double, double)}).
+   *
+   * @param axis
+   *          The axis to record.
+   * @param axisId
+   *          Id to store with each record.
+   * @return The listener added to the axis (remove it to stop recording).
+   */
+  public AxisListener recordAxis(Axis axis, final int axisId) {
+    AxisListener listener = new AxisListener() {
+      @Override
+      public void valueUpdated(double position, double oldPosition) {
+        try {
+          writeAxisNow(axisId, position, oldPosition);
+        } catch (IOException e) {
+          throw new IllegalStateException("Failed to record axis " + axisId, e);
+        }
+      }
+    };
+    axis.addAxisListener(listener);
+    return listener;
+  }
+
+  /**
+   * Write a single axis update.
+   *
+   * @param time
+   *          Time stamp in nanoseconds.
+   * @param axisId
+   *          Id of the axis.
+   * @param position
+   *          The new position of the axis.
+   * @param oldPosition
+   *          The prior position of the axis.
+   * @throws IOException
+   *           If the file could not be extended.
+   */
+  public synchronized void writeAxis(long time, int axisId, double position, double oldPosition) throws IOException {
+    write(time, ReplayLog.TYPE_AXIS, axisId, position, oldPosition);
+  }
+
+  /**
+   * Write a single axis update time stamped with {@link #now()} (read while
+   * holding the lock, so it is never before the last record written).
+   *
+   * @param axisId
+   *          Id of the axis.
+   * @param position
+   *          The new position of the axis.
+   * @param oldPosition
+   *          The prior position of the axis.
+   * @throws IOException
+   *           If the file could not be extended.
+   */
+  public synchronized void writeAxisNow(int axisId, double position, double oldPosition) throws IOException {
+    write(wallClock(), ReplayLog.TYPE_AXIS, axisId, position, oldPosition);
+  }
+
+  /**
+   * Write the angle and velocity of a single module.
+   *
+   * @param time
+   *          Time stamp in nanoseconds.
+   * @param moduleId
+   *          Id of the module.
+   * @param axleTheta
+   *          Axle angle of the module.
+   * @param velocity
+   *          Velocity of the module.
+   * @throws IOException
+   *           If the file could not be extended.
+   */
+  public synchronized void writeModule(long time, int moduleId, double axleTheta, double velocity)
+      throws IOException {
+    write(time, ReplayLog.TYPE_MODULE, moduleId, axleTheta, velocity);
+  }
+
+  /**
+   * Write the angle and velocity of every wheel of a robot.
+   *
+   * @param time
+   *          Time stamp in nanoseconds.
+   * @param wheels
+   *          The wheels of the robot.
+   * @param baseId
+   *          Id to use for the first wheel (wheel i is written with an id of
+   *          baseId + i).
+   * @throws IOException
+   *           If the file could not be extended.
+   */
+  public synchronized void writeModules(long time, SwerveWheels wheels, int baseId) throws IOException {
+    for (int i = 0, n = wheels.size(); i < n; i++) {
+      SwerveWheel wheel = wheels.getSwerveWheel(i);
+      write(time, ReplayLog.TYPE_MODULE, baseId + i, wheel.getAxleTheta(), wheel.getVelocity());
+    }
+  }
+
+  /**
+   * Write the angle and velocity of every wheel of a robot time stamped with
+   * {@link #now()} (read while holding the lock, so it is never before the
+   * last record written).
+   *
+   * @param wheels
+   *          The wheels of the robot.
+   * @param baseId
+   *          Id to use for the first wheel (wheel i is written with an id of
+   *          baseId + i).
+   * @throws IOException
+   *           If the file could not be extended.
+   */
+  public synchronized void writeModulesNow(SwerveWheels wheels, int baseId) throws IOException {
+    writeModules(wallClock(), wheels, baseId);
+  }
+
+  /**
+   * Write the angle and velocity of every module in a fleet (the module index
+   * in the fleet is used as the id).
+   *
+   * @param time
+   *          Time stamp in nanoseconds.
+   * @param fleet
+   *          The fleet of robots.
+   * @throws IOException
+   *           If the file could not be extended.
+   */
+  public synchronized void writeModules(long time, SwerveFleet fleet) throws IOException {
+    for (int m = 0, n = fleet.getModuleCount(); m < n; m++) {
+      write(time, ReplayLog.TYPE_MODULE, m, fleet.getAxleTheta(m), fleet.getVelocity(m));
+    }
+  }
+
+  /**
+   * Helper method to get the wall clock time stamp for the next record (call
+   * while holding the lock).
+   *
+   * @return {@link #now()}, or the last time stamp written if a record with
+   *         an explicit time stamp is ahead of the clock.
+   */
+  private long wallClock() {
+    return Math.max(now(), lastTime);
+  }
+
+  /**
+   * Write a single record.
+   *
+   * @param time
+   *          Time stamp in nanoseconds.
+   * @param type
+   *          Type of record.
+   * @param id
+   *          Axis or module id.
+   * @param a
+   *          First value.
+   * @param b
+   *          Second value.
+   * @throws IOException
+   *           If the file could not be extended.
+   */
+  private void write(long time, int type, int id, double a, double b) throws IOException {
+    if (time < lastTime) {
+      throw new IllegalArgumentException("Time stamp " + time + " is before last time stamp " + lastTime);
+    }
+    if (chunk == null || !chunk.hasRemaining()) {
+      nextChunk();
+    }
+    int pos = chunk.position();
+    chunk.putLong(pos + ReplayFormat.TIME, time);
+    chunk.putInt(pos + ReplayFormat.TYPE, type);
+    chunk.putInt(pos + ReplayFormat.ID, id);
+    chunk.putDouble(pos + ReplayFormat.VALUE_A, a);
+    chunk.putDouble(pos + ReplayFormat.VALUE_B, b);
+    chunk.position(pos + ReplayFormat.RECORD_SIZE);
+    lastTime = time;
+    count++;
+  }
+
+  /**
+   * Extends the file and maps the next region to write records to.
+   *
+   * @throws IOException
+   *           If the file could not be extended.
+   */
+  private void nextChunk() throws IOException {
+    long offset = ReplayFormat.HEADER_SIZE + count * ReplayFormat.RECORD_SIZE;
+    long size = (long) ReplayFormat.CHUNK_RECORDS * ReplayFormat.RECORD_SIZE;
+    chunk = channel.map(FileChannel.MapMode.READ_WRITE, offset, size);
+    chunk.order(ReplayFormat.ORDER);
+    // Records completed so far are readable if we don't get closed cleanly
+    header.putLong(ReplayFormat.COUNT_OFFSET, count);
+  }
+
+  /**
+   * Updates the record count in the header and forces everything written so
+   * far out to the storage device.
+   */
+  public synchronized void flush() {
+    header.putLong(ReplayFormat.COUNT_OFFSET, count);
+    if (chunk != null) {
+      chunk.force();
+    }
+    header.force();
+  }
+
+  /**
+   * Flushes the records written and closes the file.
+   * <p>
+   * The unused part of the last mapped region is left at the end of the file
+   * (readers only trust the record count in the header). Java can't unmap a
+   * region on demand, and some platforms (Windows) refuse to truncate a file
+   * while part of it is still mapped by this writer or by a {@link ReplayLog}
+   * reading it, so trimming the file here would make closing fail there. Most
+   * Linux and macOS file systems store the unused part sparsely.
+   * </p>
+   *
+   * @throws IOException
+   *           If there was a problem closing the file.
+   */
+  @Override
+  public synchronized void close() throws IOException {
+    if (!channel.isOpen()) {
+      return;
+    }
+    try {
+      flush();
+      chunk = null;
+    } finally {
+      file.close();
+    }
+  }
+
+}
@@ -0,0 +1,379 @@
+package com.techhounds.swerve.sim;
+
+import java.util.concurrent.locks.LockSupport;
+
+import com.techhounds.metrics.Metrics;
+import com.techhounds.swerve.SwerveWheel;
+import com.techhounds.swerve.SwerveWheels;
+
+/**
+ * Runs a {@link SwerveSimulation} in real time at its fixed control period
+ * (for example 5 ms at 200 Hz or 20 ms at 50 Hz) like the periodic loop of a
+ * real robot.
+ * <p>
+ * Each tick is scheduled at an absolute deadline (start + tick * period) so
+ * timing errors don't accumulate. The loop parks until just before the
+ * deadline and then spins for the last {@link #getSpinNanos()} nanoseconds, as
+ * parking alone typically wakes up tens of microseconds late. How late each
+ * tick started (its jitter) is tracked along with the number of overruns
+ * (ticks whose work was not done before the next deadline). After an overrun
+ * the missed deadlines are skipped rather than run back to back, so the
+ * simulated time of the controller falls behind the wall clock exactly like
+ * it would on the robot.
+ * </p>
+ * <p>
+ * Every tick asks the {@link SwerveController} for a command and updates the
+ * {@link SwerveWheels} module commands. Turn on
+ * {@link SwerveSimulation#setPublishing(boolean)} to also publish them (see
+ * {@link SwerveWheels#acquireSnapshot()}), so a viewer can watch the robot
+ * from another thread.
+ * </p>
+ */
+public final class ControlLoop implements Runnable {
+
+  /** Default number of nanoseconds to spin (instead of park) before each deadline. */
+  public static final long DEFAULT_SPIN_NANOS = 200000;
+
+  /** The simulation stepped each tick. */
+  private final SwerveSimulation sim;
+
+  /** Length of each tick in nanoseconds. */
+  private final long periodNanos;
+
+  /** Number of nanoseconds to spin before each deadline. */
+  private volatile long spinNanos = DEFAULT_SPIN_NANOS;
+
+  /** Set to false to stop a loop started by {@link #start()}. */
+  private volatile boolean running;
+
+  /** Thread started by {@link #start()} (null if not started). */
+  private Thread thread;
+
+  /** Thread running ticks until stopped (null when no loop is running). */
+  private volatile Thread runner;
+
+  /** Number of ticks run. */
+  private volatile long ticks;
+
+  /** Number of ticks that ran past the next deadline. */
+  private volatile long overruns;
+
+  /** Number of deadlines skipped after overruns. */
+  private volatile long skipped;
+
+  /** Sum of the jitter of every tick. */
+  private volatile long jitterSum;
+
+  /** Largest jitter of any tick. */
+  private volatile long maxJitter;
+
+  /**
+   * Constructs a new control loop.
+   *
+   * @param sim
+   *          The simulation to step (its time step is used as the period).
+   */
+  public ControlLoop(SwerveSimulation sim) {
+    if (sim == null) {
+      throw new NullPointerException();
+    }
+    this.sim = sim;
+    this.periodNanos = Math.round(sim.getDt() * 1.0e9);
+  }
+
+  /**
+   * Get the simulation being stepped.
+   *
+   * @return The simulation passed to the constructor.
+   */
+  public SwerveSimulation getSimulation() {
+    return sim;
+  }
+
+  /**
+   * Get the length of each tick.
+   *
+   * @return Period in nanoseconds.
+   */
+  public long getPeriodNanos() {
+    return periodNanos;
+  }
+
+  /**
+   * Get how long the loop spins before each deadline.
+   *
+   * @return Nanoseconds spent spinning instead of parking.
+   */
+  public long getSpinNanos() {
+    return spinNanos;
+  }
+
+  /**
+   * Set how long the loop spins before each deadline.
+   *
+   * @param spinNanos
+   *          Nanoseconds to spend spinning instead of parking in the range of
+   *          [0, period] (0 to only park, the period to only spin).
+   */
+  public void setSpinNanos(long spinNanos) {
+    if (spinNanos < 0 || spinNanos > periodNanos) {
+      throw new IllegalArgumentException("Spin time must be in range [0, " + periodNanos + "] ns: " + spinNanos);
+    }
+    this.spinNanos = spinNanos;
+  }
+
+  /**
+   * Run a number of ticks on the calling thread.
+   *
+   * @param count
+   *          How many ticks to run.
+   */
+  public void run(long count) {
+    long next = System.nanoTime();
+    for (long i = 0; i < count; i++) {
+      next = tick(next, waitUntil(next, false));
+    }
+  }
+
+  /**
+   * Run ticks on the calling thread until {@link #stop()} is called (from
+   * another thread).
+   */
+  @Override
+  public void run() {
+    running = true;
+    runUntilStopped();
+  }
+
+  /**
+   * Run ticks until the running flag is cleared (the flag is only set by
+   * {@link #start()} or {@link #run()}, so a stop that happens before the loop
+   * thread gets here is never lost).
+   */
+  private void runUntilStopped() {
+    runner = Thread.currentThread();
+    try {
+      long next = System.nanoTime();
+      while (running) {
+        long now = waitUntil(next, true);
+        if (!running) {
+          // Stopped while waiting, don't step ahead of the deadline
+          break;
+        }
+        next = tick(next, now);
+      }
+    } finally {
+      runner = null;
+    }
+  }
+
+  /**
+   * Start running ticks on a new (maximum priority, daemon) thread.
+   */
+  public synchronized void start() {
+    if (thread != null) {
+      throw new IllegalStateException("Control loop already started");
+    }
+    running = true;
+    thread = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        runUntilStopped();
+      }
+    }, "swerve-control-loop");
+    thread.setDaemon(true);
+    thread.setPriority(Thread.MAX_PRIORITY);
+    thread.start();
+  }
+
+  /**
+   * Stop the loop (no tick is started after this is called). Waits for the
+   * thread started by {@link #start()} to finish its current tick, a loop
+   * running in {@link #run()} on another thread returns on its own once it
+   * has finished its current tick.
+   *
+   * @throws InterruptedException
+   *           If interrupted while waiting.
+   */
+  public synchronized void stop() throws InterruptedException {
+    running = false;
+    Thread loop = runner;
+    if (loop != null) {
+      LockSupport.unpark(loop);
+    }
+    if (thread != null) {
+      LockSupport.unpark(thread);
+      thread.join();
+      thread = null;
+    }
+  }
+
+  /**
+   * Indicates whether the loop is running.
+   *
+   * @return true if started and not yet stopped.
+   */
+  public boolean isRunning() {
+    return running;
+  }
+
+  /**
+   * Runs a single tick and measures it.
+   *
+   * @param deadline
+   *          Value of System.nanoTime() when the tick should have started.
+   * @param now
+   *          Value of System.nanoTime() when done waiting for the deadline.
+   * @return Deadline of the next tick.
+   */
+  private long tick(long deadline, long now) {
+    long jitter = now - deadline;
+    sim.step();
+    ticks++;
+    jitterSum += jitter;
+    if (jitter > maxJitter) {
+      maxJitter = jitter;
+    }
+    if (Metrics.ENABLED) {
+      Metrics.CONTROL_LOOP_JITTER.record(jitter);
+    }
+
+    long next = deadline + periodNanos;
+    long late = System.nanoTime() - next;
+    if (late > 0) {
+      // Drop the deadlines we missed and start on the next period boundary
+      long missed = late / periodNanos + 1;
+      next += missed * periodNanos;
+      overruns++;
+      skipped += missed;
+      if (Metrics.ENABLED) {
+        Metrics.CONTROL_LOOP_OVERRUNS.increment();
+      }
+    }
+    return next;
+  }
+
+  /**
+   * Park and then spin until a deadline.
+   *
+   * @param deadline
+   *          Value of System.nanoTime() to wait for.
+   * @param stoppable
+   *          Pass true to give up early if {@link #stop()} is called (the
+   *          caller must check the running flag before running the tick).
+   * @return Value of System.nanoTime() when done waiting (never before the
+   *         deadline unless stopped).
+   */
+  private long waitUntil(long deadline, boolean stoppable) {
+    long spin = spinNanos;
+    long now;
+    while ((now = System.nanoTime()) < deadline) {
+      if (stoppable && !running) {
+        break;
+      }
+      long remaining = deadline - now;
+      if (remaining > spin) {
+        LockSupport.parkNanos(remaining - spin);
+      }
+    }
+    return now;
+  }
+
+  /**
+   * Get the number of ticks run.
+   *
+   * @return Tick count since constructed or last {@link #resetStats()}.
+   */
+  public long getTicks() {
+    return ticks;
+  }
+
+  /**
+   * Get the number of overruns.
+   *
+   * @return Number of ticks that were still running at the next deadline.
+   */
+  public long getOverruns() {
+    return overruns;
+  }
+
+  /**
+   * Get the number of deadlines skipped after overruns.
+   *
+   * @return Number of periods in which no tick was started.
+   */
+  public long getSkippedTicks() {
+    return skipped;
+  }
+
+  /**
+   * Get the average jitter.
+   *
+   * @return Mean number of nanoseconds ticks started after their deadline.
+   */
+  public double getMeanJitterNanos() {
+    long n = ticks;
+    return (n == 0) ? 0 : jitterSum / (double) n;
+  }
+
+  /**
+   * Get the worst jitter.
+   *
+   * @return Most nanoseconds any tick started after its deadline.
+   */
+  public long getMaxJitterNanos() {
+    return maxJitter;
+  }
+
+  /**
+   * Reset the tick, overrun and jitter statistics (only call while the loop is
+   * not running).
+   */
+  public void resetStats() {
+    ticks = 0;
+    overruns = 0;
+    skipped = 0;
+    jitterSum = 0;
+    maxJitter = 0;
+  }
+
+  /**
+   * Entry point to drive a robot in real time and report the loop timing.
+   *
+   * @param args
+   *          Optional [rateHz [seconds [spinNanos]]] (defaults to 200 Hz for 10
+   *          seconds).
+   * @throws InterruptedException
+   *           If interrupted while running.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    double rateHz = (args.length > 0) ? Double.parseDouble(args[0]) : 200;
+    double seconds = (args.length > 1) ? Double.parseDouble(args[1]) : 10;
+    Metrics.registerMBeans();
+
+    // Same robot as the SwerveDriveTest tool
+    SwerveWheels wheels = new SwerveWheels();
+    wheels.add(new SwerveWheel(10, 15, 4, 1));
+    wheels.add(new SwerveWheel(-10, -15, 4, 1));
+    wheels.add(new SwerveWheel(10, -15, 4, 1));
+    wheels.add(new SwerveWheel(-10, 15, 4, 1));
+
+    SwerveController script = new SwerveController() {
+      @Override
+      public void update(long tick, double time, DriveCommand dst) {
+        dst.setFromJoystick(Math.cos(time), Math.sin(time), Math.sin(time * 0.1));
+      }
+    };
+
+    ControlLoop loop = new ControlLoop(new SwerveSimulation(wheels, script, rateHz));
+    if (args.length > 2) {
+      loop.setSpinNanos(Long.parseLong(args[2]));
+    }
+    loop.run(Math.round(seconds * rateHz));
+    System.out.println("Ran " + loop.getTicks() + " ticks with a period of " + loop.getPeriodNanos() / 1000
+        + " us: mean jitter " + Math.round(loop.getMeanJitterNanos() / 1000) + " us, p99 jitter "
+        + Metrics.CONTROL_LOOP_JITTER.getP99() / 1000 + " us, max jitter " + loop.getMaxJitterNanos() / 1000
+        + " us, " + loop.getOverruns() + " overruns");
+  }
+
+}
@@ -0,0 +1,189 @@
+package com.techhounds.swerve.sim;
+
+import com.techhounds.gui.Deadband;
+import com.techhounds.math.CartesianPoint;
+import com.techhounds.math.Trig;
+
+/**
+ * A single chassis command (translation and rotation) in wheel bearing space
+ * that can be passed to {@link com.techhounds.swerve.SwerveWheel#setDirection(double, double, double)}.
+ * <p>
+ * Instances are mutable so that a single command object can be reused every
+ * simulation tick without producing garbage.
+ * </p>
+ */
+public final class DriveCommand {
+
+  /**
+   * The x portion of the translation velocity vector (wheel bearing space).
+   */
+  private double translationX;
+
+  /**
+   * The y portion of the translation velocity vector (wheel bearing space).
+   */
+  private double translationY;
+
+  /**
+   * The rotation velocity to add in (positive is counter-clockwise).
+   */
+  private double rotation;
+
+  /**
+   * Constructs a new instance with all values set to zero (robot at rest).
+   */
+  public DriveCommand() {
+    set(0, 0, 0);
+  }
+
+  /**
+   * Set all of the values of the command.
+   *
+   * @param translationX
+   *          The x portion of the translation velocity vector.
+   * @param translationY
+   *          The y portion of the translation velocity vector.
+   * @param rotation
+   *          The rotation velocity to add in (positive is counter-clockwise).
+   * @return Reference to self.
+   */
+  public DriveCommand set(double translationX, double translationY, double rotation) {
+    this.translationX = translationX;
+    this.translationY = translationY;
+    this.rotation = rotation;
+    return this;
+  }
+
+  /**
+   * Set the command from joystick style inputs using the same rules applied by
+   * the interactive {@link com.techhounds.swerve.simu.SwerveDriveTest} tool.
+   * <ul>
+   * <li>The translation inputs are normalized so that the magnitude never
+   * exceeds 1.0 (see
+   * {@link com.techhounds.gui.AxisWidget#getNormalized(CartesianPoint)}).</li>
+   * <li>Rotation is scaled down by the translation magnitude
+   * ({@code rot *= (1.0 - transR)}) so the sum can't exceed 1.0.</li>
+   * <li>The inputs are converted from joystick space to wheel bearing space
+   * ({@code wx = uy; wy = -ux}).</li>
+   * </ul>
+   *
+   * @param jx
+   *          Joystick translation x-axis in the range of [-1.0, +1.0] (right is
+   *          positive).
+   * @param jy
+   *          Joystick translation y-axis in the range of [-1.0, +1.0] (forward
+   *          is positive).
+   * @param jrot
+   *          Joystick rotation x-axis in the range of [-1.0, +1.0] (right is
+   *          positive which turns the robot clockwise).
+   * @return Reference to self.
+   */
+  public DriveCommand setFromJoystick(double jx, double jy, double jrot) {
+    return setFromJoystick(jx, jy, jrot, 0.0, 1.0);
+  }
+
+  /**
+   * Set the command from joystick style inputs with a deadband and a
+   * configurable amount of rotation scaling.
+   * <p>
+   * Each input inside the deadband is treated as 0 and inputs outside of it are
+   * rescaled so they still reach 1.0 at full deflection (see
+   * {@link Deadband#applyDeadband(double, double)}). Rotation is scaled by
+   * {@code rot *= (1.0 - rotationScale * transR)}. With a deadband of 0 and a
+   * rotation scale of 1.0 this is the same as
+   * {@link #setFromJoystick(double, double, double)}.
+   * </p>
+   *
+   * @param jx
+   *          Joystick translation x-axis in the range of [-1.0, +1.0] (right is
+   *          positive).
+   * @param jy
+   *          Joystick translation y-axis in the range of [-1.0, +1.0] (forward
+   *          is positive).
+   * @param jrot
+   *          Joystick rotation x-axis in the range of [-1.0, +1.0] (right is
+   *          positive which turns the robot clockwise).
+   * @param deadband
+   *          Inputs with a magnitude below this are treated as 0 (in the range
+   *          of [0, 1.0)).
+   * @param rotationScale
+   *          How much translation reduces rotation (0 for none, 1.0 so the sum
+   *          can't exceed 1.0).
+   * @return Reference to self.
+   */
+  public DriveCommand setFromJoystick(double jx, double jy, double jrot, double deadband, double rotationScale) {
+    if (deadband > 0) {
+      jx = Deadband.applyDeadband(jx, deadband);
+      jy = Deadband.applyDeadband(jy, deadband);
+      jrot = Deadband.applyDeadband(jrot, deadband);
+    }
+    double ux = jx;
+    double uy = jy;
+    if (ux != 0 || uy != 0) {
+      double theta = Math.atan2(uy, ux);
+      ux = Math.abs(jx) * Math.cos(theta);
+      uy = Math.abs(jy) * Math.sin(theta);
+    }
+    double transR = CartesianPoint.computeR(ux, uy);
+    double rot = -jrot;
+    // Scale rotation down if user is translating (so we can't exceed 1.0)
+    rot *= (1.0 - rotationScale * transR);
+
+    // Convert user inputs from polar space to wheel bearing space
+    return set(uy, -ux, rot);
+  }
+
+  /**
+   * Convert a field oriented translation to robot relative (the rotation is
+   * unchanged).
+   * <p>
+   * Call after setting the command from joystick inputs where "forward" means
+   * away from the driver (the field y-axis) instead of the front of the robot.
+   * The translation is rotated by the negative of the robot heading. The sine
+   * and cosine are computed once here, so the command passed to every module
+   * shares them.
+   * </p>
+   *
+   * @param heading
+   *          Heading of the robot in radians (counter-clockwise, 0 when the
+   *          front of the robot faces along the field y-axis).
+   * @return Reference to self.
+   */
+  public DriveCommand fieldToRobot(double heading) {
+    double cos = Trig.cos(heading);
+    double sin = Trig.sin(heading);
+    double x = translationX;
+    double y = translationY;
+    translationX = x * cos + y * sin;
+    translationY = y * cos - x * sin;
+    return this;
+  }
+
+  /**
+   * Get the x portion of the translation velocity vector.
+   *
+   * @return The x portion of the translation in wheel bearing space.
+   */
+  public double getTranslationX() {
+    return translationX;
+  }
+
+  /**
+   * Get the y portion of the translation velocity vector.
+   *
+   * @return The y portion of the translation in wheel bearing space.
+   */
+  public double getTranslationY() {
+    return translationY;
+  }
+
+  /**
+   * Get the rotation velocity.
+   *
+   * @return The rotation velocity to add in (positive is counter-clockwise).
+   */
+  public double getRotation() {
+    return rotation;
+  }
+
+}
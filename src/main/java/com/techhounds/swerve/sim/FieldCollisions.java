@@ -0,0 +1,654 @@
+package com.techhounds.swerve.sim;
+
+import java.util.Arrays;
+
+import com.techhounds.math.Trig;
+import com.techhounds.swerve.SwerveOdometry;
+import com.techhounds.swerve.SwerveWheel;
+import com.techhounds.swerve.SwerveWheels;
+
+/**
+ * Finds robots that are touching each other or the field walls.
+ * <p>
+ * Each robot is modeled as a rectangle in robot space that encloses all of its
+ * wheels (using the same bounds {@link com.techhounds.swerve.SwerveViewer}
+ * uses to frame the wheels), which is rotated and moved on the field by the
+ * robot's pose. Contacts are found in two phases:
+ * </p>
+ * <ul>
+ * <li>Broad phase: the axis aligned bounding box of every robot is stored in
+ * the cells of a uniform grid it covers (the cells are hashed into a fixed
+ * table, so the field can be any size). Only robots sharing a cell are
+ * candidate pairs, so the cost grows with the number of robots instead of the
+ * number of pairs.</li>
+ * <li>Narrow phase: each candidate pair is checked with a separating axis test
+ * of the two oriented rectangles.</li>
+ * </ul>
+ * <p>
+ * Updates are incremental: setting the pose of a robot only touches the grid if
+ * its bounding box moved into a different set of cells, and {@link #update()}
+ * only checks the pairs and walls of robots whose pose changed since the last
+ * update (contacts between robots that stayed put are kept as they were).
+ * Nothing is allocated once the tables have grown to the number of robots and
+ * contacts.
+ * </p>
+ */
+public final class FieldCollisions {
+
+  /** Multiplier used to hash cell columns. */
+  private static final int HASH_X = 73856093;
+
+  /** Multiplier used to hash cell rows. */
+  private static final int HASH_Y = 19349663;
+
+  /** Size of each (square) grid cell. */
+  private final double cellSize;
+
+  /** Right edge of the field (the left edge is at 0). */
+  private final double fieldWidth;
+
+  /** Far edge of the field (the near edge is at 0). */
+  private final double fieldLength;
+
+  /** Robots in each hashed cell. */
+  private final int[][] buckets;
+
+  /** Number of robots in each hashed cell. */
+  private final int[] bucketCount;
+
+  /** Mask to turn a cell hash into an index of buckets. */
+  private final int mask;
+
+  /** Number of robots. */
+  private int count;
+
+  /** Center of footprint in robot space. */
+  private double[] footX = new double[16];
+
+  /** Center of footprint in robot space. */
+  private double[] footY = new double[16];
+
+  /** Half of footprint width (along robot x-axis). */
+  private double[] halfWidth = new double[16];
+
+  /** Half of footprint length (along robot y-axis). */
+  private double[] halfLength = new double[16];
+
+  /** Center of footprint on field. */
+  private double[] centerX = new double[16];
+
+  /** Center of footprint on field. */
+  private double[] centerY = new double[16];
+
+  /** Cosine of heading. */
+  private double[] cos = new double[16];
+
+  /** Sine of heading. */
+  private double[] sin = new double[16];
+
+  /** Half width of bounding box on field. */
+  private double[] extentX = new double[16];
+
+  /** Half length of bounding box on field. */
+  private double[] extentY = new double[16];
+
+  /** First grid column covered by robot. */
+  private int[] cellX0 = new int[16];
+
+  /** First grid row covered by robot. */
+  private int[] cellY0 = new int[16];
+
+  /** Last grid column covered by robot. */
+  private int[] cellX1 = new int[16];
+
+  /** Last grid row covered by robot. */
+  private int[] cellY1 = new int[16];
+
+  /** First robot of each contact. */
+  private int[] contactA = new int[16];
+
+  /** Second robot of each contact. */
+  private int[] contactB = new int[16];
+
+  /** Number of robot-robot contacts found by last update. */
+  private int contacts;
+
+  /** Robots touching a wall. */
+  private int[] wallContact = new int[16];
+
+  /** Number of robots touching a wall. */
+  private int wallContacts;
+
+  /** Whether the pose of each robot changed since the last update. */
+  private boolean[] moved = new boolean[16];
+
+  /** Robots whose pose changed since the last update. */
+  private int[] dirty = new int[16];
+
+  /** Number of robots whose pose changed since the last update. */
+  private int dirtyCount;
+
+  /** Number of pairs passed to the narrow phase by the last update. */
+  private int candidates;
+
+  /** Number of times a robot had to be moved to different grid cells. */
+  private long cellUpdates;
+
+  /**
+   * Constructs a new instance for an empty field.
+   *
+   * @param fieldWidth
+   *          Width of field (along x-axis, left wall at 0).
+   * @param fieldLength
+   *          Length of field (along y-axis, near wall at 0).
+   * @param cellSize
+   *          Size of each grid cell (about the size of a robot works well).
+   */
+  public FieldCollisions(double fieldWidth, double fieldLength, double cellSize) {
+    if (!(fieldWidth > 0 && fieldLength > 0)) {
+      throw new IllegalArgumentException("Field size must be positive: " + fieldWidth + " x " + fieldLength);
+    }
+    if (!(cellSize > 0)) {
+      throw new IllegalArgumentException("Cell size must be positive: " + cellSize);
+    }
+    this.fieldWidth = fieldWidth;
+    this.fieldLength = fieldLength;
+    this.cellSize = cellSize;
+    // About one table entry per cell of the field
+    double cells = Math.ceil(fieldWidth / cellSize) * Math.ceil(fieldLength / cellSize);
+    int size = 64;
+    while (size < cells && size < (1 << 16)) {
+      size <<= 1;
+    }
+    mask = size - 1;
+    buckets = new int[size][];
+    bucketCount = new int[size];
+  }
+
+  /**
+   * Add a robot whose footprint encloses all of its wheels.
+   *
+   * @param wheels
+   *          The wheels of the robot (must have at least one wheel).
+   * @return Index of robot (robots are numbered in the order added).
+   */
+  public int addRobot(SwerveWheels wheels) {
+    int n = wheels.size();
+    if (n == 0) {
+      throw new IllegalArgumentException("Robot has no wheels");
+    }
+    double minX = Double.MAX_VALUE;
+    double minY = Double.MAX_VALUE;
+    double maxX = -Double.MAX_VALUE;
+    double maxY = -Double.MAX_VALUE;
+    for (int i = 0; i < n; i++) {
+      // Square big enough to hold the wheel rotated in any direction
+      SwerveWheel wheel = wheels.getSwerveWheel(i);
+      double wd = wheel.getDiameter();
+      double ww = wheel.getWidth();
+      double bounds2 = Math.sqrt(wd * wd + ww * ww) / 2;
+      minX = Math.min(minX, wheel.getX() - bounds2);
+      minY = Math.min(minY, wheel.getY() - bounds2);
+      maxX = Math.max(maxX, wheel.getX() + bounds2);
+      maxY = Math.max(maxY, wheel.getY() + bounds2);
+    }
+    return addRobot(minX, minY, maxX, maxY);
+  }
+
+  /**
+   * Add a robot with a rectangular footprint.
+   *
+   * @param minX
+   *          Left edge of robot in robot space.
+   * @param minY
+   *          Back edge of robot in robot space.
+   * @param maxX
+   *          Right edge of robot in robot space.
+   * @param maxY
+   *          Front edge of robot in robot space.
+   * @return Index of robot (robots are numbered in the order added).
+   */
+  public int addRobot(double minX, double minY, double maxX, double maxY) {
+    if (!(maxX >= minX && maxY >= minY)) {
+      throw new IllegalArgumentException("Bad footprint: [" + minX + ", " + maxX + "] x [" + minY + ", " + maxY + "]");
+    }
+    int r = count;
+    if (r == footX.length) {
+      grow(r * 2);
+    }
+    footX[r] = (minX + maxX) / 2;
+    footY[r] = (minY + maxY) / 2;
+    halfWidth[r] = (maxX - minX) / 2;
+    halfLength[r] = (maxY - minY) / 2;
+    // Not in any cells yet
+    cellX0[r] = 0;
+    cellX1[r] = -1;
+    count++;
+    setPose(r, 0, 0, 0);
+    markMoved(r);
+    return r;
+  }
+
+  /**
+   * Grows the per robot arrays.
+   *
+   * @param capacity
+   *          New number of robots that can be stored.
+   */
+  private void grow(int capacity) {
+    footX = Arrays.copyOf(footX, capacity);
+    footY = Arrays.copyOf(footY, capacity);
+    halfWidth = Arrays.copyOf(halfWidth, capacity);
+    halfLength = Arrays.copyOf(halfLength, capacity);
+    centerX = Arrays.copyOf(centerX, capacity);
+    centerY = Arrays.copyOf(centerY, capacity);
+    cos = Arrays.copyOf(cos, capacity);
+    sin = Arrays.copyOf(sin, capacity);
+    extentX = Arrays.copyOf(extentX, capacity);
+    extentY = Arrays.copyOf(extentY, capacity);
+    cellX0 = Arrays.copyOf(cellX0, capacity);
+    cellY0 = Arrays.copyOf(cellY0, capacity);
+    cellX1 = Arrays.copyOf(cellX1, capacity);
+    cellY1 = Arrays.copyOf(cellY1, capacity);
+    wallContact = Arrays.copyOf(wallContact, capacity);
+    moved = Arrays.copyOf(moved, capacity);
+    dirty = Arrays.copyOf(dirty, capacity);
+  }
+
+  /**
+   * Get the number of robots.
+   *
+   * @return Number of robots added.
+   */
+  public int getRobotCount() {
+    return count;
+  }
+
+  /**
+   * Move a robot to the pose tracked by its odometry.
+   *
+   * @param robot
+   *          Index of robot.
+   * @param odometry
+   *          Odometry of robot.
+   */
+  public void setPose(int robot, SwerveOdometry odometry) {
+    setPose(robot, odometry.getX(), odometry.getY(), odometry.getHeading());
+  }
+
+  /**
+   * Move a robot (see {@link SwerveOdometry} for the field frame).
+   *
+   * @param robot
+   *          Index of robot.
+   * @param x
+   *          Position of robot along field x-axis.
+   * @param y
+   *          Position of robot along field y-axis.
+   * @param heading
+   *          Heading of robot in radians (counter-clockwise).
+   */
+  public void setPose(int robot, double x, double y, double heading) {
+    if (robot < 0 || robot >= count) {
+      throw new IndexOutOfBoundsException("Robot: " + robot);
+    }
+    double c = Trig.cos(heading);
+    double s = Trig.sin(heading);
+    double fx = footX[robot];
+    double fy = footY[robot];
+    double cx = x + fx * c - fy * s;
+    double cy = y + fx * s + fy * c;
+    double hw = halfWidth[robot];
+    double hl = halfLength[robot];
+    double ac = Math.abs(c);
+    double as = Math.abs(s);
+    double ex = hw * ac + hl * as;
+    double ey = hw * as + hl * ac;
+    if (cx == centerX[robot] && cy == centerY[robot] && c == cos[robot] && s == sin[robot]) {
+      // Same pose, nothing to check again
+      return;
+    }
+    markMoved(robot);
+    centerX[robot] = cx;
+    centerY[robot] = cy;
+    cos[robot] = c;
+    sin[robot] = s;
+    extentX[robot] = ex;
+    extentY[robot] = ey;
+
+    // Only touch the grid if the covered cells changed
+    int x0 = cell(cx - ex);
+    int y0 = cell(cy - ey);
+    int x1 = cell(cx + ex);
+    int y1 = cell(cy + ey);
+    if (x0 != cellX0[robot] || y0 != cellY0[robot] || x1 != cellX1[robot] || y1 != cellY1[robot]) {
+      removeFromCells(robot);
+      cellX0[robot] = x0;
+      cellY0[robot] = y0;
+      cellX1[robot] = x1;
+      cellY1[robot] = y1;
+      addToCells(robot);
+      cellUpdates++;
+    }
+  }
+
+  /**
+   * Add a robot to the robots checked by the next update.
+   *
+   * @param robot
+   *          Index of robot.
+   */
+  private void markMoved(int robot) {
+    if (!moved[robot]) {
+      moved[robot] = true;
+      dirty[dirtyCount++] = robot;
+    }
+  }
+
+  /**
+   * Get the grid cell containing a coordinate.
+   *
+   * @param v
+   *          Coordinate along x or y-axis.
+   * @return Column or row of cell.
+   */
+  private int cell(double v) {
+    return (int) Math.floor(v / cellSize);
+  }
+
+  /**
+   * Get the table index of a grid cell.
+   *
+   * @param cx
+   *          Column of cell.
+   * @param cy
+   *          Row of cell.
+   * @return Index in buckets (different cells may share an index).
+   */
+  private int bucket(int cx, int cy) {
+    int h = cx * HASH_X ^ cy * HASH_Y;
+    return (h ^ (h >>> 16)) & mask;
+  }
+
+  /**
+   * Add a robot to every cell it covers.
+   *
+   * @param robot
+   *          Index of robot.
+   */
+  private void addToCells(int robot) {
+    for (int cy = cellY0[robot], y1 = cellY1[robot]; cy <= y1; cy++) {
+      for (int cx = cellX0[robot], x1 = cellX1[robot]; cx <= x1; cx++) {
+        int b = bucket(cx, cy);
+        int[] list = buckets[b];
+        int n = bucketCount[b];
+        if (contains(list, n, robot)) {
+          // Another cell of the robot has the same hash
+          continue;
+        }
+        if (list == null) {
+          list = buckets[b] = new int[4];
+        } else if (n == list.length) {
+          list = buckets[b] = Arrays.copyOf(list, n * 2);
+        }
+        list[n] = robot;
+        bucketCount[b] = n + 1;
+      }
+    }
+  }
+
+  /**
+   * Checks whether a robot is in the list of a table entry.
+   *
+   * @param list
+   *          Robots in the table entry (may be null).
+   * @param n
+   *          Number of robots in list.
+   * @param robot
+   *          Index of robot to look for.
+   * @return true if found.
+   */
+  private static boolean contains(int[] list, int n, int robot) {
+    for (int k = 0; k < n; k++) {
+      if (list[k] == robot) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Remove a robot from every cell it covers.
+   *
+   * @param robot
+   *          Index of robot.
+   */
+  private void removeFromCells(int robot) {
+    for (int cy = cellY0[robot], y1 = cellY1[robot]; cy <= y1; cy++) {
+      for (int cx = cellX0[robot], x1 = cellX1[robot]; cx <= x1; cx++) {
+        int b = bucket(cx, cy);
+        int[] list = buckets[b];
+        int n = bucketCount[b];
+        for (int k = 0; k < n; k++) {
+          if (list[k] == robot) {
+            // Swap with last (order in a cell doesn't matter)
+            list[k] = list[n - 1];
+            bucketCount[b] = n - 1;
+            break;
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Find every pair of robots that are touching and every robot touching a
+   * wall (only robots moved since the last update are checked again).
+   *
+   * @return Number of robot-robot contacts (see {@link #getContactA(int)} and
+   *         {@link #getContactB(int)}).
+   */
+  public int update() {
+    // Keep the contacts of robots that stayed put
+    int kept = 0;
+    for (int k = 0; k < contacts; k++) {
+      int a = contactA[k];
+      int b = contactB[k];
+      if (!moved[a] && !moved[b]) {
+        contactA[kept] = a;
+        contactB[kept] = b;
+        kept++;
+      }
+    }
+    contacts = kept;
+    kept = 0;
+    for (int k = 0; k < wallContacts; k++) {
+      int r = wallContact[k];
+      if (!moved[r]) {
+        wallContact[kept++] = r;
+      }
+    }
+    wallContacts = kept;
+    candidates = 0;
+
+    for (int d = 0; d < dirtyCount; d++) {
+      int i = dirty[d];
+      double ex = extentX[i];
+      double ey = extentY[i];
+      double cxi = centerX[i];
+      double cyi = centerY[i];
+      // Bounding box is exact for the extremes of the rectangle
+      if (cxi - ex < 0 || cxi + ex > fieldWidth || cyi - ey < 0 || cyi + ey > fieldLength) {
+        wallContact[wallContacts++] = i;
+      }
+
+      int x0 = cellX0[i];
+      int y0 = cellY0[i];
+      int x1 = cellX1[i];
+      int y1 = cellY1[i];
+      for (int cy = y0; cy <= y1; cy++) {
+        for (int cx = x0; cx <= x1; cx++) {
+          int b = bucket(cx, cy);
+          int[] list = buckets[b];
+          for (int k = 0, n = bucketCount[b]; k < n; k++) {
+            int j = list[k];
+            // A pair of moved robots is only checked from the lower index
+            if (j == i || (j < i && moved[j])) {
+              continue;
+            }
+            // Only check a pair in the first cell both robots cover (this
+            // also skips robots in other cells with the same hash)
+            if (cx != Math.max(x0, cellX0[j]) || cy != Math.max(y0, cellY0[j]) || cx > cellX1[j]
+                || cy > cellY1[j]) {
+              continue;
+            }
+            if (Math.abs(centerX[j] - cxi) > ex + extentX[j] || Math.abs(centerY[j] - cyi) > ey + extentY[j]) {
+              continue;
+            }
+            candidates++;
+            if (overlaps(i, j)) {
+              addContact(Math.min(i, j), Math.max(i, j));
+            }
+          }
+        }
+      }
+    }
+    for (int d = 0; d < dirtyCount; d++) {
+      moved[dirty[d]] = false;
+    }
+    dirtyCount = 0;
+    return contacts;
+  }
+
+  /**
+   * Separating axis test of the footprints of two robots.
+   *
+   * @param i
+   *          Index of first robot.
+   * @param j
+   *          Index of second robot.
+   * @return true if the rectangles overlap or touch.
+   */
+  private boolean overlaps(int i, int j) {
+    double dx = centerX[j] - centerX[i];
+    double dy = centerY[j] - centerY[i];
+    return !separated(i, j, dx, dy, cos[i], sin[i]) && !separated(i, j, dx, dy, -sin[i], cos[i])
+        && !separated(i, j, dx, dy, cos[j], sin[j]) && !separated(i, j, dx, dy, -sin[j], cos[j]);
+  }
+
+  /**
+   * Checks whether an axis separates the footprints of two robots.
+   *
+   * @param i
+   *          Index of first robot.
+   * @param j
+   *          Index of second robot.
+   * @param dx
+   *          Distance between centers along x-axis.
+   * @param dy
+   *          Distance between centers along y-axis.
+   * @param ax
+   *          x component of unit axis.
+   * @param ay
+   *          y component of unit axis.
+   * @return true if the projections of the rectangles onto the axis don't
+   *         overlap.
+   */
+  private boolean separated(int i, int j, double dx, double dy, double ax, double ay) {
+    double ri = halfWidth[i] * Math.abs(cos[i] * ax + sin[i] * ay)
+        + halfLength[i] * Math.abs(-sin[i] * ax + cos[i] * ay);
+    double rj = halfWidth[j] * Math.abs(cos[j] * ax + sin[j] * ay)
+        + halfLength[j] * Math.abs(-sin[j] * ax + cos[j] * ay);
+    return Math.abs(dx * ax + dy * ay) > ri + rj;
+  }
+
+  /**
+   * Record a contact between two robots.
+   *
+   * @param i
+   *          Index of first robot.
+   * @param j
+   *          Index of second robot.
+   */
+  private void addContact(int i, int j) {
+    if (contacts == contactA.length) {
+      contactA = Arrays.copyOf(contactA, contacts * 2);
+      contactB = Arrays.copyOf(contactB, contacts * 2);
+    }
+    contactA[contacts] = i;
+    contactB[contacts] = j;
+    contacts++;
+  }
+
+  /**
+   * Get the number of robot-robot contacts found by the last update.
+   *
+   * @return Number of contacts.
+   */
+  public int getContactCount() {
+    return contacts;
+  }
+
+  /**
+   * Get the first robot of a contact.
+   *
+   * @param idx
+   *          Index of contact in the range of [0, {@link #getContactCount()}).
+   * @return Index of robot (always less than {@link #getContactB(int)}).
+   */
+  public int getContactA(int idx) {
+    return contactA[idx];
+  }
+
+  /**
+   * Get the second robot of a contact.
+   *
+   * @param idx
+   *          Index of contact in the range of [0, {@link #getContactCount()}).
+   * @return Index of robot.
+   */
+  public int getContactB(int idx) {
+    return contactB[idx];
+  }
+
+  /**
+   * Get the number of robots touching (or past) a wall found by the last
+   * update.
+   *
+   * @return Number of robots.
+   */
+  public int getWallContactCount() {
+    return wallContacts;
+  }
+
+  /**
+   * Get a robot touching a wall.
+   *
+   * @param idx
+   *          Index in the range of [0, {@link #getWallContactCount()}).
+   * @return Index of robot.
+   */
+  public int getWallContact(int idx) {
+    return wallContact[idx];
+  }
+
+  /**
+   * Get the number of candidate pairs found by the broad phase of the last
+   * update (only pairs with a robot that moved since the update before).
+   *
+   * @return Number of pairs checked with the narrow phase.
+   */
+  public int getCandidateCount() {
+    return candidates;
+  }
+
+  /**
+   * Get the number of times a robot had to be moved to different grid cells.
+   *
+   * @return Count since constructed.
+   */
+  public long getCellUpdates() {
+    return cellUpdates;
+  }
+
+}
@@ -0,0 +1,83 @@
+package com.techhounds.swerve.sim;
+
+import java.util.Random;
+
+/**
+ * A simulated gyro that reports the true heading of a robot plus a bias that
+ * drifts linearly with time and random (Gaussian) noise.
+ * <p>
+ * The noise comes from a seeded {@link Random}, so a run can be repeated
+ * exactly. Measurements do not create any garbage. Instances are not thread
+ * safe.
+ * </p>
+ */
+public final class GyroModel {
+
+  /** Standard deviation of the noise added to each measurement. */
+  private final double noiseStdDev;
+
+  /** How fast the bias grows (radians per unit of time). */
+  private final double driftRate;
+
+  /** Source of noise. */
+  private final Random noise;
+
+  /** Accumulated bias (radians). */
+  private double drift;
+
+  /**
+   * Constructs a new gyro with no bias.
+   *
+   * @param noiseStdDev
+   *          Standard deviation of the noise added to each measurement in
+   *          radians (must not be negative).
+   * @param driftRate
+   *          How fast the bias grows in radians per unit of time.
+   * @param seed
+   *          Seed for the noise (the same seed produces the same
+   *          measurements).
+   */
+  public GyroModel(double noiseStdDev, double driftRate, long seed) {
+    if (!(noiseStdDev >= 0)) {
+      throw new IllegalArgumentException("Noise must not be negative: " + noiseStdDev);
+    }
+    this.noiseStdDev = noiseStdDev;
+    this.driftRate = driftRate;
+    this.noise = new Random(seed);
+  }
+
+  /**
+   * Advance the gyro and read it.
+   *
+   * @param trueHeading
+   *          Actual heading of the robot in radians (counter-clockwise).
+   * @param dt
+   *          Amount of time that has elapsed since the last measurement.
+   * @return The measured heading in the range of [-PI, +PI].
+   */
+  public double measure(double trueHeading, double dt) {
+    drift += driftRate * dt;
+    double heading = trueHeading + drift;
+    if (noiseStdDev > 0) {
+      heading += noiseStdDev * noise.nextGaussian();
+    }
+    return heading - 2 * Math.PI * Math.floor((heading + Math.PI) / (2 * Math.PI));
+  }
+
+  /**
+   * Get the bias accumulated so far.
+   *
+   * @return Drift in radians.
+   */
+  public double getDrift() {
+    return drift;
+  }
+
+  /**
+   * Clear the accumulated bias.
+   */
+  public void reset() {
+    drift = 0;
+  }
+
+}
@@ -0,0 +1,408 @@
+package com.techhounds.swerve.sim;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Phaser;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.techhounds.metrics.Metrics;
+import com.techhounds.swerve.SwerveWheel;
+import com.techhounds.swerve.SwerveWheels;
+
+/**
+ * Simulates many robots (full alliance matches or large swarms) where every
+ * robot runs its own control loop on its own thread.
+ * <p>
+ * Each robot is a {@link SwerveSimulation} stepped by a dedicated thread. The
+ * threads move in lockstep: after each tick every robot waits at a shared
+ * clock barrier (a tree of {@link Phaser}s so thousands of robots don't all
+ * contend on one counter) and no robot starts tick n + 1 until every robot
+ * has finished tick n. The time from the barrier opening until each robot
+ * actually starts its next tick is the scheduling lag, which is tracked along
+ * with the aggregate throughput.
+ * </p>
+ * <p>
+ * Virtual threads are used when the JVM supports them (Java 21 or later), so
+ * 10,000 robots only need a handful of carrier threads. On older JVMs each
+ * robot gets a platform thread with a small stack, which limits the practical
+ * robot count to a few thousand.
+ * </p>
+ */
+public final class MultiRobotSimulation {
+
+  /** Maximum number of robots waiting on a single phaser of the barrier tree. */
+  private static final int PARTIES_PER_PHASER = 64;
+
+  /** Stack size of platform robot threads (they only need a shallow stack). */
+  private static final long PLATFORM_STACK_SIZE = 256 * 1024;
+
+  /** Creates virtual threads (null if not supported by this JVM). */
+  private static final ThreadFactory VIRTUAL = loadVirtual();
+
+  /** Control rate of every robot in ticks per simulated second. */
+  private final double rateHz;
+
+  /** The robots being simulated. */
+  private final List<SwerveSimulation> robots = new ArrayList<SwerveSimulation>();
+
+  /** Whether to use virtual threads (if available). */
+  private boolean virtual = true;
+
+  /** Value of System.nanoTime() when the barrier last opened. */
+  private volatile long released;
+
+  /** First exception thrown by a robot during the last run. */
+  private Throwable failure;
+
+  /** Sum of the scheduling lag of every robot tick in the last run. */
+  private long lagSum;
+
+  /** Number of robot ticks whose lag was measured in the last run. */
+  private long lagCount;
+
+  /** Largest scheduling lag in the last run. */
+  private long maxLag;
+
+  /** Throughput (robot ticks per wall clock second) of the last run. */
+  private double ticksPerSecond;
+
+  /**
+   * Constructs a new (empty) multiple robot simulation.
+   *
+   * @param rateHz
+   *          The control rate of every robot in ticks per simulated second
+   *          (see {@link SwerveSimulation#SwerveSimulation(SwerveWheels, SwerveController, double)}).
+   */
+  public MultiRobotSimulation(double rateHz) {
+    if (!(rateHz >= SwerveSimulation.MIN_RATE_HZ && rateHz <= SwerveSimulation.MAX_RATE_HZ)) {
+      throw new IllegalArgumentException("Rate must be in range [" + SwerveSimulation.MIN_RATE_HZ + ", "
+          + SwerveSimulation.MAX_RATE_HZ + "] Hz: " + rateHz);
+    }
+    this.rateHz = rateHz;
+  }
+
+  /**
+   * Attempts to get the virtual thread factory via reflection (so the code
+   * still compiles and runs on Java 8).
+   *
+   * @return Factory creating virtual threads or null if not available.
+   */
+  private static ThreadFactory loadVirtual() {
+    try {
+      Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+      Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+      builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, "robot-", 0L);
+      return (ThreadFactory) builderClass.getMethod("factory").invoke(builder);
+    } catch (ReflectiveOperationException | LinkageError e) {
+      // Java 20 or older
+      return null;
+    }
+  }
+
+  /**
+   * Indicates whether virtual threads are supported by this JVM.
+   *
+   * @return true if robots can be run on virtual threads.
+   */
+  public static boolean isVirtualThreadsAvailable() {
+    return VIRTUAL != null;
+  }
+
+  /**
+   * Set whether robots are run on virtual threads.
+   *
+   * @param virtual
+   *          Pass true (default) to use virtual threads when available, false
+   *          to always use platform threads.
+   */
+  public void setVirtualThreads(boolean virtual) {
+    this.virtual = virtual;
+  }
+
+  /**
+   * Indicates whether robots will be run on virtual threads.
+   *
+   * @return true if virtual threads are available and enabled.
+   */
+  public boolean isVirtualThreads() {
+    return virtual && VIRTUAL != null;
+  }
+
+  /**
+   * Add a robot.
+   *
+   * @param wheels
+   *          The wheels making up the robot (must not be shared with another
+   *          robot).
+   * @param controller
+   *          Source of the chassis command for each tick (called from the
+   *          robot's own thread).
+   * @return The simulation of the robot.
+   */
+  public SwerveSimulation addRobot(SwerveWheels wheels, SwerveController controller) {
+    SwerveSimulation sim = new SwerveSimulation(wheels, controller, rateHz);
+    robots.add(sim);
+    return sim;
+  }
+
+  /**
+   * Get the number of robots.
+   *
+   * @return How many robots have been added.
+   */
+  public int getRobotCount() {
+    return robots.size();
+  }
+
+  /**
+   * Get a robot.
+   *
+   * @param idx
+   *          Index of the robot in the range of [0, {@link #getRobotCount()}).
+   * @return The simulation of the robot.
+   */
+  public SwerveSimulation getRobot(int idx) {
+    return robots.get(idx);
+  }
+
+  /**
+   * Get the control rate.
+   *
+   * @return Ticks per simulated second of every robot.
+   */
+  public double getRateHz() {
+    return rateHz;
+  }
+
+  /**
+   * Advance every robot by a number of ticks in lockstep as fast as possible.
+   *
+   * @param ticks
+   *          How many ticks each robot should run.
+   * @return The aggregate throughput achieved in robot ticks per wall clock
+   *         second (also available from {@link #getTicksPerSecond()}).
+   * @throws InterruptedException
+   *           If interrupted while waiting for the robots to finish (the
+   *           robots are left to finish on their own).
+   * @throws IllegalStateException
+   *           If a robot's control loop threw an exception (the exception is
+   *           the cause).
+   */
+  public double run(final long ticks) throws InterruptedException {
+    int n = robots.size();
+    failure = null;
+    lagSum = 0;
+    lagCount = 0;
+    maxLag = 0;
+
+    final Phaser root = new Phaser() {
+      @Override
+      protected boolean onAdvance(int phase, int registeredParties) {
+        released = System.nanoTime();
+        return registeredParties == 0;
+      }
+    };
+    ThreadFactory factory = isVirtualThreads() ? VIRTUAL : platformThreadFactory();
+    Thread[] threads = new Thread[n];
+    Phaser leaf = null;
+    for (int i = 0; i < n; i++) {
+      if (i % PARTIES_PER_PHASER == 0) {
+        leaf = new Phaser(root);
+      }
+      leaf.register();
+      threads[i] = factory.newThread(new Robot(robots.get(i), leaf, ticks));
+    }
+
+    long start = System.nanoTime();
+    released = start;
+    for (Thread t : threads) {
+      t.start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    long elapsed = System.nanoTime() - start;
+
+    synchronized (this) {
+      if (failure != null) {
+        throw new IllegalStateException("Robot control loop failed", failure);
+      }
+    }
+    ticksPerSecond = (elapsed > 0) ? n * ticks * 1.0e9 / elapsed : 0;
+    Metrics.SIMULATION_TICKS_PER_SECOND.set(ticksPerSecond);
+    return ticksPerSecond;
+  }
+
+  /**
+   * Creates platform threads for robots when virtual threads aren't used.
+   *
+   * @return Factory creating small stack daemon threads.
+   */
+  private static ThreadFactory platformThreadFactory() {
+    return new ThreadFactory() {
+      private final AtomicInteger count = new AtomicInteger();
+
+      @Override
+      public Thread newThread(Runnable r) {
+        Thread t = new Thread(null, r, "robot-" + count.getAndIncrement(), PLATFORM_STACK_SIZE);
+        t.setDaemon(true);
+        return t;
+      }
+    };
+  }
+
+  /**
+   * Merges the statistics of a robot thread and records its failure (if any).
+   *
+   * @param sum
+   *          Sum of the scheduling lag of the robot's ticks.
+   * @param count
+   *          Number of ticks the lag was measured for.
+   * @param max
+   *          Largest scheduling lag of the robot.
+   * @param error
+   *          Exception thrown by the robot (null if none).
+   */
+  private synchronized void finished(long sum, long count, long max, Throwable error) {
+    lagSum += sum;
+    lagCount += count;
+    maxLag = Math.max(maxLag, max);
+    if (error != null && failure == null) {
+      failure = error;
+    }
+  }
+
+  /**
+   * Control loop of a single robot.
+   */
+  private final class Robot implements Runnable {
+
+    /** The robot to step. */
+    private final SwerveSimulation sim;
+
+    /** Phaser of the barrier tree the robot is registered with. */
+    private final Phaser barrier;
+
+    /** How many ticks to run. */
+    private final long ticks;
+
+    /**
+     * Constructs the control loop of a robot.
+     *
+     * @param sim
+     *          The robot to step.
+     * @param barrier
+     *          Phaser the robot is registered with.
+     * @param ticks
+     *          How many ticks to run.
+     */
+    Robot(SwerveSimulation sim, Phaser barrier, long ticks) {
+      this.sim = sim;
+      this.barrier = barrier;
+      this.ticks = ticks;
+    }
+
+    @Override
+    public void run() {
+      long sum = 0;
+      long count = 0;
+      long max = 0;
+      Throwable error = null;
+      try {
+        for (long i = 0; i < ticks; i++) {
+          if (i != 0) {
+            long lag = System.nanoTime() - released;
+            sum += lag;
+            count++;
+            max = Math.max(max, lag);
+            if (Metrics.ENABLED) {
+              Metrics.MULTI_ROBOT_LAG.record(lag);
+            }
+          }
+          sim.step();
+          if (barrier.arriveAndAwaitAdvance() < 0) {
+            // Another robot failed
+            break;
+          }
+        }
+      } catch (Throwable t) {
+        error = t;
+        barrier.getRoot().forceTermination();
+      } finally {
+        finished(sum, count, max, error);
+      }
+    }
+  }
+
+  /**
+   * Get the throughput of the last call to {@link #run(long)}.
+   *
+   * @return Robot ticks (summed over all robots) per wall clock second.
+   */
+  public double getTicksPerSecond() {
+    return ticksPerSecond;
+  }
+
+  /**
+   * Get the average scheduling lag of the last run.
+   *
+   * @return Mean nanoseconds from the barrier opening until a robot started
+   *         its next tick.
+   */
+  public synchronized double getMeanLagNanos() {
+    return (lagCount == 0) ? 0 : lagSum / (double) lagCount;
+  }
+
+  /**
+   * Get the worst scheduling lag of the last run.
+   *
+   * @return Most nanoseconds from the barrier opening until a robot started
+   *         its next tick.
+   */
+  public synchronized long getMaxLagNanos() {
+    return maxLag;
+  }
+
+  /**
+   * Entry point to run a swarm of robots and report throughput and scheduling
+   * lag.
+   *
+   * @param args
+   *          Optional [robots [simulatedSeconds [rateHz]]] (defaults to 10000
+   *          robots for 10 seconds at 50 Hz).
+   * @throws InterruptedException
+   *           If interrupted while running.
+   */
+  public static void main(String[] args) throws InterruptedException {
+    int robotCount = (args.length > 0) ? Integer.parseInt(args[0]) : 10000;
+    double seconds = (args.length > 1) ? Double.parseDouble(args[1]) : 10;
+    double rateHz = (args.length > 2) ? Double.parseDouble(args[2]) : SwerveSimulation.MIN_RATE_HZ;
+    Metrics.registerMBeans();
+
+    MultiRobotSimulation swarm = new MultiRobotSimulation(rateHz);
+    for (int r = 0; r < robotCount; r++) {
+      SwerveWheels wheels = new SwerveWheels();
+      wheels.add(new SwerveWheel(10, 15, 4, 1));
+      wheels.add(new SwerveWheel(-10, -15, 4, 1));
+      wheels.add(new SwerveWheel(10, -15, 4, 1));
+      wheels.add(new SwerveWheel(-10, 15, 4, 1));
+      // Each robot drives its own circle
+      final double phase = r * 0.001;
+      swarm.addRobot(wheels, new SwerveController() {
+        @Override
+        public void update(long tick, double time, DriveCommand dst) {
+          dst.setFromJoystick(Math.cos(time + phase), Math.sin(time + phase), Math.sin(time * 0.1));
+        }
+      });
+    }
+
+    long ticks = Math.round(seconds * rateHz);
+    double tps = swarm.run(ticks);
+    System.out.println("Simulated " + robotCount + " robots for " + seconds + " seconds at " + rateHz + " Hz on "
+        + (swarm.isVirtualThreads() ? "virtual" : "platform") + " threads: " + Math.round(tps) + " ticks/sec, "
+        + "mean lag " + Math.round(swarm.getMeanLagNanos() / 1000) + " us, max lag "
+        + swarm.getMaxLagNanos() / 1000 + " us");
+  }
+
+}
@@ -0,0 +1,494 @@
+package com.techhounds.swerve.sim;
+
+import java.io.BufferedWriter;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.techhounds.math.PolarPoint;
+import com.techhounds.swerve.SwerveWheel;
+import com.techhounds.swerve.SwerveWheels;
+
+/**
+ * Runs the headless {@link SwerveSimulation} for every combination of a set of
+ * control settings and writes one CSV row of results per combination.
+ * <p>
+ * The settings that can be swept are the wheel base (distance between front
+ * and back wheels), track width (distance between left and right wheels),
+ * joystick deadband, rotation scaling (see
+ * {@link DriveCommand#setFromJoystick(double, double, double, double, double)})
+ * and the reverse threshold of each wheel (see
+ * {@link SwerveWheel#setReverseThreshold(double)}). Every combination drives
+ * the same scripted joystick inputs (including a little bit of noise around
+ * center so the deadband matters) and reports:
+ * </p>
+ * <ul>
+ * <li>steerTravel - total radians all wheels were turned.</li>
+ * <li>maxSteerStep - largest single tick turn of any wheel (radians).</li>
+ * <li>reversals - number of times a wheel reversed its motor direction.</li>
+ * <li>meanSpeed - average absolute wheel velocity.</li>
+ * </ul>
+ * <p>
+ * Combinations are simulated in parallel on a {@link ForkJoinPool} and each
+ * row is written as soon as its simulation finishes (so rows are not in case
+ * order - use the case column to sort them).
+ * </p>
+ */
+public final class ParameterSweep {
+
+  /** Header line written at the start of the output. */
+  public static final String HEADER = "case,wheelBase,trackWidth,deadband,rotationScale,reverseThreshold,"
+      + "steerTravel,maxSteerStep,reversals,meanSpeed";
+
+  /** Diameter of each simulated wheel. */
+  private static final double WHEEL_DIAMETER = 4;
+
+  /** Width of each simulated wheel. */
+  private static final double WHEEL_WIDTH = 1;
+
+  /** Amplitude of the noise added to the joystick inputs. */
+  private static final double NOISE = 0.02;
+
+  /** Distances between front and back wheels to try. */
+  private SweepRange wheelBase = new SweepRange(30);
+
+  /** Distances between left and right wheels to try. */
+  private SweepRange trackWidth = new SweepRange(20);
+
+  /** Joystick deadbands to try. */
+  private SweepRange deadband = new SweepRange(0);
+
+  /** Rotation scaling factors to try. */
+  private SweepRange rotationScale = new SweepRange(1.0);
+
+  /** Wheel reverse thresholds to try. */
+  private SweepRange reverseThreshold = new SweepRange(Math.PI / 2);
+
+  /** Control rate of each simulation. */
+  private double rateHz = 100;
+
+  /** Amount of simulated time for each combination. */
+  private double seconds = 60;
+
+  /** Seed for the joystick noise (the same for every combination). */
+  private long seed = 1;
+
+  /** Number of threads to run simulations on. */
+  private int parallelism = Runtime.getRuntime().availableProcessors();
+
+  /**
+   * Set the distances between front and back wheels to try.
+   *
+   * @param wheelBase
+   *          Range of values (must not be null).
+   */
+  public void setWheelBase(SweepRange wheelBase) {
+    this.wheelBase = checkRange(wheelBase);
+  }
+
+  /**
+   * Set the distances between left and right wheels to try.
+   *
+   * @param trackWidth
+   *          Range of values (must not be null).
+   */
+  public void setTrackWidth(SweepRange trackWidth) {
+    this.trackWidth = checkRange(trackWidth);
+  }
+
+  /**
+   * Set the joystick deadbands to try.
+   *
+   * @param deadband
+   *          Range of values in [0, 1.0) (must not be null).
+   */
+  public void setDeadband(SweepRange deadband) {
+    this.deadband = checkRange(deadband);
+  }
+
+  /**
+   * Set the rotation scaling factors to try.
+   *
+   * @param rotationScale
+   *          Range of values (must not be null).
+   */
+  public void setRotationScale(SweepRange rotationScale) {
+    this.rotationScale = checkRange(rotationScale);
+  }
+
+  /**
+   * Set the wheel reverse thresholds to try.
+   *
+   * @param reverseThreshold
+   *          Range of radians in [PI / 2, PI] (must not be null).
+   */
+  public void setReverseThreshold(SweepRange reverseThreshold) {
+    this.reverseThreshold = checkRange(reverseThreshold);
+  }
+
+  /**
+   * Set the control rate of each simulation.
+   *
+   * @param rateHz
+   *          Ticks per simulated second (see {@link SwerveSimulation}).
+   */
+  public void setRateHz(double rateHz) {
+    this.rateHz = rateHz;
+  }
+
+  /**
+   * Set the amount of simulated time for each combination.
+   *
+   * @param seconds
+   *          Simulated seconds.
+   */
+  public void setSeconds(double seconds) {
+    this.seconds = seconds;
+  }
+
+  /**
+   * Set the seed for the joystick noise.
+   *
+   * @param seed
+   *          Seed used for every combination.
+   */
+  public void setSeed(long seed) {
+    this.seed = seed;
+  }
+
+  /**
+   * Set the number of threads to run simulations on.
+   *
+   * @param parallelism
+   *          Number of threads (defaults to the number of processors).
+   */
+  public void setParallelism(int parallelism) {
+    if (parallelism < 1) {
+      throw new IllegalArgumentException("Parallelism must be at least 1: " + parallelism);
+    }
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Helper method to reject null ranges.
+   *
+   * @param range
+   *          Range passed in.
+   * @return The range.
+   */
+  private static SweepRange checkRange(SweepRange range) {
+    if (range == null) {
+      throw new NullPointerException();
+    }
+    return range;
+  }
+
+  /**
+   * Get the number of combinations that will be simulated.
+   *
+   * @return Product of the counts of all of the ranges.
+   */
+  public int getCaseCount() {
+    long n = (long) wheelBase.getCount() * trackWidth.getCount() * deadband.getCount() * rotationScale.getCount()
+        * reverseThreshold.getCount();
+    if (n > Integer.MAX_VALUE) {
+      throw new IllegalStateException("Too many combinations: " + n);
+    }
+    return (int) n;
+  }
+
+  /**
+   * Simulate every combination and write the results to a file.
+   *
+   * @param file
+   *          The CSV file to create (or overwrite).
+   * @return Number of rows written.
+   * @throws IOException
+   *           If there was a problem writing the file.
+   */
+  public int run(File file) throws IOException {
+    Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8));
+    try {
+      return run(out);
+    } finally {
+      out.close();
+    }
+  }
+
+  /**
+   * Simulate every combination and write the results.
+   *
+   * @param out
+   *          Where to write the CSV header and rows (flushed but not closed).
+   * @return Number of rows written.
+   * @throws IOException
+   *           If there was a problem writing the results.
+   */
+  public int run(Writer out) throws IOException {
+    int cases = getCaseCount();
+    out.write(HEADER);
+    out.write('\n');
+    ForkJoinPool pool = new ForkJoinPool(parallelism);
+    try {
+      pool.invoke(new SweepTask(out, 0, cases));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    } finally {
+      pool.shutdown();
+    }
+    out.flush();
+    return cases;
+  }
+
+  /**
+   * Simulate a single combination.
+   *
+   * @param idx
+   *          Case index in the range of [0, {@link #getCaseCount()}).
+   * @param row
+   *          Where to append the CSV row (without a line terminator).
+   */
+  void simulate(int idx, StringBuilder row) {
+    // Decode index (wheel base varies slowest)
+    int i = idx;
+    double rev = reverseThreshold.get(i % reverseThreshold.getCount());
+    i /= reverseThreshold.getCount();
+    double rotScale = rotationScale.get(i % rotationScale.getCount());
+    i /= rotationScale.getCount();
+    final double db = deadband.get(i % deadband.getCount());
+    i /= deadband.getCount();
+    double track = trackWidth.get(i % trackWidth.getCount());
+    i /= trackWidth.getCount();
+    double base = wheelBase.get(i);
+
+    SwerveWheels wheels = new SwerveWheels();
+    double w2 = track / 2;
+    double l2 = base / 2;
+    wheels.add(new SwerveWheel(w2, l2, WHEEL_DIAMETER, WHEEL_WIDTH));
+    wheels.add(new SwerveWheel(-w2, -l2, WHEEL_DIAMETER, WHEEL_WIDTH));
+    wheels.add(new SwerveWheel(w2, -l2, WHEEL_DIAMETER, WHEEL_WIDTH));
+    wheels.add(new SwerveWheel(-w2, l2, WHEEL_DIAMETER, WHEEL_WIDTH));
+    int n = wheels.size();
+    for (int w = 0; w < n; w++) {
+      wheels.getSwerveWheel(w).setReverseThreshold(rev);
+    }
+
+    SwerveSimulation sim = new SwerveSimulation(wheels, new Script(seed, db, rotScale), rateHz);
+    double[] theta = new double[n];
+    double[] velocity = new double[n];
+    for (int w = 0; w < n; w++) {
+      theta[w] = wheels.getSwerveWheel(w).getAxleTheta();
+      velocity[w] = wheels.getSwerveWheel(w).getVelocity();
+    }
+
+    double steerTravel = 0;
+    double maxSteerStep = 0;
+    long reversals = 0;
+    double speedSum = 0;
+    long ticks = Math.round(seconds * rateHz);
+    for (long t = 0; t < ticks; t++) {
+      sim.step();
+      for (int w = 0; w < n; w++) {
+        SwerveWheel wheel = wheels.getSwerveWheel(w);
+        double newTheta = wheel.getAxleTheta();
+        double newVelocity = wheel.getVelocity();
+        double step = Math.abs(PolarPoint.computeShortestPath(theta[w], newTheta));
+        steerTravel += step;
+        maxSteerStep = Math.max(maxSteerStep, step);
+        if (newVelocity * velocity[w] < 0) {
+          reversals++;
+        }
+        speedSum += Math.abs(newVelocity);
+        theta[w] = newTheta;
+        // Zero velocity keeps the direction the wheel was last going
+        if (newVelocity != 0) {
+          velocity[w] = newVelocity;
+        }
+      }
+    }
+    double meanSpeed = (ticks > 0) ? speedSum / (ticks * n) : 0;
+
+    row.append(idx).append(',').append(base).append(',').append(track).append(',').append(db).append(',')
+        .append(rotScale).append(',').append(rev).append(',').append(steerTravel).append(',').append(maxSteerStep)
+        .append(',').append(reversals).append(',').append(meanSpeed);
+  }
+
+  /**
+   * Scripted joystick inputs: the translation stick sweeps around in circles
+   * while slowly moving out from and back to center and the rotation stick
+   * slowly moves back and forth.
+   */
+  private static final class Script implements SwerveController {
+
+    /** Source of joystick noise. */
+    private final Random noise;
+
+    /** Joystick deadband. */
+    private final double deadband;
+
+    /** Rotation scaling factor. */
+    private final double rotationScale;
+
+    /**
+     * Constructs a new script.
+     *
+     * @param seed
+     *          Seed for the joystick noise.
+     * @param deadband
+     *          Joystick deadband.
+     * @param rotationScale
+     *          Rotation scaling factor.
+     */
+    Script(long seed, double deadband, double rotationScale) {
+      this.noise = new Random(seed);
+      this.deadband = deadband;
+      this.rotationScale = rotationScale;
+    }
+
+    @Override
+    public void update(long tick, double time, DriveCommand dst) {
+      double amplitude = 0.5 * (1 - Math.cos(time * 0.2));
+      double jx = clamp(amplitude * Math.cos(time) + nextNoise());
+      double jy = clamp(amplitude * Math.sin(time) + nextNoise());
+      double jrot = clamp(0.5 * Math.sin(time * 0.3) + nextNoise());
+      dst.setFromJoystick(jx, jy, jrot, deadband, rotationScale);
+    }
+
+    /**
+     * Get the next noise value.
+     *
+     * @return Value in the range of [-NOISE, +NOISE).
+     */
+    private double nextNoise() {
+      return (noise.nextDouble() * 2 - 1) * NOISE;
+    }
+
+    /**
+     * Clamp a joystick input.
+     *
+     * @param value
+     *          Value to clamp.
+     * @return Value limited to the range of [-1.0, +1.0].
+     */
+    private static double clamp(double value) {
+      return Math.max(-1.0, Math.min(1.0, value));
+    }
+
+  }
+
+  /**
+   * Splits a range of cases in half until there is a single case to simulate.
+   */
+  private final class SweepTask extends RecursiveAction {
+
+    /** serialVersionUID - ForkJoinTask is serializable. */
+    private static final long serialVersionUID = 1L;
+
+    /** Where to write rows. */
+    private final Writer out;
+
+    /** First case (inclusive). */
+    private final int lo;
+
+    /** Last case (exclusive). */
+    private final int hi;
+
+    /**
+     * Constructs a new task.
+     *
+     * @param out
+     *          Where to write rows.
+     * @param lo
+     *          First case (inclusive).
+     * @param hi
+     *          Last case (exclusive).
+     */
+    SweepTask(Writer out, int lo, int hi) {
+      this.out = out;
+      this.lo = lo;
+      this.hi = hi;
+    }
+
+    @Override
+    protected void compute() {
+      if (hi - lo > 1) {
+        int mid = (lo + hi) >>> 1;
+        invokeAll(new SweepTask(out, lo, mid), new SweepTask(out, mid, hi));
+        return;
+      }
+      if (hi > lo) {
+        StringBuilder row = new StringBuilder(160);
+        simulate(lo, row);
+        row.append('\n');
+        try {
+          synchronized (out) {
+            out.append(row);
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+    }
+
+  }
+
+  /**
+   * Entry point to run a sweep from the command line.
+   *
+   * @param args
+   *          Output file followed by optional name=range settings where range is
+   *          "value" or "min:max:count" (names are wheelBase, trackWidth,
+   *          deadband, rotationScale, reverseThreshold, rateHz, seconds, seed
+   *          and parallelism).
+   * @throws IOException
+   *           If there was a problem writing the output file.
+   */
+  public static void main(String[] args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("Usage: ParameterSweep OUTPUT.csv [name=value|name=min:max:count ...]");
+      System.exit(1);
+    }
+    ParameterSweep sweep = new ParameterSweep();
+    for (int i = 1; i < args.length; i++) {
+      int eq = args[i].indexOf('=');
+      if (eq < 0) {
+        throw new IllegalArgumentException("Expected name=value: " + args[i]);
+      }
+      String name = args[i].substring(0, eq);
+      String value = args[i].substring(eq + 1);
+      if ("wheelBase".equals(name)) {
+        sweep.setWheelBase(SweepRange.parse(value));
+      } else if ("trackWidth".equals(name)) {
+        sweep.setTrackWidth(SweepRange.parse(value));
+      } else if ("deadband".equals(name)) {
+        sweep.setDeadband(SweepRange.parse(value));
+      } else if ("rotationScale".equals(name)) {
+        sweep.setRotationScale(SweepRange.parse(value));
+      } else if ("reverseThreshold".equals(name)) {
+        sweep.setReverseThreshold(SweepRange.parse(value));
+      } else if ("rateHz".equals(name)) {
+        sweep.setRateHz(Double.parseDouble(value));
+      } else if ("seconds".equals(name)) {
+        sweep.setSeconds(Double.parseDouble(value));
+      } else if ("seed".equals(name)) {
+        sweep.setSeed(Long.parseLong(value));
+      } else if ("parallelism".equals(name)) {
+        sweep.setParallelism(Integer.parseInt(value));
+      } else {
+        throw new IllegalArgumentException("Unknown setting: " + name);
+      }
+    }
+    long start = System.nanoTime();
+    int rows = sweep.run(new File(args[0]));
+    double elapsed = (System.nanoTime() - start) / 1.0e9;
+    System.out.println("Wrote " + rows + " rows to " + args[0] + " in " + elapsed + " seconds");
+  }
+
+}
@@ -0,0 +1,170 @@
+package com.techhounds.swerve.sim;
+
+import com.techhounds.gui.InputEventHandler;
+import com.techhounds.gui.InputEventQueue;
+import com.techhounds.gui.InputFilter;
+import com.techhounds.metrics.Metrics;
+
+/**
+ * A {@link SwerveController} that drives the robot from joystick inputs
+ * produced on another thread (normally the Swing event thread) and handed
+ * over through an {@link InputEventQueue}.
+ * <p>
+ * Each tick drains every record queued since the prior tick (only the latest
+ * value of each channel matters), runs the optional input filters at the
+ * control rate and converts the result to a command. The event thread only
+ * writes a few primitives into the queue, so slow painting or a burst of mouse
+ * events never delays a tick and the kinematics are solved exactly once per
+ * tick.
+ * </p>
+ * <p>
+ * Values on the {@link #TRANSLATION_X}, {@link #TRANSLATION_Y} and
+ * {@link #ROTATION} channels are joystick positions in robot space (the
+ * producer must already have flipped the Swing y-axis). A value on the
+ * {@link #HEADING} channel turns on field oriented drive using that heading
+ * (radians) and NaN turns it back off.
+ * </p>
+ */
+public final class QueuedInputController implements SwerveController, InputEventHandler {
+
+  /** Channel of the x portion of the translation. */
+  public static final int TRANSLATION_X = 0;
+
+  /** Channel of the y portion of the translation (positive is forward). */
+  public static final int TRANSLATION_Y = 1;
+
+  /** Channel of the rotation (positive is counter-clockwise). */
+  public static final int ROTATION = 2;
+
+  /** Channel of the robot heading for field oriented drive (NaN if off). */
+  public static final int HEADING = 3;
+
+  /** Number of joystick channels (the ones that may be filtered). */
+  private static final int AXES = 3;
+
+  /** Queue drained each tick. */
+  private final InputEventQueue queue;
+
+  /** Latest raw value of each joystick channel. */
+  private final double[] positions = new double[AXES];
+
+  /** Optional filter of each joystick channel. */
+  private final InputFilter[] filters = new InputFilter[AXES];
+
+  /** Heading for field oriented drive (NaN for robot oriented). */
+  private double heading = Double.NaN;
+
+  /** Simulation time of the prior tick (NaN before the first). */
+  private double lastTime = Double.NaN;
+
+  /** Number of records drained. */
+  private volatile long events;
+
+  /** Records with an unknown channel. */
+  private long ignored;
+
+  /**
+   * Constructs a new controller.
+   *
+   * @param queue
+   *          Queue to drain each tick (must not be null - this controller is
+   *          its only consumer).
+   */
+  public QueuedInputController(InputEventQueue queue) {
+    if (queue == null) {
+      throw new NullPointerException();
+    }
+    this.queue = queue;
+  }
+
+  /**
+   * Get the queue drained each tick.
+   *
+   * @return The queue passed to the constructor.
+   */
+  public InputEventQueue getQueue() {
+    return queue;
+  }
+
+  /**
+   * Shape a joystick channel (call before the controller is started).
+   *
+   * @param channel
+   *          One of {@link #TRANSLATION_X}, {@link #TRANSLATION_Y} or
+   *          {@link #ROTATION}.
+   * @param filter
+   *          Applied once per tick with the tick length as its time step (null
+   *          for none).
+   */
+  public void setFilter(int channel, InputFilter filter) {
+    if (channel < 0 || channel >= AXES) {
+      throw new IllegalArgumentException("Not a joystick channel: " + channel);
+    }
+    filters[channel] = filter;
+  }
+
+  @Override
+  public void update(long tick, double time, DriveCommand dst) {
+    int n = queue.drain(this);
+    if (n > 0) {
+      events += n;
+    }
+    double dt = Double.isNaN(lastTime) ? 0 : time - lastTime;
+    lastTime = time;
+    dst.setFromJoystick(filter(TRANSLATION_X, dt), filter(TRANSLATION_Y, dt), filter(ROTATION, dt));
+    if (!Double.isNaN(heading)) {
+      dst.fieldToRobot(heading);
+    }
+  }
+
+  /**
+   * Stores the latest value of a channel (invoked while draining the queue).
+   */
+  @Override
+  public void inputEvent(long nanos, int channel, double value) {
+    if (channel >= 0 && channel < AXES) {
+      positions[channel] = value;
+    } else if (channel == HEADING) {
+      heading = value;
+    } else {
+      ignored++;
+    }
+    if (Metrics.ENABLED) {
+      Metrics.INPUT_QUEUE_LATENCY.record(System.nanoTime() - nanos);
+    }
+  }
+
+  /**
+   * Helper method to filter a joystick channel.
+   *
+   * @param channel
+   *          Index of the channel.
+   * @param dt
+   *          Seconds since the prior tick.
+   * @return The filtered value.
+   */
+  private double filter(int channel, double dt) {
+    InputFilter f = filters[channel];
+    return (f == null) ? positions[channel] : f.apply(positions[channel], dt);
+  }
+
+  /**
+   * Get the number of records drained.
+   *
+   * @return Record count.
+   */
+  public long getEventCount() {
+    return events;
+  }
+
+  /**
+   * Get the number of records ignored because their channel is unknown (only
+   * read from the control thread).
+   *
+   * @return Ignored record count.
+   */
+  public long getIgnoredCount() {
+    return ignored;
+  }
+
+}
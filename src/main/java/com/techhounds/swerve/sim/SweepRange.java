@@ -0,0 +1,102 @@
+package com.techhounds.swerve.sim;
+
+/**
+ * A set of evenly spaced values to try for a single {@link ParameterSweep}
+ * setting.
+ */
+public final class SweepRange {
+
+  /** First value. */
+  private final double min;
+
+  /** Last value. */
+  private final double max;
+
+  /** Number of values. */
+  private final int count;
+
+  /**
+   * Constructs a range holding a single value.
+   *
+   * @param value
+   *          The only value in the range.
+   */
+  public SweepRange(double value) {
+    this(value, value, 1);
+  }
+
+  /**
+   * Constructs a range of evenly spaced values from min to max (inclusive).
+   *
+   * @param min
+   *          First value.
+   * @param max
+   *          Last value (ignored if count is 1).
+   * @param count
+   *          Number of values (must be at least 1).
+   */
+  public SweepRange(double min, double max, int count) {
+    if (count < 1) {
+      throw new IllegalArgumentException("Range must have at least one value: " + count);
+    }
+    this.min = min;
+    this.max = max;
+    this.count = count;
+  }
+
+  /**
+   * Get the number of values in the range.
+   *
+   * @return Number of values (at least 1).
+   */
+  public int getCount() {
+    return count;
+  }
+
+  /**
+   * Get a value from the range.
+   *
+   * @param idx
+   *          Index in the range of [0, count).
+   * @return min for index 0, max for index count - 1 and evenly spaced in
+   *         between.
+   */
+  public double get(int idx) {
+    if (idx < 0 || idx >= count) {
+      throw new IndexOutOfBoundsException("Range index: " + idx);
+    }
+    if (count == 1) {
+      return min;
+    }
+    return min + (max - min) * idx / (count - 1);
+  }
+
+  /**
+   * Parse a range from a string of the form "value" or "min:max:count".
+   *
+   * @param text
+   *          The string to parse.
+   * @return A new range.
+   */
+  public static SweepRange parse(String text) {
+    String[] parts = text.split(":");
+    if (parts.length == 1) {
+      return new SweepRange(Double.parseDouble(parts[0]));
+    }
+    if (parts.length != 3) {
+      throw new IllegalArgumentException("Expected value or min:max:count: " + text);
+    }
+    return new SweepRange(Double.parseDouble(parts[0]), Double.parseDouble(parts[1]), Integer.parseInt(parts[2]));
+  }
+
+  /**
+   * Get the string representation "min:max:count".
+   *
+   * @see java.lang.Object#toString()
+   */
+  @Override
+  public String toString() {
+    return min + ":" + max + ":" + count;
+  }
+
+}
@@ -0,0 +1,27 @@
+package com.techhounds.swerve.sim;
+
+/**
+ * Methods that must be implemented by objects that want to drive a
+ * {@link SwerveSimulation} (scripted scenarios, replays, control algorithms).
+ */
+public interface SwerveController {
+
+  /**
+   * Method that is invoked once per simulation tick to produce the chassis
+   * command for the tick.
+   * <p>
+   * Implementations are on the simulation hot path and should not allocate
+   * objects.
+   * </p>
+   *
+   * @param tick
+   *          The number of the tick being computed (starts at 0).
+   * @param time
+   *          The simulation time of the tick in seconds (tick * dt).
+   * @param dst
+   *          Where to store the command for the tick (never null - it will
+   *          still contain the command from the prior tick).
+   */
+  void update(long tick, double time, DriveCommand dst);
+
+}
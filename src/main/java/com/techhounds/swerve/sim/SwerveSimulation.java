@@ -0,0 +1,270 @@
+package com.techhounds.swerve.sim;
+
+import com.techhounds.metrics.FlightEvents;
+import com.techhounds.metrics.Metrics;
+import com.techhounds.swerve.ModuleDynamics;
+import com.techhounds.swerve.SwerveWheel;
+import com.techhounds.swerve.SwerveWheels;
+
+/**
+ * Headless, fixed time step simulation engine that steps a
+ * {@link SwerveWheels} model.
+ * <p>
+ * Unlike the {@link com.techhounds.swerve.simu.SwerveDriveTest} tool (where
+ * work is only done when a Swing {@link com.techhounds.gui.Axis} is moved),
+ * this engine asks a {@link SwerveController} for a new command every tick and
+ * applies it to all of the wheels. It does not reference any AWT/Swing classes
+ * and runs as fast as the CPU allows (simulation time is not tied to wall clock
+ * time).
+ * </p>
+ */
+public final class SwerveSimulation {
+
+  /** Slowest supported control rate (ticks per simulated second). */
+  public static final double MIN_RATE_HZ = 50.0;
+
+  /** Fastest supported control rate (ticks per simulated second). */
+  public static final double MAX_RATE_HZ = 1000.0;
+
+  /** The wheels making up the simulated robot. */
+  private final SwerveWheels wheels;
+
+  /** Source of the chassis command for each tick. */
+  private final SwerveController controller;
+
+  /** Command object reused every tick. */
+  private final DriveCommand command;
+
+  /** Control rate in ticks per simulated second. */
+  private final double rateHz;
+
+  /** Fixed time step in seconds (1.0 / rateHz). */
+  private final double dt;
+
+  /** Optional actuator model advanced every tick (null if not modeled). */
+  private ModuleDynamics dynamics;
+
+  /** Number of ticks simulated so far. */
+  private long tick;
+
+  /** Throughput (ticks per wall clock second) of the last call to run. */
+  private double ticksPerSecond;
+
+  /** Whether each tick publishes a snapshot of the wheel states. */
+  private volatile boolean publishing;
+
+  /**
+   * Constructs a new simulation.
+   *
+   * @param wheels
+   *          The wheels making up the robot to simulate (must not be null).
+   * @param controller
+   *          Source of the chassis command for each tick (must not be null).
+   * @param rateHz
+   *          The control rate in ticks per simulated second in the range of
+   *          [{@link #MIN_RATE_HZ}, {@link #MAX_RATE_HZ}].
+   */
+  public SwerveSimulation(SwerveWheels wheels, SwerveController controller, double rateHz) {
+    if (wheels == null || controller == null) {
+      throw new NullPointerException();
+    }
+    if (!(rateHz >= MIN_RATE_HZ && rateHz <= MAX_RATE_HZ)) {
+      throw new IllegalArgumentException("Rate must be in range [" + MIN_RATE_HZ + ", " + MAX_RATE_HZ + "] Hz: " + rateHz);
+    }
+    this.wheels = wheels;
+    this.controller = controller;
+    this.command = new DriveCommand();
+    this.rateHz = rateHz;
+    this.dt = 1.0 / rateHz;
+  }
+
+  /**
+   * Advance the simulation by a single fixed time step (and publish the new
+   * wheel states if {@link #setPublishing(boolean)} was turned on).
+   */
+  public void step() {
+    Object event = FlightEvents.isRecording() ? FlightEvents.beginControlTick() : null;
+    controller.update(tick, tick * dt, command);
+    wheels.setDirection(command.getTranslationX(), command.getTranslationY(), command.getRotation());
+    if (dynamics != null) {
+      dynamics.update(wheels, dt);
+    }
+    if (publishing) {
+      wheels.publish();
+    }
+    if (event != null) {
+      FlightEvents.endControlTick(event, tick, wheels.size());
+    }
+    tick++;
+  }
+
+  /**
+   * Advance the simulation by a number of ticks as fast as possible.
+   *
+   * @param ticks
+   *          How many ticks to simulate.
+   * @return The throughput achieved in ticks per wall clock second (also
+   *         available from {@link #getTicksPerSecond()}).
+   */
+  public double run(long ticks) {
+    long start = System.nanoTime();
+    for (long i = 0; i < ticks; i++) {
+      step();
+    }
+    long elapsed = System.nanoTime() - start;
+    ticksPerSecond = (elapsed > 0) ? ticks * 1.0e9 / elapsed : 0;
+    Metrics.SIMULATION_TICKS_PER_SECOND.set(ticksPerSecond);
+    return ticksPerSecond;
+  }
+
+  /**
+   * Advance the simulation by an amount of simulated time as fast as possible.
+   *
+   * @param seconds
+   *          How many seconds of simulated time to advance (rounded to the
+   *          nearest whole tick).
+   * @return The throughput achieved in ticks per wall clock second.
+   */
+  public double runFor(double seconds) {
+    return run(Math.round(seconds * rateHz));
+  }
+
+  /**
+   * Set an actuator model to advance towards the commanded wheel states every
+   * tick.
+   *
+   * @param dynamics
+   *          The actuator model (must have the same number of modules as the
+   *          robot has wheels) or null to only compute commanded states.
+   */
+  public void setDynamics(ModuleDynamics dynamics) {
+    if (dynamics != null && dynamics.getModuleCount() != wheels.size()) {
+      throw new IllegalArgumentException("Expected " + wheels.size() + " modules, got: " + dynamics.getModuleCount());
+    }
+    this.dynamics = dynamics;
+  }
+
+  /**
+   * Get the actuator model advanced every tick.
+   *
+   * @return The actuator model (null if not modeled).
+   */
+  public ModuleDynamics getDynamics() {
+    return dynamics;
+  }
+
+  /**
+   * Set whether each tick publishes a snapshot of the wheel states for another
+   * thread (see {@link SwerveWheels#acquireSnapshot()}). Off by default, as
+   * only a viewer or other reader on a different thread needs the snapshots.
+   *
+   * @param publishing
+   *          Pass true to publish the wheel states at the end of every tick.
+   */
+  public void setPublishing(boolean publishing) {
+    this.publishing = publishing;
+  }
+
+  /**
+   * Indicates whether each tick publishes a snapshot of the wheel states.
+   *
+   * @return true if {@link #step()} publishes the wheel states.
+   */
+  public boolean isPublishing() {
+    return publishing;
+  }
+
+  /**
+   * Get the wheels being simulated.
+   *
+   * @return The wheels making up the robot.
+   */
+  public SwerveWheels getWheels() {
+    return wheels;
+  }
+
+  /**
+   * Get the control rate.
+   *
+   * @return Ticks per simulated second.
+   */
+  public double getRateHz() {
+    return rateHz;
+  }
+
+  /**
+   * Get the fixed time step.
+   *
+   * @return Seconds of simulated time per tick.
+   */
+  public double getDt() {
+    return dt;
+  }
+
+  /**
+   * Get the number of ticks simulated so far.
+   *
+   * @return Number of calls made to {@link #step()}.
+   */
+  public long getTick() {
+    return tick;
+  }
+
+  /**
+   * Get the current simulation time.
+   *
+   * @return Seconds of simulated time that have elapsed.
+   */
+  public double getTime() {
+    return tick * dt;
+  }
+
+  /**
+   * Get the throughput of the last call to {@link #run(long)}.
+   *
+   * @return Ticks per wall clock second (0 if run has not been called).
+   */
+  public double getTicksPerSecond() {
+    return ticksPerSecond;
+  }
+
+  /**
+   * Entry point to run a headless scripted scenario and report throughput.
+   *
+   * @param args
+   *          Optional [rateHz [simulatedSeconds]] (defaults to 1000 Hz for 3600
+   *          seconds).
+   */
+  public static void main(String[] args) {
+    double rateHz = (args.length > 0) ? Double.parseDouble(args[0]) : MAX_RATE_HZ;
+    double seconds = (args.length > 1) ? Double.parseDouble(args[1]) : 3600;
+    Metrics.registerMBeans();
+
+    // Same robot as the SwerveDriveTest tool
+    SwerveWheels wheels = new SwerveWheels();
+    double wheelDiameter = 4;
+    double wheelWidth = 1;
+    double robotWidth2 = 20 / 2.0;
+    double robotLength2 = 30 / 2.0;
+    wheels.add(new SwerveWheel(robotWidth2, robotLength2, wheelDiameter, wheelWidth));
+    wheels.add(new SwerveWheel(-robotWidth2, -robotLength2, wheelDiameter, wheelWidth));
+    wheels.add(new SwerveWheel(robotWidth2, -robotLength2, wheelDiameter, wheelWidth));
+    wheels.add(new SwerveWheel(-robotWidth2, robotLength2, wheelDiameter, wheelWidth));
+
+    // Sweep the joysticks around in circles while slowly varying rotation
+    SwerveController script = new SwerveController() {
+      @Override
+      public void update(long tick, double time, DriveCommand dst) {
+        dst.setFromJoystick(Math.cos(time), Math.sin(time), Math.sin(time * 0.1));
+      }
+    };
+
+    SwerveSimulation sim = new SwerveSimulation(wheels, script, rateHz);
+    // Short warm up so JIT compilation doesn't dominate the measurement
+    sim.runFor(Math.min(seconds, 60));
+    double tps = sim.runFor(seconds);
+    System.out.println("Simulated " + seconds + " seconds at " + rateHz + " Hz: " + Math.round(tps) + " ticks/sec ("
+        + Math.round(tps / rateHz) + "x real time)");
+  }
+
+}
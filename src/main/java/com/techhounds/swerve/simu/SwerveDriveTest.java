@@ -2,6 +2,7 @@ package com.techhounds.swerve.simu;
 
 import java.awt.BorderLayout;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
 import java.awt.event.KeyEvent;
 import java.awt.event.MouseAdapter;
 import java.awt.event.MouseEvent;
@@ -10,22 +11,41 @@ import javax.swing.ActionMap;
 import javax.swing.Box;
 import javax.swing.BoxLayout;
 import javax.swing.InputMap;
+import javax.swing.JCheckBox;
 import javax.swing.JComponent;
 import javax.swing.JFrame;
 import javax.swing.JLabel;
 import javax.swing.JPanel;
 import javax.swing.KeyStroke;
-import com.techhounds.gui.AxisListener;
+import javax.swing.Timer;
 import com.techhounds.gui.AxisWidget;
-import com.techhounds.math.CartesianPoint;
+import com.techhounds.gui.Deadband;
+import com.techhounds.gui.ExpoCurve;
+import com.techhounds.gui.InputEventQueue;
+import com.techhounds.gui.InputFrame;
+import com.techhounds.gui.InputFrameListener;
+import com.techhounds.gui.InputPipeline;
+import com.techhounds.metrics.Metrics;
+import com.techhounds.swerve.ChassisVelocity;
+import com.techhounds.swerve.ForwardKinematics;
 import com.techhounds.swerve.SwerveViewer;
 import com.techhounds.swerve.SwerveWheel;
 import com.techhounds.swerve.SwerveWheels;
+import com.techhounds.swerve.sim.ControlLoop;
+import com.techhounds.swerve.sim.DriveCommand;
+import com.techhounds.swerve.sim.GyroModel;
+import com.techhounds.swerve.sim.QueuedInputController;
+import com.techhounds.swerve.sim.SwerveSimulation;
 
 /**
  * Sample GUI tool that lets you visually experiment with a swerve simulated swerve drive.
+ * <p>
+ * By default the wheels are recomputed on the Swing event thread every time the inputs change. Start with
+ * "-control [rateHz]" to instead queue the inputs to a real time {@link ControlLoop} that recomputes the wheels on its
+ * own thread at a fixed rate (the event thread only queues inputs and repaints).
+ * </p>
  */
-public final class SwerveDriveTest extends JFrame implements AxisListener {
+public final class SwerveDriveTest extends JFrame implements InputFrameListener {
 
   /** Swing component ID. */
   private static final long serialVersionUID = 1L;
@@ -45,13 +65,125 @@ public final class SwerveDriveTest extends JFrame implements AxisListener {
    */
   private AxisWidget rotation;
 
+  /**
+   * The translation axes and rotation x-axis (each mouse move or key press is a single update).
+   */
+  private InputFrame input;
+
+  /**
+   * Converts joystick inputs to wheel bearing space (same rules as the headless simulation).
+   */
+  private final DriveCommand command = new DriveCommand();
+
+  /**
+   * Shapes the translation x-axis (the tool only updates on input events, so only stages without state are used).
+   */
+  private final InputPipeline translationXFilter = createFilter();
+
+  /**
+   * Shapes the translation y-axis.
+   */
+  private final InputPipeline translationYFilter = createFilter();
+
+  /**
+   * Shapes the rotation x-axis.
+   */
+  private final InputPipeline rotationFilter = createFilter();
+
+  /**
+   * Milliseconds between updates of the simulated gyro.
+   */
+  private static final int GYRO_PERIOD_MS = 20;
+
+  /**
+   * Speed of a wheel at a velocity of 1.0 (inches per second) used to turn wheel velocities into a rotation rate.
+   */
+  private static final double MAX_WHEEL_SPEED = 120;
+
+  /**
+   * Check box that turns field oriented drive on and off.
+   */
+  private JCheckBox fieldOriented;
+
+  /**
+   * Label showing the heading used for field oriented drive.
+   */
+  private JLabel headingLabel;
+
+  /**
+   * Advances the simulated gyro while field oriented drive is on.
+   */
+  private final Timer gyroTimer;
+
+  /**
+   * Simulated gyro (a little noise and drift like a real one).
+   */
+  private final GyroModel gyro = new GyroModel(0.002, 0.001, 1);
+
+  /**
+   * Computes the rotation rate of the robot from its wheels (created when field oriented drive is turned on).
+   */
+  private ForwardKinematics kinematics;
+
+  /**
+   * Chassis velocity reused by the gyro timer.
+   */
+  private final ChassisVelocity velocity = new ChassisVelocity();
+
+  /**
+   * Milliseconds between repaints when the wheels are driven by the control thread.
+   */
+  private static final int REPAINT_PERIOD_MS = 16;
+
+  /**
+   * Default rate of the control thread (ticks per second).
+   */
+  private static final double DEFAULT_CONTROL_RATE_HZ = 200;
+
+  /**
+   * Carries the inputs to the control thread (null if the wheels are recomputed on the event thread).
+   */
+  private final InputEventQueue inputQueue;
+
+  /**
+   * Rate of the control thread in ticks per second (0 if the wheels are recomputed on the event thread).
+   */
+  private final double controlRateHz;
+
+  /**
+   * Drives the wheels from the queued inputs (created by {@link #startControlLoop()}).
+   */
+  private ControlLoop controlLoop;
+
+  /**
+   * Repaints the viewer while the control thread drives the wheels.
+   */
+  private final Timer repaintTimer;
+
+  /**
+   * Actual heading of the simulated robot (radians counter-clockwise).
+   */
+  private double trueHeading;
+
+  /**
+   * Heading used to rotate the translation in field oriented mode (from the gyro or replayed).
+   */
+  private double heading;
+
   /**
    * Constructs a new instance of the GUI widget (does not display it).
    *
-   * @param args Command line arguments (currently ignored).
+   * @param args Command line arguments ("-control [rateHz]" to recompute the wheels on a control thread).
    */
   public SwerveDriveTest(String[] args) {
     super("Swerve Simu");
+    if (args.length > 0 && "-control".equals(args[0])) {
+      controlRateHz = (args.length > 1) ? Double.parseDouble(args[1]) : DEFAULT_CONTROL_RATE_HZ;
+      inputQueue = new InputEventQueue();
+    } else {
+      controlRateHz = 0;
+      inputQueue = null;
+    }
     setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     swerveViewer = new SwerveViewer();
     swerveViewer.setFocusable(true);
@@ -63,12 +195,19 @@ public final class SwerveDriveTest extends JFrame implements AxisListener {
       private static final long serialVersionUID = 1L;
 
       public void actionPerformed(ActionEvent e) {
-        translation.getAxisX().setPosition(0);
-        translation.getAxisY().setPosition(0);
-        rotation.getAxisX().setPosition(0.0);
+        // One update for all of the axes (not one per axis)
+        input.zero();
         rotation.getAxisY().setPosition(0.0);
       }
     });
+    imap.put(KeyStroke.getKeyStroke(KeyEvent.VK_F, 0), "field");
+    amap.put("field", new AbstractAction() {
+      private static final long serialVersionUID = 1L;
+
+      public void actionPerformed(ActionEvent e) {
+        fieldOriented.doClick();
+      }
+    });
     swerveViewer.addMouseListener(new MouseAdapter() {
       public void mouseEntered(MouseEvent e) {
         swerveViewer.requestFocusInWindow();
@@ -87,12 +226,37 @@ public final class SwerveDriveTest extends JFrame implements AxisListener {
 
     rotation = new AxisWidget();
     addWidget(controls, "Rotation (x)", rotation);
+
+    controls.add(Box.createVerticalStrut(10));
+
+    fieldOriented = new JCheckBox("Field oriented (F)");
+    fieldOriented.addActionListener(new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        setFieldOriented(fieldOriented.isSelected());
+      }
+    });
+    addWidget(controls, null, fieldOriented);
+    headingLabel = new JLabel();
+    addWidget(controls, null, headingLabel);
+    updateHeadingLabel();
+
+    gyroTimer = new Timer(GYRO_PERIOD_MS, new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        stepGyro(GYRO_PERIOD_MS / 1000.0);
+      }
+    });
+    repaintTimer = new Timer(REPAINT_PERIOD_MS, new ActionListener() {
+      public void actionPerformed(ActionEvent e) {
+        swerveViewer.repaint();
+      }
+    });
     
     pack();
 
-    translation.getAxisX().addAxisListener(this);
-    translation.getAxisY().addAxisListener(this);
-    rotation.getAxisX().addAxisListener(this);
+    input = new InputFrame(translation.getAxisX(), translation.getAxisY(), rotation.getAxisX());
+    translation.setInputFrame(input);
+    rotation.setInputFrame(input);
+    input.addFrameListener(this);
   }
 
   /**
@@ -110,7 +274,7 @@ public final class SwerveDriveTest extends JFrame implements AxisListener {
   }
 
   /**
-   * Adds a wheel to manage as a part of the robot.
+   * Adds a wheel to manage as a part of the robot (all wheels must be added before {@link #startControlLoop()}).
    *
    * @param wheel The wheel to add.
    */
@@ -118,23 +282,148 @@ public final class SwerveDriveTest extends JFrame implements AxisListener {
     swerveViewer.addWheel(wheel);
   }
 
-  //@Override
-  public void valueUpdated(double position, double oldPosition) {
-    if (position != oldPosition) {
-      CartesianPoint transIn = new CartesianPoint();
-      translation.getNormalized(transIn);
-      double ux = transIn.getX();
-      double uy = transIn.getY();
-      double transR = transIn.computeR();
-      double rot = -rotation.getAxisX().getPosition();
-      // Scale rotation down if user is translating (so we can't exceed 1.0)
-      rot *= (1.0 - transR);
-
-      // Convert user inputs from polar space to wheel bearing space
-      double wx = uy;
-      double wy = -ux;
-      swerveViewer.setDirection(wx, wy, rot);
+  /**
+   * Recomputes the wheels once for every change of the inputs (even when several axes changed together).
+   *
+   * @param frame The input frame that changed.
+   */
+  @Override
+  public void frameUpdated(InputFrame frame) {
+    updateCommand();
+  }
+
+  /**
+   * Starts the control thread if the tool was started with "-control" (does nothing otherwise). Call after all of the
+   * wheels have been added, from then on only the control thread modifies them.
+   */
+  public void startControlLoop() {
+    if (inputQueue == null || controlLoop != null) {
+      return;
+    }
+    QueuedInputController controller = new QueuedInputController(inputQueue);
+    controller.setFilter(QueuedInputController.TRANSLATION_X, createFilter());
+    controller.setFilter(QueuedInputController.TRANSLATION_Y, createFilter());
+    controller.setFilter(QueuedInputController.ROTATION, createFilter());
+    queueCommand();
+    SwerveSimulation sim = new SwerveSimulation(swerveViewer.getWheels(), controller, controlRateHz);
+    // The viewer and gyro read the wheels from the event thread
+    sim.setPublishing(true);
+    controlLoop = new ControlLoop(sim);
+    controlLoop.start();
+    repaintTimer.start();
+  }
+
+  /**
+   * Recomputes the wheels from the current inputs (or queues the inputs to the control thread).
+   */
+  private void updateCommand() {
+    if (inputQueue != null) {
+      queueCommand();
+    } else {
+      applyCommand();
+    }
+  }
+
+  /**
+   * Queues the current inputs for the control thread (which shapes them and applies them on its next tick).
+   */
+  private void queueCommand() {
+    long now = System.nanoTime();
+    // Swing y-axis is inverted (down is positive)
+    inputQueue.offer(now, QueuedInputController.TRANSLATION_X, translation.getAxisX().getPosition());
+    inputQueue.offer(now, QueuedInputController.TRANSLATION_Y, -translation.getAxisY().getPosition());
+    inputQueue.offer(now, QueuedInputController.ROTATION, rotation.getAxisX().getPosition());
+    inputQueue.offer(now, QueuedInputController.HEADING, fieldOriented.isSelected() ? heading : Double.NaN);
+  }
+
+  /**
+   * Converts the current joystick inputs to a command (rotating the translation by the heading in field oriented
+   * mode) and applies it to the wheels.
+   */
+  private void applyCommand() {
+    long now = System.nanoTime();
+    // Swing y-axis is inverted (down is positive)
+    command.setFromJoystick(translationXFilter.update(translation.getAxisX().getPosition(), now),
+        -translationYFilter.update(translation.getAxisY().getPosition(), now),
+        rotationFilter.update(rotation.getAxisX().getPosition(), now));
+    if (fieldOriented.isSelected()) {
+      command.fieldToRobot(heading);
+    }
+    swerveViewer.setDirection(command.getTranslationX(), command.getTranslationY(), command.getRotation());
+  }
+
+  /**
+   * Creates the input shaping applied to each axis (a small deadband so the widgets don't have to be exactly centered
+   * and a little expo for finer control near the center).
+   *
+   * @return A new pipeline.
+   */
+  private static InputPipeline createFilter() {
+    return new InputPipeline(new Deadband(0.02), new ExpoCurve(0.2));
+  }
+
+  /**
+   * Turns field oriented drive on or off. Turning it on starts the simulated gyro at a heading of 0 (the robot is
+   * assumed to face away from the driver).
+   *
+   * @param enabled true for field oriented, false for robot relative.
+   */
+  public void setFieldOriented(boolean enabled) {
+    if (fieldOriented.isSelected() != enabled) {
+      fieldOriented.setSelected(enabled);
+    }
+    if (enabled) {
+      // Wheels may have been added since the last time
+      kinematics = new ForwardKinematics(swerveViewer.getWheels());
+      trueHeading = 0;
+      heading = 0;
+      gyro.reset();
+      gyroTimer.start();
+    } else {
+      gyroTimer.stop();
     }
+    updateHeadingLabel();
+    updateCommand();
+  }
+
+  /**
+   * Use a heading from another source (like a replay log) instead of the simulated gyro. Only affects the wheels in
+   * field oriented mode.
+   *
+   * @param heading Heading of the robot in radians (counter-clockwise, 0 when facing away from the driver).
+   */
+  public void setFieldHeading(double heading) {
+    gyroTimer.stop();
+    this.heading = heading;
+    updateHeadingLabel();
+    if (fieldOriented.isSelected()) {
+      updateCommand();
+    }
+  }
+
+  /**
+   * Turns the simulated robot by the rotation rate of its wheels and reads the new heading from the simulated gyro.
+   *
+   * @param dt Seconds since the last step.
+   */
+  private void stepGyro(double dt) {
+    if (inputQueue != null) {
+      // Wheels belong to the control thread, use the last state it published
+      kinematics.solve(swerveViewer.getWheels().acquireSnapshot(), velocity);
+    } else {
+      kinematics.solve(swerveViewer.getWheels(), velocity);
+    }
+    trueHeading += velocity.getOmega() * MAX_WHEEL_SPEED * dt;
+    heading = gyro.measure(trueHeading, dt);
+    updateHeadingLabel();
+    updateCommand();
+  }
+
+  /**
+   * Helper method to show the current heading.
+   */
+  private void updateHeadingLabel() {
+    headingLabel.setText(String.format("Heading: %.1f", Math.toDegrees(heading)));
   }
 
   /**
@@ -143,6 +432,8 @@ public final class SwerveDriveTest extends JFrame implements AxisListener {
    * @param args Set of command line arguments.
    */
   public static void main(String[] args) {
+    // Expose hot path timing through JMX (JConsole/VisualVM)
+    Metrics.registerMBeans();
     SwerveDriveTest main = new SwerveDriveTest(args);
     double wheelDiameter = 4;
     double wheelWidth = 1;
@@ -152,6 +443,7 @@ public final class SwerveDriveTest extends JFrame implements AxisListener {
     main.addWheel(new SwerveWheel(-robotWidth2, -robotLength2, wheelDiameter, wheelWidth));
     main.addWheel(new SwerveWheel(robotWidth2, -robotLength2, wheelDiameter, wheelWidth));
     main.addWheel(new SwerveWheel(-robotWidth2, robotLength2, wheelDiameter, wheelWidth));
+    main.startControlLoop();
     main.setVisible(true);
   }
 
@@ -201,6 +493,7 @@ public final class SwerveDriveTest extends JFrame implements AxisListener {
         double wy = vabs * vsinTheta + wheel.getX() * omega;
         wheel.setDirection(wx * vmag, wy * vmag, 0);
       }
+      wheels.publish();
       swerveViewer.repaint();
     }
   }
@@ -0,0 +1,58 @@
+package com.techhounds.math;
+
+import jdk.incubator.vector.DoubleVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * Batch point converter that uses the JDK Vector API to process several
+ * points per operation.
+ * <p>
+ * This class is only compiled when building with JDK 17 or later and is
+ * loaded reflectively by {@link PointConversions} (the JVM must be started
+ * with {@code --add-modules jdk.incubator.vector}). Any points left over after
+ * the last full vector are handled with scalar math.
+ * </p>
+ */
+final class VectorPointConverter implements PointConverter {
+
+  /** Preferred vector shape for the platform we are running on. */
+  private static final VectorSpecies<Double> SPECIES = DoubleVector.SPECIES_PREFERRED;
+
+  @Override
+  public void toCartesian(double[] r, double[] theta, double[] x, double[] y, int count) {
+    int i = 0;
+    int upper = SPECIES.loopBound(count);
+    for (; i < upper; i += SPECIES.length()) {
+      DoubleVector rv = DoubleVector.fromArray(SPECIES, r, i);
+      DoubleVector tv = DoubleVector.fromArray(SPECIES, theta, i);
+      tv.lanewise(VectorOperators.COS).mul(rv).intoArray(x, i);
+      tv.lanewise(VectorOperators.SIN).mul(rv).intoArray(y, i);
+    }
+    for (; i < count; i++) {
+      double ri = r[i];
+      double ti = theta[i];
+      x[i] = Math.cos(ti) * ri;
+      y[i] = Math.sin(ti) * ri;
+    }
+  }
+
+  @Override
+  public void toPolar(double[] x, double[] y, double[] r, double[] theta, int count) {
+    int i = 0;
+    int upper = SPECIES.loopBound(count);
+    for (; i < upper; i += SPECIES.length()) {
+      DoubleVector xv = DoubleVector.fromArray(SPECIES, x, i);
+      DoubleVector yv = DoubleVector.fromArray(SPECIES, y, i);
+      xv.mul(xv).add(yv.mul(yv)).lanewise(VectorOperators.SQRT).intoArray(r, i);
+      yv.lanewise(VectorOperators.ATAN2, xv).intoArray(theta, i);
+    }
+    for (; i < count; i++) {
+      double xi = x[i];
+      double yi = y[i];
+      r[i] = Math.sqrt(xi * xi + yi * yi);
+      theta[i] = Math.atan2(yi, xi);
+    }
+  }
+
+}
@@ -0,0 +1,214 @@
+package com.techhounds.metrics;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.FlightRecorder;
+import jdk.jfr.FlightRecorderListener;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import jdk.jfr.StackTrace;
+
+/**
+ * Emits the {@link FlightEvents} using the jdk.jfr API.
+ * <p>
+ * This class is only compiled when building with JDK 17 or later and is
+ * loaded reflectively by {@link FlightEvents}. A listener keeps track of
+ * whether any recording is running so the hot paths only read a volatile flag
+ * when the flight recorder is idle. Timed events are begun when the operation
+ * starts and committed when it ends, so the duration JFR records is the time
+ * taken by the operation.
+ * </p>
+ */
+final class JfrFlightRecorderHooks implements FlightRecorderHooks, FlightRecorderListener {
+
+  /** Category all of the events are listed under. */
+  private static final String CATEGORY = "Swerve";
+
+  /** Whether any recording is running. */
+  private volatile boolean recording;
+
+  /**
+   * Constructs the hooks and starts listening for recordings.
+   */
+  JfrFlightRecorderHooks() {
+    if (!FlightRecorder.isAvailable()) {
+      throw new IllegalStateException("Flight recorder not available");
+    }
+    // Calls recorderInitialized() right away if the recorder is already up
+    FlightRecorder.addListener(this);
+  }
+
+  @Override
+  public void recorderInitialized(FlightRecorder recorder) {
+    update(recorder);
+  }
+
+  @Override
+  public void recordingStateChanged(Recording changed) {
+    update(FlightRecorder.getFlightRecorder());
+  }
+
+  /**
+   * Checks whether any recording is running.
+   *
+   * @param recorder
+   *          The flight recorder.
+   */
+  private void update(FlightRecorder recorder) {
+    boolean running = false;
+    for (Recording r : recorder.getRecordings()) {
+      running |= (r.getState() == RecordingState.RUNNING);
+    }
+    recording = running;
+  }
+
+  @Override
+  public boolean isRecording() {
+    return recording;
+  }
+
+  @Override
+  public Object beginControlTick() {
+    ControlTickEvent e = new ControlTickEvent();
+    if (!e.isEnabled()) {
+      return null;
+    }
+    e.begin();
+    return e;
+  }
+
+  @Override
+  public void endControlTick(Object event, long tick, int modules) {
+    ControlTickEvent e = (ControlTickEvent) event;
+    e.end();
+    if (e.shouldCommit()) {
+      e.tick = tick;
+      e.modules = modules;
+      e.commit();
+    }
+  }
+
+  @Override
+  public Object beginApply() {
+    WheelsApplyEvent e = new WheelsApplyEvent();
+    if (!e.isEnabled()) {
+      return null;
+    }
+    e.begin();
+    return e;
+  }
+
+  @Override
+  public void endApply(Object event, int modules) {
+    WheelsApplyEvent e = (WheelsApplyEvent) event;
+    e.end();
+    if (e.shouldCommit()) {
+      e.modules = modules;
+      e.commit();
+    }
+  }
+
+  @Override
+  public void reversal(int modules, double shortestPath, double velocity) {
+    WheelReversalEvent e = new WheelReversalEvent();
+    if (e.shouldCommit()) {
+      e.modules = modules;
+      e.shortestPath = shortestPath;
+      e.velocity = velocity;
+      e.commit();
+    }
+  }
+
+  @Override
+  public Object beginRepaint() {
+    ViewerRepaintEvent e = new ViewerRepaintEvent();
+    if (!e.isEnabled()) {
+      return null;
+    }
+    e.begin();
+    return e;
+  }
+
+  @Override
+  public void endRepaint(Object event, int modules) {
+    ViewerRepaintEvent e = (ViewerRepaintEvent) event;
+    e.end();
+    if (e.shouldCommit()) {
+      e.modules = modules;
+      e.commit();
+    }
+  }
+
+  /**
+   * A single simulation control tick.
+   */
+  @Name(FlightEvents.CONTROL_TICK)
+  @Label("Control Tick")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  static final class ControlTickEvent extends Event {
+
+    /** Number of the tick. */
+    @Label("Tick")
+    long tick;
+
+    /** Number of modules updated. */
+    @Label("Modules")
+    int modules;
+  }
+
+  /**
+   * A recompute of the wheel states after the turn point or wheels changed.
+   */
+  @Name(FlightEvents.WHEELS_APPLY)
+  @Label("Wheels Apply")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  static final class WheelsApplyEvent extends Event {
+
+    /** Number of modules the robot has. */
+    @Label("Modules")
+    int modules;
+  }
+
+  /**
+   * One or more modules reversed their motor instead of turning.
+   */
+  @Name(FlightEvents.WHEEL_REVERSAL)
+  @Label("Wheel Reversal")
+  @Description("Module reversed its motor direction instead of turning past the reverse threshold")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  static final class WheelReversalEvent extends Event {
+
+    /** Number of modules that reversed. */
+    @Label("Modules")
+    int modules;
+
+    /** Turn avoided by reversing. */
+    @Label("Shortest Path (radians)")
+    double shortestPath;
+
+    /** New (reversed) velocity. */
+    @Label("Velocity")
+    double velocity;
+  }
+
+  /**
+   * A repaint of the swerve viewer.
+   */
+  @Name(FlightEvents.VIEWER_REPAINT)
+  @Label("Viewer Repaint")
+  @Category(CATEGORY)
+  @StackTrace(false)
+  static final class ViewerRepaintEvent extends Event {
+
+    /** Number of modules drawn. */
+    @Label("Modules")
+    int modules;
+  }
+
+}
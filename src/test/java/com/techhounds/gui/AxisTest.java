@@ -0,0 +1,93 @@
+package com.techhounds.gui;
+
+import junit.framework.TestCase;
+
+public class AxisTest extends TestCase {
+
+  private static final class Recorder implements AxisListener {
+    private int updates;
+    private double pos;
+    private double oldPos;
+
+    @Override
+    public void valueUpdated(double pos, double oldPos) {
+      updates++;
+      this.pos = pos;
+      this.oldPos = oldPos;
+    }
+  }
+
+  public void testNotifyOnlyOnChange() {
+    Axis axis = new Axis();
+    Recorder rec = new Recorder();
+    axis.addAxisListener(rec);
+    axis.addAxisListener(rec);
+    assertEquals(1, axis.getListenerCount());
+
+    axis.setPosition(0.5);
+    assertEquals(1, rec.updates);
+    assertEquals(0.5, rec.pos);
+    assertEquals(0.0, rec.oldPos);
+
+    // Same value and values clamped to the current position are ignored
+    axis.setPosition(0.5);
+    axis.setPosition(2.0);
+    axis.setPosition(3.0);
+    assertEquals(2, rec.updates);
+    assertEquals(1.0, axis.getPosition());
+  }
+
+  public void testAddRemove() {
+    Axis axis = new Axis();
+    Recorder a = new Recorder();
+    Recorder b = new Recorder();
+    Recorder c = new Recorder();
+    axis.addAxisListener(a);
+    axis.addAxisListener(b);
+    axis.addAxisListener(c);
+    axis.removeAxisListener(b);
+    axis.removeAxisListener(new Recorder());
+    axis.removeAxisListener(null);
+    assertEquals(2, axis.getListenerCount());
+
+    axis.setPosition(-0.25);
+    assertEquals(1, a.updates);
+    assertEquals(0, b.updates);
+    assertEquals(1, c.updates);
+
+    axis.removeAxisListener(a);
+    axis.removeAxisListener(c);
+    assertEquals(0, axis.getListenerCount());
+    axis.setPosition(0.25);
+    assertEquals(1, a.updates);
+
+    try {
+      axis.addAxisListener(null);
+      fail("Expected NullPointerException");
+    } catch (NullPointerException expected) {
+    }
+  }
+
+  public void testSetPositions() {
+    Axis axis = new Axis();
+    Recorder rec = new Recorder();
+    axis.addAxisListener(rec);
+    double[] values = { 9.0, 0.1, 0.1, 0.2, -5.0, -1.0, 0.0 };
+
+    assertEquals(3, axis.setPositions(values, 1, 4));
+    assertEquals(3, rec.updates);
+    assertEquals(-1.0, axis.getPosition());
+    assertEquals(-1.0, rec.pos);
+    assertEquals(0.2, rec.oldPos);
+
+    assertEquals(0, axis.setPositions(values, 5, 1));
+    assertEquals(0, axis.setPositions(values, 7, 0));
+
+    try {
+      axis.setPositions(values, 5, 3);
+      fail("Expected IndexOutOfBoundsException");
+    } catch (IndexOutOfBoundsException expected) {
+    }
+  }
+
+}
@@ -0,0 +1,169 @@
+package com.techhounds.gui;
+
+import junit.framework.TestCase;
+
+public class InputEventQueueTest extends TestCase {
+
+  private static final class Recorder implements InputEventHandler {
+    private int count;
+    private long nanos;
+    private int channel;
+    private double value;
+
+    @Override
+    public void inputEvent(long nanos, int channel, double value) {
+      count++;
+      this.nanos = nanos;
+      this.channel = channel;
+      this.value = value;
+    }
+  }
+
+  public void testCapacity() {
+    assertEquals(1, new InputEventQueue(1).getCapacity());
+    assertEquals(8, new InputEventQueue(5).getCapacity());
+    assertEquals(InputEventQueue.DEFAULT_CAPACITY, new InputEventQueue().getCapacity());
+    try {
+      new InputEventQueue(0);
+      fail("Expected rejection of empty ring");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testOfferDrain() {
+    InputEventQueue queue = new InputEventQueue(4);
+    Recorder rec = new Recorder();
+    assertTrue(queue.isEmpty());
+    assertEquals(0, queue.drain(rec));
+
+    for (int i = 0; i < 4; i++) {
+      assertTrue(queue.offer(100 + i, i, i * 0.25));
+    }
+    // Full - dropped instead of blocking (channel without a latest value slot)
+    assertFalse(queue.offer(200, InputEventQueue.COALESCED_CHANNELS, 1.0));
+    assertEquals(1, queue.getDropped());
+    assertEquals(4, queue.size());
+
+    assertEquals(3, queue.drain(rec, 3));
+    assertEquals(102, rec.nanos);
+    assertEquals(2, rec.channel);
+    assertEquals(0.5, rec.value);
+
+    // Wraps around the end of the ring
+    assertTrue(queue.offer(104, 4, -1.0));
+    assertEquals(2, queue.drain(rec));
+    assertEquals(5, rec.count);
+    assertEquals(104, rec.nanos);
+    assertEquals(4, rec.channel);
+    assertEquals(-1.0, rec.value);
+    assertTrue(queue.isEmpty());
+  }
+
+  public void testTwoThreads() throws InterruptedException {
+    final int total = 1000000;
+    final InputEventQueue queue = new InputEventQueue(64);
+    Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < total; i++) {
+          // Channels without a latest value slot, so nothing is coalesced
+          while (!queue.offer(i, InputEventQueue.COALESCED_CHANNELS + (i & 3), i)) {
+            Thread.yield();
+          }
+        }
+      }
+    });
+    final long[] expected = new long[1];
+    final boolean[] inOrder = {true};
+    InputEventHandler checker = new InputEventHandler() {
+      @Override
+      public void inputEvent(long nanos, int channel, double value) {
+        long i = expected[0]++;
+        if (nanos != i || channel != InputEventQueue.COALESCED_CHANNELS + (i & 3) || value != i) {
+          inOrder[0] = false;
+        }
+      }
+    };
+    producer.start();
+    long deadline = System.nanoTime() + 30000000000L;
+    while (expected[0] < total && System.nanoTime() < deadline) {
+      if (queue.drain(checker) == 0) {
+        Thread.yield();
+      }
+    }
+    producer.join();
+    assertEquals(total, expected[0]);
+    assertTrue(inOrder[0]);
+  }
+
+  public void testFullKeepsLatest() {
+    InputEventQueue queue = new InputEventQueue(2);
+    Recorder rec = new Recorder();
+    // Stick pushed while the control thread is stalled
+    assertTrue(queue.offer(1, 0, 0.25));
+    assertTrue(queue.offer(2, 0, 0.5));
+    assertTrue(queue.offer(3, 0, 0.75));
+    assertTrue(queue.offer(4, 1, -1.0));
+    // Released - must not be lost
+    assertTrue(queue.offer(5, 0, 0.0));
+    assertEquals(0, queue.getDropped());
+    assertEquals(3, queue.getCoalesced());
+    assertEquals(4, queue.size());
+
+    // Space frees up, but newer records wait behind the latest values
+    assertEquals(1, queue.drain(rec, 1));
+    assertTrue(queue.offer(6, 1, 0.0));
+    assertEquals(4, queue.getCoalesced());
+    assertEquals(3, queue.drain(rec));
+    assertEquals(6, rec.nanos);
+    assertEquals(1, rec.channel);
+    assertEquals(0.0, rec.value);
+    assertTrue(queue.isEmpty());
+
+    // Caught up, back to the ring
+    assertTrue(queue.offer(7, 0, 0.5));
+    assertEquals(4, queue.getCoalesced());
+    assertEquals(1, queue.drain(rec));
+    assertEquals(0.5, rec.value);
+  }
+
+  public void testTwoThreadsCoalesced() throws InterruptedException {
+    final int total = 1000000;
+    final InputEventQueue queue = new InputEventQueue(16);
+    Thread producer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < total; i++) {
+          queue.offer(i, i & 3, i);
+        }
+      }
+    });
+    final double[] latest = {-1, -1, -1, -1};
+    final boolean[] inOrder = {true};
+    InputEventHandler checker = new InputEventHandler() {
+      @Override
+      public void inputEvent(long nanos, int channel, double value) {
+        // Values of a channel may repeat or be skipped, but never go back
+        if (value < latest[channel] || nanos != (long) value || ((long) value & 3) != channel) {
+          inOrder[0] = false;
+        }
+        latest[channel] = value;
+      }
+    };
+    producer.start();
+    producer.join();
+    queue.drain(checker);
+    long deadline = System.nanoTime() + 30000000000L;
+    while (latest[3] < total - 1 && System.nanoTime() < deadline) {
+      queue.drain(checker);
+    }
+    assertTrue(inOrder[0]);
+    assertEquals(0, queue.getDropped());
+    // The last value of every channel arrives
+    for (int c = 0; c < 4; c++) {
+      assertEquals((double) (total - 4 + c), latest[c]);
+    }
+  }
+
+}
@@ -0,0 +1,110 @@
+package com.techhounds.gui;
+
+import java.awt.event.InputEvent;
+import java.awt.event.MouseEvent;
+
+import junit.framework.TestCase;
+
+public class InputFrameTest extends TestCase {
+
+  private static final class Recorder implements InputFrameListener {
+    private int updates;
+    private double x;
+    private double y;
+
+    @Override
+    public void frameUpdated(InputFrame frame) {
+      updates++;
+      x = frame.getPosition(0);
+      y = frame.getPosition(1);
+    }
+  }
+
+  public void testSingleAxisUpdates() {
+    Axis x = new Axis();
+    Axis y = new Axis();
+    InputFrame frame = new InputFrame(x, y);
+    Recorder rec = new Recorder();
+    frame.addFrameListener(rec);
+    frame.addFrameListener(rec);
+    x.setPosition(0.5);
+    assertEquals(1, rec.updates);
+    assertEquals(0.5, rec.x);
+    // No change - no update
+    x.setPosition(0.5);
+    assertEquals(1, rec.updates);
+    y.setPosition(-0.5);
+    assertEquals(2, rec.updates);
+    assertEquals(2, frame.getUpdateCount());
+  }
+
+  public void testCoalesced() {
+    Axis x = new Axis();
+    Axis y = new Axis();
+    Axis rot = new Axis();
+    InputFrame frame = new InputFrame(x, y, rot);
+    assertEquals(3, frame.size());
+    assertSame(rot, frame.getAxis(2));
+    Recorder rec = new Recorder();
+    frame.addFrameListener(rec);
+
+    frame.begin();
+    x.setPosition(0.25);
+    frame.begin();
+    y.setPosition(0.75);
+    rot.setPosition(1);
+    frame.end();
+    assertEquals(0, rec.updates);
+    frame.end();
+    // Both axes visible in the one update
+    assertEquals(1, rec.updates);
+    assertEquals(0.25, rec.x);
+    assertEquals(0.75, rec.y);
+
+    // Nothing changed - no update
+    frame.begin();
+    x.setPosition(0.25);
+    frame.end();
+    assertEquals(1, rec.updates);
+
+    frame.zero();
+    assertEquals(2, rec.updates);
+    assertEquals(0.0, rot.getPosition());
+
+    frame.removeFrameListener(rec);
+    x.setPosition(1);
+    assertEquals(2, rec.updates);
+    try {
+      frame.end();
+      fail("Expected IllegalStateException");
+    } catch (IllegalStateException e) {
+      // Expected
+    }
+  }
+
+  public void testWidgetMouseMoveIsOneUpdate() {
+    AxisWidget widget = new AxisWidget();
+    Recorder rec = new Recorder();
+    widget.getInputFrame().addFrameListener(rec);
+    // Shift click jumps to the position (moving both axes)
+    MouseEvent click = new MouseEvent(widget, MouseEvent.MOUSE_CLICKED, 0, InputEvent.SHIFT_DOWN_MASK, 150, 50, 1,
+        false);
+    widget.mouseClicked(click);
+    assertEquals(1, rec.updates);
+    assertEquals(0.5, rec.x, 0.01);
+    assertEquals(-0.5, rec.y, 0.01);
+
+    // Shared frame with another axis
+    Axis rot = new Axis();
+    InputFrame shared = new InputFrame(widget.getAxisX(), widget.getAxisY(), rot);
+    widget.setInputFrame(shared);
+    Recorder sharedRec = new Recorder();
+    shared.addFrameListener(sharedRec);
+    widget.mouseClicked(new MouseEvent(widget, MouseEvent.MOUSE_CLICKED, 0, InputEvent.SHIFT_DOWN_MASK, 50, 150, 1,
+        false));
+    assertEquals(1, sharedRec.updates);
+    assertEquals(-0.5, sharedRec.x, 0.01);
+    assertEquals(0.5, sharedRec.y, 0.01);
+  }
+
+}
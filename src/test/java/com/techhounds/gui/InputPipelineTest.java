@@ -0,0 +1,116 @@
+package com.techhounds.gui;
+
+import com.techhounds.metrics.Allocations;
+import junit.framework.TestCase;
+
+public class InputPipelineTest extends TestCase {
+
+  private static final double TOLERANCE = 1e-12;
+
+  public void testDeadband() {
+    Deadband db = new Deadband(0.1);
+    assertEquals(0.0, db.apply(0.05, 0), TOLERANCE);
+    assertEquals(0.0, db.apply(-0.09, 0), TOLERANCE);
+    assertEquals(0.5, db.apply(0.55, 0), TOLERANCE);
+    assertEquals(-1.0, db.apply(-1.0, 0), TOLERANCE);
+    assertEquals(0.3, new Deadband(0).apply(0.3, 0), TOLERANCE);
+    // Shared with DriveCommand (no range check there)
+    assertEquals(db.apply(-0.7, 0), Deadband.applyDeadband(-0.7, 0.1));
+    try {
+      new Deadband(1.0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  public void testExpo() {
+    ExpoCurve expo = new ExpoCurve(0.5);
+    assertEquals(0.0, expo.apply(0, 0), TOLERANCE);
+    assertEquals(1.0, expo.apply(1.0, 0), TOLERANCE);
+    assertEquals(-1.0, expo.apply(-1.0, 0), TOLERANCE);
+    assertEquals(0.5 * 0.5 + 0.5 * 0.125, expo.apply(0.5, 0), TOLERANCE);
+    // Linear when expo is 0
+    assertEquals(0.3, new ExpoCurve(0).apply(0.3, 0), TOLERANCE);
+  }
+
+  public void testSlewRateLimiter() {
+    SlewRateLimiter slew = new SlewRateLimiter(2.0);
+    assertEquals(0.2, slew.apply(1.0, 0.1), TOLERANCE);
+    assertEquals(0.4, slew.apply(1.0, 0.1), TOLERANCE);
+    assertEquals(1.0, slew.apply(1.0, 1.0), TOLERANCE);
+    assertEquals(0.9, slew.apply(0.9, 0.1), TOLERANCE);
+    assertEquals(0.7, slew.apply(-1.0, 0.1), TOLERANCE);
+    slew.reset();
+    assertEquals(-0.02, slew.apply(-1.0, 0.01), TOLERANCE);
+  }
+
+  public void testLowPass() {
+    LowPassFilter lp = new LowPassFilter(0.1);
+    assertEquals(0.5, lp.apply(1.0, 0.1), TOLERANCE);
+    assertEquals(0.75, lp.apply(1.0, 0.1), TOLERANCE);
+    // No elapsed time - no change
+    assertEquals(0.75, lp.apply(0.0, 0), TOLERANCE);
+    lp.reset();
+    assertEquals(0.0, lp.apply(0.0, 0.1), TOLERANCE);
+    // Time constant of 0 passes values through
+    assertEquals(0.3, new LowPassFilter(0).apply(0.3, 0.01), TOLERANCE);
+  }
+
+  public void testPipeline() {
+    InputPipeline pipeline = new InputPipeline(new Deadband(0.1), new ExpoCurve(1.0), new SlewRateLimiter(1.0));
+    assertEquals(3, pipeline.size());
+    // Deadband rescales 0.55 to 0.5, cubed 0.125 and the first update has no elapsed time
+    long t = 1000000000L;
+    assertEquals(0.0, pipeline.update(0.55, t), TOLERANCE);
+    assertEquals(0.1, pipeline.update(0.55, t + 100000000L), TOLERANCE);
+    assertEquals(0.125, pipeline.update(0.55, t + 1000000000L), TOLERANCE);
+    assertEquals(0.125, pipeline.getOutput(), TOLERANCE);
+    pipeline.reset();
+    assertEquals(0.0, pipeline.getOutput(), TOLERANCE);
+    assertEquals(0.0, pipeline.update(1.0, t), TOLERANCE);
+  }
+
+  public void testPipelineClamps() {
+    InputPipeline pipeline = new InputPipeline(new InputFilter() {
+      @Override
+      public double apply(double value, double dt) {
+        return value * 3;
+      }
+
+      @Override
+      public void reset() {
+      }
+    });
+    assertEquals(1.0, pipeline.apply(0.5, 0), TOLERANCE);
+    assertEquals(-1.0, pipeline.apply(-0.5, 0), TOLERANCE);
+    assertEquals(0.5, new InputPipeline().apply(0.5, 0), TOLERANCE);
+  }
+
+  public void testPipelineStagesCopied() {
+    InputFilter[] stages = {new ExpoCurve(0)};
+    InputPipeline pipeline = new InputPipeline(stages);
+    stages[0] = new ExpoCurve(1.0);
+    assertEquals(0.5, pipeline.apply(0.5, 0), TOLERANCE);
+    try {
+      new InputPipeline(new Deadband(0), null);
+      fail("Expected NullPointerException");
+    } catch (NullPointerException e) {
+      // Expected
+    }
+  }
+
+  public void testNoAllocation() {
+    final InputPipeline pipeline = new InputPipeline(new Deadband(0.05), new ExpoCurve(0.3),
+        new SlewRateLimiter(4.0), new LowPassFilter(0.02));
+    Allocations.assertNone(new Runnable() {
+      private long nanos;
+
+      @Override
+      public void run() {
+        nanos += 1000000;
+        pipeline.update(Math.sin(nanos * 1e-9), nanos);
+      }
+    });
+  }
+}
@@ -0,0 +1,34 @@
+package com.techhounds.math;
+
+import junit.framework.TestCase;
+
+public class CholeskyDecompositionTest extends TestCase {
+
+  private static final double TOLERANCE = 1e-9;
+
+  public void testSolve() {
+    Matrix a = new Matrix(3, 3, 4, 12, -16, 12, 37, -43, -16, -43, 98);
+    Matrix x = new Matrix(3, 2, 1, -1, 2, 0.5, 3, 4);
+    Matrix b = Matrix.multiply(a, x, new Matrix(3, 2));
+    CholeskyDecomposition chol = new CholeskyDecomposition(3);
+    assertTrue(chol.decompose(a));
+    assertTrue(chol.isValid());
+    // Solve in place
+    chol.solve(b, b);
+    for (int i = 0; i < 6; i++) {
+      assertEquals(x.getData()[i], b.getData()[i], TOLERANCE);
+    }
+  }
+
+  public void testNotPositiveDefinite() {
+    CholeskyDecomposition chol = new CholeskyDecomposition(2);
+    assertFalse(chol.decompose(new Matrix(2, 2, 1, 2, 2, 1)));
+    try {
+      chol.solve(new Matrix(2, 1), new Matrix(2, 1));
+      fail("Expected solve to be rejected");
+    } catch (IllegalStateException e) {
+      // expected
+    }
+  }
+
+}
@@ -0,0 +1,81 @@
+package com.techhounds.math;
+
+import junit.framework.TestCase;
+
+public class FastTrigTest extends TestCase {
+
+  private static final FastTrig trig = new FastTrig();
+
+  private static final double[] SPECIAL = {0.0, -0.0, 1.0, -1.0, Double.MIN_VALUE, -Double.MIN_VALUE, 1e-300, 1e300, -1e300,
+                                           Double.POSITIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NaN};
+
+  public void testSinCos() {
+    double maxErr = 0;
+    int n = 2000000;
+    double range = 20 * Math.PI;
+    for (int i = 0; i <= n; i++) {
+      double a = -range + (2 * range * i) / n;
+      maxErr = Math.max(maxErr, Math.abs(Math.sin(a) - trig.sin(a)));
+      maxErr = Math.max(maxErr, Math.abs(Math.cos(a) - trig.cos(a)));
+    }
+    assertTrue("Max error: " + maxErr, maxErr <= FastTrig.MAX_SIN_COS_ERROR);
+  }
+
+  public void testSinCosLarge() {
+    double[] angles = {FastTrig.REDUCE_LIMIT * 0.999, -FastTrig.REDUCE_LIMIT * 0.999, FastTrig.REDUCE_LIMIT * 2, 1e9, -1e9};
+    for (double a : angles) {
+      assertEquals(Math.sin(a), trig.sin(a), FastTrig.MAX_SIN_COS_ERROR);
+      assertEquals(Math.cos(a), trig.cos(a), FastTrig.MAX_SIN_COS_ERROR);
+    }
+  }
+
+  public void testAtan2() {
+    double maxErr = 0;
+    int n = 4000;
+    for (int i = 0; i <= n; i++) {
+      // Points around circles of several sizes and along axes
+      double a = -Math.PI + (2 * Math.PI * i) / n;
+      double[] radii = {1e-6, 0.5, 1.0, 37.0, 1e6};
+      for (double r : radii) {
+        double x = r * Math.cos(a);
+        double y = r * Math.sin(a);
+        maxErr = Math.max(maxErr, Math.abs(Math.atan2(y, x) - trig.atan2(y, x)));
+      }
+    }
+    assertTrue("Max error: " + maxErr, maxErr <= FastTrig.MAX_ATAN2_ERROR);
+  }
+
+  public void testAtan2Special() {
+    for (double y : SPECIAL) {
+      for (double x : SPECIAL) {
+        double exp = Math.atan2(y, x);
+        double got = trig.atan2(y, x);
+        if (Double.isNaN(exp)) {
+          assertTrue(Double.isNaN(got));
+        } else {
+          assertEquals("atan2(" + y + ", " + x + ")", exp, got, FastTrig.MAX_ATAN2_ERROR);
+          // Sign must always match (matters for shortest path decisions)
+          assertEquals(Math.copySign(1.0, exp), Math.copySign(1.0, got));
+        }
+      }
+    }
+  }
+
+  public void testTrigProvider() {
+    TrigProvider orig = Trig.getProvider();
+    try {
+      Trig.setFast(true);
+      assertTrue(Trig.isFast());
+      assertSame(Trig.FAST, Trig.getProvider());
+      assertEquals(trig.atan2(1, 3), CartesianPoint.computeTheta(3, 1));
+      assertEquals(trig.cos(0.3) * 2, new PolarPoint(2, 0.3).computeX());
+      Trig.setFast(false);
+      assertFalse(Trig.isFast());
+      assertEquals(Math.atan2(1, 3), CartesianPoint.computeTheta(3, 1));
+      assertEquals(Math.sin(0.3) * 2, new PolarPoint(2, 0.3).computeY());
+    } finally {
+      Trig.setProvider(orig);
+    }
+  }
+
+}
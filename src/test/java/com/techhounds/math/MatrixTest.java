@@ -0,0 +1,108 @@
+package com.techhounds.math;
+
+import com.techhounds.metrics.Allocations;
+import junit.framework.TestCase;
+
+public class MatrixTest extends TestCase {
+
+  private static final double TOLERANCE = 1e-12;
+
+  private static void assertMatrix(Matrix exp, Matrix act) {
+    assertEquals(exp.getRows(), act.getRows());
+    assertEquals(exp.getCols(), act.getCols());
+    for (int r = 0; r < exp.getRows(); r++) {
+      for (int c = 0; c < exp.getCols(); c++) {
+        assertEquals("Element " + r + ", " + c, exp.get(r, c), act.get(r, c), TOLERANCE);
+      }
+    }
+  }
+
+  public void testAccessors() {
+    Matrix m = new Matrix(2, 3, 1, 2, 3, 4, 5, 6);
+    assertEquals(2, m.getRows());
+    assertEquals(3, m.getCols());
+    assertEquals(6.0, m.get(1, 2));
+    m.set(0, 1, 9);
+    assertEquals(9.0, m.getData()[1]);
+    assertEquals("[[1.0, 9.0, 3.0]\n [4.0, 5.0, 6.0]]", m.toString());
+    assertMatrix(new Matrix(2, 3, 1, 0, 0, 0, 1, 0), m.setIdentity());
+    assertMatrix(new Matrix(2, 3), m.setZero());
+    try {
+      new Matrix(2, 2, 1, 2, 3);
+      fail("Expected rejection of wrong number of values");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testMultiply() {
+    Matrix a = new Matrix(2, 3, 1, 2, 3, 4, 5, 6);
+    Matrix b = new Matrix(3, 2, 7, 8, 9, 10, 11, 12);
+    Matrix ab = new Matrix(2, 2);
+    assertSame(ab, Matrix.multiply(a, b, ab));
+    assertMatrix(new Matrix(2, 2, 58, 64, 139, 154), ab);
+
+    // Transposed variants match multiplying by an explicit transpose
+    Matrix at = Matrix.transpose(a, new Matrix(3, 2));
+    assertMatrix(new Matrix(3, 2, 1, 4, 2, 5, 3, 6), at);
+    Matrix ata = new Matrix(3, 3);
+    assertMatrix(Matrix.multiply(at, a, new Matrix(3, 3)), Matrix.multiplyTransposeA(a, a, ata));
+    Matrix aat = new Matrix(2, 2);
+    assertMatrix(Matrix.multiply(a, at, new Matrix(2, 2)), Matrix.multiplyTransposeB(a, a, aat));
+
+    try {
+      Matrix.multiply(a, a, new Matrix(2, 3));
+      fail("Expected rejection of mismatched sizes");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      Matrix sq = new Matrix(2, 2, 1, 2, 3, 4);
+      Matrix.multiply(sq, sq, sq);
+      fail("Expected rejection of destination that is an input");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testElementWise() {
+    Matrix a = new Matrix(2, 2, 1, 2, 3, 4);
+    Matrix b = new Matrix(2, 2, 4, 3, 2, 1);
+    assertMatrix(new Matrix(2, 2, 5, 5, 5, 5), Matrix.add(a, b, new Matrix(2, 2)));
+    assertMatrix(new Matrix(2, 2, -3, -1, 1, 3), Matrix.subtract(a, b, new Matrix(2, 2)));
+    // In place
+    assertMatrix(new Matrix(2, 2, 2, 4, 6, 8), Matrix.scale(a, 2, a));
+    assertMatrix(new Matrix(2, 2, 2, 4, 6, 8), new Matrix(2, 2).set(a));
+  }
+
+  public void testSolveNoAllocation() {
+    final Matrix a = new Matrix(8, 3);
+    final Matrix b = new Matrix(8, 1);
+    final Matrix ata = new Matrix(3, 3);
+    final Matrix atb = new Matrix(3, 1);
+    final Matrix x = new Matrix(3, 1);
+    final CholeskyDecomposition chol = new CholeskyDecomposition(3);
+    final QrDecomposition qr = new QrDecomposition(8, 3);
+    for (int i = 0; i < 4; i++) {
+      a.set(i * 2, 0, 1);
+      a.set(i * 2, 2, -(i - 1.5) * 10);
+      a.set(i * 2 + 1, 1, 1);
+      a.set(i * 2 + 1, 2, (i % 2 == 0) ? 10 : -10);
+    }
+    Allocations.assertNone(new Runnable() {
+      private long tick;
+
+      @Override
+      public void run() {
+        tick++;
+        b.set((int) (tick & 7), 0, tick * 1e-3);
+        qr.decompose(a);
+        qr.solve(b, x);
+        Matrix.multiplyTransposeA(a, a, ata);
+        Matrix.multiplyTransposeA(a, b, atb);
+        chol.decompose(ata);
+        chol.solve(atb, x);
+      }
+    });
+  }
+}
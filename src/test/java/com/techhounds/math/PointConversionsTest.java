@@ -0,0 +1,101 @@
+package com.techhounds.math;
+
+import junit.framework.TestCase;
+
+public class PointConversionsTest extends TestCase {
+
+  private static final double TOLERANCE = 1.0e-12;
+
+  // Odd size so vector converter must handle a partial tail
+  private static final int COUNT = 1003;
+
+  private static double[] createRadii() {
+    double[] r = new double[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      r[i] = (i % 11) * 0.5 - 1.0;
+    }
+    return r;
+  }
+
+  private static double[] createThetas() {
+    double[] theta = new double[COUNT];
+    for (int i = 0; i < COUNT; i++) {
+      theta[i] = -Math.PI + (2 * Math.PI * i) / COUNT;
+    }
+    return theta;
+  }
+
+  private void checkToCartesian(PointConverter conv, double tolerance) {
+    double[] r = createRadii();
+    double[] theta = createThetas();
+    double[] x = new double[COUNT];
+    double[] y = new double[COUNT];
+    conv.toCartesian(r, theta, x, y, COUNT);
+    for (int i = 0; i < COUNT; i++) {
+      PolarPoint pt = new PolarPoint(r[i], theta[i]);
+      assertEquals(pt.computeX(), x[i], tolerance);
+      assertEquals(pt.computeY(), y[i], tolerance);
+    }
+  }
+
+  private void checkToPolar(PointConverter conv, double tolerance) {
+    double[] x = createRadii();
+    double[] y = createThetas();
+    double[] r = new double[COUNT];
+    double[] theta = new double[COUNT];
+    conv.toPolar(x, y, r, theta, COUNT);
+    for (int i = 0; i < COUNT; i++) {
+      CartesianPoint pt = new CartesianPoint(x[i], y[i]);
+      assertEquals(pt.computeR(), r[i], tolerance);
+      assertEquals(pt.computeTheta(), theta[i], tolerance);
+    }
+  }
+
+  public void testScalarToCartesian() {
+    checkToCartesian(PointConversions.get(false), 0.0);
+  }
+
+  public void testScalarToPolar() {
+    checkToPolar(PointConversions.get(false), 0.0);
+  }
+
+  public void testVectorToCartesian() {
+    checkToCartesian(PointConversions.get(true), TOLERANCE);
+  }
+
+  public void testVectorToPolar() {
+    checkToPolar(PointConversions.get(true), TOLERANCE);
+  }
+
+  public void testPartialCount() {
+    PointConverter conv = PointConversions.get(true);
+    double[] x = {3, 0, 0, -4, 1, 1, 1, 1, 1, 1};
+    double[] y = {4, 5, 0, 0, 1, 1, 1, 1, 1, 1};
+    double[] r = new double[x.length];
+    double[] theta = new double[x.length];
+    conv.toPolar(x, y, r, theta, 4);
+    assertEquals(5.0, r[0], TOLERANCE);
+    assertEquals(5.0, r[1], TOLERANCE);
+    assertEquals(0.0, r[2], TOLERANCE);
+    assertEquals(4.0, r[3], TOLERANCE);
+    assertEquals(Math.PI, theta[3], TOLERANCE);
+    // Values past count must not be touched
+    for (int i = 4; i < x.length; i++) {
+      assertEquals(0.0, r[i]);
+      assertEquals(0.0, theta[i]);
+    }
+  }
+
+  public void testSetUseVector() {
+    PointConverter orig = PointConversions.getDefault();
+    try {
+      PointConversions.setUseVector(false);
+      assertSame(PointConversions.get(false), PointConversions.getDefault());
+      PointConversions.setUseVector(true);
+      assertSame(PointConversions.get(PointConversions.isVectorAvailable()), PointConversions.getDefault());
+    } finally {
+      PointConversions.setUseVector(orig == PointConversions.get(true));
+    }
+  }
+
+}
@@ -0,0 +1,60 @@
+package com.techhounds.math;
+
+import junit.framework.TestCase;
+
+public class QrDecompositionTest extends TestCase {
+
+  private static final double TOLERANCE = 1e-9;
+
+  public void testSquare() {
+    Matrix a = new Matrix(3, 3, 2, -1, 0, -1, 2, -1, 0, -1, 2);
+    Matrix x = new Matrix(3, 1, 1, 2, 3);
+    Matrix b = Matrix.multiply(a, x, new Matrix(3, 1));
+    QrDecomposition qr = new QrDecomposition(3, 3);
+    assertTrue(qr.decompose(a));
+    Matrix act = qr.solve(b, new Matrix(3, 1));
+    for (int i = 0; i < 3; i++) {
+      assertEquals(x.get(i, 0), act.get(i, 0), TOLERANCE);
+    }
+  }
+
+  public void testLeastSquaresMatchesNormalEquations() {
+    // Module matrix of a 4 module robot: rows [1, 0, -py] and [0, 1, px]
+    double[][] pos = {{10, 15}, {-10, -15}, {10, -15}, {-12, 13}};
+    Matrix a = new Matrix(8, 3);
+    Matrix b = new Matrix(8, 1);
+    for (int i = 0; i < pos.length; i++) {
+      a.set(i * 2, 0, 1);
+      a.set(i * 2, 2, -pos[i][1]);
+      a.set(i * 2 + 1, 1, 1);
+      a.set(i * 2 + 1, 2, pos[i][0]);
+      // Noisy module velocities
+      b.set(i * 2, 0, 0.5 + 0.01 * i);
+      b.set(i * 2 + 1, 0, -0.25 - 0.02 * i);
+    }
+    QrDecomposition qr = new QrDecomposition(8, 3);
+    assertTrue(qr.decompose(a));
+    Matrix x = qr.solve(b, new Matrix(3, 1));
+
+    CholeskyDecomposition chol = new CholeskyDecomposition(3);
+    assertTrue(chol.decompose(Matrix.multiplyTransposeA(a, a, new Matrix(3, 3))));
+    Matrix exp = chol.solve(Matrix.multiplyTransposeA(a, b, new Matrix(3, 1)), new Matrix(3, 1));
+    for (int i = 0; i < 3; i++) {
+      assertEquals(exp.get(i, 0), x.get(i, 0), TOLERANCE);
+    }
+  }
+
+  public void testRankDeficient() {
+    // All modules at the center can't determine rotation
+    Matrix a = new Matrix(4, 3, 1, 0, 0, 0, 1, 0, 1, 0, 0, 0, 1, 0);
+    QrDecomposition qr = new QrDecomposition(4, 3);
+    assertFalse(qr.decompose(a));
+    try {
+      new QrDecomposition(2, 3);
+      fail("Expected rejection of under-determined size");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+}
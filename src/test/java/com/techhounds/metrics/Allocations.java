@@ -0,0 +1,126 @@
+package com.techhounds.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import junit.framework.Assert;
+
+/**
+ * Uses the per-thread allocation counter to verify that a steady state
+ * control path does not allocate any memory.
+ */
+public final class Allocations {
+
+  /** Number of times the action is run before measuring (so the JIT compiles it). */
+  private static final int WARM_UP = 20000;
+
+  /** Number of times the action is run in each measured round. */
+  private static final int ITERATIONS = 100000;
+
+  /** Most measured rounds before giving up on a round that allocates nothing. */
+  private static final int ROUNDS = 5;
+
+  /** Allocation counter (null if not available on this JVM). */
+  private static final com.sun.management.ThreadMXBean THREADS = threads();
+
+  /** Cost of taking the measurement itself. */
+  private static final long OVERHEAD = overhead();
+
+  /**
+   * No instances.
+   */
+  private Allocations() {
+  }
+
+  /**
+   * Helper method to enable the per-thread allocation counter.
+   *
+   * @return The counter (null if this JVM can't count allocations).
+   */
+  private static com.sun.management.ThreadMXBean threads() {
+    java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+    if (bean instanceof com.sun.management.ThreadMXBean) {
+      com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) bean;
+      if (threads.isThreadAllocatedMemorySupported()) {
+        threads.setThreadAllocatedMemoryEnabled(true);
+        return threads;
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Helper method to measure the bytes allocated by taking a measurement.
+   *
+   * @return Smallest number of bytes reported for an action that does
+   *         nothing.
+   */
+  private static long overhead() {
+    if (THREADS == null) {
+      return 0;
+    }
+    long overhead = Long.MAX_VALUE;
+    for (int i = 0; i < 10; i++) {
+      overhead = Math.min(overhead, measure(new Runnable() {
+        @Override
+        public void run() {
+        }
+      }));
+    }
+    return overhead;
+  }
+
+  /**
+   * Get the number of bytes the current thread has allocated.
+   *
+   * @return Total bytes allocated so far.
+   */
+  private static long allocatedBytes() {
+    return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+  }
+
+  /**
+   * Helper method to count the bytes allocated by an action.
+   *
+   * @param action
+   *          The action to run once.
+   * @return Bytes the current thread allocated while running it.
+   */
+  private static long measure(Runnable action) {
+    long start = allocatedBytes();
+    action.run();
+    return allocatedBytes() - start;
+  }
+
+  /**
+   * Warms up an action and then fails unless repeating it allocates nothing
+   * (passes without checking if the JVM can't count allocations).
+   *
+   * @param tick
+   *          The steady state action to check.
+   */
+  public static void assertNone(final Runnable tick) {
+    if (THREADS == null) {
+      // Allocation counting not available on this JVM
+      return;
+    }
+    for (int i = 0; i < WARM_UP; i++) {
+      tick.run();
+    }
+    Runnable loop = new Runnable() {
+      @Override
+      public void run() {
+        for (int i = 0; i < ITERATIONS; i++) {
+          tick.run();
+        }
+      }
+    };
+    // The JIT can still make a one time allocation (while compiling the path)
+    // in the first rounds - garbage per tick would show up in every round
+    long allocated = Long.MAX_VALUE;
+    for (int round = 0; round < ROUNDS && allocated != 0; round++) {
+      allocated = measure(loop) - OVERHEAD;
+    }
+    Assert.assertEquals(0, allocated);
+  }
+
+}
@@ -0,0 +1,92 @@
+package com.techhounds.metrics;
+
+import java.io.File;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.techhounds.swerve.Fixtures;
+import com.techhounds.swerve.SwerveWheels;
+import com.techhounds.swerve.sim.DriveCommand;
+import com.techhounds.swerve.sim.SwerveController;
+import com.techhounds.swerve.sim.SwerveSimulation;
+
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import junit.framework.TestCase;
+
+public class FlightEventsTest extends TestCase {
+
+  private static final int TICKS = 100;
+
+  // Drive forward then backward on alternate ticks so the wheels reverse
+  private static final SwerveController FLIP = new SwerveController() {
+    @Override
+    public void update(long tick, double time, DriveCommand dst) {
+      dst.set(0, ((tick & 1) == 0) ? 1 : -1, 0);
+    }
+  };
+
+  public void testNotRecording() {
+    assertFalse(FlightEvents.isRecording());
+    // Safe to call even with no recording running
+    FlightEvents.endControlTick(null, 0, 4);
+    FlightEvents.reversal(1, Math.PI, -1);
+  }
+
+  public void testEvents() throws IOException {
+    if (!FlightEvents.isAvailable()) {
+      // Built without the JDK 17 sources
+      return;
+    }
+    SwerveWheels wheels = Fixtures.createWheels(new double[][] {{10, 15}, {-10, -15}});
+    SwerveSimulation sim = new SwerveSimulation(wheels, FLIP, 1000);
+    wheels.setTurn(0, 5);
+
+    File file = File.createTempFile("flight", ".jfr");
+    Recording recording = new Recording();
+    try {
+      recording.enable(FlightEvents.CONTROL_TICK);
+      recording.enable(FlightEvents.WHEELS_APPLY);
+      recording.enable(FlightEvents.WHEEL_REVERSAL);
+      recording.start();
+      assertTrue(FlightEvents.isRecording());
+      // Straighten the wheels back out (one recompute)
+      wheels.setTurn(0, 0);
+      sim.run(TICKS);
+      recording.stop();
+      assertFalse(FlightEvents.isRecording());
+      recording.dump(file.toPath());
+
+      Map<String, Integer> counts = new HashMap<String, Integer>();
+      Duration ticking = Duration.ZERO;
+      for (RecordedEvent e : RecordingFile.readAllEvents(file.toPath())) {
+        String name = e.getEventType().getName();
+        Integer n = counts.get(name);
+        counts.put(name, (n == null) ? 1 : n + 1);
+        if (name.equals(FlightEvents.CONTROL_TICK) || name.equals(FlightEvents.WHEELS_APPLY)) {
+          assertEquals(2, e.getInt("modules"));
+          // Begun when the operation started, so JFR has its real duration
+          assertFalse(e.getDuration().isNegative());
+          assertEquals(e.getEndTime(), e.getStartTime().plus(e.getDuration()));
+          ticking = ticking.plus(e.getDuration());
+        } else if (name.equals(FlightEvents.WHEEL_REVERSAL)) {
+          assertEquals(1, e.getInt("modules"));
+          assertEquals(Math.PI, Math.abs(e.getDouble("shortestPath")), 1e-9);
+        }
+      }
+      assertEquals(Integer.valueOf(TICKS), counts.get(FlightEvents.CONTROL_TICK));
+      assertTrue(ticking.compareTo(Duration.ZERO) > 0);
+      assertEquals(Integer.valueOf(1), counts.get(FlightEvents.WHEELS_APPLY));
+      // Both wheels reverse on every backward tick (and are back in their
+      // original direction for the next forward tick)
+      assertEquals(Integer.valueOf(TICKS), counts.get(FlightEvents.WHEEL_REVERSAL));
+    } finally {
+      recording.close();
+      file.delete();
+    }
+  }
+
+}
@@ -0,0 +1,107 @@
+package com.techhounds.metrics;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+
+import junit.framework.TestCase;
+
+public class LatencyHistogramTest extends TestCase {
+
+  public void testBuckets() {
+    // Exact below 128, then contiguous buckets with bounded relative error
+    int last = -1;
+    for (long v = 0; v < 200000; v++) {
+      int bucket = LatencyHistogram.bucketOf(v);
+      assertTrue(bucket == last || bucket == last + 1);
+      last = bucket;
+      assertTrue(LatencyHistogram.lowestValueOf(bucket) <= v);
+      assertTrue(LatencyHistogram.highestValueOf(bucket) >= v);
+      if (v < 128) {
+        assertEquals(v, LatencyHistogram.lowestValueOf(bucket));
+      }
+    }
+    long[] big = {1L << 40, (1L << 40) + 12345, Long.MAX_VALUE};
+    for (long v : big) {
+      int bucket = LatencyHistogram.bucketOf(v);
+      long lo = LatencyHistogram.lowestValueOf(bucket);
+      long hi = LatencyHistogram.highestValueOf(bucket);
+      assertTrue(lo <= v && v <= hi);
+      assertTrue((hi - lo) / (double) lo <= 1.0 / 64);
+    }
+  }
+
+  public void testPercentiles() {
+    LatencyHistogram h = new LatencyHistogram("test");
+    assertEquals(0, h.getCount());
+    assertEquals(0, h.getP99());
+    for (long v = 1; v <= 10000; v++) {
+      h.record(v * 1000);
+    }
+    assertEquals(10000, h.getCount());
+    assertEquals(1000, h.getMin());
+    assertEquals(10000000, h.getMax());
+    assertEquals(5000500.0, h.getMean(), 1e-6);
+    assertEquals(5000000, h.getP50(), 5000000 / 64);
+    assertEquals(9000000, h.getP90(), 9000000 / 64);
+    assertEquals(9900000, h.getP99(), 9900000 / 64);
+    assertEquals(10000000, h.getValueAtPercentile(100));
+    h.record(-5);
+    assertEquals(0, h.getMin());
+    h.reset();
+    assertEquals(0, h.getCount());
+    assertEquals(0, h.getMax());
+  }
+
+  public void testStripesMerged() throws InterruptedException {
+    final LatencyHistogram h = new LatencyHistogram("stripes");
+    Thread[] threads = new Thread[8];
+    for (int t = 0; t < threads.length; t++) {
+      final long base = t * 1000;
+      threads[t] = new Thread(new Runnable() {
+        @Override
+        public void run() {
+          for (long v = 1; v <= 1000; v++) {
+            h.record(base + v);
+          }
+        }
+      });
+      threads[t].start();
+    }
+    for (Thread t : threads) {
+      t.join();
+    }
+    assertEquals(8000, h.getCount());
+    assertEquals(1, h.getMin());
+    assertEquals(8000, h.getMax());
+    assertEquals(4000.5, h.getMean(), 1e-6);
+    assertEquals(4000, h.getP50(), 4000 / 64);
+    h.reset();
+    assertEquals(0, h.getCount());
+    assertEquals(0, h.getMin());
+  }
+
+  public void testCounterAndGauge() {
+    Counter c = Metrics.counter("test.counter");
+    assertSame(c, Metrics.counter("test.counter"));
+    c.reset();
+    c.increment();
+    c.add(4);
+    assertEquals(5, c.getCount());
+    Gauge g = Metrics.gauge("test.gauge");
+    g.set(2.5);
+    assertEquals(2.5, g.getValue());
+  }
+
+  public void testMBeans() throws Exception {
+    Metrics.histogram("test.mbean").record(42);
+    MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    Metrics.registerMBeans(server);
+    // Second registration is a no-op
+    assertEquals(0, Metrics.registerMBeans(server));
+    assertEquals(1L, server.getAttribute(Metrics.objectName("Histogram", "test.mbean"), "Count"));
+    assertEquals(42L, server.getAttribute(Metrics.objectName("Histogram", "test.mbean"), "Max"));
+    assertNotNull(server.getAttribute(Metrics.objectName("Counter", "SwerveWheel.reversals"), "Count"));
+  }
+
+}
@@ -0,0 +1,41 @@
+package com.techhounds.swerve;
+
+/**
+ * Robots shared by the unit tests.
+ */
+public final class Fixtures {
+
+  /** Wheel positions of the four wheel (20 x 30 inch) robot most tests drive. */
+  public static final double[][] CORNERS = {{10, 15}, {-10, -15}, {10, -15}, {-10, 15}};
+
+  /**
+   * No instances.
+   */
+  private Fixtures() {
+  }
+
+  /**
+   * Creates the four wheel robot with a wheel at each of the {@link #CORNERS}.
+   *
+   * @return New set of wheels.
+   */
+  public static SwerveWheels createWheels() {
+    return createWheels(CORNERS);
+  }
+
+  /**
+   * Creates a robot with 4 inch diameter, 1 inch wide wheels.
+   *
+   * @param positions
+   *          The {x, y} position of each wheel.
+   * @return New set of wheels.
+   */
+  public static SwerveWheels createWheels(double[][] positions) {
+    SwerveWheels wheels = new SwerveWheels();
+    for (double[] pos : positions) {
+      wheels.add(new SwerveWheel(pos[0], pos[1], 4, 1));
+    }
+    return wheels;
+  }
+
+}
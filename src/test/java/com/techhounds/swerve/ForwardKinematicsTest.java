@@ -0,0 +1,125 @@
+package com.techhounds.swerve;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class ForwardKinematicsTest extends TestCase {
+
+  private static final double TOLERANCE = 1e-9;
+
+  private static void assertVelocity(double vx, double vy, double omega, ChassisVelocity got) {
+    assertEquals(vx, got.getVx(), TOLERANCE);
+    assertEquals(vy, got.getVy(), TOLERANCE);
+    assertEquals(omega, got.getOmega(), TOLERANCE);
+  }
+
+  public void testSolveSquare() {
+    // All modules the same distance from center
+    double r = Math.sqrt(2 * 10 * 10);
+    SwerveWheels wheels = Fixtures.createWheels(new double[][] {{10, 10}, {-10, 10}, {-10, -10}, {10, -10}});
+    ForwardKinematics fk = new ForwardKinematics(wheels);
+    assertEquals(4, fk.getModuleCount());
+    ChassisVelocity got = new ChassisVelocity();
+
+    Random rand = new Random(7);
+    for (int i = 0; i < 1000; i++) {
+      double vx = rand.nextDouble() * 2 - 1;
+      double vy = rand.nextDouble() * 2 - 1;
+      double omega = (rand.nextDouble() * 2 - 1) / r;
+      wheels.setDirection(vy, -vx, omega * r);
+      assertVelocity(vx, vy, omega, fk.solve(wheels, got));
+    }
+  }
+
+  public void testSolveAsymmetric() {
+    // Module states set directly from the physical model
+    double[][] positions = {{12, 3}, {-7, 9}, {-4, -11}, {0, 0}, {6, -2}};
+    SwerveWheels wheels = Fixtures.createWheels(positions);
+    ForwardKinematics fk = new ForwardKinematics(wheels);
+    ChassisVelocity got = new ChassisVelocity();
+    double vx = 0.3;
+    double vy = -1.2;
+    double omega = 0.05;
+    for (int i = 0; i < positions.length; i++) {
+      // Robot space module velocity rotated into wheel bearing space
+      double bx = vx - omega * positions[i][1];
+      double by = vy + omega * positions[i][0];
+      SwerveWheel wheel = wheels.getSwerveWheel(i);
+      wheel.setAxleTheta(Math.atan2(-bx, by));
+      wheel.setVelocity(Math.sqrt(bx * bx + by * by));
+    }
+    assertVelocity(vx, vy, omega, fk.solve(wheels, got));
+  }
+
+  public void testSolveFleet() {
+    SwerveWheels wheels = Fixtures.createWheels(new double[][] {{10, 15}, {-10, 15}, {-10, -15}, {10, -15}});
+    SwerveFleet fleet = new SwerveFleet();
+    fleet.addRobot(Fixtures.createWheels(new double[][] {{1, 0}, {0, 1}}));
+    int robot = fleet.addRobot(wheels);
+    ForwardKinematics fk = new ForwardKinematics(wheels);
+    ChassisVelocity exp = new ChassisVelocity();
+    ChassisVelocity got = new ChassisVelocity();
+    fleet.setDirection(0.25, -0.5, 0.75);
+    wheels.setDirection(0.25, -0.5, 0.75);
+    fk.solve(wheels, exp);
+    assertVelocity(exp.getVx(), exp.getVy(), exp.getOmega(), fk.solve(fleet, robot, got));
+  }
+
+  public void testSolveSnapshot() {
+    SwerveWheels wheels = Fixtures.createWheels(new double[][] {{10, 15}, {-10, 15}, {-10, -15}, {10, -15}});
+    ForwardKinematics fk = new ForwardKinematics(wheels);
+    ChassisVelocity exp = new ChassisVelocity();
+    ChassisVelocity got = new ChassisVelocity();
+    wheels.setDirection(-0.5, 0.25, 0.5);
+    wheels.publish();
+    fk.solve(wheels, exp);
+    assertVelocity(exp.getVx(), exp.getVy(), exp.getOmega(), fk.solve(wheels.acquireSnapshot(), got));
+  }
+
+  public void testSolveDynamics() {
+    SwerveWheels wheels = Fixtures.createWheels(new double[][] {{10, 15}, {-10, 15}, {-10, -15}, {10, -15}});
+    ForwardKinematics fk = new ForwardKinematics(wheels);
+    ModuleDynamics dynamics = new ModuleDynamics(wheels.size());
+    ChassisVelocity exp = new ChassisVelocity();
+    ChassisVelocity got = new ChassisVelocity();
+    wheels.setDirection(0.25, -0.5, 0.25);
+    // Robot hasn't started moving yet
+    assertVelocity(0, 0, 0, fk.solve(dynamics, got));
+    for (int i = 0; i < 10000; i++) {
+      dynamics.update(wheels, 0.001);
+    }
+    // Actuators have caught up to the command
+    fk.solve(wheels, exp);
+    fk.solve(dynamics, got);
+    assertEquals(exp.getVx(), got.getVx(), 1e-6);
+    assertEquals(exp.getVy(), got.getVy(), 1e-6);
+    assertEquals(exp.getOmega(), got.getOmega(), 1e-6);
+  }
+
+  public void testDegenerateGeometry() {
+    try {
+      new ForwardKinematics(new double[] {1}, new double[] {2});
+      fail("Single module can not determine rotation");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+    try {
+      new ForwardKinematics(new double[] {1, 1}, new double[] {2, 2});
+      fail("Co-located modules can not determine rotation");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testModuleCountMismatch() {
+    ForwardKinematics fk = new ForwardKinematics(new double[] {1, -1}, new double[] {0, 0});
+    try {
+      fk.solve(Fixtures.createWheels(new double[][] {{1, 0}, {-1, 0}, {0, 1}}), new ChassisVelocity());
+      fail("Expected module count check");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+}
@@ -0,0 +1,142 @@
+package com.techhounds.swerve;
+
+import com.techhounds.metrics.Allocations;
+import junit.framework.TestCase;
+
+public class ModuleDynamicsTest extends TestCase {
+
+  private static final double TOLERANCE = 1e-6;
+
+  private static final double DT = 0.001;
+
+  public void testFirstOrderSteering() {
+    ModuleDynamics dyn = new ModuleDynamics(1);
+    dyn.setSteerTimeConstant(0.1);
+    dyn.setMaxSteerRate(1000);
+    double target = 0.2;
+    // After one time constant we should be ~63% of the way there
+    for (int i = 0; i < 100; i++) {
+      dyn.update(0, target, 0, DT);
+    }
+    assertEquals(target * (1 - Math.exp(-1)), dyn.getSteerAngle(0), 1e-3);
+    for (int i = 0; i < 2000; i++) {
+      dyn.update(0, target, 0, DT);
+    }
+    assertEquals(target, dyn.getSteerAngle(0), TOLERANCE);
+  }
+
+  public void testSteerRateLimit() {
+    ModuleDynamics dyn = new ModuleDynamics(1);
+    dyn.setMaxSteerRate(Math.PI);
+    // Quarter turn at PI rad/s needs at least half a second
+    for (int i = 0; i < 250; i++) {
+      dyn.update(0, Math.PI / 2, 0, DT);
+    }
+    assertEquals(Math.PI / 4, dyn.getSteerAngle(0), TOLERANCE);
+    assertEquals(Math.PI, dyn.getSteerRate(0), TOLERANCE);
+  }
+
+  public void testSteeringWrapsShortestWay() {
+    ModuleDynamics dyn = new ModuleDynamics(1);
+    dyn.reset(0, Math.PI - 0.1, 0);
+    for (int i = 0; i < 2000; i++) {
+      dyn.update(0, -Math.PI + 0.1, 0, DT);
+      // Goes across +/-PI instead of all the way around
+      assertTrue(Math.abs(dyn.getSteerAngle(0)) > Math.PI - 0.1 - TOLERANCE);
+    }
+    assertEquals(-Math.PI + 0.1, dyn.getSteerAngle(0), TOLERANCE);
+  }
+
+  public void testSecondOrderSteering() {
+    ModuleDynamics dyn = new ModuleDynamics(1);
+    dyn.setSteerOrder(ModuleDynamics.SECOND_ORDER);
+    dyn.setSteerSpring(20, 0.3);
+    dyn.setMaxSteerRate(1000);
+    double peak = 0;
+    for (int i = 0; i < 3000; i++) {
+      dyn.update(0, 0.5, 0, DT);
+      peak = Math.max(peak, dyn.getSteerAngle(0));
+    }
+    // Under damped - overshoots and then settles
+    assertTrue(peak > 0.6);
+    assertEquals(0.5, dyn.getSteerAngle(0), TOLERANCE);
+  }
+
+  public void testDriveTorqueCurve() {
+    ModuleDynamics dyn = new ModuleDynamics(1);
+    dyn.setDriveTorqueCurve(2.0, 10);
+    dyn.setDriveCurrentLimit(100, 100);
+    // Full output from stop accelerates at stall acceleration
+    dyn.update(0, 0, 2.0, DT);
+    assertEquals(10 * DT, dyn.getDriveVelocity(0), TOLERANCE);
+    assertEquals(100, dyn.getDriveCurrent(0), TOLERANCE);
+    for (int i = 0; i < 5000; i++) {
+      dyn.update(0, 0, 2.0, DT);
+    }
+    // Approaches free speed and current drops off
+    assertEquals(2.0, dyn.getDriveVelocity(0), 1e-3);
+    assertTrue(dyn.getDriveCurrent(0) < 1);
+  }
+
+  public void testDriveCurrentLimit() {
+    ModuleDynamics dyn = new ModuleDynamics(1);
+    dyn.setDriveTorqueCurve(1.0, 20);
+    dyn.setDriveCurrentLimit(100, 25);
+    for (int i = 0; i < 10; i++) {
+      dyn.update(0, 0, 1.0, DT);
+    }
+    // Limited to 25% of stall torque
+    assertEquals(10 * 0.25 * 20 * DT, dyn.getDriveVelocity(0), TOLERANCE);
+    assertEquals(25, dyn.getDriveCurrent(0), TOLERANCE);
+  }
+
+  public void testBatchUpdate() {
+    SwerveWheels wheels = Fixtures.createWheels(new double[][] {{10, 15}, {-10, -15}, {10, -15}});
+    SwerveFleet fleet = new SwerveFleet();
+    fleet.addRobot(wheels);
+    wheels.setDirection(0.25, -0.5, 0.75);
+    fleet.setDirection(0.25, -0.5, 0.75);
+    ModuleDynamics a = new ModuleDynamics(3);
+    ModuleDynamics b = new ModuleDynamics(3);
+    ModuleDynamics c = new ModuleDynamics(3);
+    for (int t = 0; t < 100; t++) {
+      a.update(wheels, DT);
+      b.update(fleet, DT);
+      for (int i = 0; i < 3; i++) {
+        SwerveWheel wheel = wheels.getSwerveWheel(i);
+        c.update(i, wheel.getAxleTheta(), wheel.getVelocity(), DT);
+      }
+    }
+    for (int i = 0; i < 3; i++) {
+      assertEquals(c.getSteerAngle(i), a.getSteerAngle(i));
+      assertEquals(c.getDriveVelocity(i), a.getDriveVelocity(i));
+      assertEquals(c.getSteerAngle(i), b.getSteerAngle(i));
+      assertEquals(c.getDriveVelocity(i), b.getDriveVelocity(i));
+    }
+    try {
+      new ModuleDynamics(4).update(wheels, DT);
+      fail("Expected module count check");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testNoAllocation() {
+    final SwerveFleet fleet = new SwerveFleet();
+    for (int i = 0; i < 10; i++) {
+      fleet.addRobot(Fixtures.createWheels());
+    }
+    final ModuleDynamics dynamics = new ModuleDynamics(fleet.getModuleCount());
+    dynamics.setSteerOrder(ModuleDynamics.SECOND_ORDER);
+    Allocations.assertNone(new Runnable() {
+      private double t;
+
+      @Override
+      public void run() {
+        t += 0.001;
+        fleet.setDirection(Math.cos(t), Math.sin(t), 0.5);
+        dynamics.update(fleet, 0.001);
+      }
+    });
+  }
+}
@@ -0,0 +1,122 @@
+package com.techhounds.swerve;
+
+import com.techhounds.math.Matrix;
+import com.techhounds.metrics.Allocations;
+import com.techhounds.swerve.sim.GyroModel;
+import junit.framework.TestCase;
+
+public class PoseEstimatorTest extends TestCase {
+
+  private static final double TOLERANCE = 1e-9;
+
+  private static final double DT = 0.001;
+
+  private static ForwardKinematics createKinematics() {
+    return new ForwardKinematics(new double[] {10, -10, -10, 10}, new double[] {10, 10, -10, -10});
+  }
+
+  public void testPredictMatchesOdometry() {
+    ForwardKinematics kinematics = createKinematics();
+    PoseEstimator estimator = new PoseEstimator(kinematics);
+    SwerveOdometry odom = new SwerveOdometry(kinematics);
+    estimator.reset(1, 2, 0.5);
+    odom.reset(1, 2, 0.5);
+    for (int i = 0; i < 2000; i++) {
+      double t = i * DT;
+      estimator.predict(Math.cos(t), 2.0, Math.sin(t), DT);
+      odom.update(Math.cos(t), 2.0, Math.sin(t), DT);
+    }
+    assertEquals(odom.getX(), estimator.getX(), TOLERANCE);
+    assertEquals(odom.getY(), estimator.getY(), TOLERANCE);
+    assertEquals(odom.getHeading(), estimator.getHeading(), TOLERANCE);
+  }
+
+  public void testVarianceGrowsAndShrinks() {
+    PoseEstimator estimator = new PoseEstimator(createKinematics());
+    assertEquals(0.0, estimator.getVariance(PoseEstimator.HEADING), 0);
+    for (int i = 0; i < 100; i++) {
+      estimator.predict(0, 2.0, 1.0, DT);
+    }
+    double x = estimator.getVariance(PoseEstimator.X);
+    double heading = estimator.getVariance(PoseEstimator.HEADING);
+    assertTrue(x > 0);
+    assertTrue(heading > 0);
+    estimator.correctHeading(estimator.getHeading());
+    assertTrue(estimator.getVariance(PoseEstimator.HEADING) < heading);
+    assertTrue(estimator.getVariance(PoseEstimator.X) <= x);
+
+    // Covariance stays symmetric
+    Matrix p = estimator.getCovariance(new Matrix(3, 3));
+    for (int r = 0; r < 3; r++) {
+      for (int c = 0; c < r; c++) {
+        assertEquals(p.get(r, c), p.get(c, r), 1e-15);
+      }
+    }
+
+    estimator.reset(0, 0, 0);
+    assertEquals(0.0, estimator.getVariance(PoseEstimator.X), 0);
+  }
+
+  public void testGyroCorrectsHeadingBias() {
+    // Odometry thinks the robot turns 5% faster than it does
+    double omega = 0.5;
+    double v = 2.0;
+    PoseEstimator estimator = new PoseEstimator(createKinematics());
+    estimator.setGyroNoise(0.01);
+    SwerveOdometry truth = new SwerveOdometry(createKinematics());
+    SwerveOdometry raw = new SwerveOdometry(createKinematics());
+    GyroModel gyro = new GyroModel(0.01, 0, 7);
+    for (int i = 0; i < 10000; i++) {
+      truth.update(0, v, omega, DT);
+      raw.update(0, v, omega * 1.05, DT);
+      estimator.predict(0, v, omega * 1.05, DT);
+      estimator.correctHeading(gyro.measure(truth.getHeading(), DT));
+    }
+    double rawError = Math.hypot(raw.getX() - truth.getX(), raw.getY() - truth.getY());
+    double error = Math.hypot(estimator.getX() - truth.getX(), estimator.getY() - truth.getY());
+    assertTrue("Heading error " + (estimator.getHeading() - truth.getHeading()),
+        Math.abs(estimator.getHeading() - truth.getHeading()) < 0.02);
+    assertTrue("Error " + error + " not less than " + rawError, error < rawError / 5);
+  }
+
+  public void testGyroWrapsAround() {
+    PoseEstimator estimator = new PoseEstimator(createKinematics());
+    estimator.reset(0, 0, Math.PI - 0.01);
+    estimator.predict(0, 0, 0, 1.0);
+    // Gyro reads just past +PI (reported as close to -PI)
+    estimator.correctHeading(-Math.PI + 0.01);
+    assertTrue(Math.abs(estimator.getHeading()) > Math.PI - 0.02);
+  }
+
+  public void testBadNoise() {
+    PoseEstimator estimator = new PoseEstimator(createKinematics());
+    try {
+      estimator.setGyroNoise(0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+    try {
+      estimator.setProcessNoise(-1, 0, 0);
+      fail("Expected IllegalArgumentException");
+    } catch (IllegalArgumentException e) {
+      // Expected
+    }
+  }
+
+  public void testNoAllocation() {
+    final SwerveWheels wheels = Fixtures.createWheels();
+    final PoseEstimator estimator = new PoseEstimator(new ForwardKinematics(wheels));
+    final GyroModel gyro = new GyroModel(0.01, 0.001, 42);
+    Allocations.assertNone(new Runnable() {
+      private double t;
+
+      @Override
+      public void run() {
+        t += 0.001;
+        wheels.setDirection(Math.cos(t), Math.sin(t), 0.5);
+        estimator.update(wheels, gyro.measure(t * 0.5, 0.001), 0.001);
+      }
+    });
+  }
+}
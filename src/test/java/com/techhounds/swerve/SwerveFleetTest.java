@@ -0,0 +1,136 @@
+package com.techhounds.swerve;
+
+import java.util.Random;
+
+import junit.framework.TestCase;
+
+public class SwerveFleetTest extends TestCase {
+
+  private static final double[][] ROBOT_A = {{10, 15}, {-10, -15}, {10, -15}, {-10, 15}};
+
+  private static final double[][] ROBOT_B = {{12, 0}, {-6, 10.4}, {-6, -10.4}};
+
+  private static final double[][] ROBOT_C = {{0, 0}, {5, 5}, {-5, 5}, {-5, -5}, {5, -5}, {7, 0}, {0, 7}, {-7, 0}};
+
+  private static final double[][][] ROBOTS = {ROBOT_A, ROBOT_B, ROBOT_C};
+
+  public void testAddRobot() {
+    SwerveFleet fleet = new SwerveFleet(1, 1);
+    for (double[][] robot : ROBOTS) {
+      fleet.addRobot(Fixtures.createWheels(robot));
+    }
+    assertEquals(ROBOTS.length, fleet.getRobotCount());
+    int m = 0;
+    for (int r = 0; r < ROBOTS.length; r++) {
+      assertEquals(m, fleet.getModuleStart(r));
+      assertEquals(ROBOTS[r].length, fleet.getModuleCount(r));
+      for (double[] pos : ROBOTS[r]) {
+        assertEquals(pos[0], fleet.getModuleX(m));
+        assertEquals(pos[1], fleet.getModuleY(m));
+        assertEquals(1.0, fleet.getVelocity(m));
+        assertEquals(0.0, fleet.getAxleTheta(m));
+        m++;
+      }
+    }
+    assertEquals(m, fleet.getModuleCount());
+  }
+
+  public void testSetModulePosition() {
+    SwerveFleet fleet = new SwerveFleet();
+    int robot = fleet.addRobot(ROBOT_B.length);
+    SwerveWheels exp = Fixtures.createWheels(ROBOT_B);
+    for (int i = 0; i < ROBOT_B.length; i++) {
+      fleet.setModulePosition(fleet.getModuleStart(robot) + i, ROBOT_B[i][0], ROBOT_B[i][1]);
+    }
+    fleet.setDirection(0.25, -0.5, 0.75);
+    exp.setDirection(0.25, -0.5, 0.75);
+    for (int i = 0; i < ROBOT_B.length; i++) {
+      assertEquals(exp.getSwerveWheel(i).getAxleTheta(), fleet.getAxleTheta(i));
+      assertEquals(exp.getSwerveWheel(i).getVelocity(), fleet.getVelocity(i));
+    }
+  }
+
+  public void testSetDirectionMatchesPerObject() {
+    int copies = 50;
+    SwerveFleet fleet = new SwerveFleet();
+    SwerveWheels[] expected = new SwerveWheels[copies * ROBOTS.length];
+    for (int i = 0; i < expected.length; i++) {
+      expected[i] = Fixtures.createWheels(ROBOTS[i % ROBOTS.length]);
+      assertEquals(i, fleet.addRobot(expected[i]));
+    }
+
+    Random rand = new Random(1234);
+    for (int step = 0; step < 500; step++) {
+      for (int r = 0; r < expected.length; r++) {
+        double ux = rand.nextDouble() * 2 - 1;
+        double uy = rand.nextDouble() * 2 - 1;
+        // Include some pure translation and stopped commands
+        double rot = (step % 5 == 0) ? 0 : rand.nextDouble() * 2 - 1;
+        if (step % 7 == 0) {
+          ux = 0;
+          uy = 0;
+        }
+        fleet.setCommand(r, ux, uy, rot);
+        expected[r].setDirection(ux, uy, rot);
+      }
+      fleet.setDirection();
+
+      for (int r = 0; r < expected.length; r++) {
+        int m = fleet.getModuleStart(r);
+        for (int i = 0; i < fleet.getModuleCount(r); i++, m++) {
+          SwerveWheel wheel = expected[r].getSwerveWheel(i);
+          assertEquals(wheel.getAxleTheta(), fleet.getAxleTheta(m));
+          assertEquals(wheel.getVelocity(), fleet.getVelocity(m));
+        }
+      }
+    }
+  }
+
+  public void testReverseThresholdMatchesPerObject() {
+    SwerveFleet fleet = new SwerveFleet();
+    SwerveWheels expected = Fixtures.createWheels();
+    double[] thresholds = { Math.PI / 2, 2.0, 2.8, Math.PI };
+    for (int i = 0; i < thresholds.length; i++) {
+      expected.getSwerveWheel(i).setReverseThreshold(thresholds[i]);
+    }
+    fleet.addRobot(expected);
+    for (int i = 0; i < thresholds.length; i++) {
+      assertEquals(thresholds[i], fleet.getReverseThreshold(i));
+    }
+
+    Random rand = new Random(99);
+    for (int step = 0; step < 2000; step++) {
+      double ux = rand.nextDouble() * 2 - 1;
+      double uy = rand.nextDouble() * 2 - 1;
+      double rot = rand.nextDouble() * 2 - 1;
+      fleet.setCommand(0, ux, uy, rot);
+      fleet.setDirection();
+      expected.setDirection(ux, uy, rot);
+      for (int i = 0; i < thresholds.length; i++) {
+        SwerveWheel wheel = expected.getSwerveWheel(i);
+        assertEquals(wheel.getAxleTheta(), fleet.getAxleTheta(i));
+        assertEquals(wheel.getVelocity(), fleet.getVelocity(i));
+      }
+    }
+
+    try {
+      fleet.setReverseThreshold(0, 1.0);
+      fail("Expected rejection of threshold below PI / 2");
+    } catch (IllegalArgumentException e) {
+      assertEquals(thresholds[0], fleet.getReverseThreshold(0));
+    }
+  }
+
+  public void testCopyTo() {
+    SwerveFleet fleet = new SwerveFleet();
+    int robot = fleet.addRobot(Fixtures.createWheels(ROBOT_A));
+    fleet.setDirection(0, 0, 1.0);
+    SwerveWheels dst = Fixtures.createWheels(ROBOT_A);
+    fleet.copyTo(robot, dst);
+    for (int i = 0; i < ROBOT_A.length; i++) {
+      assertEquals(fleet.getAxleTheta(i), dst.getSwerveWheel(i).getAxleTheta());
+      assertEquals(fleet.getVelocity(i), dst.getSwerveWheel(i).getVelocity());
+    }
+  }
+
+}
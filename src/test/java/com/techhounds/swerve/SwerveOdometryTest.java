@@ -0,0 +1,96 @@
+package com.techhounds.swerve;
+
+import com.techhounds.metrics.Allocations;
+import junit.framework.TestCase;
+
+public class SwerveOdometryTest extends TestCase {
+
+  private static final double TOLERANCE = 1e-6;
+
+  private static final double DT = 0.001;
+
+  private static SwerveOdometry createOdometry() {
+    return new SwerveOdometry(new ForwardKinematics(new double[] {10, -10, -10, 10}, new double[] {10, 10, -10, -10}));
+  }
+
+  public void testStraight() {
+    SwerveOdometry odom = createOdometry();
+    for (int i = 0; i < 1000; i++) {
+      odom.update(0.5, 2.0, 0, DT);
+    }
+    assertEquals(0.5, odom.getX(), TOLERANCE);
+    assertEquals(2.0, odom.getY(), TOLERANCE);
+    assertEquals(0.0, odom.getHeading(), TOLERANCE);
+  }
+
+  public void testSpinInPlace() {
+    SwerveOdometry odom = createOdometry();
+    odom.reset(3, 4, 0);
+    for (int i = 0; i < 500; i++) {
+      odom.update(0, 0, Math.PI / 2, DT);
+    }
+    assertEquals(3.0, odom.getX(), TOLERANCE);
+    assertEquals(4.0, odom.getY(), TOLERANCE);
+    assertEquals(Math.PI / 4, odom.getHeading(), TOLERANCE);
+  }
+
+  public void testCircle() {
+    // Drive forward while turning - should trace a circle of radius v / omega
+    SwerveOdometry odom = createOdometry();
+    double v = 2.0;
+    double omega = Math.PI / 2;
+    double radius = v / omega;
+    int ticks = 4000;
+    for (int i = 0; i < ticks / 4; i++) {
+      odom.update(0, v, omega, DT);
+    }
+    // Quarter circle turning left: forward (+y) then to the left (-x)
+    assertEquals(-radius, odom.getX(), TOLERANCE);
+    assertEquals(radius, odom.getY(), TOLERANCE);
+    assertEquals(Math.PI / 2, odom.getHeading(), TOLERANCE);
+    for (int i = ticks / 4; i < ticks; i++) {
+      odom.update(0, v, omega, DT);
+    }
+    // Full circle back to start
+    assertEquals(0.0, odom.getX(), TOLERANCE);
+    assertEquals(0.0, odom.getY(), TOLERANCE);
+    assertEquals(0.0, odom.getHeading(), TOLERANCE);
+  }
+
+  public void testLargeStep() {
+    // Exponential integration is exact for constant velocity regardless of dt
+    SwerveOdometry odom = createOdometry();
+    odom.update(0, 2.0, Math.PI / 2, 1.0);
+    double radius = 2.0 / (Math.PI / 2);
+    assertEquals(-radius, odom.getX(), TOLERANCE);
+    assertEquals(radius, odom.getY(), TOLERANCE);
+  }
+
+  public void testUpdateFromWheels() {
+    SwerveWheels wheels = Fixtures.createWheels(new double[][] {{10, 10}, {-10, 10}, {-10, -10}, {10, -10}});
+    SwerveOdometry odom = new SwerveOdometry(new ForwardKinematics(wheels));
+    // Drive forward (robot space +y) at 3 units per second
+    wheels.setDirection(3, 0, 0);
+    for (int i = 0; i < 1000; i++) {
+      odom.update(wheels, DT);
+    }
+    assertEquals(0.0, odom.getX(), TOLERANCE);
+    assertEquals(3.0, odom.getY(), TOLERANCE);
+    assertEquals(3.0, odom.getVelocity().getVy(), TOLERANCE);
+  }
+
+  public void testNoAllocation() {
+    final SwerveWheels wheels = Fixtures.createWheels();
+    final SwerveOdometry odom = new SwerveOdometry(new ForwardKinematics(wheels));
+    Allocations.assertNone(new Runnable() {
+      private double t;
+
+      @Override
+      public void run() {
+        t += 0.001;
+        wheels.setDirection(Math.cos(t), Math.sin(t), 0.5);
+        odom.update(wheels, 0.001);
+      }
+    });
+  }
+}
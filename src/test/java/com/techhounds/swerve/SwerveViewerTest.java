@@ -0,0 +1,74 @@
+package com.techhounds.swerve;
+
+import java.awt.Color;
+import java.awt.Graphics2D;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+
+import junit.framework.TestCase;
+
+public class SwerveViewerTest extends TestCase {
+
+  private static SwerveViewer createViewer() {
+    SwerveViewer viewer = new SwerveViewer();
+    viewer.addWheel(new SwerveWheel(10, 15, 4, 1));
+    viewer.addWheel(new SwerveWheel(-10, -15, 4, 1));
+    viewer.addWheel(new SwerveWheel(10, -15, 4, 1));
+    viewer.addWheel(new SwerveWheel(-10, 15, 3, 1));
+    viewer.setSize(viewer.getPreferredSize());
+    return viewer;
+  }
+
+  private static int[] paint(SwerveViewer viewer) {
+    BufferedImage image = new BufferedImage(viewer.getWidth(), viewer.getHeight(), BufferedImage.TYPE_INT_RGB);
+    Graphics2D g = image.createGraphics();
+    try {
+      viewer.paintComponent(g);
+    } finally {
+      g.dispose();
+    }
+    return image.getRGB(0, 0, image.getWidth(), image.getHeight(), null, 0, image.getWidth());
+  }
+
+  public void testBufferedMatchesDirect() {
+    SwerveViewer buffered = createViewer();
+    SwerveViewer direct = createViewer();
+    direct.setBackBuffered(false);
+    assertTrue(buffered.isBackBuffered());
+    assertFalse(direct.isBackBuffered());
+
+    buffered.setDirection(0.5, 0.25, 0.25);
+    direct.setDirection(0.5, 0.25, 0.25);
+    assertTrue(Arrays.equals(paint(direct), paint(buffered)));
+
+    // Different values (labels formatted again)
+    buffered.setDirection(-0.25, 0.75, -0.5);
+    direct.setDirection(-0.25, 0.75, -0.5);
+    assertTrue(Arrays.equals(paint(direct), paint(buffered)));
+
+    // Wheel size changed (outline rebuilt)
+    buffered.getWheels().getSwerveWheel(0).setDiameter(6);
+    buffered.getWheels().publish();
+    direct.getWheels().getSwerveWheel(0).setDiameter(6);
+    direct.getWheels().publish();
+    assertTrue(Arrays.equals(paint(direct), paint(buffered)));
+  }
+
+  public void testCachedFrame() {
+    SwerveViewer viewer = createViewer();
+    viewer.setDirection(0.5, 0.25, 0.25);
+    int[] first = paint(viewer);
+
+    // Wheels changed but not published yet - still showing the last snapshot
+    viewer.getWheels().setDirection(0, 1, 0);
+    assertTrue(Arrays.equals(first, paint(viewer)));
+    viewer.getWheels().publish();
+    assertFalse(Arrays.equals(first, paint(viewer)));
+
+    // Property changes render a new frame
+    int[] before = paint(viewer);
+    viewer.setBackground(Color.LIGHT_GRAY);
+    assertFalse(Arrays.equals(before, paint(viewer)));
+  }
+
+}
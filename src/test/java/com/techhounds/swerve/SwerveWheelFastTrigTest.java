@@ -0,0 +1,138 @@
+package com.techhounds.swerve;
+
+import java.util.Random;
+
+import com.techhounds.math.CartesianPoint;
+import com.techhounds.math.FastTrig;
+import com.techhounds.math.PolarPoint;
+import com.techhounds.math.Trig;
+import com.techhounds.math.TrigProvider;
+import junit.framework.TestCase;
+
+/**
+ * Regression suite verifying that the wheel angles and velocities computed
+ * with the {@link FastTrig} approximations stay within tolerance of the exact
+ * values.
+ */
+public class SwerveWheelFastTrigTest extends TestCase {
+
+  private static final double TOLERANCE = 1e-6;
+
+  private static final double[][] POSITIONS = {{10, 15}, {-10, -15}, {10, -15}, {-10, 15}, {0, 0}, {12, 0}, {0.5, 30}};
+
+  private TrigProvider orig;
+
+  @Override
+  protected void setUp() {
+    orig = Trig.getProvider();
+  }
+
+  @Override
+  protected void tearDown() {
+    Trig.setProvider(orig);
+  }
+
+  private static SwerveWheel[] createWheels() {
+    return Fixtures.createWheels(POSITIONS).getSwerveWheels().toArray(new SwerveWheel[POSITIONS.length]);
+  }
+
+  /**
+   * Verifies two wheels produce the same motion (they may legitimately differ
+   * by 180 degrees with an inverted velocity if a command landed right on the
+   * 90 degree reversal threshold).
+   */
+  private static void assertSameMotion(SwerveWheel exp, SwerveWheel got) {
+    double ev = exp.getVelocity();
+    double gv = got.getVelocity();
+    double ea = exp.getAxleTheta();
+    double ga = got.getAxleTheta();
+    assertEquals(ev * Math.cos(ea), gv * Math.cos(ga), TOLERANCE);
+    assertEquals(ev * Math.sin(ea), gv * Math.sin(ga), TOLERANCE);
+    assertEquals(Math.abs(ev), Math.abs(gv), TOLERANCE);
+    if (Math.abs(ev) > TOLERANCE) {
+      double diff = Math.abs(PolarPoint.computeShortestPath(ea, ga));
+      assertTrue("Angle difference: " + diff, diff < TOLERANCE || Math.abs(diff - Math.PI) < TOLERANCE);
+    }
+  }
+
+  public void testSetDirection() {
+    SwerveWheel[] exact = createWheels();
+    SwerveWheel[] fast = createWheels();
+    Random rand = new Random(4321);
+    for (int step = 0; step < 100000; step++) {
+      double ux = rand.nextDouble() * 2 - 1;
+      double uy = rand.nextDouble() * 2 - 1;
+      double rot = (step % 3 == 0) ? 0 : rand.nextDouble() * 2 - 1;
+      for (int i = 0; i < exact.length; i++) {
+        Trig.setFast(false);
+        exact[i].setDirection(ux, uy, rot);
+        Trig.setFast(true);
+        fast[i].setDirection(ux, uy, rot);
+        assertSameMotion(exact[i], fast[i]);
+        // Continue from the same state so errors can't accumulate
+        fast[i].setAxleTheta(exact[i].getAxleTheta());
+        fast[i].setVelocity(exact[i].getVelocity());
+      }
+    }
+  }
+
+  public void testSetDirectionAxes() {
+    // Commands along the axes and diagonals (where approximations tend to be
+    // weakest)
+    double[][] commands = {{1, 0, 0}, {0, 1, 0}, {-1, 0, 0}, {0, -1, 0}, {1, 1, 0}, {-1, 1, 0}, {-1, -1, 0}, {1, -1, 0}, {0, 0, 1},
+                           {0, 0, -1}, {-0.0, -0.0, 0.5}, {1e-12, -1, 0}};
+    SwerveWheel[] exact = createWheels();
+    SwerveWheel[] fast = createWheels();
+    for (double[] cmd : commands) {
+      for (int i = 0; i < exact.length; i++) {
+        Trig.setFast(false);
+        exact[i].setDirection(cmd[0], cmd[1], cmd[2]);
+        Trig.setFast(true);
+        fast[i].setDirection(cmd[0], cmd[1], cmd[2]);
+        assertSameMotion(exact[i], fast[i]);
+      }
+    }
+  }
+
+  public void testTransform() {
+    SwerveWheel wheel = new SwerveWheel(10, 15, 4, 1);
+    CartesianPoint src = new CartesianPoint();
+    CartesianPoint exp = new CartesianPoint();
+    CartesianPoint got = new CartesianPoint();
+    for (int deg = -180; deg <= 180; deg += 5) {
+      wheel.setAxleTheta(Math.toRadians(deg));
+      for (double[] pt : POSITIONS) {
+        src.set(pt[0] * 0.1, pt[1] * 0.1);
+        Trig.setFast(false);
+        wheel.transform(src, exp);
+        Trig.setFast(true);
+        wheel.transform(src, got);
+        assertEquals(exp.getX(), got.getX(), TOLERANCE);
+        assertEquals(exp.getY(), got.getY(), TOLERANCE);
+      }
+    }
+  }
+
+  public void testFleetMatchesWheels() {
+    Trig.setFast(true);
+    SwerveWheels wheels = new SwerveWheels();
+    for (SwerveWheel wheel : createWheels()) {
+      wheels.add(wheel);
+    }
+    SwerveFleet fleet = new SwerveFleet();
+    fleet.addRobot(wheels);
+    Random rand = new Random(99);
+    for (int step = 0; step < 1000; step++) {
+      double ux = rand.nextDouble() * 2 - 1;
+      double uy = rand.nextDouble() * 2 - 1;
+      double rot = rand.nextDouble() * 2 - 1;
+      wheels.setDirection(ux, uy, rot);
+      fleet.setDirection(ux, uy, rot);
+      for (int i = 0; i < wheels.size(); i++) {
+        assertEquals(wheels.getSwerveWheel(i).getAxleTheta(), fleet.getAxleTheta(i));
+        assertEquals(wheels.getSwerveWheel(i).getVelocity(), fleet.getVelocity(i));
+      }
+    }
+  }
+
+}
@@ -1,6 +1,7 @@
 package com.techhounds.swerve;
 
 import com.techhounds.math.CartesianPoint;
+import com.techhounds.metrics.Metrics;
 import junit.framework.TestCase;
 
 public class SwerveWheelTest extends TestCase {
@@ -391,4 +392,37 @@ public class SwerveWheelTest extends TestCase {
     assertEquals(yofs + r, rspace.getY());
   }
 
+  public void testReverseThreshold() {
+    SwerveWheel sw = new SwerveWheel(10, 15, 4, 1);
+    assertEquals(Math.PI / 2, sw.getReverseThreshold(), TOLERANCE);
+
+    // Default turns 180 degrees by reversing the motor
+    sw.setDirection(1, 0, 0);
+    long reversals = Metrics.WHEEL_REVERSALS.getCount();
+    sw.setDirection(-1, 0, 0);
+    if (Metrics.ENABLED) {
+      assertEquals(reversals + 1, Metrics.WHEEL_REVERSALS.getCount());
+    }
+    assertEquals(0, sw.getAxleTheta(), TOLERANCE);
+    assertEquals(-1, sw.getVelocity(), TOLERANCE);
+
+    // Threshold of PI never reverses
+    sw.setReverseThreshold(Math.PI);
+    sw.setDirection(1, 0, 0);
+    sw.setDirection(0, 1, 0);
+    sw.setDirection(-1, 0, 0);
+    assertEquals(Math.PI, Math.abs(sw.getAxleTheta()), TOLERANCE);
+    assertEquals(1, sw.getVelocity(), TOLERANCE);
+
+    double[] bad = {0, Math.PI / 4, Math.PI + 0.1, Double.NaN};
+    for (double threshold : bad) {
+      try {
+        sw.setReverseThreshold(threshold);
+        fail("Expected rejection of threshold: " + threshold);
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
 }
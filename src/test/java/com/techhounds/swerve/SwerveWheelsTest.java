@@ -0,0 +1,99 @@
+package com.techhounds.swerve;
+
+import junit.framework.TestCase;
+
+public class SwerveWheelsTest extends TestCase {
+
+  private static final double[][] POSITIONS = {{10, 15}, {-10, 15}, {-10, -15}, {10, -15}, {0, 4}};
+
+  /**
+   * Verifies wheels match a full recompute of the turn geometry.
+   */
+  private static void assertTurn(SwerveWheels wheels, double translationTheta, double cx, double cy) {
+    int n = wheels.size();
+    double maxDist = 0;
+    for (int i = 0; i < n; i++) {
+      maxDist = Math.max(maxDist, wheels.getSwerveWheel(i).computeDistance(cx, cy));
+    }
+    for (int i = 0; i < n; i++) {
+      SwerveWheel wheel = wheels.getSwerveWheel(i);
+      assertEquals(translationTheta + wheel.computeForTurnAround(cx, cy), wheel.getAxleTheta());
+      assertEquals(wheel.computeDistance(cx, cy) / maxDist, wheel.getVelocity());
+    }
+  }
+
+  public void testAdd() {
+    SwerveWheels wheels = Fixtures.createWheels(POSITIONS);
+    assertEquals(POSITIONS.length, wheels.size());
+    for (SwerveWheel wheel : wheels.getSwerveWheels()) {
+      assertEquals(0.0, wheel.getAxleTheta());
+      assertEquals(1.0, wheel.getVelocity());
+    }
+  }
+
+  public void testSetTurn() {
+    SwerveWheels wheels = Fixtures.createWheels(POSITIONS);
+    wheels.setTurn(5, 2);
+    assertTurn(wheels, 0, 5, 2);
+    wheels.setTurn(-20, 3);
+    assertTurn(wheels, 0, -20, 3);
+    wheels.setTranslation(0.5);
+    assertTurn(wheels, 0.5, -20, 3);
+    wheels.setTurn(4, -1);
+    assertTurn(wheels, 0.5, 4, -1);
+    // Turning about the center is the same as not turning
+    wheels.setTurn(0, 0);
+    for (SwerveWheel wheel : wheels.getSwerveWheels()) {
+      assertEquals(0.5, wheel.getAxleTheta());
+      assertEquals(1.0, wheel.getVelocity());
+    }
+  }
+
+  public void testTranslationRestoresVelocity() {
+    SwerveWheels wheels = Fixtures.createWheels(POSITIONS);
+    wheels.setTurn(-20, 3);
+    wheels.setDirection(0.25, -0.5, 0.75);
+    wheels.setTranslation(-0.25);
+    assertTurn(wheels, -0.25, -20, 3);
+  }
+
+  public void testAddAfterTurn() {
+    SwerveWheels wheels = Fixtures.createWheels(POSITIONS);
+    wheels.setTurn(-20, 3);
+    // Closer than fastest wheel, then a new fastest wheel
+    wheels.add(new SwerveWheel(-15, 3, 4, 1));
+    assertTurn(wheels, 0, -20, 3);
+    wheels.add(new SwerveWheel(40, 3, 4, 1));
+    assertTurn(wheels, 0, -20, 3);
+  }
+
+  public void testUpdateWheel() {
+    SwerveWheels wheels = Fixtures.createWheels(POSITIONS);
+    wheels.setTurn(-20, 3);
+    wheels.getSwerveWheel(2).setPosition(30, 30);
+    wheels.updateWheel(2);
+    assertTurn(wheels, 0, -20, 3);
+    // Moving fastest wheel closer changes normalization of every wheel
+    wheels.getSwerveWheel(2).setPosition(-19, 3);
+    wheels.updateWheel(2);
+    assertTurn(wheels, 0, -20, 3);
+    try {
+      wheels.updateWheel(POSITIONS.length);
+      fail("Expected bad index to be rejected");
+    } catch (IndexOutOfBoundsException e) {
+      // expected
+    }
+  }
+
+  public void testReadsDoNotModify() {
+    SwerveWheels wheels = Fixtures.createWheels(POSITIONS);
+    wheels.setDirection(0.25, -0.5, 0.75);
+    SwerveWheel wheel = wheels.getSwerveWheel(1);
+    double theta = wheel.getAxleTheta();
+    double velocity = wheel.getVelocity();
+    wheels.add(new SwerveWheel(3, 3, 4, 1));
+    assertEquals(theta, wheels.getSwerveWheel(1).getAxleTheta());
+    assertEquals(velocity, wheels.getSwerveWheel(1).getVelocity());
+  }
+
+}
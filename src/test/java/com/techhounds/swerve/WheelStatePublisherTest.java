@@ -0,0 +1,106 @@
+package com.techhounds.swerve;
+
+import com.techhounds.math.CartesianPoint;
+
+import junit.framework.TestCase;
+
+public class WheelStatePublisherTest extends TestCase {
+
+  public void testEmpty() {
+    WheelStatePublisher publisher = new WheelStatePublisher();
+    WheelStates states = publisher.acquire();
+    assertEquals(0, states.getCount());
+    assertEquals(0, states.getVersion());
+  }
+
+  public void testPublish() {
+    SwerveWheels wheels = Fixtures.createWheels();
+    wheels.setDirection(0.25, -0.5, 0.75);
+    wheels.publish();
+    WheelStates states = wheels.acquireSnapshot();
+    assertEquals(1, states.getVersion());
+    assertEquals(wheels.size(), states.getCount());
+    for (int i = 0; i < wheels.size(); i++) {
+      SwerveWheel wheel = wheels.getSwerveWheel(i);
+      assertEquals(wheel.getX(), states.getX(i));
+      assertEquals(wheel.getY(), states.getY(i));
+      assertEquals(wheel.getDiameter(), states.getDiameter(i));
+      assertEquals(wheel.getWidth(), states.getWidth(i));
+      assertEquals(wheel.getAxleTheta(), states.getAxleTheta(i));
+      assertEquals(wheel.getWheelBearing(), states.getWheelBearing(i));
+      assertEquals(wheel.getVelocity(), states.getVelocity(i));
+    }
+  }
+
+  public void testAcquiredSnapshotIsStable() {
+    SwerveWheels wheels = Fixtures.createWheels();
+    wheels.setDirection(1, 0, 0);
+    wheels.publish();
+    WheelStates states = wheels.acquireSnapshot();
+    double theta = states.getAxleTheta(0);
+    // Several publishes cycle through every other buffer
+    for (int i = 0; i < 5; i++) {
+      wheels.setDirection(0, 1 + i, 0);
+      wheels.publish();
+    }
+    assertEquals(theta, states.getAxleTheta(0));
+    assertEquals(1, states.getVersion());
+    WheelStates latest = wheels.acquireSnapshot();
+    assertEquals(6, latest.getVersion());
+    assertEquals(wheels.getSwerveWheel(0).getAxleTheta(), latest.getAxleTheta(0));
+    // Nothing new published, same snapshot
+    assertSame(latest, wheels.acquireSnapshot());
+  }
+
+  public void testTransform() {
+    SwerveWheels wheels = Fixtures.createWheels();
+    wheels.setDirection(0.25, -0.5, 0.75);
+    wheels.publish();
+    WheelStates states = wheels.acquireSnapshot();
+    CartesianPoint exp = new CartesianPoint();
+    CartesianPoint got = new CartesianPoint();
+    for (int i = 0; i < wheels.size(); i++) {
+      wheels.getSwerveWheel(i).transform(0.5, 2, exp);
+      states.transform(i, 0.5, 2, got);
+      assertEquals(exp.getX(), got.getX());
+      assertEquals(exp.getY(), got.getY());
+    }
+  }
+
+  public void testConcurrentConsistency() throws InterruptedException {
+    final int wheelCount = 16;
+    final long publishes = 200000;
+    final SwerveWheels wheels = Fixtures.createWheels();
+    for (int i = wheels.size(); i < wheelCount; i++) {
+      wheels.add(new SwerveWheel(i, -i, 4, 1));
+    }
+    Thread writer = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        // Every wheel in a published snapshot has the same velocity
+        for (long k = 1; k <= publishes; k++) {
+          for (int i = 0; i < wheelCount; i++) {
+            wheels.getSwerveWheel(i).setVelocity(k);
+          }
+          wheels.publish();
+        }
+      }
+    });
+    writer.start();
+    long lastVersion = 0;
+    while (lastVersion < publishes) {
+      WheelStates states = wheels.acquireSnapshot();
+      long version = states.getVersion();
+      assertTrue(version >= lastVersion);
+      if (version > 0) {
+        for (int i = 0; i < wheelCount; i++) {
+          assertEquals((double) version, states.getVelocity(i));
+        }
+      }
+      lastVersion = version;
+    }
+    writer.join();
+    assertEquals(publishes, lastVersion);
+  }
+
+}
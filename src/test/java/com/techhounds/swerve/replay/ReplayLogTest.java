@@ -0,0 +1,284 @@
+package com.techhounds.swerve.replay;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+
+import com.techhounds.gui.Axis;
+import com.techhounds.gui.Deadband;
+import com.techhounds.gui.InputPipeline;
+import com.techhounds.gui.SlewRateLimiter;
+import com.techhounds.metrics.Allocations;
+import com.techhounds.swerve.Fixtures;
+import com.techhounds.swerve.SwerveFleet;
+import com.techhounds.swerve.SwerveWheels;
+import junit.framework.TestCase;
+
+public class ReplayLogTest extends TestCase {
+
+  private static final long MS = 1000000L;
+
+  private File file;
+
+  @Override
+  protected void setUp() throws IOException {
+    file = File.createTempFile("replay", ".log");
+  }
+
+  @Override
+  protected void tearDown() {
+    file.delete();
+  }
+
+  public void testRoundTrip() throws IOException {
+    ReplayLogWriter out = new ReplayLogWriter(file);
+    out.writeAxis(0, 1, 0.5, 0.0);
+    out.writeModule(MS, 3, 1.25, -0.5);
+    out.close();
+    // Not trimmed (the count in the header says where the records end)
+    assertTrue(file.length() >= 32 + 2 * 32);
+
+    ReplayLog log = new ReplayLog(file);
+    try {
+      assertEquals(2, log.getRecordCount());
+      assertEquals(0, log.getTime(0));
+      assertEquals(ReplayLog.TYPE_AXIS, log.getType(0));
+      assertEquals(1, log.getId(0));
+      assertEquals(0.5, log.getValueA(0));
+      assertEquals(0.0, log.getValueB(0));
+      assertEquals(MS, log.getTime(1));
+      assertEquals(ReplayLog.TYPE_MODULE, log.getType(1));
+      assertEquals(3, log.getId(1));
+      assertEquals(1.25, log.getValueA(1));
+      assertEquals(-0.5, log.getValueB(1));
+      try {
+        log.getTime(2);
+        fail("Expected index check");
+      } catch (IndexOutOfBoundsException e) {
+        // expected
+      }
+    } finally {
+      log.close();
+    }
+  }
+
+  public void testTimeMustNotDecrease() throws IOException {
+    ReplayLogWriter out = new ReplayLogWriter(file);
+    try {
+      out.writeAxis(5, 0, 0, 0);
+      out.writeAxis(5, 0, 0, 0);
+      out.writeAxis(4, 0, 0, 0);
+      fail("Expected time stamp check");
+    } catch (IllegalArgumentException e) {
+      // expected
+    } finally {
+      out.close();
+    }
+  }
+
+  public void testNotALog() throws IOException {
+    FileOutputStream junk = new FileOutputStream(file);
+    junk.write(new byte[64]);
+    junk.close();
+    try {
+      new ReplayLog(file);
+      fail("Expected bad magic to be rejected");
+    } catch (IOException e) {
+      // expected
+    }
+  }
+
+  public void testSeekAndReplay() throws IOException {
+    SwerveWheels wheels = Fixtures.createWheels();
+    ReplayLogWriter out = new ReplayLogWriter(file);
+    double[][] theta = new double[1000][];
+    double[][] velocity = new double[1000][];
+    for (int tick = 0; tick < 1000; tick++) {
+      double t = tick * 0.001;
+      wheels.setDirection(Math.cos(t), Math.sin(t * 3), Math.sin(t));
+      out.writeModules(tick * MS, wheels, 10);
+      theta[tick] = new double[wheels.size()];
+      velocity[tick] = new double[wheels.size()];
+      for (int i = 0; i < wheels.size(); i++) {
+        theta[tick][i] = wheels.getSwerveWheel(i).getAxleTheta();
+        velocity[tick][i] = wheels.getSwerveWheel(i).getVelocity();
+      }
+    }
+    out.close();
+
+    ReplayLog log = new ReplayLog(file);
+    try {
+      assertEquals(4000, log.getRecordCount());
+      assertEquals(0, log.seek(-1));
+      assertEquals(4 * 250, log.seek(250 * MS));
+      assertEquals(4 * 251, log.seek(250 * MS + 1));
+      assertEquals(4000, log.seek(Long.MAX_VALUE));
+
+      // Jump to a point in time and continue one tick at a time
+      SwerveWheels replay = Fixtures.createWheels();
+      long idx = log.replayTo(500 * MS, replay, 10, null);
+      for (int tick = 500; tick < 1000; tick++) {
+        for (int i = 0; i < replay.size(); i++) {
+          assertEquals(theta[tick][i], replay.getSwerveWheel(i).getAxleTheta());
+          assertEquals(velocity[tick][i], replay.getSwerveWheel(i).getVelocity());
+        }
+        // Apply records of the next tick
+        long next = log.seek((tick + 2) * MS);
+        assertEquals((tick < 999) ? 4 : 0, log.replay(idx, next, replay, 10, null));
+        idx = next;
+      }
+      // Wrong base id doesn't apply anything
+      assertEquals(0, log.replay(0, 4000, replay, 100, null));
+    } finally {
+      log.close();
+    }
+  }
+
+  public void testRecordAxis() throws IOException {
+    ReplayLogWriter out = new ReplayLogWriter(file);
+    Axis axis = new Axis();
+    out.recordAxis(axis, 1);
+    axis.setPosition(0.25);
+    axis.setPosition(-0.75);
+    out.close();
+
+    ReplayLog log = new ReplayLog(file);
+    try {
+      assertEquals(2, log.getRecordCount());
+      assertTrue(log.getTime(0) <= log.getTime(1));
+      Axis[] axes = {new Axis(), new Axis()};
+      assertEquals(1, log.replay(0, 1, null, 0, axes));
+      assertEquals(0.25, axes[1].getPosition());
+      assertEquals(0.0, axes[0].getPosition());
+      log.replayTo(Long.MAX_VALUE, null, 0, axes);
+      assertEquals(-0.75, axes[1].getPosition());
+    } finally {
+      log.close();
+    }
+  }
+
+  public void testRecordAxisWithControlThread() throws Exception {
+    final ReplayLogWriter out = new ReplayLogWriter(file);
+    final SwerveWheels wheels = Fixtures.createWheels();
+    final int ticks = 20000;
+    final Exception[] failed = new Exception[1];
+    Thread control = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          for (int tick = 0; tick < ticks; tick++) {
+            out.writeModulesNow(wheels, 0);
+          }
+        } catch (Exception e) {
+          failed[0] = e;
+        }
+      }
+    });
+    Axis axis = new Axis();
+    out.recordAxis(axis, 1);
+    control.start();
+    // Axis updates on this thread interleave with the module records
+    for (int i = 0; i < ticks; i++) {
+      axis.setPosition((i & 1) == 0 ? 0.5 : -0.5);
+    }
+    control.join();
+    out.close();
+    assertNull(failed[0]);
+
+    ReplayLog log = new ReplayLog(file);
+    try {
+      assertEquals(ticks + (long) ticks * wheels.size(), log.getRecordCount());
+      for (long i = 1; i < log.getRecordCount(); i++) {
+        assertTrue(log.getTime(i - 1) <= log.getTime(i));
+      }
+    } finally {
+      log.close();
+    }
+  }
+
+  public void testReplayFiltered() throws IOException {
+    ReplayLogWriter out = new ReplayLogWriter(file);
+    for (int i = 0; i < 10; i++) {
+      out.writeAxis(i * 100 * MS, 0, 1.0, 1.0);
+    }
+    out.writeAxis(1000 * MS, 1, 0.05, 0.0);
+    out.close();
+
+    ReplayLog log = new ReplayLog(file);
+    try {
+      Axis[] axes = {new Axis(), new Axis()};
+      // Slew rate of 2 per second rises 0.2 per record (the first has no elapsed time)
+      InputPipeline[] filters = {new InputPipeline(new SlewRateLimiter(2.0)), new InputPipeline(new Deadband(0.1))};
+      assertEquals(3, log.replay(0, 3, null, 0, axes, filters));
+      assertEquals(0.4, axes[0].getPosition(), 1e-9);
+      assertEquals(8, log.replay(3, log.getRecordCount(), null, 0, axes, filters));
+      assertEquals(1.0, axes[0].getPosition(), 1e-9);
+      assertEquals(0.0, axes[1].getPosition());
+
+      // No filters for an axis applies values unchanged
+      log.replay(0, log.getRecordCount(), null, 0, axes, new InputPipeline[1]);
+      assertEquals(0.05, axes[1].getPosition());
+    } finally {
+      log.close();
+    }
+  }
+
+  public void testManyRecords() throws IOException {
+    // Spans more than one mapped region
+    SwerveFleet fleet = new SwerveFleet();
+    for (int r = 0; r < 100; r++) {
+      fleet.addRobot(Fixtures.createWheels());
+    }
+    int ticks = (ReplayFormat.CHUNK_RECORDS / fleet.getModuleCount()) + 10;
+    ReplayLogWriter out = new ReplayLogWriter(file);
+    for (int tick = 0; tick < ticks; tick++) {
+      fleet.setDirection(Math.cos(tick * 0.001), Math.sin(tick * 0.001), 0.25);
+      out.writeModules(tick * MS, fleet);
+    }
+    // Header is kept up to date without closing
+    out.flush();
+    ReplayLog log = new ReplayLog(file);
+    try {
+      long n = (long) ticks * fleet.getModuleCount();
+      assertEquals(n, log.getRecordCount());
+      long last = n - 1;
+      assertEquals((ticks - 1) * MS, log.getTime(last));
+      assertEquals(fleet.getModuleCount() - 1, log.getId(last));
+      assertEquals(fleet.getAxleTheta(fleet.getModuleCount() - 1), log.getValueA(last));
+      assertEquals((long) (ticks - 1) * fleet.getModuleCount(), log.seek((ticks - 1) * MS));
+      // Closing while a reader still maps the file must work on every platform
+      out.close();
+      ReplayLog closed = new ReplayLog(file);
+      try {
+        assertEquals(n, closed.getRecordCount());
+      } finally {
+        closed.close();
+      }
+    } finally {
+      log.close();
+      out.close();
+    }
+  }
+
+  public void testNoAllocation() throws IOException {
+    final SwerveWheels wheels = Fixtures.createWheels();
+    final ReplayLogWriter out = new ReplayLogWriter(file);
+    try {
+      Allocations.assertNone(new Runnable() {
+        private long tick;
+
+        @Override
+        public void run() {
+          tick++;
+          try {
+            out.writeModules(tick, wheels, 0);
+          } catch (IOException e) {
+            throw new IllegalStateException(e);
+          }
+        }
+      });
+    } finally {
+      out.close();
+    }
+  }
+}
@@ -0,0 +1,146 @@
+package com.techhounds.swerve.sim;
+
+import com.techhounds.swerve.Fixtures;
+import junit.framework.TestCase;
+
+public class ControlLoopTest extends TestCase {
+
+  private static final SwerveController SCRIPT = new SwerveController() {
+    @Override
+    public void update(long tick, double time, DriveCommand dst) {
+      dst.setFromJoystick(Math.cos(time * 3), Math.sin(time * 2), Math.sin(time));
+    }
+  };
+
+  private static SwerveSimulation createSimulation(SwerveController controller, double rateHz) {
+    return new SwerveSimulation(Fixtures.createWheels(new double[][] {{10, 15}, {-10, -15}}), controller, rateHz);
+  }
+
+  public void testPeriod() {
+    ControlLoop loop = new ControlLoop(createSimulation(SCRIPT, 200));
+    assertEquals(5000000, loop.getPeriodNanos());
+    loop = new ControlLoop(createSimulation(SCRIPT, 50));
+    assertEquals(20000000, loop.getPeriodNanos());
+    try {
+      loop.setSpinNanos(loop.getPeriodNanos() + 1);
+      fail("Expected rejection of spin time longer than period");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testRunPaced() {
+    SwerveSimulation sim = createSimulation(SCRIPT, 1000);
+    sim.setPublishing(true);
+    ControlLoop loop = new ControlLoop(sim);
+    long start = System.nanoTime();
+    loop.run(50);
+    long elapsed = System.nanoTime() - start;
+    assertEquals(50, loop.getTicks());
+    assertEquals(50, sim.getTick());
+    // First tick starts right away, the other 49 are a period apart
+    assertTrue(elapsed >= 49 * loop.getPeriodNanos());
+    assertTrue(loop.getMeanJitterNanos() >= 0);
+    assertTrue(loop.getMaxJitterNanos() >= loop.getMeanJitterNanos());
+    // Module commands were published
+    assertEquals(2, sim.getWheels().acquireSnapshot().getCount());
+  }
+
+  public void testOverruns() {
+    SwerveController slow = new SwerveController() {
+      @Override
+      public void update(long tick, double time, DriveCommand dst) {
+        if (tick == 2) {
+          // Blow through 3 deadlines
+          long end = System.nanoTime() + 3500000;
+          while (System.nanoTime() < end) {
+            // busy
+          }
+        }
+        dst.set(0, 1, 0);
+      }
+    };
+    ControlLoop loop = new ControlLoop(createSimulation(slow, 1000));
+    loop.setSpinNanos(loop.getPeriodNanos());
+    loop.run(5);
+    assertEquals(5, loop.getTicks());
+    assertTrue(loop.getOverruns() >= 1);
+    assertTrue(loop.getSkippedTicks() >= 3);
+    loop.resetStats();
+    assertEquals(0, loop.getTicks());
+    assertEquals(0, loop.getOverruns());
+  }
+
+  public void testStartStop() throws InterruptedException {
+    ControlLoop loop = new ControlLoop(createSimulation(SCRIPT, 200));
+    loop.start();
+    assertTrue(loop.isRunning());
+    Thread.sleep(50);
+    loop.stop();
+    assertFalse(loop.isRunning());
+    long ticks = loop.getTicks();
+    assertTrue(ticks > 0);
+    Thread.sleep(20);
+    assertEquals(ticks, loop.getTicks());
+  }
+
+  public void testStopRightAfterStart() throws InterruptedException {
+    final ControlLoop loop = new ControlLoop(createSimulation(SCRIPT, 1000));
+    Thread stopper = new Thread(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          for (int i = 0; i < 200; i++) {
+            loop.start();
+            loop.stop();
+          }
+        } catch (InterruptedException e) {
+          // test fails below
+        }
+      }
+    });
+    stopper.setDaemon(true);
+    stopper.start();
+    // A stop lost to the new thread would hang in join()
+    stopper.join(20000);
+    assertFalse(stopper.isAlive());
+    assertFalse(loop.isRunning());
+  }
+
+  public void testStopWhileWaiting() throws InterruptedException {
+    // 20 ms period and no spinning, so the loop is parked when stopped
+    SwerveSimulation sim = createSimulation(SCRIPT, 50);
+    final ControlLoop loop = new ControlLoop(sim);
+    loop.setSpinNanos(0);
+    loop.start();
+    while (loop.getTicks() == 0) {
+      Thread.yield();
+    }
+    loop.stop();
+    // No early step and no negative jitter recorded for it
+    assertEquals(1, loop.getTicks());
+    assertEquals(1, sim.getTick());
+    assertTrue(loop.getMeanJitterNanos() >= 0);
+  }
+
+  public void testStopRun() throws InterruptedException {
+    SwerveSimulation sim = createSimulation(SCRIPT, 50);
+    final ControlLoop loop = new ControlLoop(sim);
+    loop.setSpinNanos(0);
+    Thread runner = new Thread(loop);
+    runner.setDaemon(true);
+    runner.start();
+    while (loop.getTicks() == 0) {
+      Thread.yield();
+    }
+    long start = System.nanoTime();
+    loop.stop();
+    runner.join(5000);
+    assertFalse(runner.isAlive());
+    // Woken up instead of waiting out the 20 ms period and stepping again
+    assertTrue(System.nanoTime() - start < loop.getPeriodNanos());
+    assertEquals(1, loop.getTicks());
+    assertEquals(1, sim.getTick());
+  }
+
+}
@@ -0,0 +1,184 @@
+package com.techhounds.swerve.sim;
+
+import java.util.HashSet;
+import java.util.Random;
+import java.util.Set;
+
+import com.techhounds.metrics.Allocations;
+import com.techhounds.swerve.Fixtures;
+import com.techhounds.swerve.SwerveWheel;
+import com.techhounds.swerve.SwerveWheels;
+import junit.framework.TestCase;
+
+public class FieldCollisionsTest extends TestCase {
+
+  private static final double FIELD_WIDTH = 324;
+
+  private static final double FIELD_LENGTH = 648;
+
+  public void testFootprintFromWheels() {
+    SwerveWheels wheels = new SwerveWheels();
+    wheels.add(new SwerveWheel(10, 15, 4, 3));
+    wheels.add(new SwerveWheel(-10, -15, 4, 3));
+    FieldCollisions field = new FieldCollisions(FIELD_WIDTH, FIELD_LENGTH, 40);
+    int a = field.addRobot(wheels);
+    int b = field.addRobot(wheels);
+    // Wheel bounds are 2.5 past the wheel centers, so robots are 25 x 35
+    field.setPose(a, 100, 100, 0);
+    field.setPose(b, 125, 100, 0);
+    assertEquals(1, field.update());
+    assertEquals(a, field.getContactA(0));
+    assertEquals(b, field.getContactB(0));
+    field.setPose(b, 125.01, 100, 0);
+    assertEquals(0, field.update());
+  }
+
+  public void testOrientedNarrowPhase() {
+    FieldCollisions field = new FieldCollisions(FIELD_WIDTH, FIELD_LENGTH, 20);
+    int a = field.addRobot(-10, -10, 10, 10);
+    int b = field.addRobot(-10, -10, 10, 10);
+    // Two diamonds whose bounding boxes overlap but corners don't touch
+    field.setPose(a, 100, 100, Math.PI / 4);
+    field.setPose(b, 125, 125, Math.PI / 4);
+    assertEquals(0, field.update());
+    assertEquals(1, field.getCandidateCount());
+    // Square up the other robot so its corner pokes into the diamond's side
+    field.setPose(b, 115, 115, 0);
+    assertEquals(1, field.update());
+  }
+
+  public void testWalls() {
+    FieldCollisions field = new FieldCollisions(FIELD_WIDTH, FIELD_LENGTH, 40);
+    int a = field.addRobot(-10, -15, 10, 15);
+    int b = field.addRobot(-10, -15, 10, 15);
+    field.setPose(a, 20, 100, 0);
+    field.setPose(b, 200, 200, 0);
+    field.update();
+    assertEquals(0, field.getWallContactCount());
+    // Turning sideways swings the long side into the wall
+    field.setPose(a, 14, 100, Math.PI / 2);
+    field.update();
+    assertEquals(1, field.getWallContactCount());
+    assertEquals(a, field.getWallContact(0));
+  }
+
+  public void testIncrementalUpdates() {
+    FieldCollisions field = new FieldCollisions(FIELD_WIDTH, FIELD_LENGTH, 50);
+    int a = field.addRobot(-10, -10, 10, 10);
+    field.setPose(a, 125, 125, 0);
+    long updates = field.getCellUpdates();
+    // Small moves within the same cell don't touch the grid
+    for (int i = 0; i < 10; i++) {
+      field.setPose(a, 125 + i, 125 - i, i * 0.01);
+    }
+    assertEquals(updates, field.getCellUpdates());
+    field.setPose(a, 200, 125, 0);
+    assertEquals(updates + 1, field.getCellUpdates());
+  }
+
+  public void testMatchesBruteForce() {
+    Random rand = new Random(17);
+    int n = 300;
+    double[][] robots = new double[n][5];
+    FieldCollisions field = new FieldCollisions(FIELD_WIDTH, FIELD_LENGTH, 30);
+    for (int i = 0; i < n; i++) {
+      robots[i][0] = 5 + rand.nextDouble() * 20;
+      robots[i][1] = 5 + rand.nextDouble() * 40;
+      field.addRobot(-robots[i][0] / 2, -robots[i][1] / 2, robots[i][0] / 2, robots[i][1] / 2);
+    }
+    for (int step = 0; step < 5; step++) {
+      for (int i = 0; i < n; i++) {
+        robots[i][2] = rand.nextDouble() * FIELD_WIDTH;
+        robots[i][3] = rand.nextDouble() * FIELD_LENGTH;
+        robots[i][4] = (rand.nextDouble() - 0.5) * 2 * Math.PI;
+        field.setPose(i, robots[i][2], robots[i][3], robots[i][4]);
+      }
+      Set<Long> found = new HashSet<Long>();
+      for (int k = 0, c = field.update(); k < c; k++) {
+        assertTrue(found.add((long) field.getContactA(k) * n + field.getContactB(k)));
+      }
+      // Check every pair on its own (in a single cell) as the reference
+      int expected = 0;
+      for (int i = 0; i < n; i++) {
+        for (int j = i + 1; j < n; j++) {
+          FieldCollisions pair = new FieldCollisions(FIELD_WIDTH, FIELD_LENGTH, 10000);
+          addRobot(pair, robots[i]);
+          addRobot(pair, robots[j]);
+          if (pair.update() == 1) {
+            expected++;
+            assertTrue(found.contains((long) i * n + j));
+          }
+        }
+      }
+      assertEquals(expected, found.size());
+      // Broad phase should prune nearly all pairs
+      assertTrue(field.getCandidateCount() < n * (n - 1) / 20);
+    }
+  }
+
+  public void testOnlyMovedRobotsChecked() {
+    FieldCollisions field = new FieldCollisions(FIELD_WIDTH, FIELD_LENGTH, 40);
+    int n = 10;
+    // A row of robots with each touching the next (and the first past the wall)
+    for (int i = 0; i < n; i++) {
+      field.addRobot(-10, -10, 10, 10);
+      field.setPose(i, 9 + i * 20, 100, 0);
+    }
+    assertEquals(n - 1, field.update());
+    // Setting the same poses again isn't a move
+    for (int i = 0; i < n; i++) {
+      field.setPose(i, 9 + i * 20, 100, 0);
+    }
+    assertEquals(n - 1, field.update());
+    assertEquals(0, field.getCandidateCount());
+    assertEquals(1, field.getWallContactCount());
+    assertEquals(0, field.getWallContact(0));
+
+    // Pull one robot out of the row
+    field.setPose(4, 89, 300, 0);
+    assertEquals(n - 3, field.update());
+    assertEquals(0, field.getCandidateCount());
+    for (int k = 0; k < field.getContactCount(); k++) {
+      assertTrue(field.getContactA(k) != 4 && field.getContactB(k) != 4);
+      assertEquals(field.getContactA(k) + 1, field.getContactB(k));
+    }
+    // Put it back, along with moving a neighbor and the robot at the wall
+    field.setPose(4, 89, 100, 0);
+    field.setPose(5, 109, 100.5, 0);
+    field.setPose(0, 9, 100.5, 0);
+    assertEquals(n - 1, field.update());
+    assertEquals(1, field.getWallContactCount());
+    Set<Long> found = new HashSet<Long>();
+    for (int k = 0; k < field.getContactCount(); k++) {
+      assertEquals(field.getContactA(k) + 1, field.getContactB(k));
+      assertTrue(found.add((long) field.getContactA(k)));
+    }
+  }
+
+  private static void addRobot(FieldCollisions field, double[] robot) {
+    int r = field.addRobot(-robot[0] / 2, -robot[1] / 2, robot[0] / 2, robot[1] / 2);
+    field.setPose(r, robot[2], robot[3], robot[4]);
+  }
+
+  public void testNoAllocation() {
+    final FieldCollisions field = new FieldCollisions(FIELD_WIDTH, FIELD_LENGTH, 40);
+    final int robots = 50;
+    for (int r = 0; r < robots; r++) {
+      field.addRobot(Fixtures.createWheels());
+    }
+    Allocations.assertNone(new Runnable() {
+      private long tick;
+
+      @Override
+      public void run() {
+        tick++;
+        // Robots drive around a ring (and bump into each other)
+        for (int r = 0; r < robots; r++) {
+          double a = r * 2 * Math.PI / robots + tick * 1e-4;
+          field.setPose(r, 162 + 120 * Math.cos(a), 324 + 120 * Math.sin(a), a);
+        }
+        field.update();
+      }
+    });
+  }
+}
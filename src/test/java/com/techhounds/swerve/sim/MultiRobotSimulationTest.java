@@ -0,0 +1,91 @@
+package com.techhounds.swerve.sim;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.techhounds.swerve.Fixtures;
+import junit.framework.TestCase;
+
+public class MultiRobotSimulationTest extends TestCase {
+
+  private static final int ROBOTS = 150;
+
+  private static final long TICKS = 20;
+
+  public void testLockstep() throws InterruptedException {
+    // Count how many robots have started each tick - no robot may start tick
+    // n + 1 until every robot has finished tick n
+    final AtomicLongArray started = new AtomicLongArray((int) TICKS);
+    final boolean[] outOfStep = new boolean[1];
+    MultiRobotSimulation swarm = new MultiRobotSimulation(200);
+    for (int i = 0; i < ROBOTS; i++) {
+      swarm.addRobot(Fixtures.createWheels(), new SwerveController() {
+        @Override
+        public void update(long tick, double time, DriveCommand dst) {
+          started.incrementAndGet((int) tick);
+          if (tick > 0 && started.get((int) tick - 1) != ROBOTS) {
+            outOfStep[0] = true;
+          }
+          dst.setFromJoystick(Math.cos(time), Math.sin(time), 0.5);
+        }
+      });
+    }
+    assertEquals(ROBOTS, swarm.getRobotCount());
+    assertTrue(swarm.run(TICKS) > 0);
+    assertFalse(outOfStep[0]);
+    for (int t = 0; t < TICKS; t++) {
+      assertEquals(ROBOTS, started.get(t));
+    }
+    for (int i = 0; i < ROBOTS; i++) {
+      assertEquals(TICKS, swarm.getRobot(i).getTick());
+    }
+    assertTrue(swarm.getMeanLagNanos() > 0);
+    assertTrue(swarm.getMaxLagNanos() >= swarm.getMeanLagNanos());
+  }
+
+  public void testPlatformThreads() throws InterruptedException {
+    MultiRobotSimulation swarm = new MultiRobotSimulation(50);
+    swarm.setVirtualThreads(false);
+    assertFalse(swarm.isVirtualThreads());
+    SwerveSimulation a = swarm.addRobot(Fixtures.createWheels(), new SwerveController() {
+      @Override
+      public void update(long tick, double time, DriveCommand dst) {
+        dst.set(0, 1, 0);
+      }
+    });
+    SwerveSimulation b = swarm.addRobot(Fixtures.createWheels(), new SwerveController() {
+      @Override
+      public void update(long tick, double time, DriveCommand dst) {
+        dst.set(1, 0, 0);
+      }
+    });
+    swarm.run(TICKS);
+    assertEquals(TICKS, a.getTick());
+    assertEquals(TICKS, b.getTick());
+    // Forward on one robot, right on the other
+    assertEquals(Math.PI / 2, a.getWheels().getSwerveWheel(0).getAxleTheta(), 1e-9);
+    assertEquals(0, b.getWheels().getSwerveWheel(0).getAxleTheta(), 1e-9);
+  }
+
+  public void testFailure() throws InterruptedException {
+    MultiRobotSimulation swarm = new MultiRobotSimulation(50);
+    for (int i = 0; i < 10; i++) {
+      final boolean fail = (i == 3);
+      swarm.addRobot(Fixtures.createWheels(), new SwerveController() {
+        @Override
+        public void update(long tick, double time, DriveCommand dst) {
+          if (fail && tick == 5) {
+            throw new ArithmeticException("boom");
+          }
+          dst.set(0, 1, 0);
+        }
+      });
+    }
+    try {
+      swarm.run(TICKS);
+      fail("Expected robot failure to be reported");
+    } catch (IllegalStateException e) {
+      assertTrue(e.getCause() instanceof ArithmeticException);
+    }
+  }
+
+}
@@ -0,0 +1,92 @@
+package com.techhounds.swerve.sim;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Comparator;
+
+import junit.framework.TestCase;
+
+public class ParameterSweepTest extends TestCase {
+
+  private static ParameterSweep createSweep() {
+    ParameterSweep sweep = new ParameterSweep();
+    sweep.setWheelBase(new SweepRange(20, 40, 3));
+    sweep.setTrackWidth(new SweepRange(20));
+    sweep.setDeadband(new SweepRange(0, 0.1, 2));
+    sweep.setRotationScale(new SweepRange(0.5, 1.0, 2));
+    sweep.setReverseThreshold(new SweepRange(Math.PI / 2, Math.PI, 2));
+    sweep.setSeconds(5);
+    return sweep;
+  }
+
+  private static String[] runSorted(ParameterSweep sweep) throws IOException {
+    StringWriter out = new StringWriter();
+    int rows = sweep.run(out);
+    String[] lines = out.toString().split("\n");
+    assertEquals(rows + 1, lines.length);
+    assertEquals(ParameterSweep.HEADER, lines[0]);
+    String[] data = Arrays.copyOfRange(lines, 1, lines.length);
+    Arrays.sort(data, new Comparator<String>() {
+      @Override
+      public int compare(String a, String b) {
+        return Integer.compare(caseOf(a), caseOf(b));
+      }
+    });
+    return data;
+  }
+
+  private static int caseOf(String row) {
+    return Integer.parseInt(row.substring(0, row.indexOf(',')));
+  }
+
+  public void testSweepRange() {
+    SweepRange range = new SweepRange(1, 2, 5);
+    assertEquals(5, range.getCount());
+    assertEquals(1.0, range.get(0));
+    assertEquals(1.25, range.get(1));
+    assertEquals(2.0, range.get(4));
+    assertEquals(3.0, new SweepRange(3).get(0));
+    SweepRange parsed = SweepRange.parse(range.toString());
+    assertEquals(range.getCount(), parsed.getCount());
+    assertEquals(range.get(3), parsed.get(3));
+    try {
+      new SweepRange(1, 2, 0);
+      fail("Expected empty range to be rejected");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+  }
+
+  public void testRun() throws IOException {
+    ParameterSweep sweep = createSweep();
+    assertEquals(24, sweep.getCaseCount());
+    String[] rows = runSorted(sweep);
+    assertEquals(24, rows.length);
+    for (int i = 0; i < rows.length; i++) {
+      String[] cols = rows[i].split(",");
+      assertEquals(10, cols.length);
+      assertEquals(i, Integer.parseInt(cols[0]));
+      double threshold = Double.parseDouble(cols[5]);
+      long reversals = Long.parseLong(cols[8]);
+      if (threshold == Math.PI) {
+        // Wheels never reverse if they are allowed to turn all the way around
+        assertEquals(0, reversals);
+      }
+      assertTrue(Double.parseDouble(cols[6]) > 0);
+      assertTrue(Double.parseDouble(cols[9]) > 0);
+    }
+    // Wheel base varies slowest
+    assertEquals(20.0, Double.parseDouble(rows[0].split(",")[1]));
+    assertEquals(40.0, Double.parseDouble(rows[23].split(",")[1]));
+  }
+
+  public void testDeterministic() throws IOException {
+    ParameterSweep sweep = createSweep();
+    sweep.setParallelism(1);
+    String[] serial = runSorted(sweep);
+    sweep.setParallelism(4);
+    assertTrue(Arrays.equals(serial, runSorted(sweep)));
+  }
+
+}
@@ -0,0 +1,75 @@
+package com.techhounds.swerve.sim;
+
+import com.techhounds.gui.InputEventQueue;
+import com.techhounds.gui.SlewRateLimiter;
+import junit.framework.TestCase;
+
+public class QueuedInputControllerTest extends TestCase {
+
+  private static final double TOLERANCE = 1e-12;
+
+  public void testLatestValueWins() {
+    InputEventQueue queue = new InputEventQueue();
+    QueuedInputController controller = new QueuedInputController(queue);
+    DriveCommand got = new DriveCommand();
+    DriveCommand exp = new DriveCommand();
+
+    controller.update(0, 0, got);
+    assertEquals(0.0, got.getTranslationX());
+
+    // Several events between ticks, only the last one of each channel is used
+    queue.offer(QueuedInputController.TRANSLATION_X, 0.1);
+    queue.offer(QueuedInputController.TRANSLATION_X, 0.5);
+    queue.offer(QueuedInputController.TRANSLATION_Y, -0.25);
+    queue.offer(QueuedInputController.ROTATION, 0.75);
+    queue.offer(42, 1.0);
+    controller.update(1, 0.005, got);
+    exp.setFromJoystick(0.5, -0.25, 0.75);
+    assertEquals(exp.getTranslationX(), got.getTranslationX(), TOLERANCE);
+    assertEquals(exp.getTranslationY(), got.getTranslationY(), TOLERANCE);
+    assertEquals(exp.getRotation(), got.getRotation(), TOLERANCE);
+    assertEquals(5, controller.getEventCount());
+    assertEquals(1, controller.getIgnoredCount());
+    assertTrue(queue.isEmpty());
+
+    // Field oriented until the heading is cleared
+    queue.offer(QueuedInputController.HEADING, Math.PI / 2);
+    controller.update(2, 0.010, got);
+    exp.fieldToRobot(Math.PI / 2);
+    assertEquals(exp.getTranslationX(), got.getTranslationX(), TOLERANCE);
+    assertEquals(exp.getTranslationY(), got.getTranslationY(), TOLERANCE);
+    queue.offer(QueuedInputController.HEADING, Double.NaN);
+    controller.update(3, 0.015, got);
+    exp.setFromJoystick(0.5, -0.25, 0.75);
+    assertEquals(exp.getTranslationX(), got.getTranslationX(), TOLERANCE);
+  }
+
+  public void testFilterRunsEveryTick() {
+    InputEventQueue queue = new InputEventQueue();
+    QueuedInputController controller = new QueuedInputController(queue);
+    controller.setFilter(QueuedInputController.ROTATION, new SlewRateLimiter(10));
+    try {
+      controller.setFilter(QueuedInputController.HEADING, new SlewRateLimiter(10));
+      fail("Expected rejection of heading filter");
+    } catch (IllegalArgumentException e) {
+      // expected
+    }
+
+    DriveCommand got = new DriveCommand();
+    DriveCommand exp = new DriveCommand();
+    queue.offer(QueuedInputController.ROTATION, 1.0);
+    controller.update(0, 0, got);
+    assertEquals(0.0, got.getRotation(), TOLERANCE);
+    // Single event, but the limiter keeps ramping at the control rate
+    for (int tick = 1; tick <= 5; tick++) {
+      controller.update(tick, tick * 0.01, got);
+    }
+    assertEquals(exp.setFromJoystick(0, 0, 0.5).getRotation(), got.getRotation(), 1e-9);
+    for (int tick = 6; tick <= 15; tick++) {
+      controller.update(tick, tick * 0.01, got);
+    }
+    assertEquals(exp.setFromJoystick(0, 0, 1.0).getRotation(), got.getRotation(), 1e-9);
+    assertEquals(1, controller.getEventCount());
+  }
+
+}
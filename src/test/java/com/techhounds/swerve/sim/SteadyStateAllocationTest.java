@@ -0,0 +1,68 @@
+package com.techhounds.swerve.sim;
+
+import com.techhounds.math.CartesianPoint;
+import com.techhounds.math.PolarPoint;
+import com.techhounds.metrics.Allocations;
+import com.techhounds.swerve.Fixtures;
+import com.techhounds.swerve.ModuleDynamics;
+import com.techhounds.swerve.SwerveFleet;
+import com.techhounds.swerve.SwerveWheel;
+import junit.framework.TestCase;
+
+/**
+ * Uses the per-thread allocation counter to verify that the steady state
+ * control paths do not allocate any memory.
+ */
+public class SteadyStateAllocationTest extends TestCase {
+
+  public void testSimulationTick() {
+    final SwerveSimulation sim = new SwerveSimulation(Fixtures.createWheels(), new SwerveController() {
+      @Override
+      public void update(long tick, double time, DriveCommand dst) {
+        dst.setFromJoystick(Math.cos(time), Math.sin(time), Math.sin(time * 0.1));
+      }
+    }, SwerveSimulation.MAX_RATE_HZ);
+    sim.setDynamics(new ModuleDynamics(sim.getWheels().size()));
+    Allocations.assertNone(new Runnable() {
+      @Override
+      public void run() {
+        sim.step();
+      }
+    });
+  }
+
+  public void testFleetTick() {
+    final SwerveFleet fleet = new SwerveFleet();
+    for (int i = 0; i < 100; i++) {
+      fleet.addRobot(Fixtures.createWheels());
+    }
+    Allocations.assertNone(new Runnable() {
+      private double t;
+
+      @Override
+      public void run() {
+        t += 0.001;
+        fleet.setDirection(Math.cos(t), Math.sin(t), 0.5);
+      }
+    });
+  }
+
+  public void testPointMath() {
+    final CartesianPoint cp = new CartesianPoint(3, 4);
+    final PolarPoint pp = new PolarPoint();
+    final SwerveWheel wheel = new SwerveWheel(10, 15, 4, 1);
+    Allocations.assertNone(new Runnable() {
+      @Override
+      public void run() {
+        cp.rotate(1, 1, 0.01);
+        cp.toPolar(pp);
+        pp.toCartesian(cp);
+        cp.rotate(0, 0, 0.02, pp);
+        wheel.transform(cp, cp);
+        wheel.transform(0.5, 2, cp);
+        cp.translate(10, 15);
+      }
+    });
+  }
+
+}
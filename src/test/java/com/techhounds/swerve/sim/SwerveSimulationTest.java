@@ -0,0 +1,156 @@
+package com.techhounds.swerve.sim;
+
+import com.techhounds.swerve.Fixtures;
+import com.techhounds.swerve.SwerveWheel;
+import com.techhounds.swerve.SwerveWheels;
+import junit.framework.TestCase;
+
+public class SwerveSimulationTest extends TestCase {
+
+  private static final double TOLERANCE = 1e-9;
+
+  private static final SwerveController SCRIPT = new SwerveController() {
+    @Override
+    public void update(long tick, double time, DriveCommand dst) {
+      dst.setFromJoystick(Math.cos(time * 3), Math.sin(time * 2), Math.sin(time));
+    }
+  };
+
+  public void testRateRange() {
+    SwerveWheels wheels = Fixtures.createWheels();
+    new SwerveSimulation(wheels, SCRIPT, SwerveSimulation.MIN_RATE_HZ);
+    new SwerveSimulation(wheels, SCRIPT, SwerveSimulation.MAX_RATE_HZ);
+    double[] badRates = {0, SwerveSimulation.MIN_RATE_HZ - 1, SwerveSimulation.MAX_RATE_HZ + 1, Double.NaN};
+    for (double rate : badRates) {
+      try {
+        new SwerveSimulation(wheels, SCRIPT, rate);
+        fail("Expected rejection of rate: " + rate);
+      } catch (IllegalArgumentException e) {
+        // expected
+      }
+    }
+  }
+
+  public void testTime() {
+    SwerveSimulation sim = new SwerveSimulation(Fixtures.createWheels(), SCRIPT, 200);
+    assertEquals(0.005, sim.getDt(), TOLERANCE);
+    sim.runFor(1.5);
+    assertEquals(300, sim.getTick());
+    assertEquals(1.5, sim.getTime(), TOLERANCE);
+    assertTrue(sim.getTicksPerSecond() > 0);
+  }
+
+  public void testPublishing() {
+    SwerveSimulation sim = new SwerveSimulation(Fixtures.createWheels(), SCRIPT, 1000);
+    assertFalse(sim.isPublishing());
+    long version = sim.getWheels().acquireSnapshot().getVersion();
+    sim.run(10);
+    // Headless runs leave the snapshot alone
+    assertEquals(version, sim.getWheels().acquireSnapshot().getVersion());
+
+    sim.setPublishing(true);
+    sim.step();
+    assertEquals(version + 1, sim.getWheels().acquireSnapshot().getVersion());
+    assertEquals(Fixtures.CORNERS.length, sim.getWheels().acquireSnapshot().getCount());
+  }
+
+  public void testStepMatchesDirectPath() {
+    SwerveSimulation sim = new SwerveSimulation(Fixtures.createWheels(), SCRIPT, 1000);
+    SwerveWheels exp = Fixtures.createWheels();
+    DriveCommand cmd = new DriveCommand();
+    for (int tick = 0; tick < 5000; tick++) {
+      sim.step();
+      SCRIPT.update(tick, tick * sim.getDt(), cmd);
+      exp.setDirection(cmd.getTranslationX(), cmd.getTranslationY(), cmd.getRotation());
+      for (int i = 0; i < Fixtures.CORNERS.length; i++) {
+        SwerveWheel got = sim.getWheels().getSwerveWheel(i);
+        assertEquals(exp.getSwerveWheel(i).getAxleTheta(), got.getAxleTheta());
+        assertEquals(exp.getSwerveWheel(i).getVelocity(), got.getVelocity());
+      }
+    }
+  }
+
+  public void testSetFromJoystick() {
+    DriveCommand cmd = new DriveCommand();
+
+    // Full forward maps to +x in wheel bearing space with no rotation
+    cmd.setFromJoystick(0, 1, 1);
+    assertEquals(1.0, cmd.getTranslationX(), TOLERANCE);
+    assertEquals(0.0, cmd.getTranslationY(), TOLERANCE);
+    assertEquals(0.0, cmd.getRotation(), TOLERANCE);
+
+    // Full right maps to -y in wheel bearing space
+    cmd.setFromJoystick(1, 0, 0);
+    assertEquals(0.0, cmd.getTranslationX(), TOLERANCE);
+    assertEquals(-1.0, cmd.getTranslationY(), TOLERANCE);
+
+    // Corner is normalized to a magnitude of 1
+    cmd.setFromJoystick(1, 1, 0);
+    assertEquals(Math.sqrt(0.5), cmd.getTranslationX(), TOLERANCE);
+    assertEquals(-Math.sqrt(0.5), cmd.getTranslationY(), TOLERANCE);
+
+    // Rotation only (right is clockwise)
+    cmd.setFromJoystick(0, 0, 0.5);
+    assertEquals(0.0, cmd.getTranslationX(), TOLERANCE);
+    assertEquals(0.0, cmd.getTranslationY(), TOLERANCE);
+    assertEquals(-0.5, cmd.getRotation(), TOLERANCE);
+
+    // Rotation scaled down by translation
+    cmd.setFromJoystick(0, 0.25, -1);
+    assertEquals(0.75, cmd.getRotation(), TOLERANCE);
+  }
+
+  public void testFieldToRobot() {
+    DriveCommand cmd = new DriveCommand();
+
+    // No heading leaves the command unchanged
+    cmd.setFromJoystick(0.3, -0.7, 0.2).fieldToRobot(0);
+    DriveCommand exp = new DriveCommand().setFromJoystick(0.3, -0.7, 0.2);
+    assertEquals(exp.getTranslationX(), cmd.getTranslationX(), TOLERANCE);
+    assertEquals(exp.getTranslationY(), cmd.getTranslationY(), TOLERANCE);
+    assertEquals(exp.getRotation(), cmd.getRotation(), TOLERANCE);
+
+    // Robot turned left 90 degrees - pushing away from the driver drives the
+    // robot to its right
+    cmd.setFromJoystick(0, 1, 0).fieldToRobot(Math.PI / 2);
+    assertEquals(0.0, cmd.getTranslationX(), TOLERANCE);
+    assertEquals(-1.0, cmd.getTranslationY(), TOLERANCE);
+
+    // Robot facing the driver - pushing right drives the robot to its left
+    cmd.setFromJoystick(1, 0, 0.5).fieldToRobot(Math.PI);
+    assertEquals(0.0, cmd.getTranslationX(), TOLERANCE);
+    assertEquals(1.0, cmd.getTranslationY(), TOLERANCE);
+    assertEquals(exp.setFromJoystick(1, 0, 0.5).getRotation(), cmd.getRotation(), TOLERANCE);
+  }
+
+  public void testDeadbandAndRotationScale() {
+    DriveCommand exp = new DriveCommand();
+    DriveCommand cmd = new DriveCommand();
+
+    // Defaults match the original rules exactly
+    exp.setFromJoystick(0.3, -0.7, 0.2);
+    cmd.setFromJoystick(0.3, -0.7, 0.2, 0, 1.0);
+    assertEquals(exp.getTranslationX(), cmd.getTranslationX());
+    assertEquals(exp.getTranslationY(), cmd.getTranslationY());
+    assertEquals(exp.getRotation(), cmd.getRotation());
+
+    // Inputs inside deadband are ignored
+    cmd.setFromJoystick(0.05, -0.05, 0.05, 0.1, 1.0);
+    assertEquals(0.0, cmd.getTranslationX(), TOLERANCE);
+    assertEquals(0.0, cmd.getTranslationY(), TOLERANCE);
+    assertEquals(0.0, cmd.getRotation(), TOLERANCE);
+
+    // Inputs outside deadband are rescaled to still reach full deflection
+    cmd.setFromJoystick(0, 0.55, 0, 0.1, 1.0);
+    assertEquals(0.5, cmd.getTranslationX(), TOLERANCE);
+    cmd.setFromJoystick(0, -1, 0, 0.1, 1.0);
+    assertEquals(-1.0, cmd.getTranslationX(), TOLERANCE);
+
+    // No rotation scaling
+    cmd.setFromJoystick(0, 0.25, -1, 0, 0);
+    assertEquals(1.0, cmd.getRotation(), TOLERANCE);
+    cmd.setFromJoystick(0, 0.25, -1, 0, 0.5);
+    assertEquals(0.875, cmd.getRotation(), TOLERANCE);
+  }
+
+}